@@ -18,9 +18,13 @@
 
 package qilin;
 
+import qilin.stat.StatKind;
+import qilin.util.DataFactory;
 import soot.SourceLocator;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class CoreConfig {
     protected static CoreConfig coreConfig = null;
@@ -40,6 +44,14 @@ public class CoreConfig {
         FULL, ONFLY, APP
     }
 
+    public enum PointsToSetKind {
+        HYBRID, ROARING
+    }
+
+    public enum WorklistKind {
+        NUMBER, FIFO, LRF, TOPO, TWO_LEVEL
+    }
+
     public static class CorePTAConfiguration {
         public boolean singleentry = false;
         /**
@@ -88,6 +100,62 @@ public class CoreConfig {
          */
         public boolean enforceEmptyCtxForIgnoreTypes = false;
 
+        /**
+         * number of threads used to propagate points-to sets.
+         * 1 selects the sequential Solver, any larger value selects the wave-based ParallelSolver.
+         */
+        public int solverThreads = 1;
+
+        /**
+         * implementation of the sets held by DoublePointsToSet:
+         * HYBRID: a small array which turns into a dense bit vector once it has more than 16 elements.
+         * ROARING: a compressed bitmap whose memory is proportional to its contents, better for sparse large sets.
+         */
+        public PointsToSetKind pointsToSetKind = PointsToSetKind.HYBRID;
+
+        /**
+         * detect cycles of simple edges lazily during propagation and let the nodes of a cycle
+         * (with the same declared type) share one points-to set.
+         */
+        public boolean collapseCycles = false;
+
+        /**
+         * number the locals of each method by hash-based value numbering before adding its edges to the PAG and
+         * let pointer-equivalent locals share one points-to set.
+         */
+        public boolean valueNumbering = false;
+
+        /**
+         * scheduling strategy of the worklist of the solvers:
+         * NUMBER: most recently created nodes first (default).
+         * FIFO: first-in first-out.
+         * LRF: least recently fired nodes first.
+         * TOPO: waves of pending nodes, each processed in a topological order of its simple edges.
+         * TWO_LEVEL: nodes partitioned by method, one partition processed until it is stable before the next.
+         */
+        public WorklistKind worklistKind = WorklistKind.NUMBER;
+
+        /**
+         * directory of a persistent cache of method bodies shared across runs, null to disable the cache.
+         * Cached bodies are invalidated by any change of the class file they come from.
+         */
+        public String methodBodyCacheDir = null;
+
+        /**
+         * implementation of the maps and sets of the PAG (e.g., its edges), created through DataFactory:
+         * JDK: HashMap/HashSet/ArrayList (default).
+         * COMPACT: sets of up to 4 elements are kept in inline arrays.
+         * CONCURRENT: concurrent collections, for analyses that update shared data from several threads.
+         */
+        public DataFactory.Backend dataFactoryBackend = DataFactory.Backend.JDK;
+
+        /**
+         * convert the edges of the PAG into compressed sparse rows once the analysis has been solved, so that
+         * post-analysis clients (e.g., Zipper, Conch and the statistics) read them from compact arrays.
+         * No edge may be added to the PAG afterwards.
+         */
+        public boolean freezePAG = false;
+
         public String ptaName;
     }
 
@@ -167,6 +235,18 @@ public class CoreConfig {
          * if true, dump stats into files.
          */
         public boolean dumpStats = false;
+
+        /**
+         * the stats computed (concurrently) by PTAEvaluator once the analysis is done.
+         * If empty, a simplified evaluation is done instead.
+         */
+        public Set<StatKind> evalStats = EnumSet.noneOf(StatKind.class);
+
+        /**
+         * if not null, the metrics of the run (see Metrics) are exported into this file, as CSV if it ends with
+         * ".csv" and as JSON otherwise.
+         */
+        public String metricsFile = null;
     }
 
     protected CorePTAConfiguration ptaConfig;
@@ -18,6 +18,7 @@
 
 package qilin.core;
 
+import qilin.CoreConfig;
 import qilin.core.builder.CallGraphBuilder;
 import qilin.core.builder.ExceptionHandler;
 import qilin.core.pag.*;
@@ -33,6 +34,7 @@ import soot.jimple.toolkits.callgraph.CallGraph;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 public abstract class PTA implements PointsToAnalysis {
@@ -42,6 +44,9 @@ public abstract class PTA implements PointsToAnalysis {
     protected CallGraph callGraph;
     protected CallGraphBuilder cgb;
     protected ExceptionHandler eh;
+    // the projection of the solution over contexts, computed on the first query once solved.
+    private volatile boolean solved = false;
+    private volatile CIPointsToTable ciTable;
 
     public PTA() {
         this.pag = createPAG();
@@ -60,7 +65,22 @@ public abstract class PTA implements PointsToAnalysis {
     }
 
     public void pureRun() {
+        solved = false;
+        ciTable = null;
         getPropagator().propagate();
+        solved = true;
+        if (CoreConfig.v().getPtaConfig().freezePAG) {
+            pag.freeze();
+        }
+    }
+
+    /**
+     * Discards the points-to sets computed so far, e.g., those of a pre-analysis once they have been used.
+     */
+    public void resetPointsToSet() {
+        solved = false;
+        ciTable = null;
+        pag.resetPointsToSet();
     }
 
     public PAG getPag() {
@@ -114,11 +134,37 @@ public abstract class PTA implements PointsToAnalysis {
 
     public abstract CtxSelector ctxSelector();
 
+    /**
+     * Returns the points-to sets of the variables projected over contexts, or null if the analysis is not
+     * solved yet. The table is computed on the first call after solving and shared by all queries.
+     */
+    public CIPointsToTable getCIPointsToTable() {
+        if (!solved) {
+            return null;
+        }
+        CIPointsToTable ret = ciTable;
+        if (ret == null) {
+            synchronized (this) {
+                if (ciTable == null) {
+                    ciTable = new CIPointsToTable(pag);
+                }
+                ret = ciTable;
+            }
+        }
+        return ret;
+    }
+
     /**
      * Returns the set of objects pointed to by variable l.
      */
     @Override
     public PointsToSet reachingObjects(Local l) {
+        CIPointsToTable table = getCIPointsToTable();
+        if (table != null) {
+            LocalVarNode lvn = pag.findLocalVarNode(l);
+            return lvn == null ? new UnmodifiablePointsToSet(this, HybridPointsToSet.getEmptySet())
+                    : new UnmodifiablePointsToSet(this, table.get(lvn), table.getCI(lvn));
+        }
         // find all context nodes, and collect their answers
         final PointsToSetInternal ret = new HybridPointsToSet();
         pag.getVarNodes(l).forEach(vn -> {
@@ -140,12 +186,14 @@ public abstract class PTA implements PointsToAnalysis {
             ret = cf.getP2Set();
         } else {
             VarNode varNode = (VarNode) n;
-            ret = new HybridPointsToSet();
-            if (pag.getContextVarNodeMap().containsKey(varNode)) {
-                pag.getContextVarNodeMap().get(varNode).values().forEach(vn -> {
-                    ret.addAll(vn.getP2Set(), null);
-                });
+            CIPointsToTable table = getCIPointsToTable();
+            if (table != null) {
+                return new UnmodifiablePointsToSet(this, table.get(varNode), table.getCI(varNode));
             }
+            ret = new HybridPointsToSet();
+            pag.getContextVarNodes(varNode).forEach(vn -> {
+                ret.addAll(vn.getP2Set(), null);
+            });
         }
         return new UnmodifiablePointsToSet(this, ret);
     }
@@ -217,8 +265,7 @@ public abstract class PTA implements PointsToAnalysis {
         } else {
             ret = new HybridPointsToSet();
             SparkField sparkField = new Field(f);
-            pag.getContextFieldVarNodeMap().values().stream().filter(map -> map.containsKey(sparkField)).forEach(map -> {
-                ContextField contextField = map.get(sparkField);
+            pag.getContextFields(sparkField).forEach(contextField -> {
                 ret.addAll(contextField.getP2Set(), null);
             });
         }
@@ -227,25 +274,26 @@ public abstract class PTA implements PointsToAnalysis {
 
     public PointsToSet reachingObjectsInternal(PointsToSet bases, final SparkField f) {
         final PointsToSetInternal ret = new HybridPointsToSet();
-        pag.getContextFieldVarNodeMap().values().stream().filter(map -> map.containsKey(f)).forEach(map -> {
-            ContextField contextField = map.get(f);
-            AllocNode base = contextField.getBase();
-            if (bases.contains(base)) {
-                ret.addAll(contextField.getP2Set(), null);
+        Collection<ContextField> contextFields = pag.getContextFields(f);
+        if (bases.size() < contextFields.size()) {
+            // look up the field of each base rather than scanning the copies of the field.
+            for (Iterator<AllocNode> it = bases.iterator(); it.hasNext(); ) {
+                pag.getContextFields(it.next(), f).forEach(contextField -> ret.addAll(contextField.getP2Set(), null));
             }
-        });
+        } else {
+            contextFields.forEach(contextField -> {
+                AllocNode base = contextField.getBase();
+                if (bases.contains(base)) {
+                    ret.addAll(contextField.getP2Set(), null);
+                }
+            });
+        }
         return new UnmodifiablePointsToSet(this, ret);
     }
 
     public PointsToSet reachingObjectsInternal(AllocNode heap, final SparkField f) {
         final PointsToSetInternal ret = new HybridPointsToSet();
-        pag.getContextFieldVarNodeMap().values().stream().filter(map -> map.containsKey(f)).forEach(map -> {
-            ContextField contextField = map.get(f);
-            AllocNode base = contextField.getBase();
-            if (heap.equals(base)) {
-                ret.addAll(contextField.getP2Set(), null);
-            }
-        });
+        pag.getContextFields(heap, f).forEach(contextField -> ret.addAll(contextField.getP2Set(), null));
         return new UnmodifiablePointsToSet(this, ret);
     }
 
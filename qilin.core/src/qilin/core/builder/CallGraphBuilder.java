@@ -22,7 +22,6 @@ import qilin.CoreConfig;
 import qilin.core.PTA;
 import qilin.core.PTAScene;
 import qilin.core.pag.*;
-import qilin.core.sets.P2SetVisitor;
 import qilin.core.sets.PointsToSetInternal;
 import qilin.util.DataFactory;
 import qilin.util.PTAUtils;
@@ -32,6 +31,7 @@ import soot.jimple.internal.JInvokeStmt;
 import soot.jimple.internal.JStaticInvokeExpr;
 import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
+import soot.util.ArrayNumberer;
 import soot.util.queue.ChunkedQueue;
 import soot.util.queue.QueueReader;
 
@@ -182,11 +182,8 @@ public class CallGraphBuilder {
     }
 
     public void virtualCallDispatch(PointsToSetInternal p2set, VirtualCallSite site) {
-        p2set.forall(new P2SetVisitor(pta) {
-            public void visit(Node n) {
-                dispatch((AllocNode) n, site);
-            }
-        });
+        final ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        p2set.forEach(idx -> dispatch(allocNodes.get(idx), site));
     }
 
     /**
@@ -21,11 +21,11 @@ package qilin.core.builder;
 import qilin.core.PTA;
 import qilin.core.PTAScene;
 import qilin.core.pag.*;
-import qilin.core.sets.P2SetVisitor;
 import qilin.core.sets.PointsToSetInternal;
 import qilin.util.DataFactory;
 import soot.*;
 import soot.jimple.IdentityStmt;
+import soot.util.ArrayNumberer;
 
 import java.util.*;
 
@@ -49,11 +49,8 @@ public class ExceptionHandler {
     }
 
     public void exceptionDispatch(PointsToSetInternal p2set, ExceptionThrowSite site) {
-        p2set.forall(new P2SetVisitor(pta) {
-            public void visit(Node n) {
-                dispatch((AllocNode) n, site);
-            }
-        });
+        final ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        p2set.forEach(idx -> dispatch(allocNodes.get(idx), site));
     }
 
     /*
@@ -0,0 +1,231 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.builder;
+
+import qilin.util.DataFactory;
+import qilin.util.Metrics;
+import soot.*;
+import soot.jimple.parser.JimpleAST;
+import soot.options.Options;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * A persistent cache of Jimple bodies shared across runs.
+ * Building a method body from bytecode dominates the (lazy) construction of MethodPAGs, so the cache stores the
+ * body of each method as Jimple text right after it is retrieved, i.e., before any rewriting by the analysis.
+ * Files are laid out as <root>/<VERSION>-<hash of the configuration>/<class name>/<hash of the class file>/
+ * <hash of the sub-signature>.jimple, where the configuration is everything else the Jimple of a body depends on:
+ * the Soot build and the Soot options and phase options of body creation, as set when the cache is created.
+ * A class whose file has changed gets a new directory and the directories of its old versions are removed.
+ * A body that cannot be parsed back is replaced by an empty file and always retrieved from bytecode.
+ * Hits and misses are counted in the metrics of the run.
+ * */
+public class MethodBodyCache {
+    private static final String VERSION = "v1";
+    private static final String NOT_CACHED = "";
+    private final String rootDir;
+    private final File root;
+    // class name --> directory of the current version of the class, NOT_CACHED if its class file is unknown.
+    private final Map<String, String> classDirs = DataFactory.createMap();
+
+    public MethodBodyCache(String root) {
+        this.rootDir = root;
+        this.root = new File(root, VERSION + "-" + digest(configuration().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String getRoot() {
+        return rootDir;
+    }
+
+    /*
+     * The Soot build (its version and the jar it is loaded from), the global options which change the Jimple of a
+     * body (SSA, line numbers and offsets, throw analysis, ...) and the options of all phases of the jb pack.
+     * */
+    private static String configuration() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(soot.Main.versionString).append('\n');
+        CodeSource source = soot.Main.class.getProtectionDomain().getCodeSource();
+        if (source != null) {
+            sb.append(source.getLocation()).append('\n');
+        }
+        Options options = Options.v();
+        sb.append(options.src_prec()).append(' ').append(options.via_shimple()).append(' ')
+                .append(options.keep_line_number()).append(' ').append(options.keep_offset()).append(' ')
+                .append(options.throw_analysis()).append(' ').append(options.check_init_throw_analysis()).append(' ')
+                .append(options.java_version()).append(' ').append(options.wrong_staticness()).append(' ')
+                .append(options.full_resolver()).append(' ').append(options.allow_phantom_refs()).append('\n');
+        sb.append("jb ").append(new TreeMap<>(PhaseOptions.v().getPhaseOptions("jb"))).append('\n');
+        for (Transform t : PackManager.v().getPack("jb")) {
+            sb.append(t.getPhaseName()).append(' ').append(new TreeMap<>(PhaseOptions.v().getPhaseOptions(t))).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Same as m.retrieveActiveBody(), except that the body is read from the cache if possible.
+     */
+    public synchronized Body retrieveActiveBody(SootMethod m) {
+        if (m.hasActiveBody()) {
+            return m.getActiveBody();
+        }
+        String dir = classDirs.computeIfAbsent(m.getDeclaringClass().getName(), this::classDir);
+        if (dir.equals(NOT_CACHED)) {
+            return m.retrieveActiveBody();
+        }
+        File file = bodyFile(dir, m);
+        if (file.exists()) {
+            Body body = file.length() > 0 ? read(file, m) : null;
+            if (body != null) {
+                Metrics.v().increment("body-cache.hits");
+                m.setActiveBody(body);
+                return body;
+            }
+            if (file.length() > 0) {
+                write(file, "");
+            }
+            return m.retrieveActiveBody();
+        }
+        Metrics.v().increment("body-cache.misses");
+        Body body = m.retrieveActiveBody();
+        write(file, toJimple(m.getDeclaringClass(), body));
+        return body;
+    }
+
+    private File bodyFile(String dir, SootMethod m) {
+        return new File(dir, digest(m.getSubSignature().getBytes(StandardCharsets.UTF_8)) + ".jimple");
+    }
+
+    private Body read(File file, SootMethod m) {
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] names = in.readLine().split("\t", -1);
+            Body body = new JimpleAST(new ByteArrayInputStream(readRest(in).getBytes(StandardCharsets.UTF_8))).getBody(m);
+            for (Local local : body.getLocals()) {
+                local.setName(names[Integer.parseInt(local.getName().substring(1))]);
+            }
+            return body;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String readRest(BufferedReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[8192];
+        for (int n; (n = in.read(buf)) > 0; ) {
+            sb.append(buf, 0, n);
+        }
+        return sb.toString();
+    }
+
+    /*
+     * The first line lists the names of the locals, which are renamed to l0, l1, ... in the Jimple text since
+     * the parser rejects some of the names given by Soot (e.g., "i#2" or quoted keywords).
+     * The body is wrapped into a class declaration of the declaring class, as required by the Jimple parser.
+     * */
+    private String toJimple(SootClass sc, Body body) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        List<String> names = new ArrayList<>();
+        for (Local local : body.getLocals()) {
+            names.add(local.getName());
+            local.setName("l" + (names.size() - 1));
+        }
+        try {
+            pw.println(String.join("\t", names));
+            pw.println("class " + Scene.v().quotedNameOf(sc.getName()) + " extends java.lang.Object");
+            pw.println("{");
+            Printer.v().printTo(body, pw);
+            pw.println("}");
+        } finally {
+            int i = 0;
+            for (Local local : body.getLocals()) {
+                local.setName(names.get(i++));
+            }
+        }
+        pw.flush();
+        return sw.toString();
+    }
+
+    private void write(File file, String content) {
+        try {
+            File tmp = File.createTempFile("body", ".tmp", file.getParentFile());
+            Files.writeString(tmp.toPath(), content, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // the cache is only an optimization.
+        }
+    }
+
+    private String classDir(String className) {
+        IFoundFile classFile = SourceLocator.v().lookupInClassPath(className.replace('.', '/') + ".class");
+        if (classFile == null) {
+            return NOT_CACHED;
+        }
+        String hash;
+        try (InputStream in = classFile.inputStream()) {
+            hash = digest(in.readAllBytes());
+        } catch (IOException e) {
+            return NOT_CACHED;
+        } finally {
+            classFile.close();
+        }
+        File versions = new File(root, className);
+        File[] stale = versions.listFiles(f -> !f.getName().equals(hash));
+        if (stale != null) {
+            for (File f : stale) {
+                delete(f);
+            }
+        }
+        File dir = new File(versions, hash);
+        return dir.isDirectory() || dir.mkdirs() ? dir.getPath() : NOT_CACHED;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -20,29 +20,134 @@ package qilin.core.context;
 
 import soot.Context;
 
-import java.util.Arrays;
-
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Contexts are hash-consed: every context [e0, e1, ..., en-1] is the unique child of its parent context
+ * [e1, ..., en-1] under the element e0, and gets a dense id when it is created.
+ * Hence two contexts are equal iff they are the same object, prepending an element is a single lookup in the
+ * parent's child table, and the last truncation is cached per context.
+ * A context only stores its first element and its parent, i.e., contexts sharing a suffix share its elements;
+ * the i-th element is found i links up the parent chain, which is short as contexts are k-limited. The child
+ * tables and truncation caches are only allocated for the contexts that are extended or truncated.
+ * Only the empty context is static; it refers to its children weakly so that the contexts of finished analyses
+ * can be reclaimed, while every live context keeps its parents (and thus its canonical identity) alive.
+ * */
 public class ContextElements implements Context {
-    private final ContextElement[] array;
+    private static final AtomicInteger counter = new AtomicInteger();
+    private static final ContextElements EMPTY = new ContextElements(null, null);
+    private static final Map<ContextElement, WeakReference<ContextElements>> emptyChildren = new WeakHashMap<>();
+
+    private final int id;
+    private final ContextElements parent;
+    private final ContextElement head;
     private final int size;
-    private int hashCode = 0;
+    private Map<ContextElement, ContextElements> children;
+    // the last truncation of this context, i.e., its prefix of the size last asked for.
+    private ContextElements truncated;
+
+    private ContextElements(ContextElements parent, ContextElement head) {
+        this.id = counter.getAndIncrement();
+        this.parent = parent;
+        this.head = head;
+        this.size = parent == null ? 0 : parent.size + 1;
+    }
+
+    public static ContextElements emptyContext() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the context of the first s elements of the given array.
+     */
+    public static ContextElements of(ContextElement[] array, int s) {
+        ContextElements ret = EMPTY;
+        for (int i = s - 1; i >= 0; --i) {
+            ret = ret.prepend(array[i]);
+        }
+        return ret;
+    }
 
-    public ContextElements(ContextElement[] array, int s) {
-        this.array = array;
-        this.size = s;
+    public int getId() {
+        return id;
     }
 
+    /**
+     * Returns a new array of the elements of this context.
+     */
     public ContextElement[] getElements() {
-        return array;
+        ContextElement[] ret = new ContextElement[size];
+        ContextElements ctx = this;
+        for (int i = 0; i < size; ++i, ctx = ctx.parent) {
+            ret[i] = ctx.head;
+        }
+        return ret;
     }
 
     public ContextElement get(int i) {
-        return array[i];
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        }
+        ContextElements ctx = this;
+        for (; i > 0; --i) {
+            ctx = ctx.parent;
+        }
+        return ctx.head;
+    }
+
+    /**
+     * Returns the context without its first (most recent) element.
+     */
+    public ContextElements tail() {
+        return parent;
+    }
+
+    /**
+     * Returns the context [ce, this[0], ..., this[size - 1]].
+     */
+    public ContextElements prepend(ContextElement ce) {
+        synchronized (this) {
+            if (this == EMPTY) {
+                WeakReference<ContextElements> ref = emptyChildren.get(ce);
+                ContextElements ret = ref == null ? null : ref.get();
+                if (ret == null) {
+                    ret = new ContextElements(this, ce);
+                    emptyChildren.put(ce, new WeakReference<>(ret));
+                }
+                return ret;
+            }
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(ce, k -> new ContextElements(this, k));
+        }
+    }
+
+    /**
+     * Returns the context of the first length elements of this context.
+     */
+    public ContextElements truncate(int length) {
+        if (length >= size) {
+            return this;
+        }
+        if (length <= 0) {
+            return EMPTY;
+        }
+        ContextElements ret = truncated;
+        if (ret == null || ret.size != length) {
+            // the result is canonical, thus racing threads store the same object.
+            ret = truncated = parent.truncate(length - 1).prepend(head);
+        }
+        return ret;
     }
 
     public boolean contains(ContextElement heap) {
-        for (int i = 0; i < size; ++i) {
-            if (array[i] == heap) {
+        for (ContextElements ctx = this; ctx.size > 0; ctx = ctx.parent) {
+            if (ctx.head == heap) {
                 return true;
             }
         }
@@ -59,48 +164,21 @@ public class ContextElements implements Context {
 
     @Override
     public int hashCode() {
-        if (hashCode == 0) {
-            hashCode = Arrays.hashCode(array);
-        }
-        return hashCode;
+        return id;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (getClass() != obj.getClass())
-            return false;
-        ContextElements other = (ContextElements) obj;
-
-        // if (!Arrays.equals(array, other.array)) return false;
-
-        // custom array equals for context
-        // allows for checking of different sized arrays, but represent same
-        // context-sensitive heap object
-        if (this.array == null || other.array == null)
-            return false;
-
-        if (this.size() != other.size())
-            return false;
-
-        for (int i = 0; i < size(); i++) {
-            Object o1 = this.array[i];
-            Object o2 = other.array[i];
-            if (!(o1 == null ? o2 == null : o1.equals(o2)))
-                return false;
-        }
-
-        return true;
+        return this == obj;
     }
 
     @Override
     public String toString() {
         StringBuilder localStringBuilder = new StringBuilder();
         localStringBuilder.append('[');
-        for (int i = 0; i < array.length; i++) {
-            localStringBuilder.append(array[i]);
-            if (i < array.length - 1) {
+        for (ContextElements ctx = this; ctx.size > 0; ctx = ctx.parent) {
+            localStringBuilder.append(ctx.head);
+            if (ctx.size > 1) {
                 localStringBuilder.append(", ");
             }
         }
@@ -113,15 +191,6 @@ public class ContextElements implements Context {
      * The depth of new context is also required.
      */
     public static ContextElements newContext(ContextElements c, ContextElement ce, int depth) {
-        ContextElement[] array;
-        if (c.size() < depth) {
-            array = new ContextElement[c.size() + 1];
-            System.arraycopy(c.getElements(), 0, array, 1, c.size());
-        } else {
-            array = new ContextElement[depth];
-            System.arraycopy(c.getElements(), 0, array, 1, depth - 1);
-        }
-        array[0] = ce;
-        return new ContextElements(array, array.length);
+        return c.truncate(depth - 1).prepend(ce);
     }
 }
@@ -19,7 +19,6 @@
 package qilin.core.pag;
 
 import qilin.CoreConfig;
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import soot.ArrayType;
 import soot.Context;
@@ -42,9 +41,9 @@ public class ContextField extends ValNode {
             return RefType.v("java.lang.Object");
         }
         if (field instanceof ArrayElement) {
-            ContextElement[] contextElements = ((ContextElements) context).getElements();
-            if (contextElements.length > 0) {
-                Type baseHeapType = ((AllocNode) ((ContextElements) context).getElements()[0]).getType();
+            ContextElements contextElements = (ContextElements) context;
+            if (contextElements.size() > 0) {
+                Type baseHeapType = ((AllocNode) contextElements.get(0)).getType();
                 if (baseHeapType instanceof ArrayType arrayType) {
                     return arrayType.getArrayElementType();
                 } else {
@@ -72,7 +71,7 @@ public class ContextField extends ValNode {
 
     public AllocNode getBase() {
         ContextElements ctxs = (ContextElements) context;
-        return (AllocNode) ctxs.getElements()[0];
+        return (AllocNode) ctxs.get(0);
     }
 
     /**
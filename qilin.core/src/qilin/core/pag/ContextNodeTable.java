@@ -0,0 +1,95 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.pag;
+
+import qilin.core.context.ContextElements;
+import qilin.util.DataFactory;
+import qilin.util.collect.Long2ObjectOpenHashMap;
+import soot.Context;
+
+import java.util.*;
+import java.util.function.Function;
+
+/*
+ * The context-sensitive copies of nodes (or methods), keyed by (number of the base, id of the context) in a flat
+ * primitive table. The copies of a given base are mostly needed by queries, thus they are indexed lazily by
+ * default: the index is built on the first such query and kept up to date afterwards.
+ * */
+final class ContextNodeTable<B, N> {
+    private final Long2ObjectOpenHashMap<N> table;
+    private final Function<N, B> baseOf;
+    private Map<B, List<N>> byBase;
+
+    ContextNodeTable(int expected, Function<N, B> baseOf) {
+        this(expected, baseOf, false);
+    }
+
+    /**
+     * @param eagerIndex whether the copies of each base are indexed from the start.
+     */
+    ContextNodeTable(int expected, Function<N, B> baseOf, boolean eagerIndex) {
+        this.table = new Long2ObjectOpenHashMap<>(expected);
+        this.baseOf = baseOf;
+        if (eagerIndex) {
+            this.byBase = DataFactory.createMap();
+        }
+    }
+
+    static int contextId(Context context) {
+        return ((ContextElements) context).getId();
+    }
+
+    N get(int base, Context context) {
+        return table.get(Long2ObjectOpenHashMap.key(base, contextId(context)));
+    }
+
+    /**
+     * Returns the node of the base and context, and creates it with the factory if there is none.
+     */
+    N computeIfAbsent(int base, Context context, Function<Context, N> factory) {
+        long key = Long2ObjectOpenHashMap.key(base, contextId(context));
+        N ret = table.get(key);
+        if (ret == null) {
+            table.put(key, ret = factory.apply(context));
+            if (byBase != null) {
+                byBase.computeIfAbsent(baseOf.apply(ret), k -> new ArrayList<>(2)).add(ret);
+            }
+        }
+        return ret;
+    }
+
+    Collection<N> values() {
+        return table.values();
+    }
+
+    List<N> nodesOf(B base) {
+        if (byBase == null) {
+            Map<B, List<N>> index = DataFactory.createMap();
+            for (N node : table.values()) {
+                index.computeIfAbsent(baseOf.apply(node), k -> new ArrayList<>(2)).add(node);
+            }
+            byBase = index;
+        }
+        return byBase.getOrDefault(base, Collections.emptyList());
+    }
+
+    int size() {
+        return table.size();
+    }
+}
@@ -0,0 +1,231 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.pag;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * A read-only edge map of a frozen PAG in compressed sparse row form. The row of a source is its node number
+ * (all sources of one map come from the same numberer): its targets are targets[offsets[n] .. offsets[n + 1]),
+ * stored as sorted indices into the table of distinct targets, which is itself ordered by node number.
+ * Sources without a number (e.g., the root object of the analysis) are kept in a small side map.
+ * */
+final class CsrEdges<K extends Node, V extends Node> {
+    private final Node[] sources;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Node[] targetNodes;
+    private final Map<K, Set<V>> unnumbered = new HashMap<>();
+    private final int size;
+
+    CsrEdges(Map<K, Set<V>> edges) {
+        int maxNumber = 0;
+        Set<Node> distinct = new HashSet<>();
+        for (Map.Entry<K, Set<V>> e : edges.entrySet()) {
+            int n = e.getKey().getNumber();
+            if (n <= 0) {
+                unnumbered.put(e.getKey(), Collections.unmodifiableSet(new HashSet<>(e.getValue())));
+            } else {
+                maxNumber = Math.max(maxNumber, n);
+                distinct.addAll(e.getValue());
+            }
+        }
+        this.targetNodes = distinct.toArray(new Node[0]);
+        Arrays.sort(targetNodes, Comparator.comparingInt(Node::getNumber));
+        Map<Node, Integer> ids = new HashMap<>(targetNodes.length * 2);
+        for (int i = 0; i < targetNodes.length; ++i) {
+            ids.put(targetNodes[i], i);
+        }
+        this.sources = new Node[maxNumber + 1];
+        this.offsets = new int[maxNumber + 2];
+        edges.forEach((k, vs) -> {
+            if (k.getNumber() > 0) {
+                sources[k.getNumber()] = k;
+                offsets[k.getNumber() + 1] = vs.size();
+            }
+        });
+        for (int i = 1; i < offsets.length; ++i) {
+            offsets[i] += offsets[i - 1];
+        }
+        this.targets = new int[offsets[maxNumber + 1]];
+        edges.forEach((k, vs) -> {
+            if (k.getNumber() > 0) {
+                int pos = offsets[k.getNumber()];
+                for (V v : vs) {
+                    targets[pos++] = ids.get(v);
+                }
+                Arrays.sort(targets, offsets[k.getNumber()], pos);
+            }
+        });
+        this.size = edges.size();
+    }
+
+    Set<V> lookup(K key) {
+        int n = key.getNumber();
+        if (n <= 0) {
+            return unnumbered.getOrDefault(key, Collections.emptySet());
+        }
+        if (n >= sources.length || sources[n] != key) {
+            return Collections.emptySet();
+        }
+        return new Row(n);
+    }
+
+    /**
+     * Returns a read-only map view of the edges.
+     */
+    Map<K, Set<V>> asMap() {
+        return new MapView();
+    }
+
+    /**
+     * Returns the estimated footprint of the arrays, see PAGStat.
+     */
+    long bytes() {
+        return arrayBytes(sources.length) + arrayBytes(offsets.length) + arrayBytes(targets.length) + arrayBytes(targetNodes.length);
+    }
+
+    private static long arrayBytes(int length) {
+        return (16 + 4L * length + 7) & ~7L;
+    }
+
+    private final class Row extends AbstractSet<V> {
+        private final int from;
+        private final int to;
+
+        Row(int n) {
+            this.from = offsets[n];
+            this.to = offsets[n + 1];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (int i = from; i < to; ++i) {
+                if (targetNodes[targets[i]] == o) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEach(Consumer<? super V> action) {
+            for (int i = from; i < to; ++i) {
+                action.accept((V) targetNodes[targets[i]]);
+            }
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public V next() {
+                    if (i >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return (V) targetNodes[targets[i++]];
+                }
+            };
+        }
+    }
+
+    private final class MapView extends AbstractMap<K, Set<V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Set<V> get(Object key) {
+            if (!(key instanceof Node)) {
+                return null;
+            }
+            Set<V> ret = lookup((K) key);
+            return ret.isEmpty() ? null : ret;
+        }
+
+        @Override
+        public Set<V> getOrDefault(Object key, Set<V> defaultValue) {
+            Set<V> ret = get(key);
+            return ret != null ? ret : defaultValue;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<K, Set<V>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<K, Set<V>>> iterator() {
+                    Iterator<Entry<K, Set<V>>> rest = Collections.unmodifiableMap(unnumbered).entrySet().iterator();
+                    return new Iterator<>() {
+                        private int n = advance(1);
+
+                        private int advance(int i) {
+                            while (i < sources.length && sources[i] == null) {
+                                ++i;
+                            }
+                            return i;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return n < sources.length || rest.hasNext();
+                        }
+
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Entry<K, Set<V>> next() {
+                            if (n >= sources.length) {
+                                return rest.next();
+                            }
+                            Entry<K, Set<V>> ret = new SimpleImmutableEntry<>((K) sources[n], new Row(n));
+                            n = advance(n + 1);
+                            return ret;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
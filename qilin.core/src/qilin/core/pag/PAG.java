@@ -26,10 +26,14 @@ import qilin.core.natives.NativeMethodDriver;
 import qilin.core.reflection.NopReflectionModel;
 import qilin.core.reflection.ReflectionModel;
 import qilin.core.reflection.TamiflexModel;
+import qilin.core.sets.DoublePointsToSet;
+import qilin.core.sets.IntIterator;
 import qilin.parm.heapabst.HeapAbstractor;
 import qilin.util.DataFactory;
+import qilin.util.Metrics;
 import qilin.util.PTAUtils;
 import qilin.util.Pair;
+import qilin.util.collect.Long2ObjectOpenHashMap;
 import soot.*;
 import soot.jimple.*;
 import soot.jimple.internal.JArrayRef;
@@ -43,7 +47,6 @@ import soot.util.queue.QueueReader;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 /**
  * Pointer assignment graph.
@@ -55,11 +58,14 @@ public class PAG {
     protected final ReflectionModel reflectionModel;
 
     // ========================= context-sensitive nodes =================================
-    protected final Map<VarNode, Map<Context, ContextVarNode>> contextVarNodeMap;
-    protected final Map<AllocNode, Map<Context, ContextAllocNode>> contextAllocNodeMap;
-    protected final Map<SootMethod, Map<Context, MethodOrMethodContext>> contextMethodMap;
+    // context-sensitive nodes and methods, keyed by (number of the base, id of the context).
+    protected final ContextNodeTable<VarNode, ContextVarNode> contextVarNodeMap;
+    protected final ContextNodeTable<AllocNode, ContextAllocNode> contextAllocNodeMap;
+    protected final ContextNodeTable<SootMethod, MethodOrMethodContext> contextMethodMap;
     protected final Map<MethodPAG, Set<Context>> addedContexts;
-    protected final Map<Context, Map<SparkField, ContextField>> contextFieldMap;
+    protected final ContextNodeTable<SparkField, ContextField> contextFieldMap;
+    // context-sensitive copies of each field of each object, keyed by (number of the object, number of the field).
+    protected final Long2ObjectOpenHashMap<List<ContextField>> objectFieldMap;
 
     // ==========================data=========================
     protected ArrayNumberer<AllocNode> allocNodeNumberer = new ArrayNumberer<>();
@@ -76,39 +82,53 @@ public class PAG {
     // ==========================outer objects==============================
     protected ChunkedQueue<Node> edgeQueue;
 
-    protected final Map<ValNode, Set<ValNode>> simple;
-    protected final Map<ValNode, Set<ValNode>> simpleInv;
-    protected final Map<FieldRefNode, Set<VarNode>> load;
-    protected final Map<VarNode, Set<FieldRefNode>> loadInv;
-    protected final Map<AllocNode, Set<VarNode>> alloc;
-    protected final Map<VarNode, Set<AllocNode>> allocInv;
-    protected final Map<VarNode, Set<FieldRefNode>> store;
-    protected final Map<FieldRefNode, Set<VarNode>> storeInv;
+    protected Map<ValNode, Set<ValNode>> simple;
+    protected Map<ValNode, Set<ValNode>> simpleInv;
+    protected Map<FieldRefNode, Set<VarNode>> load;
+    protected Map<VarNode, Set<FieldRefNode>> loadInv;
+    protected Map<AllocNode, Set<VarNode>> alloc;
+    protected Map<VarNode, Set<AllocNode>> allocInv;
+    protected Map<VarNode, Set<FieldRefNode>> store;
+    protected Map<FieldRefNode, Set<VarNode>> storeInv;
+    // the compressed edges of a frozen PAG, see freeze().
+    protected List<CsrEdges<?, ?>> frozenEdges;
+
+    // ============== nodes sharing the points-to set of a representative (cycles, pointer equivalence) ==============
+    protected final Map<ValNode, ValNode> cycleRep;
+    protected final Map<ValNode, List<ValNode>> cycleMembers;
+    // whether any node has been merged; until then, no representative is looked up.
+    private boolean merged = false;
 
     protected final PTA pta;
+    // creates the maps and sets of this PAG.
+    protected final DataFactory.Backend backend;
 
-    public PAG(PTA pta) {
+    public PAG(PTA pta, DataFactory.Backend backend) {
         this.pta = pta;
-        this.simple = DataFactory.createMap();
-        this.simpleInv = DataFactory.createMap();
-        this.load = DataFactory.createMap();
-        this.loadInv = DataFactory.createMap();
-        this.alloc = DataFactory.createMap();
-        this.allocInv = DataFactory.createMap();
-        this.store = DataFactory.createMap();
-        this.storeInv = DataFactory.createMap();
+        this.backend = backend;
+        this.simple = backend.createMap();
+        this.simpleInv = backend.createMap();
+        this.load = backend.createMap();
+        this.loadInv = backend.createMap();
+        this.alloc = backend.createMap();
+        this.allocInv = backend.createMap();
+        this.store = backend.createMap();
+        this.storeInv = backend.createMap();
+        this.cycleRep = backend.createMap();
+        this.cycleMembers = backend.createMap();
         this.nativeDriver = new NativeMethodDriver();
         this.reflectionModel = createReflectionModel();
-        this.contextVarNodeMap = DataFactory.createMap(16000);
-        this.contextAllocNodeMap = DataFactory.createMap(6000);
-        this.contextMethodMap = DataFactory.createMap(6000);
-        this.addedContexts = DataFactory.createMap();
-        this.contextFieldMap = DataFactory.createMap(6000);
-        this.valToAllocNode = DataFactory.createMap(10000);
-        this.valToValNode = DataFactory.createMap(100000);
-        this.methodToPag = DataFactory.createMap();
-        this.globals = DataFactory.createSet(100000);
-        this.locals = DataFactory.createSet(100000);
+        this.contextVarNodeMap = new ContextNodeTable<>(16000, ContextVarNode::base);
+        this.contextAllocNodeMap = new ContextNodeTable<>(6000, ContextAllocNode::base);
+        this.contextMethodMap = new ContextNodeTable<>(6000, MethodOrMethodContext::method);
+        this.addedContexts = backend.createMap();
+        this.contextFieldMap = new ContextNodeTable<>(6000, ContextField::getField, true);
+        this.objectFieldMap = new Long2ObjectOpenHashMap<>(6000);
+        this.valToAllocNode = backend.createMap(10000);
+        this.valToValNode = backend.createMap(100000);
+        this.methodToPag = backend.createMap();
+        this.globals = backend.createSet(100000);
+        this.locals = backend.createSet(100000);
     }
 
     public void setEdgeQueue(ChunkedQueue<Node> edgeQueue) {
@@ -135,17 +155,35 @@ public class PAG {
         return storeInv;
     }
 
+    /**
+     * Returns all edge maps (alloc, simple, load, store and their inverses).
+     */
+    public List<Map<? extends Node, ? extends Set<? extends Node>>> getEdgeMaps() {
+        return List.of(alloc, allocInv, simple, simpleInv, load, loadInv, store, storeInv);
+    }
+
     public PTA getPta() {
         return this.pta;
     }
 
+    public ReflectionModel getReflectionModel() {
+        return reflectionModel;
+    }
+
+    public DataFactory.Backend getDataFactoryBackend() {
+        return backend;
+    }
+
     public QueueReader<Node> edgeReader() {
         return edgeQueue.reader();
     }
 
     // =======================add edge===============================
     protected <K, V> boolean addToMap(Map<K, Set<V>> m, K key, V value) {
-        Set<V> valueList = m.computeIfAbsent(key, k -> DataFactory.createSet(4));
+        if (isFrozen()) {
+            throw new IllegalStateException("cannot add an edge to a frozen PAG");
+        }
+        Set<V> valueList = m.computeIfAbsent(key, k -> backend.createSet(4));
         return valueList.add(value);
     }
 
@@ -212,6 +250,46 @@ public class PAG {
         }
     }
 
+    // ======================freezing===========================
+
+    /**
+     * Converts the edge maps of the solved PAG into compressed sparse rows indexed by node number. The maps and
+     * lookups stay available as read-only views over the arrays; adding an edge afterwards is an error.
+     */
+    public void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        List<CsrEdges<?, ?>> csrs = new ArrayList<>();
+        // each map is released as soon as it is converted.
+        alloc = compress(alloc, csrs);
+        allocInv = compress(allocInv, csrs);
+        simple = compress(simple, csrs);
+        simpleInv = compress(simpleInv, csrs);
+        load = compress(load, csrs);
+        loadInv = compress(loadInv, csrs);
+        store = compress(store, csrs);
+        storeInv = compress(storeInv, csrs);
+        frozenEdges = csrs;
+    }
+
+    private static <K extends Node, V extends Node> Map<K, Set<V>> compress(Map<K, Set<V>> m, List<CsrEdges<?, ?>> csrs) {
+        CsrEdges<K, V> csr = new CsrEdges<>(m);
+        csrs.add(csr);
+        return csr.asMap();
+    }
+
+    public boolean isFrozen() {
+        return frozenEdges != null;
+    }
+
+    /**
+     * Returns the estimated footprint of the compressed edges of a frozen PAG, or 0 if it is not frozen.
+     */
+    public long getFrozenEdgeBytes() {
+        return isFrozen() ? frozenEdges.stream().mapToLong(CsrEdges::bytes).sum() : 0;
+    }
+
     // ======================lookups===========================
     protected <K, V> Set<V> lookup(Map<K, Set<V>> m, K key) {
         return m.getOrDefault(key, Collections.emptySet());
@@ -249,6 +327,106 @@ public class PAG {
         return lookup(storeInv, key);
     }
 
+    // ======================collapsed cycles and merged equivalent nodes===========================
+
+    /**
+     * Returns the representative of the collapsed cycle or pointer-equivalence class containing node,
+     * or node itself if it is not merged.
+     */
+    public ValNode getRepresentative(ValNode node) {
+        return merged ? cycleRep.getOrDefault(node, node) : node;
+    }
+
+    /**
+     * Returns all nodes represented by rep, including rep itself.
+     */
+    public List<ValNode> getCycleMembers(ValNode rep) {
+        if (!merged) {
+            return Collections.singletonList(rep);
+        }
+        List<ValNode> members = cycleMembers.get(rep);
+        return members != null ? members : Collections.singletonList(rep);
+    }
+
+    /**
+     * Returns the number of nodes merged into the representative of another node.
+     */
+    public int getCollapsedNodeCount() {
+        return cycleRep.size();
+    }
+
+    /**
+     * Merges the nodes of a cycle of simple edges into one representative which shares a single points-to set.
+     * All nodes must have the same declared type, so that their points-to sets are equal at the fixed point.
+     * Objects propagated by every node before are kept as old objects, the rest becomes new in the shared set.
+     * The edges of the graph are left untouched. Returns the representative.
+     */
+    public ValNode collapseCycle(Collection<ValNode> cycle) {
+        Set<ValNode> reps = new LinkedHashSet<>();
+        for (ValNode node : cycle) {
+            reps.add(getRepresentative(node));
+        }
+        ValNode rep = null;
+        for (ValNode r : reps) {
+            if (rep == null || getCycleMembers(r).size() > getCycleMembers(rep).size()) {
+                rep = r;
+            }
+        }
+        if (reps.size() < 2) {
+            return rep;
+        }
+        // objects already propagated from every node stay old.
+        DoublePointsToSet shared = new DoublePointsToSet();
+        for (IntIterator it = rep.getP2Set().getOldSet().intIterator(); it.hasNext(); ) {
+            int idx = it.next();
+            if (reps.stream().allMatch(r -> r.getP2Set().getOldSet().contains(idx))) {
+                shared.add(idx);
+            }
+        }
+        shared.flushNew();
+        for (ValNode r : reps) {
+            shared.addAll(r.getP2Set(), null);
+        }
+        merged = true;
+        List<ValNode> members = cycleMembers.computeIfAbsent(rep, k -> new ArrayList<>(List.of(k)));
+        for (ValNode r : reps) {
+            if (r != rep) {
+                members.addAll(getCycleMembers(r));
+                cycleMembers.remove(r);
+            }
+        }
+        for (ValNode member : members) {
+            member.p2set = shared;
+            if (member != rep) {
+                cycleRep.put(member, rep);
+            }
+        }
+        return rep;
+    }
+
+    /**
+     * Merges node into the representative of rep, given that both are pointer-equivalent and have not received
+     * any object yet. The merged node shares the points-to set of the representative from now on, so nothing has
+     * to be re-propagated. Returns false (and merges nothing) if either points-to set is not empty.
+     */
+    public boolean mergeEquivalentNodes(ValNode rep, ValNode node) {
+        rep = getRepresentative(rep);
+        node = getRepresentative(node);
+        if (rep == node || !rep.getP2Set().isEmpty() || !node.getP2Set().isEmpty()) {
+            return false;
+        }
+        this.merged = true;
+        List<ValNode> members = cycleMembers.computeIfAbsent(rep, k -> new ArrayList<>(List.of(k)));
+        List<ValNode> mergedNodes = getCycleMembers(node);
+        members.addAll(mergedNodes);
+        cycleMembers.remove(node);
+        for (ValNode member : mergedNodes) {
+            member.p2set = rep.p2set;
+            cycleRep.put(member, rep);
+        }
+        return true;
+    }
+
     public static int nextFinishNumber() {
         return maxFinishNumber.incrementAndGet();
     }
@@ -393,34 +571,29 @@ public class PAG {
      * Finds or creates the ContextVarNode for base variable base and context.
      */
     public ContextVarNode makeContextVarNode(VarNode base, Context context) {
-        Map<Context, ContextVarNode> contextMap = contextVarNodeMap.computeIfAbsent(base, k1 -> DataFactory.createMap());
-        ContextVarNode ret = contextMap.get(context);
-        if (ret == null) {
-            contextMap.put(context, ret = new ContextVarNode(base, context));
+        return contextVarNodeMap.computeIfAbsent(base.getNumber(), context, c -> {
+            ContextVarNode ret = new ContextVarNode(base, c);
             valNodeNumberer.add(ret);
-        }
-        return ret;
+            return ret;
+        });
     }
 
     /**
      * Finds or creates the ContextAllocNode for base alloc site and context.
      */
     public ContextAllocNode makeContextAllocNode(AllocNode allocNode, Context context) {
-        Map<Context, ContextAllocNode> contextMap = contextAllocNodeMap.computeIfAbsent(allocNode, k1 -> DataFactory.createMap());
-        ContextAllocNode ret = contextMap.get(context);
-        if (ret == null) {
-            contextMap.put(context, ret = new ContextAllocNode(allocNode, context));
+        return contextAllocNodeMap.computeIfAbsent(allocNode.getNumber(), context, c -> {
+            ContextAllocNode ret = new ContextAllocNode(allocNode, c);
             allocNodeNumberer.add(ret);
-        }
-        return ret;
+            return ret;
+        });
     }
 
     /**
      * Finds or creates the ContextMethod for method and context.
      */
     public MethodOrMethodContext makeContextMethod(Context context, SootMethod method) {
-        Map<Context, MethodOrMethodContext> contextMap = contextMethodMap.computeIfAbsent(method, k1 -> DataFactory.createMap());
-        return contextMap.computeIfAbsent(context, k -> new ContextMethod(method, context));
+        return contextMethodMap.computeIfAbsent(method.getNumber(), context, c -> new ContextMethod(method, c));
     }
 
     public AllocNode getAllocNode(Object val) {
@@ -432,42 +605,69 @@ public class PAG {
     }
 
     public Collection<ContextField> getContextFields() {
-        return contextFieldMap.values().stream().flatMap(m -> m.values().stream()).collect(Collectors.toSet());
+        return contextFieldMap.values();
     }
 
-    public Map<VarNode, Map<Context, ContextVarNode>> getContextVarNodeMap() {
-        return contextVarNodeMap;
+    /**
+     * Returns the context-sensitive copies of the given field, i.e., the field of every object.
+     */
+    public Collection<ContextField> getContextFields(SparkField field) {
+        return contextFieldMap.nodesOf(field);
     }
 
-    public Map<AllocNode, Map<Context, ContextAllocNode>> getContextAllocNodeMap() {
-        return contextAllocNodeMap;
+    /**
+     * Returns the context-sensitive copies of the given variable.
+     */
+    public Collection<ContextVarNode> getContextVarNodes(VarNode base) {
+        return contextVarNodeMap.nodesOf(base);
     }
 
-    public Map<SootMethod, Map<Context, MethodOrMethodContext>> getContextMethodMap() {
-        return contextMethodMap;
+    /**
+     * Returns the context-sensitive copies of the given allocation site.
+     */
+    public Collection<ContextAllocNode> getContextAllocNodes(AllocNode base) {
+        return contextAllocNodeMap.nodesOf(base);
     }
 
-    public Map<Context, Map<SparkField, ContextField>> getContextFieldVarNodeMap() {
-        return contextFieldMap;
+    /**
+     * Returns the context-sensitive copies of the given method.
+     */
+    public Collection<MethodOrMethodContext> getContextMethods(SootMethod method) {
+        return contextMethodMap.nodesOf(method);
+    }
+
+    /**
+     * Returns the context-sensitive copies of the given field of the given (context-insensitive) object.
+     */
+    public Collection<ContextField> getContextFields(AllocNode base, SparkField field) {
+        List<ContextField> ret = objectFieldMap.get(Long2ObjectOpenHashMap.key(base.getNumber(), fieldNumber(field)));
+        return ret == null ? Collections.emptyList() : ret;
     }
 
     public ContextField makeContextField(Context context, FieldValNode fieldValNode) {
         SparkField field = fieldValNode.getField();
-        Map<SparkField, ContextField> field2odotf = contextFieldMap.computeIfAbsent(context, k -> DataFactory.createMap());
-        ContextField ret = field2odotf.get(field);
-        if (ret == null) {
-            field2odotf.put(field, ret = new ContextField(context, field));
+        return contextFieldMap.computeIfAbsent(fieldNumber(field), context, c -> {
+            ContextField ret = new ContextField(c, field);
             valNodeNumberer.add(ret);
-        }
-        return ret;
+            if (ret.hasBase()) {
+                long key = Long2ObjectOpenHashMap.key(ret.getBase().getNumber(), fieldNumber(field));
+                objectFieldMap.computeIfAbsent(key, k -> new ArrayList<>(1)).add(ret);
+            }
+            return ret;
+        });
+    }
+
+    private static int fieldNumber(SparkField field) {
+        // instance fields are numbered from 1 by Soot; the array element field is not numbered.
+        return field instanceof ArrayElement ? 0 : field.getNumber();
     }
 
     public Collection<VarNode> getVarNodes(Local local) {
-        Map<?, ContextVarNode> subMap = contextVarNodeMap.get(findLocalVarNode(local));
-        if (subMap == null) {
+        LocalVarNode base = findLocalVarNode(local);
+        if (base == null) {
             return Collections.emptySet();
         }
-        return new HashSet<>(subMap.values());
+        return new HashSet<>(contextVarNodeMap.nodesOf(base));
     }
 
     // ===================find nodes==============================
@@ -495,8 +695,22 @@ public class PAG {
      * returns null.
      */
     public ContextVarNode findContextVarNode(Local baseValue, Context context) {
-        Map<Context, ContextVarNode> contextMap = contextVarNodeMap.get(findLocalVarNode(baseValue));
-        return contextMap == null ? null : contextMap.get(context);
+        LocalVarNode base = findLocalVarNode(baseValue);
+        return base == null ? null : findContextVarNode(base, context);
+    }
+
+    /**
+     * Finds the ContextVarNode for base variable base and context context, or returns null.
+     */
+    public ContextVarNode findContextVarNode(VarNode base, Context context) {
+        return contextVarNodeMap.get(base.getNumber(), context);
+    }
+
+    /**
+     * Finds the ContextAllocNode for base alloc site base and context context, or returns null.
+     */
+    public ContextAllocNode findContextAllocNode(AllocNode base, Context context) {
+        return contextAllocNodeMap.get(base.getNumber(), context);
     }
 
     protected ReflectionModel createReflectionModel() {
@@ -536,7 +750,7 @@ public class PAG {
                 }
             }
         }
-        return methodToPag.computeIfAbsent(m, k -> new MethodPAG(this, m, body));
+        return methodToPag.computeIfAbsent(m, k -> Metrics.v().time("pag.build", () -> new MethodPAG(this, m, body)));
     }
 
     private void handleArrayCopy(SootMethod method) {
@@ -558,7 +772,7 @@ public class PAG {
                         if (srcArr.getType() == objType) {
                             Local localSrc = new JimpleLocal("intermediate/" + body.getLocalCount(), ArrayType.v(objType, 1));
                             body.getLocals().add(localSrc);
-                            newUnits.computeIfAbsent(unit, k -> new HashSet<>()).add(new JAssignStmt(localSrc, srcArr));
+                            newUnits.computeIfAbsent(unit, k -> new ArrayList<>()).add(new JAssignStmt(localSrc, srcArr));
                             srcArr = localSrc;
                         }
                         Value dstArr = sie.getArg(2);
@@ -568,15 +782,15 @@ public class PAG {
                         if (dstArr.getType() == objType) {
                             Local localDst = new JimpleLocal("intermediate/" + body.getLocalCount(), ArrayType.v(objType, 1));
                             body.getLocals().add(localDst);
-                            newUnits.computeIfAbsent(unit, k -> new HashSet<>()).add(new JAssignStmt(localDst, dstArr));
+                            newUnits.computeIfAbsent(unit, k -> new ArrayList<>()).add(new JAssignStmt(localDst, dstArr));
                             dstArr = localDst;
                         }
                         Value src = new JArrayRef(srcArr, IntConstant.v(0));
                         Value dst = new JArrayRef(dstArr, IntConstant.v(0));
                         Local local = new JimpleLocal("nativeArrayCopy" + body.getLocalCount(), RefType.v("java.lang.Object"));
                         body.getLocals().add(local);
-                        newUnits.computeIfAbsent(unit, k -> DataFactory.createSet()).add(new JAssignStmt(local, src));
-                        newUnits.computeIfAbsent(unit, k -> DataFactory.createSet()).add(new JAssignStmt(dst, local));
+                        newUnits.computeIfAbsent(unit, k -> new ArrayList<>()).add(new JAssignStmt(local, src));
+                        newUnits.computeIfAbsent(unit, k -> new ArrayList<>()).add(new JAssignStmt(dst, local));
                     }
                 }
             }
@@ -588,8 +802,11 @@ public class PAG {
 
     public void resetPointsToSet() {
         this.addedContexts.clear();
-        contextVarNodeMap.values().stream().flatMap(m -> m.values().stream()).forEach(ValNode::discardP2Set);
-        contextFieldMap.values().stream().flatMap(m -> m.values().stream()).forEach(ValNode::discardP2Set);
+        cycleRep.clear();
+        cycleMembers.clear();
+        merged = false;
+        contextVarNodeMap.values().forEach(ValNode::discardP2Set);
+        contextFieldMap.values().forEach(ValNode::discardP2Set);
         valToValNode.values().forEach(ValNode::discardP2Set);
         addedContexts.clear();
     }
@@ -0,0 +1,456 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.query;
+
+import qilin.CoreConfig;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.pag.*;
+import qilin.core.sets.HybridPointsToSet;
+import qilin.core.sets.PointsToSet;
+import qilin.core.sets.PointsToSetInternal;
+import qilin.core.sets.UnmodifiablePointsToSet;
+import qilin.util.PTAUtils;
+import soot.*;
+import soot.jimple.spark.pag.SparkField;
+
+import java.util.*;
+
+/*
+ * A demand-driven, context-insensitive points-to analysis. A query walks the edges of the program backwards from
+ * its variable and collects the pointers its answer depends on, growing a DemandScope as it goes: the callees of a
+ * call are those of the objects in the answer for its receiver, a parameter receives the arguments of the calls
+ * whose receiver objects are dispatched to its method, and a load x = y.f only depends on the stores z.f = w
+ * whose base z may point to an object of y (the balanced-parentheses language of field accesses, restricted to
+ * aliased bases). Walking and solving are interleaved, since these dependencies are only found as the answers
+ * grow; the least fixed point agrees with the whole-program analysis on the collected pointers, as every
+ * constraint of a collected pointer is collected.
+ * The answers of all collected pointers and fields of objects are memoized, so later queries stop walking at them.
+ * A query may collect at most budget pointers and may not depend on callers or stores outside the scope searched
+ * by the DemandScope (e.g., the callers of a library method); otherwise it is answered by the whole-program Solver
+ * of the PTA, which is run once on the first such query.
+ * */
+public class DemandPointsTo {
+    public static final int DEFAULT_BUDGET = 20000;
+
+    private final PTA pta;
+    private final DemandScope scope;
+    private final int budget;
+    private final FastHierarchy fh = PTAScene.v().getOrMakeFastHierarchy();
+    // memoized answers of the pointers and fields of earlier queries.
+    private final Map<ValNode, Set<AllocNode>> solvedNodes = new HashMap<>();
+    private final Map<SparkField, Map<AllocNode, Set<AllocNode>>> solvedFields = new HashMap<>();
+    private boolean wholeProgramSolved = false;
+    private int queries = 0;
+    private int fallbacks = 0;
+    private long collected = 0;
+
+    public DemandPointsTo(PTA pta) {
+        this(pta, new DemandScope(pta), DEFAULT_BUDGET);
+    }
+
+    public DemandPointsTo(PTA pta, DemandScope scope, int budget) {
+        this.pta = pta;
+        this.scope = scope;
+        this.budget = budget;
+    }
+
+    public DemandScope getScope() {
+        return scope;
+    }
+
+    public int getQueryCount() {
+        return queries;
+    }
+
+    /**
+     * Returns the number of queries answered by the whole-program Solver.
+     */
+    public int getFallbackCount() {
+        return fallbacks;
+    }
+
+    /**
+     * Returns the number of pointers collected by all queries answered on demand.
+     */
+    public long getCollectedCount() {
+        return collected;
+    }
+
+    /**
+     * Returns the (context-insensitive) objects pointed to by a local of the method.
+     */
+    public PointsToSet reachingObjects(SootMethod method, Local l) {
+        scope.enter(method);
+        return reachingObjects(l);
+    }
+
+    /**
+     * Returns the (context-insensitive) objects pointed to by the local, which are none if its method has no
+     * method PAG yet, i.e., if neither a query nor the whole-program analysis has reached it.
+     */
+    public PointsToSet reachingObjects(Local l) {
+        LocalVarNode node = pta.getPag().findLocalVarNode(l);
+        return node == null ? toPointsToSet(Collections.emptySet()) : reachingObjects(node);
+    }
+
+    /**
+     * Returns the objects pointed to by a context-insensitive variable (a local or a global).
+     */
+    public PointsToSet reachingObjects(VarNode node) {
+        queries++;
+        Set<AllocNode> ret = solvedNodes.get(node);
+        if (ret == null) {
+            ret = new Query().solve(node);
+        }
+        if (ret == null) {
+            fallbacks++;
+            if (!wholeProgramSolved) {
+                pta.pureRun();
+                wholeProgramSolved = true;
+            }
+            return pta.reachingObjects(node).toCIPointsToSet();
+        }
+        return toPointsToSet(ret);
+    }
+
+    public boolean mayAlias(SootMethod method, Local l1, Local l2) {
+        return reachingObjects(method, l1).hasNonEmptyIntersection(reachingObjects(method, l2));
+    }
+
+    public boolean mayAlias(Local l1, Local l2) {
+        return reachingObjects(l1).hasNonEmptyIntersection(reachingObjects(l2));
+    }
+
+    private PointsToSet toPointsToSet(Set<AllocNode> heaps) {
+        PointsToSetInternal ret = new HybridPointsToSet();
+        heaps.forEach(heap -> ret.add(heap.getNumber()));
+        return new UnmodifiablePointsToSet(pta, ret);
+    }
+
+    private boolean accepts(Type declType, AllocNode heap) {
+        return declType == null || PTAUtils.castNeverFails(fh, heap.getType(), declType);
+    }
+
+    /*
+     * The declared type of a field of an object, as in ContextField.
+     * */
+    private static Type fieldType(AllocNode heap, SparkField field) {
+        if (!CoreConfig.v().getPtaConfig().preciseArrayElement) {
+            return null;
+        }
+        if (field instanceof ArrayElement && heap.getType() instanceof ArrayType arrayType) {
+            return arrayType.getArrayElementType();
+        }
+        return field.getType();
+    }
+
+    /*
+     * The pointers and constraints of a single query, which are only memoized once the query is solved.
+     * A constraint is re-evaluated as a whole whenever one of its inputs grows.
+     * */
+    private class Query {
+        private final Map<ValNode, Set<AllocNode>> pts = new HashMap<>();
+        private final Map<SparkField, Map<AllocNode, Set<AllocNode>>> fieldPts = new HashMap<>();
+        private final Map<Object, List<Runnable>> dependents = new HashMap<>();
+        private final Deque<ValNode> toWalk = new ArrayDeque<>();
+        private final Set<ValNode> walked = new HashSet<>();
+        private final Deque<Runnable> worklist = new ArrayDeque<>();
+        private final Set<Runnable> queued = new HashSet<>();
+        // the flows of the call edges found so far, by target.
+        private final Map<ValNode, List<DemandScope.Flow>> flows = new HashMap<>();
+        private final Set<DemandScope.CallEdge> edges = new HashSet<>();
+        private final Set<DemandScope.Call> calls = new HashSet<>();
+        private final Set<SootMethod> callees = new HashSet<>();
+        // the constraints of the stores into a field, re-evaluated when an object of the field is needed.
+        private final Map<SparkField, List<Runnable>> stores = new HashMap<>();
+        private boolean nonLocal = false;
+
+        /**
+         * Returns the objects pointed to by the node, or null if the query is not answered on demand.
+         */
+        Set<AllocNode> solve(ValNode node) {
+            need(node);
+            while (!nonLocal && (!toWalk.isEmpty() || !worklist.isEmpty())) {
+                if (pts.size() > budget) {
+                    return null;
+                }
+                if (!toWalk.isEmpty()) {
+                    walk(toWalk.poll());
+                } else {
+                    Runnable constraint = worklist.poll();
+                    queued.remove(constraint);
+                    constraint.run();
+                }
+            }
+            if (nonLocal) {
+                return null;
+            }
+            collected += pts.size();
+            solvedNodes.putAll(pts);
+            fieldPts.forEach((field, heaps) -> solvedFields.computeIfAbsent(field, k -> new HashMap<>()).putAll(heaps));
+            return pts.get(node);
+        }
+
+        private void need(ValNode node) {
+            if (!solvedNodes.containsKey(node) && !pts.containsKey(node)) {
+                pts.put(node, new HashSet<>());
+                toWalk.add(node);
+            }
+        }
+
+        /*
+         * The objects stored into the field of an object are needed: the stores into the field whose base may point
+         * to the object contribute to them.
+         * */
+        private void needField(SparkField field, AllocNode heap) {
+            Map<AllocNode, Set<AllocNode>> solved = solvedFields.get(field);
+            if (solved != null && solved.containsKey(heap)) {
+                return;
+            }
+            Map<AllocNode, Set<AllocNode>> heaps = fieldPts.computeIfAbsent(field, k -> new HashMap<>());
+            if (heaps.containsKey(heap)) {
+                return;
+            }
+            heaps.put(heap, new HashSet<>());
+            if (!stores.containsKey(field)) {
+                List<Node[]> fieldStores = scope.storesOf(field);
+                if (fieldStores == null) {
+                    nonLocal = true;
+                    return;
+                }
+                List<Runnable> constraints = new ArrayList<>();
+                stores.put(field, constraints);
+                for (Node[] store : fieldStores) {
+                    ValNode from = (ValNode) store[0];
+                    VarNode base = ((FieldRefNode) store[1]).getBase();
+                    need(base);
+                    Runnable constraint = new Runnable() {
+                        private boolean aliased = false;
+
+                        @Override
+                        public void run() {
+                            for (AllocNode obj : ptsOf(base)) {
+                                Set<AllocNode> target = heaps.get(obj);
+                                if (target == null) {
+                                    continue;
+                                }
+                                if (!aliased) {
+                                    aliased = true;
+                                    need(from);
+                                    dependents.computeIfAbsent(from, k -> new ArrayList<>()).add(this);
+                                }
+                                if (addAll(target, ptsOf(from), fieldType(obj, field))) {
+                                    changed(field);
+                                }
+                            }
+                        }
+                    };
+                    constraints.add(constraint);
+                    dependents.computeIfAbsent(base, k -> new ArrayList<>()).add(constraint);
+                }
+            }
+            stores.get(field).forEach(this::schedule);
+        }
+
+        private void walk(ValNode node) {
+            walked.add(node);
+            Type type = node.getType();
+            List<Node> sources;
+            if (node instanceof GlobalVarNode global) {
+                sources = scope.writersOf(global);
+                if (sources == null) {
+                    nonLocal = true;
+                    return;
+                }
+            } else {
+                scope.enter(((LocalVarNode) node).getMethod());
+                sources = scope.incomingOf(node);
+            }
+            for (Node src : sources) {
+                if (src instanceof AllocNode heap) {
+                    add(() -> {
+                        if (accepts(type, heap) && pts.get(node).add(heap)) {
+                            changed(node);
+                        }
+                    });
+                } else if (src instanceof FieldRefNode fr) {
+                    VarNode base = fr.getBase();
+                    SparkField field = fr.getField();
+                    need(base);
+                    add(() -> {
+                        for (AllocNode heap : ptsOf(base)) {
+                            if (PTAUtils.isEmptyArray(heap)) {
+                                continue;
+                            }
+                            needField(field, heap);
+                            if (addAll(pts.get(node), fieldPtsOf(field, heap), type)) {
+                                changed(node);
+                            }
+                        }
+                    }, base, field);
+                } else {
+                    ValNode from = (ValNode) src;
+                    need(from);
+                    add(() -> {
+                        if (addAll(pts.get(node), ptsOf(from), type)) {
+                            changed(node);
+                        }
+                    }, from);
+                }
+            }
+            scope.exceptionFlowsInto(node).forEach(this::addFlow);
+            flows.getOrDefault(node, Collections.emptyList()).forEach(this::addFlow);
+            for (DemandScope.Call call : scope.callsDefining(node)) {
+                resolveCallees(call);
+            }
+            SootMethod method = scope.methodOfFormal(node);
+            if (method != null) {
+                resolveCallers(method);
+            }
+        }
+
+        /*
+         * Finds the call edges of a call whose result or thrown objects are needed.
+         * */
+        private void resolveCallees(DemandScope.Call call) {
+            if (!calls.add(call)) {
+                return;
+            }
+            if (call.site() == null) {
+                scope.callees(call, null).forEach(callee -> addEdge(new DemandScope.CallEdge(call, callee)));
+                return;
+            }
+            VarNode receiver = call.site().recNode();
+            need(receiver);
+            add(() -> {
+                for (AllocNode heap : ptsOf(receiver)) {
+                    scope.callees(call, heap.getType()).forEach(callee -> addEdge(new DemandScope.CallEdge(call, callee)));
+                }
+            }, receiver);
+        }
+
+        /*
+         * Finds the call edges into a method whose this or parameters are needed.
+         * */
+        private void resolveCallers(SootMethod method) {
+            if (!callees.add(method)) {
+                return;
+            }
+            List<DemandScope.Call> callers = scope.callersOf(method);
+            if (callers == null) {
+                nonLocal = true;
+                return;
+            }
+            for (DemandScope.Call call : callers) {
+                DemandScope.CallEdge edge = new DemandScope.CallEdge(call, method);
+                if (call.site() == null) {
+                    addEdge(edge);
+                    continue;
+                }
+                VarNode receiver = call.site().recNode();
+                need(receiver);
+                add(() -> {
+                    if (ptsOf(receiver).stream().anyMatch(heap -> scope.dispatches(heap.getType(), edge))) {
+                        addEdge(edge);
+                    }
+                }, receiver);
+            }
+        }
+
+        private void addEdge(DemandScope.CallEdge edge) {
+            if (!edges.add(edge)) {
+                return;
+            }
+            for (DemandScope.Flow flow : scope.flowsOf(edge)) {
+                flows.computeIfAbsent(flow.dst(), k -> new ArrayList<>()).add(flow);
+                if (walked.contains(flow.dst())) {
+                    addFlow(flow);
+                }
+            }
+        }
+
+        private void addFlow(DemandScope.Flow flow) {
+            ValNode from = flow.src();
+            ValNode node = flow.dst();
+            Type type = node.getType();
+            need(from);
+            add(() -> {
+                boolean changed = false;
+                for (AllocNode heap : ptsOf(from)) {
+                    if (passes(flow, heap) && accepts(type, heap)) {
+                        changed |= pts.get(node).add(heap);
+                    }
+                }
+                if (changed) {
+                    changed(node);
+                }
+            }, from);
+        }
+
+        private boolean passes(DemandScope.Flow flow, AllocNode heap) {
+            return switch (flow.kind()) {
+                case DemandScope.RECEIVER -> scope.dispatches(heap.getType(), flow.edge());
+                case DemandScope.EXCEPTION -> scope.catchingTrap(heap.getType(), flow.traps()) == flow.trap();
+                default -> true;
+            };
+        }
+
+        private Set<AllocNode> ptsOf(ValNode node) {
+            Set<AllocNode> ret = pts.get(node);
+            return ret != null ? ret : solvedNodes.get(node);
+        }
+
+        private Set<AllocNode> fieldPtsOf(SparkField field, AllocNode heap) {
+            Map<AllocNode, Set<AllocNode>> heaps = fieldPts.get(field);
+            Set<AllocNode> ret = heaps == null ? null : heaps.get(heap);
+            return ret != null ? ret : solvedFields.get(field).get(heap);
+        }
+
+        private boolean addAll(Set<AllocNode> target, Set<AllocNode> heaps, Type declType) {
+            boolean changed = false;
+            for (AllocNode heap : heaps) {
+                if (accepts(declType, heap)) {
+                    changed |= target.add(heap);
+                }
+            }
+            return changed;
+        }
+
+        /*
+         * Registers a constraint on the given inputs (pointers or fields) and schedules its first evaluation.
+         * */
+        private void add(Runnable constraint, Object... inputs) {
+            for (Object input : inputs) {
+                dependents.computeIfAbsent(input, k -> new ArrayList<>()).add(constraint);
+            }
+            schedule(constraint);
+        }
+
+        private void changed(Object input) {
+            dependents.getOrDefault(input, Collections.emptyList()).forEach(this::schedule);
+        }
+
+        private void schedule(Runnable constraint) {
+            if (queued.add(constraint)) {
+                worklist.add(constraint);
+            }
+        }
+    }
+}
@@ -0,0 +1,492 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.query;
+
+import qilin.CoreConfig;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.builder.MethodNodeFactory;
+import qilin.core.pag.*;
+import qilin.util.PTAUtils;
+import soot.*;
+import soot.jimple.*;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.jimple.spark.pag.SparkField;
+import soot.util.queue.QueueReader;
+
+import java.util.*;
+
+/*
+ * The part of the program the demand-driven queries have depended on so far. A method enters the scope when a
+ * query reaches one of its variables, e.g., the method of the queried variable, a callee resolved through the
+ * answer for a receiver or a caller passing an argument; the edges of its method PAG are then indexed by target.
+ * The flows of a call edge (arguments, returns, receivers and, with precise exceptions, thrown objects) are made
+ * when a query finds the edge.
+ * A query also needs all the callers of a method whose parameters it reaches and all the stores into a field or
+ * a static field it reads. These are only searched for in the methods that may access the method or field: its
+ * class (and nest) if it is private, its package if it is package-private and the whole application otherwise,
+ * plus the methods whose reflective calls are modelled. Since the library cannot refer to application classes,
+ * this is complete for the members of application classes, unless a method overrides one of the library; the
+ * callers and stores of any other member are unknown and the query is not answered on demand.
+ * The nodes are the context-insensitive nodes of the method PAGs and the objects are abstracted by the heap
+ * abstractor of the PTA, as in the whole-program Solver. Unreachable methods may call a method or store into a
+ * field too, so the answers of a query contain those of the whole-program analysis.
+ * */
+public class DemandScope {
+    static final int COPY = 0;
+    static final int RECEIVER = 1;
+    static final int EXCEPTION = 2;
+
+    /*
+     * A call statement of a method; site is null for calls that do not dispatch on a receiver.
+     * */
+    record Call(SootMethod caller, Stmt stmt, VirtualCallSite site) {
+    }
+
+    record CallEdge(Call call, SootMethod callee) {
+    }
+
+    /*
+     * An inter-procedural flow from src to dst. A RECEIVER flow only passes the receiver objects dispatched to the
+     * callee and an EXCEPTION flow only passes the thrown objects caught by the given trap (or by none of the traps
+     * of the statement if trap is -1).
+     * */
+    record Flow(int kind, ValNode src, ValNode dst, CallEdge edge, List<Trap> traps, int trap) {
+    }
+
+    /*
+     * The calls, stores (from, field reference) and static field writes (from, global) of a method that may access
+     * a member of an application class.
+     * */
+    private record Accesses(List<Call> calls, List<Node[]> stores, List<Node[]> writes) {
+    }
+
+    private final PTA pta;
+    private final PAG pag;
+    private final FastHierarchy fh;
+    // method PAGs may grow when the nodes of a call are made (e.g., for string constant arguments).
+    private final Map<SootMethod, QueueReader<Node>> readers = new HashMap<>();
+    // intra-procedural edges by target: objects, copied pointers and loaded field references.
+    private final Map<Node, List<Node>> incoming = new HashMap<>();
+    private final Map<ValNode, List<Flow>> exceptionFlows = new HashMap<>();
+    // the calls whose result or thrown objects are assigned to a node.
+    private final Map<ValNode, List<Call>> defining = new HashMap<>();
+    // this and the parameters of the methods in the scope.
+    private final Map<ValNode, SootMethod> formals = new HashMap<>();
+    private final Map<CallEdge, List<Flow>> edgeFlows = new HashMap<>();
+    private final Map<VirtualCallSite, Map<Type, Set<SootMethod>>> dispatchCache = new HashMap<>();
+    private final Map<SootMethod, Accesses> accesses = new HashMap<>();
+    private final Map<SootMethod, List<Call>> callers = new HashMap<>();
+    private final Map<SparkField, List<Node[]>> stores = new HashMap<>();
+    private final Map<SootField, List<Node[]>> writes = new HashMap<>();
+
+    public DemandScope(PTA pta) {
+        this.pta = pta;
+        this.pag = pta.getPag();
+        this.fh = PTAScene.v().getOrMakeFastHierarchy();
+    }
+
+    /**
+     * Returns the number of methods reached by the queries so far.
+     */
+    public int getMethodCount() {
+        return readers.size();
+    }
+
+    /**
+     * Returns the number of methods searched for callers and stores so far.
+     */
+    public int getSearchedMethodCount() {
+        return accesses.size();
+    }
+
+    public boolean contains(SootMethod method) {
+        return readers.containsKey(method);
+    }
+
+    void enter(SootMethod method) {
+        if (readers.containsKey(method) || method.isPhantom()) {
+            return;
+        }
+        MethodPAG mpag = pag.getMethodPAG(method);
+        readers.put(method, mpag.getInternalReader().clone());
+        MethodNodeFactory nodeFactory = mpag.nodeFactory();
+        if (!method.isStatic()) {
+            formals.put((ValNode) nodeFactory.caseThis(), method);
+        }
+        for (int i = 0; i < method.getParameterCount(); ++i) {
+            if (method.getParameterType(i) instanceof RefLikeType) {
+                formals.put((ValNode) nodeFactory.caseParm(i), method);
+            }
+        }
+        for (Unit unit : mpag.getInvokeStmts()) {
+            Call call = makeCall(method, (Stmt) unit);
+            if (call == null) {
+                continue;
+            }
+            if (call.stmt() instanceof AssignStmt as && as.getLeftOp().getType() instanceof RefLikeType) {
+                defining.computeIfAbsent((ValNode) nodeFactory.getNode(as.getLeftOp()), k -> new ArrayList<>()).add(call);
+            }
+            if (CoreConfig.v().getPtaConfig().preciseExceptions) {
+                LocalVarNode throwNode = nodeFactory.makeInvokeStmtThrowVarNode(call.stmt(), method);
+                defining.computeIfAbsent(throwNode, k -> new ArrayList<>()).add(call);
+            }
+        }
+        if (CoreConfig.v().getPtaConfig().preciseExceptions) {
+            addThrowSites(mpag);
+        }
+        readInternalEdges(method);
+    }
+
+    List<Node> incomingOf(Node node) {
+        return incoming.getOrDefault(node, Collections.emptyList());
+    }
+
+    List<Flow> exceptionFlowsInto(ValNode node) {
+        return exceptionFlows.getOrDefault(node, Collections.emptyList());
+    }
+
+    List<Call> callsDefining(ValNode node) {
+        return defining.getOrDefault(node, Collections.emptyList());
+    }
+
+    /**
+     * Returns the method of which the node is this or a parameter, or null.
+     */
+    SootMethod methodOfFormal(ValNode node) {
+        return formals.get(node);
+    }
+
+    /**
+     * Returns the methods called for an object of the given type on the receiver.
+     */
+    Set<SootMethod> callees(Call call, Type type) {
+        if (call.site() == null) {
+            SootMethod target = call.stmt().getInvokeExpr().getMethod();
+            return target == null ? Collections.emptySet() : Collections.singleton(target);
+        }
+        return dispatchCache.computeIfAbsent(call.site(), k -> new HashMap<>())
+                .computeIfAbsent(type, t -> dispatch(t, call.site()));
+    }
+
+    /**
+     * Returns true if the call edge exists for an object of the given type on the receiver.
+     */
+    boolean dispatches(Type type, CallEdge edge) {
+        return callees(edge.call(), type).contains(edge.callee());
+    }
+
+    /**
+     * Returns the index of the first trap catching an exception of the given type, or -1 if there is none.
+     */
+    int catchingTrap(Type type, List<Trap> traps) {
+        for (int i = 0; i < traps.size(); ++i) {
+            if (fh.canStoreType(type, traps.get(i).getException().getType())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * The flows of a call edge, as in CallGraphBuilder.processCallAssign.
+     * */
+    List<Flow> flowsOf(CallEdge edge) {
+        List<Flow> ret = edgeFlows.get(edge);
+        if (ret != null) {
+            return ret;
+        }
+        ret = new ArrayList<>();
+        Call call = edge.call();
+        MethodNodeFactory srcnf = pag.getMethodPAG(call.caller()).nodeFactory();
+        MethodNodeFactory tgtnf = pag.getMethodPAG(edge.callee()).nodeFactory();
+        SootMethod tgtmtd = edge.callee();
+        InvokeExpr ie = call.stmt().getInvokeExpr();
+        for (int i = 0; i < ie.getArgCount(); i++) {
+            Value arg = ie.getArg(i);
+            if (!(arg.getType() instanceof RefLikeType) || arg instanceof NullConstant) {
+                continue;
+            }
+            if (!(tgtmtd.getParameterType(i) instanceof RefLikeType)) {
+                continue;
+            }
+            ret.add(new Flow(COPY, (ValNode) srcnf.getNode(arg), tgtnf.caseParm(i), edge, null, -1));
+        }
+        if (call.stmt() instanceof AssignStmt as) {
+            Value dest = as.getLeftOp();
+            if (dest.getType() instanceof RefLikeType && tgtmtd.getReturnType() instanceof RefLikeType) {
+                ret.add(new Flow(COPY, tgtnf.caseRet(), (ValNode) srcnf.getNode(dest), edge, null, -1));
+            }
+        }
+        if (CoreConfig.v().getPtaConfig().preciseExceptions) {
+            LocalVarNode dst = srcnf.makeInvokeStmtThrowVarNode(call.stmt(), call.caller());
+            ret.add(new Flow(COPY, tgtnf.caseMethodThrow(), dst, edge, null, -1));
+        }
+        if (call.site() != null && !tgtmtd.isStatic()) {
+            ret.add(new Flow(RECEIVER, call.site().recNode(), tgtnf.caseThis(), edge, null, -1));
+        }
+        if (readers.containsKey(call.caller())) {
+            readInternalEdges(call.caller());
+        }
+        edgeFlows.put(edge, ret);
+        return ret;
+    }
+
+    /**
+     * Returns the calls that may target the method, or null if they are not all known.
+     */
+    List<Call> callersOf(SootMethod method) {
+        if (callers.containsKey(method)) {
+            return callers.get(method);
+        }
+        List<Call> ret = null;
+        if (method == PTAScene.v().getFakeMainMethod()) {
+            ret = Collections.emptyList();
+        } else if (method.getDeclaringClass().isApplicationClass() && !overridesLibrary(method)) {
+            ret = new ArrayList<>();
+            for (SootMethod accessor : accessorsOf(method.getDeclaringClass(), method.getModifiers())) {
+                for (Call call : accessesOf(accessor).calls()) {
+                    if (mayTarget(call, method)) {
+                        ret.add(call);
+                    }
+                }
+            }
+        }
+        callers.put(method, ret);
+        return ret;
+    }
+
+    /**
+     * Returns the stores (from, field reference) into the field, or null if they are not all known.
+     */
+    List<Node[]> storesOf(SparkField field) {
+        if (stores.containsKey(field)) {
+            return stores.get(field);
+        }
+        List<Node[]> ret = null;
+        if (field instanceof Field f && f.getField().getDeclaringClass().isApplicationClass()) {
+            SootField sf = f.getField();
+            ret = new ArrayList<>();
+            for (SootMethod accessor : accessorsOf(sf.getDeclaringClass(), sf.getModifiers())) {
+                for (Node[] store : accessesOf(accessor).stores()) {
+                    if (((FieldRefNode) store[1]).getField().equals(field)) {
+                        ret.add(store);
+                    }
+                }
+            }
+        }
+        stores.put(field, ret);
+        return ret;
+    }
+
+    /**
+     * Returns the sources of the edges into a global, or null if they are not all known.
+     */
+    List<Node> writersOf(GlobalVarNode global) {
+        if (!(global.getVariable() instanceof SootField sf)) {
+            // string and class constants, whose only source is their object.
+            return incomingOf(global);
+        }
+        if (!sf.getDeclaringClass().isApplicationClass()) {
+            return null;
+        }
+        List<Node[]> ret = writes.get(sf);
+        if (ret == null) {
+            ret = new ArrayList<>();
+            for (SootMethod accessor : accessorsOf(sf.getDeclaringClass(), sf.getModifiers())) {
+                for (Node[] write : accessesOf(accessor).writes()) {
+                    if (write[1] == global) {
+                        ret.add(write);
+                    }
+                }
+            }
+            writes.put(sf, ret);
+        }
+        return ret.stream().map(write -> write[0]).toList();
+    }
+
+    private Call makeCall(SootMethod method, Stmt s) {
+        if (!s.containsInvokeExpr()) {
+            return null;
+        }
+        InvokeExpr ie = s.getInvokeExpr();
+        if (ie instanceof InstanceInvokeExpr iie) {
+            Local receiver = (Local) iie.getBase();
+            VarNode recNode = pag.makeLocalVarNode(receiver, receiver.getType(), method);
+            return new Call(method, s, new VirtualCallSite(recNode, s, method, iie, iie.getMethodRef().getSubSignature(), Edge.ieToKind(iie)));
+        } else if (ie instanceof DynamicInvokeExpr) {
+            return null;
+        }
+        return new Call(method, s, null);
+    }
+
+    /*
+     * Returns false if no object may dispatch the call to the method.
+     * */
+    private boolean mayTarget(Call call, SootMethod method) {
+        SootMethodRef ref = call.stmt().getInvokeExpr().getMethodRef();
+        if (!ref.getSubSignature().equals(method.getNumberedSubSignature())) {
+            return false;
+        }
+        if (call.site() == null || call.site().iie() instanceof SpecialInvokeExpr) {
+            return call.stmt().getInvokeExpr().getMethod() == method;
+        }
+        Type refType = ref.getDeclaringClass().getType();
+        Type declType = method.getDeclaringClass().getType();
+        return fh.canStoreType(declType, refType) || fh.canStoreType(refType, declType);
+    }
+
+    /*
+     * Returns true if the method may be called through a method declared in the library.
+     * */
+    private boolean overridesLibrary(SootMethod method) {
+        if (method.isStatic() || method.isPrivate() || method.isConstructor()) {
+            return false;
+        }
+        Deque<SootClass> supers = new ArrayDeque<>();
+        Set<SootClass> visited = new HashSet<>();
+        supers.add(method.getDeclaringClass());
+        while (!supers.isEmpty()) {
+            SootClass sc = supers.poll();
+            if (!visited.add(sc)) {
+                continue;
+            }
+            if (!sc.isApplicationClass()) {
+                SootMethod overridden = sc.getMethodUnsafe(method.getNumberedSubSignature());
+                if (overridden != null && !overridden.isPrivate() && !overridden.isStatic()) {
+                    return true;
+                }
+            }
+            if (sc.hasSuperclass()) {
+                supers.add(sc.getSuperclass());
+            }
+            supers.addAll(sc.getInterfaces());
+        }
+        return false;
+    }
+
+    /*
+     * The methods that may access a member of an application class with the given modifiers.
+     * */
+    private List<SootMethod> accessorsOf(SootClass declaring, int modifiers) {
+        List<SootMethod> ret = new ArrayList<>();
+        ret.add(PTAScene.v().getFakeMainMethod());
+        ret.addAll(pag.getReflectionModel().getReflectiveCallers());
+        for (SootClass sc : new ArrayList<>(PTAScene.v().getApplicationClasses())) {
+            boolean accesses;
+            if (Modifier.isPrivate(modifiers)) {
+                accesses = outermost(sc).equals(outermost(declaring));
+            } else if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) {
+                accesses = true;
+            } else {
+                accesses = sc.getPackageName().equals(declaring.getPackageName());
+            }
+            if (accesses) {
+                sc.getMethods().stream().filter(SootMethod::isConcrete).forEach(ret::add);
+            }
+        }
+        return ret;
+    }
+
+    private static String outermost(SootClass sc) {
+        String name = sc.getName();
+        int idx = name.indexOf('$');
+        return idx < 0 ? name : name.substring(0, idx);
+    }
+
+    private Accesses accessesOf(SootMethod method) {
+        Accesses ret = accesses.get(method);
+        if (ret != null) {
+            return ret;
+        }
+        ret = new Accesses(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        MethodPAG mpag = pag.getMethodPAG(method);
+        for (Unit unit : mpag.getInvokeStmts()) {
+            Call call = makeCall(method, (Stmt) unit);
+            if (call != null) {
+                ret.calls().add(call);
+            }
+        }
+        for (QueueReader<Node> reader = mpag.getInternalReader().clone(); reader.hasNext(); ) {
+            Node from = reader.next();
+            Node to = reader.next();
+            if (from instanceof AllocNode heap) {
+                from = pta.heapAbstractor().abstractHeap(heap);
+            }
+            if (to instanceof FieldRefNode) {
+                ret.stores().add(new Node[]{from, to});
+            } else if (to instanceof GlobalVarNode) {
+                ret.writes().add(new Node[]{from, to});
+            }
+        }
+        accesses.put(method, ret);
+        return ret;
+    }
+
+    private void readInternalEdges(SootMethod method) {
+        for (QueueReader<Node> reader = readers.get(method); reader.hasNext(); ) {
+            Node from = reader.next();
+            Node to = reader.next();
+            if (from instanceof AllocNode heap) {
+                from = pta.heapAbstractor().abstractHeap(heap);
+            }
+            if (!(to instanceof FieldRefNode)) {
+                incoming.computeIfAbsent(to, k -> new ArrayList<>()).add(from);
+            }
+        }
+    }
+
+    /*
+     * Same as CallGraphBuilder.dispatch.
+     * */
+    private Set<SootMethod> dispatch(Type type, VirtualCallSite site) {
+        Set<SootMethod> ret = new HashSet<>();
+        for (QueueReader<SootMethod> targets = PTAUtils.dispatch(type, site); targets.hasNext(); ) {
+            SootMethod target = targets.next();
+            if (site.iie() instanceof SpecialInvokeExpr && !fh.canStoreType(type, target.getDeclaringClass().getType())) {
+                continue;
+            }
+            ret.add(target);
+        }
+        return ret;
+    }
+
+    /*
+     * The exception dispatching of ExceptionHandler.
+     * */
+    private void addThrowSites(MethodPAG mpag) {
+        MethodNodeFactory nodeFactory = mpag.nodeFactory();
+        SootMethod method = mpag.getMethod();
+        mpag.stmt2wrapperedTraps.forEach((stmt, traps) -> {
+            Node src = stmt.containsInvokeExpr() ? nodeFactory.makeInvokeStmtThrowVarNode(stmt, method) : nodeFactory.getNode(((ThrowStmt) stmt).getOp());
+            if (!(src instanceof ValNode throwNode)) {
+                return;
+            }
+            for (int i = 0; i < traps.size(); ++i) {
+                IdentityStmt handler = (IdentityStmt) traps.get(i).getHandlerUnit();
+                addExceptionFlow(new Flow(EXCEPTION, throwNode, (ValNode) nodeFactory.getNode(handler.getRightOp()), null, traps, i));
+            }
+            addExceptionFlow(new Flow(EXCEPTION, throwNode, nodeFactory.caseMethodThrow(), null, traps, -1));
+        });
+    }
+
+    private void addExceptionFlow(Flow flow) {
+        exceptionFlows.computeIfAbsent(flow.dst(), k -> new ArrayList<>()).add(flow);
+    }
+}
@@ -0,0 +1,215 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.query;
+
+import qilin.core.PTA;
+import qilin.core.pag.VarNode;
+import qilin.core.sets.CIPointsToTable;
+import qilin.core.sets.IntIterator;
+import qilin.core.sets.PointsToSetInternal;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/*
+ * Batch may-alias queries over the solved points-to sets of a PTA.
+ * Two variables may alias if their points-to sets, as answered by PTA.reachingObjects, share an object. Instead of
+ * intersecting the sets of every pair of variables, the points-to sets of one side are inverted into an index from
+ * objects to variables, and the aliases of a variable of the other side are enumerated by walking the index at its
+ * objects, so that only the pairs sharing an object are ever visited. The index takes 8 bytes per (object, variable)
+ * pair, so the variables of the indexed side are split into chunks of at most MAX_INDEX_SIZE pairs, indexed one
+ * after the other. The variables of a batch are processed in parallel once the batch is large enough; the results
+ * do not depend on the number of threads.
+ * Only local and global variables have points-to sets here (see CIPointsToTable).
+ * */
+public class MayAliasEngine {
+    // batches with fewer variables on the enumerated side are processed by the calling thread.
+    private static final int PARALLEL_THRESHOLD = 64;
+    // the maximal number of pairs of an index, i.e., 128 MB, unless a single variable points to more objects.
+    private static final int MAX_INDEX_SIZE = 1 << 24;
+
+    private final PTA pta;
+    private final int maxIndexSize;
+
+    public MayAliasEngine(PTA pta) {
+        this(pta, MAX_INDEX_SIZE);
+    }
+
+    public MayAliasEngine(PTA pta, int maxIndexSize) {
+        this.pta = pta;
+        this.maxIndexSize = Math.max(1, maxIndexSize);
+    }
+
+    /**
+     * @param xs     variables to find the aliases of.
+     * @param ys     candidate aliases.
+     * @param filter the pairs (x, y) to consider, e.g., to count each unordered pair once. It is called concurrently.
+     * @return for each variable of xs with aliases in ys, its aliases in the order of ys, in the order of xs.
+     */
+    public <V extends VarNode> Map<V, List<V>> mayAliasBatch(Collection<V> xs, Collection<V> ys, BiPredicate<V, V> filter) {
+        Batch<V> batch = new Batch<>(xs, ys, filter);
+        // the i-th list is only updated by the thread processing the i-th variable of xs.
+        List<List<Integer>> hits = new ArrayList<>(batch.xs.size());
+        batch.xs.forEach(x -> hits.add(new ArrayList<>()));
+        batch.forEachChunk(chunk -> stream(batch.xs.size()).forEach(i -> chunk.forEachAlias(i, hits.get(i)::add)));
+        Map<V, List<V>> ret = new LinkedHashMap<>();
+        for (int i = 0; i < hits.size(); ++i) {
+            List<Integer> indices = hits.get(i);
+            if (!indices.isEmpty()) {
+                Collections.sort(indices);
+                List<V> aliases = new ArrayList<>(indices.size());
+                indices.forEach(j -> aliases.add(batch.ys.get(j)));
+                ret.put(batch.xs.get(i), aliases);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the number of pairs (x, y) of xs and ys accepted by filter where x and y may alias.
+     */
+    public <V extends VarNode> long countMayAliasBatch(Collection<V> xs, Collection<V> ys, BiPredicate<V, V> filter) {
+        Batch<V> batch = new Batch<>(xs, ys, filter);
+        long[] ret = new long[1];
+        batch.forEachChunk(chunk -> ret[0] += stream(batch.xs.size()).mapToLong(i -> {
+            long[] count = new long[1];
+            chunk.forEachAlias(i, j -> count[0]++);
+            return count[0];
+        }).sum());
+        return ret[0];
+    }
+
+    private static IntStream stream(int size) {
+        IntStream ret = IntStream.range(0, size);
+        return size < PARALLEL_THRESHOLD ? ret : ret.parallel();
+    }
+
+    private class Batch<V extends VarNode> {
+        private final List<V> xs;
+        private final List<V> ys;
+        private final BiPredicate<V, V> filter;
+        private final PointsToSetInternal[] xPts;
+        private final PointsToSetInternal[] yPts;
+
+        private Batch(Collection<V> xs, Collection<V> ys, BiPredicate<V, V> filter) {
+            CIPointsToTable table = pta.getCIPointsToTable();
+            if (table == null) {
+                throw new IllegalStateException("May-alias queries require a solved points-to analysis.");
+            }
+            this.xs = new ArrayList<>(xs);
+            this.ys = new ArrayList<>(ys);
+            this.filter = filter;
+            this.xPts = new PointsToSetInternal[this.xs.size()];
+            for (int i = 0; i < xPts.length; ++i) {
+                xPts[i] = table.get(this.xs.get(i));
+            }
+            this.yPts = new PointsToSetInternal[this.ys.size()];
+            for (int j = 0; j < yPts.length; ++j) {
+                yPts[j] = table.get(this.ys.get(j));
+            }
+        }
+
+        /*
+         * Indexes the consecutive ys whose points-to sets have at most maxIndexSize objects in total (at least one
+         * variable per chunk), and passes each index to the action before building the next one.
+         * */
+        private void forEachChunk(Consumer<Chunk> action) {
+            int from = 0;
+            while (from < yPts.length) {
+                long size = yPts[from].size();
+                int to = from + 1;
+                while (to < yPts.length && size + yPts[to].size() <= maxIndexSize) {
+                    size += yPts[to++].size();
+                }
+                action.accept(new Chunk(from, to, (int) size));
+                from = to;
+            }
+        }
+
+        /*
+         * The inverted index of the ys in [from, to): the pairs (object, index of y) for every object pointed to by
+         * every y, sorted, with each pair encoded as a long so that the variables pointing to an object form a
+         * contiguous range.
+         * */
+        private class Chunk {
+            private final int from;
+            private final long[] index;
+            // the ys already enumerated for a variable of xs, marked by its index plus one, per thread.
+            private final ThreadLocal<int[]> marks;
+
+            private Chunk(int from, int to, int size) {
+                this.from = from;
+                this.index = new long[size];
+                int k = 0;
+                for (int j = from; j < to; ++j) {
+                    for (IntIterator it = yPts[j].intIterator(); it.hasNext(); ) {
+                        index[k++] = ((long) it.next() << 32) | j;
+                    }
+                }
+                if (index.length < PARALLEL_THRESHOLD * PARALLEL_THRESHOLD) {
+                    Arrays.sort(index);
+                } else {
+                    Arrays.parallelSort(index);
+                }
+                this.marks = ThreadLocal.withInitial(() -> new int[to - from]);
+            }
+
+            /*
+             * Passes the index in ys of each alias of the i-th variable of xs in this chunk accepted by the filter,
+             * once.
+             * */
+            private void forEachAlias(int i, IntConsumer action) {
+                if (index.length == 0 || xPts[i].isEmpty()) {
+                    return;
+                }
+                V x = xs.get(i);
+                int[] mark = marks.get();
+                int stamp = i + 1;
+                for (IntIterator it = xPts[i].intIterator(); it.hasNext(); ) {
+                    long obj = it.next();
+                    for (int k = lowerBound(obj << 32); k < index.length && (index[k] >>> 32) == obj; ++k) {
+                        int j = (int) index[k];
+                        if (mark[j - from] != stamp) {
+                            mark[j - from] = stamp;
+                            if (filter.test(x, ys.get(j))) {
+                                action.accept(j);
+                            }
+                        }
+                    }
+                }
+            }
+
+            private int lowerBound(long key) {
+                int lo = 0, hi = index.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (index[mid] < key) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                return lo;
+            }
+        }
+    }
+}
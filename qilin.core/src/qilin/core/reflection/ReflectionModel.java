@@ -87,6 +87,13 @@ public abstract class ReflectionModel {
         }
     }
 
+    /**
+     * Returns the methods whose reflective calls are replaced, which may thus access any member of the program.
+     */
+    public Collection<SootMethod> getReflectiveCallers() {
+        return Collections.emptySet();
+    }
+
     abstract Collection<Unit> transformClassForName(Stmt s);
 
     abstract Collection<Unit> transformClassNewInstance(Stmt s);
@@ -39,12 +39,18 @@ import java.util.*;
 public class TamiflexModel extends ReflectionModel {
 
     protected Map<ReflectionKind, Map<Stmt, Set<String>>> reflectionMap;
+    protected final Set<SootMethod> reflectiveCallers = DataFactory.createSet();
 
     public TamiflexModel() {
         reflectionMap = DataFactory.createMap();
         parseTamiflexLog(CoreConfig.v().getAppConfig().REFLECTION_LOG, true);
     }
 
+    @Override
+    public Collection<SootMethod> getReflectiveCallers() {
+        return reflectiveCallers;
+    }
+
     @Override
     Collection<Unit> transformClassForName(Stmt s) {
         // <java.lang.Class: java.lang.Class forName(java.lang.String)>
@@ -368,6 +374,7 @@ public class TamiflexModel extends ReflectionModel {
         Set<Stmt> ret = DataFactory.createSet();
         Set<Stmt> potential = DataFactory.createSet();
         Collection<SootMethod> sourceMethods = inferSourceMethod(inClzDotMthd);
+        reflectiveCallers.addAll(sourceMethods);
         for (SootMethod sm : sourceMethods) {
             Body body = PTAUtils.getMethodBody(sm);
             for (Unit u : body.getUnits()) {
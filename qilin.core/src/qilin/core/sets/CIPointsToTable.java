@@ -0,0 +1,120 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.sets;
+
+import qilin.core.pag.*;
+import soot.util.ArrayNumberer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * The points-to sets of the variables of a solved PAG, projected over contexts for query clients.
+ * For each LocalVarNode and GlobalVarNode, it keeps the union of the points-to sets of its context-sensitive
+ * copies, and the same set over the numbers of the base AllocNodes, i.e., the context-insensitive points-to set.
+ * A variable with a single copy shares the set of that copy, and a set of base objects only is its own
+ * projection; other sets are computed once, in parallel, into compressed bitmaps indexed by the number of the
+ * variable. None of them is modified until the analysis runs again, so queries from any thread just read them.
+ * */
+public final class CIPointsToTable {
+    private final PointsToSetInternal[] pts;
+    private final PointsToSetInternal[] ciPts;
+
+    public CIPointsToTable(PAG pag) {
+        ArrayNumberer<ValNode> valNodes = pag.getValNodeNumberer();
+        ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        this.pts = new PointsToSetInternal[valNodes.size() + 1];
+        this.ciPts = new PointsToSetInternal[valNodes.size() + 1];
+        // the copies of each variable are looked up here since the index of PAG is built on the first lookup.
+        List<VarNode> vars = new ArrayList<>();
+        List<Collection<ContextVarNode>> copies = new ArrayList<>();
+        for (ValNode node : valNodes) {
+            if (node instanceof LocalVarNode || node instanceof GlobalVarNode) {
+                vars.add((VarNode) node);
+                copies.add(pag.getContextVarNodes((VarNode) node));
+            }
+        }
+        IntStream.range(0, vars.size()).parallel().forEach(i -> {
+            Collection<ContextVarNode> cvns = copies.get(i);
+            PointsToSetInternal set;
+            if (cvns.size() == 1) {
+                set = solvedSet(cvns.iterator().next());
+            } else {
+                set = new RoaringPointsToSet();
+                for (ContextVarNode cvn : cvns) {
+                    set.addAll(solvedSet(cvn), null);
+                }
+            }
+            if (set.isEmpty()) {
+                return;
+            }
+            int number = vars.get(i).getNumber();
+            pts[number] = set;
+            ciPts[number] = isSensitive(set, allocNodes) ? project(set, allocNodes) : set;
+        });
+    }
+
+    private static boolean isSensitive(PointsToSetInternal set, ArrayNumberer<AllocNode> allocNodes) {
+        for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+            AllocNode heap = allocNodes.get(it.next());
+            if (heap.base() != heap) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The set of a solved variable, i.e., its old set once the new objects have all been propagated.
+     * */
+    private static PointsToSetInternal solvedSet(ContextVarNode cvn) {
+        DoublePointsToSet p2set = cvn.getP2Set();
+        return p2set.getNewSet().isEmpty() ? p2set.getOldSet() : p2set;
+    }
+
+    private static PointsToSetInternal project(PointsToSetInternal set, ArrayNumberer<AllocNode> allocNodes) {
+        RoaringPointsToSet ret = new RoaringPointsToSet();
+        for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+            ret.add(allocNodes.get(it.next()).base().getNumber());
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the objects pointed to by the variable under any context.
+     */
+    public PointsToSetInternal get(VarNode var) {
+        return lookup(pts, var);
+    }
+
+    /**
+     * Returns the base objects pointed to by the variable under any context.
+     */
+    public PointsToSetInternal getCI(VarNode var) {
+        return lookup(ciPts, var);
+    }
+
+    private static PointsToSetInternal lookup(PointsToSetInternal[] sets, VarNode var) {
+        int number = var.getNumber();
+        PointsToSetInternal ret = number < sets.length ? sets[number] : null;
+        return ret == null ? HybridPointsToSet.getEmptySet() : ret;
+    }
+}
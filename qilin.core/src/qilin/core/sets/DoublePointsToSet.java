@@ -18,7 +18,10 @@
 
 package qilin.core.sets;
 
-import java.util.Iterator;
+import qilin.CoreConfig;
+import soot.util.BitVector;
+
+import java.util.function.IntConsumer;
 
 /**
  * Implementation of points-to set that holds two sets: one for new elements that have not yet been propagated, and the other
@@ -27,12 +30,22 @@ import java.util.Iterator;
  * @author Ondrej Lhotak
  */
 public class DoublePointsToSet extends PointsToSetInternal {
-    protected HybridPointsToSet newSet;
-    protected HybridPointsToSet oldSet;
+    protected PointsToSetInternal newSet;
+    protected PointsToSetInternal oldSet;
 
     public DoublePointsToSet() {
-        newSet = new HybridPointsToSet();
-        oldSet = new HybridPointsToSet();
+        newSet = newInnerSet();
+        oldSet = newInnerSet();
+    }
+
+    /**
+     * Creates an empty set of the implementation selected by CoreConfig.
+     */
+    public static PointsToSetInternal newInnerSet() {
+        if (CoreConfig.v().getPtaConfig().pointsToSetKind == CoreConfig.PointsToSetKind.ROARING) {
+            return new RoaringPointsToSet();
+        }
+        return new HybridPointsToSet();
     }
 
     /**
@@ -55,9 +68,9 @@ public class DoublePointsToSet extends PointsToSetInternal {
         return oldSet.size() + newSet.size();
     }
 
-    private class DoublePTSIterator implements Iterator<Integer> {
-        private final Iterator<Integer> oldIt = oldSet.iterator();
-        private final Iterator<Integer> newIt = newSet.iterator();
+    private class DoublePTSIterator implements IntIterator {
+        private final IntIterator oldIt = oldSet.intIterator();
+        private final IntIterator newIt = newSet.intIterator();
 
         @Override
         public boolean hasNext() {
@@ -65,7 +78,7 @@ public class DoublePointsToSet extends PointsToSetInternal {
         }
 
         @Override
-        public Integer next() {
+        public int next() {
             if (oldIt.hasNext()) {
                 return oldIt.next();
             } else {
@@ -74,7 +87,8 @@ public class DoublePointsToSet extends PointsToSetInternal {
         }
     }
 
-    public Iterator<Integer> iterator() {
+    @Override
+    public IntIterator intIterator() {
         return new DoublePTSIterator();
     }
 
@@ -98,13 +112,23 @@ public class DoublePointsToSet extends PointsToSetInternal {
     }
 
     /**
-     * Calls v's visit method on all nodes in this set.
+     * Adds the nodes of other whose numbers are set in mask into this set, returns true if this set changed.
+     */
+    @Override
+    public boolean addAll(PointsToSetInternal other, BitVector mask, PointsToSetInternal exclude) {
+        if (exclude != null) {
+            throw new RuntimeException("exclude set must be null.");
+        }
+        return newSet.addAll(other, mask, oldSet);
+    }
+
+    /**
+     * Calls action on the number of every node in this set.
      */
     @Override
-    public boolean forall(P2SetVisitor v) {
-        oldSet.forall(v);
-        newSet.forall(v);
-        return v.getReturnValue();
+    public void forEach(IntConsumer action) {
+        oldSet.forEach(action);
+        newSet.forEach(action);
     }
 
     /**
@@ -120,19 +144,19 @@ public class DoublePointsToSet extends PointsToSetInternal {
     /**
      * Returns set of nodes already present before last call to flushNew.
      */
-    public HybridPointsToSet getOldSet() {
+    public PointsToSetInternal getOldSet() {
         return oldSet;
     }
 
     /**
      * Returns set of newly-added nodes since last call to flushNew.
      */
-    public HybridPointsToSet getNewSet() {
+    public PointsToSetInternal getNewSet() {
         return newSet;
     }
 
-    public HybridPointsToSet getNewSetCopy() {
-        HybridPointsToSet newCopy = new HybridPointsToSet();
+    public PointsToSetInternal getNewSetCopy() {
+        PointsToSetInternal newCopy = newInnerSet();
         newCopy.addAll(newSet, null);
         return newCopy;
     }
@@ -142,7 +166,7 @@ public class DoublePointsToSet extends PointsToSetInternal {
      */
     public void flushNew() {
         oldSet.addAll(newSet, null);
-        newSet = new HybridPointsToSet();
+        newSet = newInnerSet();
     }
 
     /**
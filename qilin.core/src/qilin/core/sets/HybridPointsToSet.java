@@ -22,7 +22,7 @@ import soot.util.BitSetIterator;
 import soot.util.BitVector;
 
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.function.IntConsumer;
 
 /**
  * Hybrid implementation of points-to set, which uses an explicit array for small sets, and a bit vector for large sets.
@@ -61,9 +61,17 @@ public final class HybridPointsToSet extends PointsToSetInternal {
         size = 0;
     }
 
-    private boolean nativeAddAll(HybridPointsToSet other, PointsToSetInternal exclude) {
+    private boolean nativeAddAll(PointsToSetInternal other, PointsToSetInternal exclude) {
+        if (other instanceof HybridPointsToSet hother && hother.bits != null) {
+            if (exclude == null) {
+                return wordAddAll(hother.bits, null, null);
+            }
+            if (exclude instanceof HybridPointsToSet hexclude && hexclude.bits != null) {
+                return wordAddAll(hother.bits, null, hexclude.bits);
+            }
+        }
         boolean ret = false;
-        for (Iterator<Integer> it = other.iterator(); it.hasNext(); ) {
+        for (IntIterator it = other.intIterator(); it.hasNext(); ) {
             int idx = it.next();
             if (exclude == null || !exclude.contains(idx)) {
                 ret |= add(idx);
@@ -72,6 +80,59 @@ public final class HybridPointsToSet extends PointsToSetInternal {
         return ret;
     }
 
+    /*
+     * this = this | (other & mask & ~exclude), computed a 64-bit word at a time; a null mask or exclude is ignored.
+     * */
+    private boolean wordAddAll(BitVector other, BitVector mask, BitVector exclude) {
+        if (bits == null) {
+            convertToBits();
+        }
+        boolean ret = bits.orAndAndNot(other, mask, exclude);
+        if (ret) {
+            size = bits.cardinality();
+            empty = false;
+        }
+        return ret;
+    }
+
+    /**
+     * Adds the nodes of other whose numbers are set in mask and which are not in exclude (if non-null),
+     * returns true if this set changed.
+     */
+    @Override
+    public boolean addAll(final PointsToSetInternal other, final BitVector mask, final PointsToSetInternal exclude) {
+        if (other instanceof DoublePointsToSet dpts) {
+            return addAll(dpts.getNewSet(), mask, exclude) | addAll(dpts.getOldSet(), mask, exclude);
+        }
+        if (other instanceof HybridPointsToSet hother && hother.bits != null) {
+            final BitVector excludeBits = exclude instanceof HybridPointsToSet hexclude ? hexclude.bits : null;
+            if (bits != null && (exclude == null || excludeBits != null)) {
+                return wordAddAll(hother.bits, mask, excludeBits);
+            }
+            // filter word by word into a scratch vector first, so that a small result can stay in array form.
+            BitVector filtered = new BitVector();
+            filtered.orAndAndNot(hother.bits, mask, excludeBits);
+            boolean ret = false;
+            for (BitSetIterator it = filtered.iterator(); it.hasNext(); ) {
+                int idx = it.next();
+                if (excludeBits != null || exclude == null || !exclude.contains(idx)) {
+                    ret |= add(idx);
+                }
+            }
+            return ret;
+        }
+        return super.addAll(other, mask, exclude);
+    }
+
+    private void convertToBits() {
+        bits = new BitVector();
+        for (int nodeIdx : nodeIdxs) {
+            if (nodeIdx != 0) {
+                bits.set(nodeIdx);
+            }
+        }
+    }
+
     /**
      * Adds contents of other into this set, returns true if this set changed.
      */
@@ -82,10 +143,10 @@ public final class HybridPointsToSet extends PointsToSetInternal {
         if (other instanceof DoublePointsToSet dpts) {
             return nativeAddAll(dpts.getNewSet(), exclude) | nativeAddAll(dpts.getOldSet(), exclude);
         }
-        return nativeAddAll((HybridPointsToSet) other, exclude);
+        return nativeAddAll(other, exclude);
     }
 
-    private class HybridPTSIterator implements Iterator<Integer> {
+    private class HybridPTSIterator implements IntIterator {
         private BitSetIterator it;
         private int idx;
 
@@ -107,7 +168,7 @@ public final class HybridPointsToSet extends PointsToSetInternal {
         }
 
         @Override
-        public Integer next() {
+        public int next() {
             if (bits == null) {
                 return nodeIdxs[idx++];
             } else {
@@ -117,7 +178,7 @@ public final class HybridPointsToSet extends PointsToSetInternal {
     }
 
     @Override
-    public Iterator<Integer> iterator() {
+    public IntIterator intIterator() {
         return new HybridPTSIterator();
     }
 
@@ -127,22 +188,33 @@ public final class HybridPointsToSet extends PointsToSetInternal {
     }
 
     /**
-     * Calls v's visit method on all nodes in this set.
+     * Returns true if this set shares some objects with other.
+     */
+    @Override
+    public boolean hasNonEmptyIntersection(final PointsToSetInternal other) {
+        if (bits != null && other instanceof HybridPointsToSet hother && hother.bits != null) {
+            return bits.intersects(hother.bits);
+        }
+        return super.hasNonEmptyIntersection(other);
+    }
+
+    /**
+     * Calls action on the number of every node in this set.
      */
-    public boolean forall(P2SetVisitor v) {
+    @Override
+    public void forEach(IntConsumer action) {
         if (bits == null) {
             for (int nodeIdx : nodeIdxs) {
                 if (nodeIdx == 0) {
-                    return v.getReturnValue();
+                    return;
                 }
-                v.visit(nodeIdx);
+                action.accept(nodeIdx);
             }
         } else {
             for (BitSetIterator it = bits.iterator(); it.hasNext(); ) {
-                v.visit(it.next());
+                action.accept(it.next());
             }
         }
-        return v.getReturnValue();
     }
 
     /**
@@ -180,12 +252,7 @@ public final class HybridPointsToSet extends PointsToSetInternal {
                 }
             }
             // convert to Bits
-            bits = new BitVector();
-            for (int nodeIdx : nodeIdxs) {
-                if (nodeIdx != 0) {
-                    bits.set(nodeIdx);
-                }
-            }
+            convertToBits();
         }
         boolean ret = bits.set(idx);
         if (ret) {
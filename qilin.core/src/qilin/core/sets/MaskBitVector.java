@@ -0,0 +1,91 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.sets;
+
+import soot.util.BitVector;
+
+import java.util.Arrays;
+
+/*
+ * A BitVector used as a mask over node numbers (see TypeFilterMasks), whose 64-bit words can also be read, so that
+ * points-to sets not built on a BitVector (e.g., RoaringPointsToSet) can filter a word at a time as well.
+ * Masks only ever grow by set(), which keeps the copy of the words in sync; other updates are not supported.
+ * */
+public class MaskBitVector extends BitVector {
+    private long[] words = new long[0];
+
+    @Override
+    public boolean set(int bit) {
+        int w = bit >>> 6;
+        if (w >= words.length) {
+            words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+        }
+        words[w] |= 1L << bit;
+        return super.set(bit);
+    }
+
+    /**
+     * Returns the w-th word of this mask, i.e., the bits 64 * w to 64 * w + 63; 0 beyond its length.
+     */
+    public long word(int w) {
+        return w < words.length ? words[w] : 0L;
+    }
+
+    /**
+     * Returns the number of words of this mask; every word from this index on is 0.
+     */
+    public int wordCount() {
+        return words.length;
+    }
+
+    @Override
+    public void clear(int bit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void and(BitVector other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void andNot(BitVector other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void or(BitVector other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void xor(BitVector other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void copyFrom(BitVector other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean orAndAndNot(BitVector other, BitVector mask, BitVector exclude) {
+        throw new UnsupportedOperationException();
+    }
+}
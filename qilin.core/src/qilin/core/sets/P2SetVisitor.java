@@ -21,12 +21,14 @@ package qilin.core.sets;
 import qilin.core.PTA;
 import qilin.core.pag.Node;
 
+import java.util.function.IntConsumer;
+
 /**
  * Abstract base class for points-to set visitors used to enumerate points-to sets.
  *
  * @author Ondrej Lhotak
  */
-public abstract class P2SetVisitor {
+public abstract class P2SetVisitor implements IntConsumer {
     protected boolean returnValue = false;
     protected final PTA pta;
 
@@ -42,6 +44,11 @@ public abstract class P2SetVisitor {
         visit(node);
     }
 
+    @Override
+    public void accept(int idx) {
+        visit(idx);
+    }
+
     public boolean getReturnValue() {
         return returnValue;
     }
@@ -18,7 +18,10 @@
 
 package qilin.core.sets;
 
+import soot.util.BitVector;
+
 import java.util.Iterator;
+import java.util.function.IntConsumer;
 
 /**
  * Abstract base class for implementations of points-to sets.
@@ -29,10 +32,37 @@ public abstract class PointsToSetInternal {
     /**
      * Calls v's visit method on all nodes in this set.
      */
-    public abstract boolean forall(P2SetVisitor v);
+    public boolean forall(P2SetVisitor v) {
+        forEach(v);
+        return v.getReturnValue();
+    }
+
+    /**
+     * Calls action on the number of every node in this set, without boxing.
+     */
+    public void forEach(IntConsumer action) {
+        for (IntIterator it = intIterator(); it.hasNext(); ) {
+            action.accept(it.next());
+        }
+    }
 
     public abstract boolean addAll(final PointsToSetInternal other, final PointsToSetInternal exclude);
 
+    /**
+     * Adds the nodes of other whose numbers are set in mask and which are not in exclude (if non-null),
+     * returns true if this set changed.
+     */
+    public boolean addAll(final PointsToSetInternal other, final BitVector mask, final PointsToSetInternal exclude) {
+        boolean ret = false;
+        for (IntIterator it = other.intIterator(); it.hasNext(); ) {
+            int idx = it.next();
+            if (mask.get(idx) && (exclude == null || !exclude.contains(idx))) {
+                ret |= add(idx);
+            }
+        }
+        return ret;
+    }
+
     /**
      * Adds node index idx to this set, returns true if idx was not already in this set.
      */
@@ -43,14 +73,32 @@ public abstract class PointsToSetInternal {
      */
     public abstract boolean contains(int idx);
 
-    public abstract Iterator<Integer> iterator();
+    public abstract IntIterator intIterator();
+
+    /**
+     * Boxed view of intIterator(), kept for clients outside the solver.
+     */
+    public Iterator<Integer> iterator() {
+        final IntIterator it = intIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return it.next();
+            }
+        };
+    }
 
     public abstract void clear();
 
     public abstract boolean isEmpty();
 
     public boolean hasNonEmptyIntersection(final PointsToSetInternal other) {
-        Iterator<Integer> it = iterator();
+        IntIterator it = intIterator();
         while (it.hasNext()) {
             int idx = it.next();
             if (other.contains(idx)) {
@@ -0,0 +1,632 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.sets;
+
+import soot.util.BitVector;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap implementation of points-to set in the style of Roaring bitmaps.
+ * Node indices are partitioned by their high 16 bits into chunks, and each chunk is stored in
+ * the cheapest of three containers: a sorted array (sparse chunks), a list of runs (chunks of
+ * consecutively numbered nodes) or a plain bitmap (dense chunks).
+ * Unlike HybridPointsToSet, the memory of a large set is proportional to its contents rather than
+ * to the largest node index in it.
+ */
+public final class RoaringPointsToSet extends PointsToSetInternal {
+    private static final int ARRAY_MAX = 4096;
+    private static final int RUN_MAX = 2048;
+
+    private char[] keys = new char[2];
+    private Container[] containers = new Container[2];
+    private int nContainers = 0;
+    private int size = 0;
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        keys = new char[2];
+        containers = new Container[2];
+        nContainers = 0;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int idx) {
+        int i = indexOf((char) (idx >>> 16));
+        return i >= 0 && containers[i].contains((char) idx);
+    }
+
+    @Override
+    public boolean add(int idx) {
+        char key = (char) (idx >>> 16);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = insertContainer(-i - 1, key, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.card;
+        containers[i] = c.add((char) idx);
+        if (containers[i].card != before) {
+            ++size;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds contents of other into this set, returns true if this set changed.
+     */
+    @Override
+    public boolean addAll(final PointsToSetInternal other, final PointsToSetInternal exclude) {
+        if (other == null) {
+            return false;
+        }
+        if (other instanceof DoublePointsToSet dpts) {
+            return addAll(dpts.getNewSet(), exclude) | addAll(dpts.getOldSet(), exclude);
+        }
+        if (other instanceof RoaringPointsToSet rother && (exclude == null || exclude instanceof RoaringPointsToSet)) {
+            return nativeAddAll(rother, (RoaringPointsToSet) exclude);
+        }
+        boolean ret = false;
+        for (IntIterator it = other.intIterator(); it.hasNext(); ) {
+            int idx = it.next();
+            if (exclude == null || !exclude.contains(idx)) {
+                ret |= add(idx);
+            }
+        }
+        return ret;
+    }
+
+    private boolean nativeAddAll(RoaringPointsToSet other, RoaringPointsToSet exclude) {
+        int oldSize = size;
+        for (int j = 0; j < other.nContainers; ++j) {
+            char key = other.keys[j];
+            Container oc = other.containers[j];
+            Container ec = null;
+            if (exclude != null) {
+                int k = exclude.indexOf(key);
+                ec = k < 0 ? null : exclude.containers[k];
+            }
+            int i = indexOf(key);
+            if (i < 0) {
+                Container fresh = oc.card > ARRAY_MAX ? new BitmapContainer() : new ArrayContainer();
+                i = insertContainer(-i - 1, key, fresh);
+            }
+            Container c = containers[i];
+            int before = c.card;
+            if (c instanceof BitmapContainer bc && oc instanceof BitmapContainer obc
+                    && (ec == null || ec instanceof BitmapContainer)) {
+                bc.orAndNot(obc, (BitmapContainer) ec);
+            } else {
+                ContainerIterator it = oc.iterator();
+                while (it.hasNext()) {
+                    char low = it.next();
+                    if (ec == null || !ec.contains(low)) {
+                        c = c.add(low);
+                    }
+                }
+                containers[i] = c;
+            }
+            size += c.card - before;
+        }
+        removeEmptyContainers();
+        return size != oldSize;
+    }
+
+    /**
+     * Adds the nodes of other whose numbers are set in mask and which are not in exclude (if non-null),
+     * returns true if this set changed.
+     */
+    @Override
+    public boolean addAll(final PointsToSetInternal other, final BitVector mask, final PointsToSetInternal exclude) {
+        if (other instanceof DoublePointsToSet dpts) {
+            return addAll(dpts.getNewSet(), mask, exclude) | addAll(dpts.getOldSet(), mask, exclude);
+        }
+        if (other instanceof RoaringPointsToSet rother && mask instanceof MaskBitVector wmask
+                && (exclude == null || exclude instanceof RoaringPointsToSet)) {
+            return maskedAddAll(rother, wmask, (RoaringPointsToSet) exclude);
+        }
+        return super.addAll(other, mask, exclude);
+    }
+
+    /*
+     * Chunks of other beyond the mask are skipped; bitmap chunks are filtered a word at a time against the mask
+     * (and a bitmap exclude chunk), the others element by element with a lookup of the mask word.
+     * */
+    private boolean maskedAddAll(RoaringPointsToSet other, MaskBitVector mask, RoaringPointsToSet exclude) {
+        int oldSize = size;
+        long[] filtered = null;
+        for (int j = 0; j < other.nContainers; ++j) {
+            char key = other.keys[j];
+            int base = key << 10;
+            if (base >= mask.wordCount()) {
+                break;
+            }
+            Container oc = other.containers[j];
+            Container ec = null;
+            if (exclude != null) {
+                int k = exclude.indexOf(key);
+                ec = k < 0 ? null : exclude.containers[k];
+            }
+            BitmapContainer ebc = ec instanceof BitmapContainer b ? b : null;
+            int i = indexOf(key);
+            if (oc instanceof BitmapContainer obc) {
+                if (filtered == null) {
+                    filtered = new long[1 << 10];
+                }
+                int card = 0;
+                for (int w = 0; w < filtered.length; ++w) {
+                    long word = obc.words[w] & mask.word(base + w);
+                    if (ebc != null) {
+                        word &= ~ebc.words[w];
+                    }
+                    filtered[w] = word;
+                    card += Long.bitCount(word);
+                }
+                if (card == 0) {
+                    continue;
+                }
+                if (i < 0) {
+                    i = insertContainer(-i - 1, key, card > ARRAY_MAX ? new BitmapContainer() : new ArrayContainer());
+                }
+                Container c = containers[i];
+                int before = c.card;
+                if (c instanceof BitmapContainer bc && (ec == null || ebc != null)) {
+                    bc.orAndNot(filtered, null);
+                } else {
+                    for (int w = 0; w < filtered.length; ++w) {
+                        for (long word = filtered[w]; word != 0; word &= word - 1) {
+                            char low = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                            if (ec == null || ebc != null || !ec.contains(low)) {
+                                c = c.add(low);
+                            }
+                        }
+                    }
+                    containers[i] = c;
+                }
+                size += c.card - before;
+            } else {
+                ContainerIterator it = oc.iterator();
+                while (it.hasNext()) {
+                    char low = it.next();
+                    if ((mask.word(base + (low >>> 6)) & (1L << low)) == 0 || (ec != null && ec.contains(low))) {
+                        continue;
+                    }
+                    if (i < 0) {
+                        i = insertContainer(-i - 1, key, new ArrayContainer());
+                    }
+                    Container c = containers[i];
+                    int before = c.card;
+                    containers[i] = c.add(low);
+                    size += containers[i].card - before;
+                }
+            }
+        }
+        removeEmptyContainers();
+        return size != oldSize;
+    }
+
+    /**
+     * Returns true if this set shares some objects with other.
+     */
+    @Override
+    public boolean hasNonEmptyIntersection(final PointsToSetInternal other) {
+        if (other instanceof DoublePointsToSet dpts) {
+            return hasNonEmptyIntersection(dpts.getOldSet()) || hasNonEmptyIntersection(dpts.getNewSet());
+        }
+        if (other instanceof RoaringPointsToSet rother) {
+            int i = 0, j = 0;
+            while (i < nContainers && j < rother.nContainers) {
+                char k1 = keys[i], k2 = rother.keys[j];
+                if (k1 < k2) {
+                    ++i;
+                } else if (k1 > k2) {
+                    ++j;
+                } else {
+                    if (containers[i].intersects(rother.containers[j])) {
+                        return true;
+                    }
+                    ++i;
+                    ++j;
+                }
+            }
+            return false;
+        }
+        return super.hasNonEmptyIntersection(other);
+    }
+
+    /**
+     * Calls action on the number of every node in this set.
+     */
+    @Override
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < nContainers; ++i) {
+            int high = keys[i] << 16;
+            ContainerIterator it = containers[i].iterator();
+            while (it.hasNext()) {
+                action.accept(high | it.next());
+            }
+        }
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new RoaringPTSIterator();
+    }
+
+    private class RoaringPTSIterator implements IntIterator {
+        private int i = 0;
+        private ContainerIterator it = nContainers > 0 ? containers[0].iterator() : null;
+
+        @Override
+        public boolean hasNext() {
+            while (it != null && !it.hasNext()) {
+                ++i;
+                it = i < nContainers ? containers[i].iterator() : null;
+            }
+            return it != null;
+        }
+
+        @Override
+        public int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (keys[i] << 16) | it.next();
+        }
+    }
+
+    private int indexOf(char key) {
+        int lo = 0, hi = nContainers - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char k = keys[mid];
+            if (k < key) {
+                lo = mid + 1;
+            } else if (k > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private int insertContainer(int pos, char key, Container c) {
+        if (nContainers == keys.length) {
+            int newLength = nContainers * 2;
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, nContainers - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, nContainers - pos);
+        keys[pos] = key;
+        containers[pos] = c;
+        ++nContainers;
+        return pos;
+    }
+
+    // containers created for chunks whose elements were all excluded must not be kept.
+    private void removeEmptyContainers() {
+        int j = 0;
+        for (int i = 0; i < nContainers; ++i) {
+            if (containers[i].card > 0) {
+                keys[j] = keys[i];
+                containers[j] = containers[i];
+                ++j;
+            }
+        }
+        Arrays.fill(containers, j, nContainers, null);
+        nContainers = j;
+    }
+
+    /*
+     * containers of a chunk of 2^16 node indices.
+     * */
+    private abstract static class Container {
+        protected int card = 0;
+
+        abstract boolean contains(char x);
+
+        /**
+         * Adds x into this container, returns the container which holds the result (this one or a converted one).
+         */
+        abstract Container add(char x);
+
+        abstract ContainerIterator iterator();
+
+        boolean intersects(Container other) {
+            Container small = card <= other.card ? this : other;
+            Container large = small == this ? other : this;
+            ContainerIterator it = small.iterator();
+            while (it.hasNext()) {
+                if (large.contains(it.next())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private interface ContainerIterator {
+        boolean hasNext();
+
+        char next();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] content = new char[4];
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int pos = Arrays.binarySearch(content, 0, card, x);
+            if (pos >= 0) {
+                return this;
+            }
+            if (card == ARRAY_MAX) {
+                return toRunsOrBitmap().add(x);
+            }
+            pos = -pos - 1;
+            if (card == content.length) {
+                content = Arrays.copyOf(content, Math.min(card * 2, ARRAY_MAX));
+            }
+            System.arraycopy(content, pos, content, pos + 1, card - pos);
+            content[pos] = x;
+            ++card;
+            return this;
+        }
+
+        private Container toRunsOrBitmap() {
+            int nRuns = 0;
+            for (int i = 0; i < card; ++i) {
+                if (i == 0 || content[i] != content[i - 1] + 1) {
+                    ++nRuns;
+                }
+            }
+            Container ret = nRuns < RUN_MAX ? new RunContainer() : new BitmapContainer();
+            for (int i = 0; i < card; ++i) {
+                ret = ret.add(content[i]);
+            }
+            return ret;
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < card;
+                }
+
+                @Override
+                public char next() {
+                    return content[i++];
+                }
+            };
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words = new long[1 << 10];
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(char x) {
+            long before = words[x >>> 6];
+            long after = before | (1L << x);
+            if (after != before) {
+                words[x >>> 6] = after;
+                ++card;
+            }
+            return this;
+        }
+
+        /**
+         * this |= other & ~exclude, word by word.
+         */
+        void orAndNot(BitmapContainer other, BitmapContainer exclude) {
+            orAndNot(other.words, exclude == null ? null : exclude.words);
+        }
+
+        void orAndNot(long[] other, long[] exclude) {
+            for (int w = 0; w < words.length; ++w) {
+                long add = exclude == null ? other[w] : other[w] & ~exclude[w];
+                long fresh = add & ~words[w];
+                if (fresh != 0) {
+                    words[w] |= fresh;
+                    card += Long.bitCount(fresh);
+                }
+            }
+        }
+
+        @Override
+        boolean intersects(Container other) {
+            if (other instanceof BitmapContainer bother) {
+                for (int w = 0; w < words.length; ++w) {
+                    if ((words[w] & bother.words[w]) != 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return super.intersects(other);
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                private int w = 0;
+                private long word = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0 && w < words.length - 1) {
+                        word = words[++w];
+                    }
+                    return word != 0;
+                }
+
+                @Override
+                public char next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    long lowest = word & -word;
+                    word ^= lowest;
+                    return (char) ((w << 6) + Long.numberOfTrailingZeros(lowest));
+                }
+            };
+        }
+    }
+
+    /*
+     * runs are stored as pairs of (start, length - 1), sorted by start.
+     * */
+    private static final class RunContainer extends Container {
+        private char[] runs = new char[8];
+        private int nRuns = 0;
+
+        // index of the last run whose start is not larger than x, or -1.
+        private int floorRun(char x) {
+            int lo = 0, hi = nRuns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[2 * mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return hi;
+        }
+
+        private int end(int r) {
+            return runs[2 * r] + runs[2 * r + 1];
+        }
+
+        @Override
+        boolean contains(char x) {
+            int r = floorRun(x);
+            return r >= 0 && x <= end(r);
+        }
+
+        @Override
+        Container add(char x) {
+            int r = floorRun(x);
+            if (r >= 0 && x <= end(r)) {
+                return this;
+            }
+            ++card;
+            boolean joinsPrev = r >= 0 && end(r) + 1 == x;
+            boolean joinsNext = r + 1 < nRuns && runs[2 * (r + 1)] == x + 1;
+            if (joinsPrev && joinsNext) {
+                runs[2 * r + 1] += runs[2 * (r + 1) + 1] + 2;
+                removeRun(r + 1);
+            } else if (joinsPrev) {
+                runs[2 * r + 1]++;
+            } else if (joinsNext) {
+                runs[2 * (r + 1)]--;
+                runs[2 * (r + 1) + 1]++;
+            } else {
+                if (nRuns == RUN_MAX) {
+                    --card;
+                    return toBitmap().add(x);
+                }
+                insertRun(r + 1, x);
+            }
+            return this;
+        }
+
+        private void insertRun(int pos, char x) {
+            if (2 * nRuns == runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            System.arraycopy(runs, 2 * pos, runs, 2 * pos + 2, 2 * (nRuns - pos));
+            runs[2 * pos] = x;
+            runs[2 * pos + 1] = 0;
+            ++nRuns;
+        }
+
+        private void removeRun(int pos) {
+            System.arraycopy(runs, 2 * pos + 2, runs, 2 * pos, 2 * (nRuns - pos - 1));
+            --nRuns;
+        }
+
+        private Container toBitmap() {
+            BitmapContainer ret = new BitmapContainer();
+            ContainerIterator it = iterator();
+            while (it.hasNext()) {
+                ret.add(it.next());
+            }
+            return ret;
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                private int r = 0;
+                private int next = nRuns > 0 ? runs[0] : 0;
+
+                @Override
+                public boolean hasNext() {
+                    return r < nRuns;
+                }
+
+                @Override
+                public char next() {
+                    if (r >= nRuns) {
+                        throw new NoSuchElementException();
+                    }
+                    char ret = (char) next;
+                    if (next == end(r)) {
+                        ++r;
+                        next = r < nRuns ? runs[2 * r] : 0;
+                    } else {
+                        ++next;
+                    }
+                    return ret;
+                }
+            };
+        }
+    }
+}
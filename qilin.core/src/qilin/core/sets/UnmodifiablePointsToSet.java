@@ -32,10 +32,17 @@ import java.util.*;
 public class UnmodifiablePointsToSet implements PointsToSet {
     private final PointsToSetInternal pts;
     private final PTA pta;
+    // the set over base objects if known in advance, e.g., read from a CIPointsToTable.
+    private final PointsToSetInternal ciPts;
 
     public UnmodifiablePointsToSet(PTA pta, PointsToSetInternal pts) {
+        this(pta, pts, null);
+    }
+
+    public UnmodifiablePointsToSet(PTA pta, PointsToSetInternal pts, PointsToSetInternal ciPts) {
         this.pta = pta;
         this.pts = pts;
+        this.ciPts = ciPts;
     }
 
     @Override
@@ -126,7 +133,7 @@ public class UnmodifiablePointsToSet implements PointsToSet {
     public int pointsToSetHashCode() {
         long intValue = 1;
         final long PRIME = 31;
-        for (Iterator<Integer> it = pts.iterator(); it.hasNext(); ) {
+        for (IntIterator it = pts.intIterator(); it.hasNext(); ) {
             intValue = PRIME * intValue + it.next();
         }
         return (int) intValue;
@@ -149,6 +156,9 @@ public class UnmodifiablePointsToSet implements PointsToSet {
 
     @Override
     public PointsToSet toCIPointsToSet() {
+        if (ciPts != null) {
+            return new UnmodifiablePointsToSet(pta, ciPts, ciPts);
+        }
         PointsToSetInternal ptoSet = new HybridPointsToSet();
         pts.forall(new P2SetVisitor(pta) {
             @Override
@@ -173,7 +183,7 @@ public class UnmodifiablePointsToSet implements PointsToSet {
      * Returns <code>true</code> if <code>onePts</code> is a (non-strict) superset of <code>otherPts</code>.
      */
     private boolean superSetOf(PointsToSetInternal onePts, final PointsToSetInternal otherPts) {
-        Iterator<Integer> it = onePts.iterator();
+        IntIterator it = onePts.intIterator();
         while (it.hasNext()) {
             int idx = it.next();
             if (!otherPts.contains(idx)) {
@@ -188,7 +198,7 @@ public class UnmodifiablePointsToSet implements PointsToSet {
     }
 
     private class UnmodifiablePTSIterator implements Iterator<AllocNode> {
-        Iterator<Integer> it = pts.iterator();
+        IntIterator it = pts.intIterator();
 
         @Override
         public boolean hasNext() {
@@ -0,0 +1,218 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/*
+ * Computes which recorded facts of a snapshot may no longer hold after some classes have changed, following the
+ * "delete" half of the delete-and-rederive scheme: every fact that may depend on a changed class is deleted,
+ * and the solver rederives whatever still holds from the remaining facts (the seeds).
+ * A method stays "surely reachable" if it is reachable from the entry over call edges whose caller is surely
+ * reachable and unchanged, and whose dispatch only depends on valid facts (a receiver that is not invalidated
+ * and points to no invalidated object). Then
+ * (1) an object is invalid if its type has a changed class as an ancestor, or if it is allocated in a changed
+ * method or in a method that is not surely reachable;
+ * (2) a node is invalid if it belongs to such a method or is a field of an invalid object, or if it depends on
+ * an invalid node (through copy, load, store, exception and receiver-to-this edges);
+ * (3) all facts of an invalid node, and all facts about an invalid object, are deleted.
+ * Invalid receivers may remove further methods from the surely reachable ones, so the three steps are iterated.
+ * All indices are those of the snapshot's method, object and node tables.
+ * */
+class ChangeImpact {
+    private final boolean[] invalidNodes;
+    private final boolean[] invalidObjects;
+
+    /**
+     * @param changedMethods   methods whose body may have changed.
+     * @param roots            entry methods.
+     * @param calls            triples (caller, callee, receiver node), where the receiver is -1 for calls that
+     *                         do not dispatch on a receiver and -2 for unknown receivers.
+     * @param changedObjects   objects whose type has a changed class as an ancestor.
+     * @param objectMethods    the allocating method of every object, or -1.
+     * @param nodeMethods      the method of every node, or -1.
+     * @param nodeObjects      the base object of every field node, or -1.
+     * @param pointsTo         the recorded objects of a node.
+     * @param deps             pairs (from, to) of nodes where the facts of to may depend on those of from.
+     * @param methodDeps       pairs (method, node) where the facts of node may depend on the body of method.
+     */
+    ChangeImpact(boolean[] changedMethods, int[] roots, int[] calls, boolean[] changedObjects, int[] objectMethods,
+                 int[] nodeMethods, int[] nodeObjects, IntFunction<int[]> pointsTo, int[] deps, int[] methodDeps) {
+        final int nMethods = changedMethods.length, nObjects = objectMethods.length, nNodes = nodeMethods.length;
+        this.invalidNodes = new boolean[nNodes];
+        this.invalidObjects = changedObjects.clone();
+        int[][] callsOf = group(nMethods, calls, 3, 0);
+        int[][] depsOf = group(nNodes, deps, 2, 0);
+        int[][] methodDepsOf = group(nMethods, methodDeps, 2, 0);
+        int[][] nodesOf = invert(nMethods, nodeMethods);
+        int[][] objectsOf = invert(nMethods, objectMethods);
+        int[][] fieldsOf = invert(nObjects, nodeObjects);
+        boolean[] invalidMethods = new boolean[nMethods];
+        boolean[] fieldsInvalidated = new boolean[nObjects];
+        int[] worklist = new int[nNodes];
+        boolean changed = true;
+        while (changed) {
+            boolean[] sure = surelyReachable(changedMethods, roots, callsOf, pointsTo);
+            int size = 0;
+            changed = false;
+            for (int m = 0; m < nMethods; ++m) {
+                if (invalidMethods[m] || sure[m] && !changedMethods[m]) {
+                    continue;
+                }
+                invalidMethods[m] = true;
+                changed = true;
+                for (int o : objectsOf[m]) {
+                    invalidObjects[o] = true;
+                }
+                for (int n : nodesOf[m]) {
+                    size = push(worklist, size, n);
+                }
+                for (int i = 0; i < methodDepsOf[m].length; i += 2) {
+                    size = push(worklist, size, methodDepsOf[m][i + 1]);
+                }
+            }
+            for (int o = 0; o < nObjects; ++o) {
+                if (invalidObjects[o] && !fieldsInvalidated[o]) {
+                    fieldsInvalidated[o] = true;
+                    changed = true;
+                    for (int n : fieldsOf[o]) {
+                        size = push(worklist, size, n);
+                    }
+                }
+            }
+            while (size > 0) {
+                int n = worklist[--size];
+                for (int i = 0; i < depsOf[n].length; i += 2) {
+                    size = push(worklist, size, depsOf[n][i + 1]);
+                }
+            }
+        }
+    }
+
+    boolean isInvalidNode(int node) {
+        return invalidNodes[node];
+    }
+
+    boolean isInvalidObject(int object) {
+        return invalidObjects[object];
+    }
+
+    int getInvalidNodeCount() {
+        int ret = 0;
+        for (boolean b : invalidNodes) {
+            ret += b ? 1 : 0;
+        }
+        return ret;
+    }
+
+    private int push(int[] worklist, int size, int node) {
+        if (!invalidNodes[node]) {
+            invalidNodes[node] = true;
+            worklist[size++] = node;
+        }
+        return size;
+    }
+
+    private boolean[] surelyReachable(boolean[] changedMethods, int[] roots, int[][] callsOf, IntFunction<int[]> pointsTo) {
+        boolean[] sure = new boolean[changedMethods.length];
+        int[] stack = new int[changedMethods.length];
+        int size = 0;
+        for (int root : roots) {
+            if (!sure[root]) {
+                sure[root] = true;
+                stack[size++] = root;
+            }
+        }
+        while (size > 0) {
+            int m = stack[--size];
+            if (changedMethods[m]) {
+                continue;
+            }
+            int[] calls = callsOf[m];
+            for (int i = 0; i < calls.length; i += 3) {
+                int callee = calls[i + 1];
+                if (!sure[callee] && isValidDispatch(calls[i + 2], pointsTo)) {
+                    sure[callee] = true;
+                    stack[size++] = callee;
+                }
+            }
+        }
+        return sure;
+    }
+
+    private boolean isValidDispatch(int receiver, IntFunction<int[]> pointsTo) {
+        if (receiver == -1) {
+            return true;
+        }
+        if (receiver < 0 || invalidNodes[receiver]) {
+            return false;
+        }
+        for (int o : pointsTo.apply(receiver)) {
+            if (invalidObjects[o]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Groups the tuples of the given width by their element at the given offset.
+     * */
+    private static int[][] group(int n, int[] tuples, int width, int offset) {
+        int[] counts = new int[n];
+        for (int i = offset; i < tuples.length; i += width) {
+            counts[tuples[i]] += width;
+        }
+        int[][] ret = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            ret[i] = new int[counts[i]];
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < tuples.length; i += width) {
+            int key = tuples[i + offset];
+            System.arraycopy(tuples, i, ret[key], counts[key], width);
+            counts[key] += width;
+        }
+        return ret;
+    }
+
+    /*
+     * Maps every owner in [0, n) to the indices whose owner it is.
+     * */
+    private static int[][] invert(int n, int[] owners) {
+        int[] counts = new int[n];
+        for (int owner : owners) {
+            if (owner >= 0) {
+                counts[owner]++;
+            }
+        }
+        int[][] ret = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            ret[i] = new int[counts[i]];
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < owners.length; ++i) {
+            if (owners[i] >= 0) {
+                ret[owners[i]][counts[owners[i]]++] = i;
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,190 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import qilin.core.pag.*;
+import qilin.util.DataFactory;
+import soot.Local;
+import soot.Type;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.CaughtExceptionRef;
+import soot.jimple.Stmt;
+import soot.util.queue.QueueReader;
+
+import java.util.*;
+
+/*
+ * Offline variable substitution by hash-based value numbering (HVN), refer to
+ * "Exploiting Pointer and Location Equivalence to Optimize Pointer Analysis" (SAS'07).
+ * The pass runs over the internal edges of a MethodPAG before they are added to the PAG.
+ * A local is "closed" if it can only receive objects along internal edges of its method, i.e., it is not a
+ * parameter, the target of a return or exception edge, or a caught exception. Every other node gets a fresh
+ * value number; a closed local gets the number of its (single, same-typed) source, or a number hashed from
+ * its declared type and the numbers of all its sources. A load x = y.f is numbered from f and the number of y.
+ * Nodes with the same number have the same declared type and the same points-to set at the fixed point.
+ * */
+public class HashValueNumbering {
+    private final Map<MethodPAG, List<List<VarNode>>> classes = DataFactory.createMap();
+
+    /**
+     * Returns the classes (of at least two nodes) of pointer-equivalent variables in the given method.
+     * The first node of a class is the one its value number originates from, if any.
+     */
+    public List<List<VarNode>> equivalenceClasses(MethodPAG mpag) {
+        return classes.computeIfAbsent(mpag, k -> new Numbering(k).run());
+    }
+
+    private static class Numbering {
+        private final Map<LocalVarNode, List<Node>> sources = DataFactory.createMap();
+        private final Set<Local> invokeDefs = DataFactory.createSet();
+        private final Map<Node, Integer> numbers = DataFactory.createMap();
+        private final Map<List<Object>, Integer> hashed = DataFactory.createMap();
+        // the declared type shared by all variables of a value number, null for objects and loads.
+        private final List<Type> numberTypes = new ArrayList<>();
+        private final Map<Integer, VarNode> origins = DataFactory.createMap();
+
+        private Numbering(MethodPAG mpag) {
+            for (QueueReader<Node> reader = mpag.getInternalReader().clone(); reader.hasNext(); ) {
+                Node from = reader.next();
+                Node to = reader.next();
+                if (to instanceof LocalVarNode lvn) {
+                    sources.computeIfAbsent(lvn, k -> new ArrayList<>()).add(from);
+                }
+            }
+            for (Unit unit : mpag.getInvokeStmts()) {
+                if (unit instanceof AssignStmt as && as.getLeftOp() instanceof Local l) {
+                    invokeDefs.add(l);
+                }
+            }
+        }
+
+        private List<List<VarNode>> run() {
+            sources.keySet().forEach(this::number);
+            Map<Integer, List<VarNode>> byNumber = new LinkedHashMap<>();
+            numbers.forEach((node, number) -> {
+                if (node instanceof VarNode vn) {
+                    byNumber.computeIfAbsent(number, k -> new ArrayList<>()).add(vn);
+                }
+            });
+            List<List<VarNode>> ret = new ArrayList<>();
+            byNumber.forEach((number, nodes) -> {
+                if (nodes.size() > 1) {
+                    VarNode origin = origins.get(number);
+                    if (origin != null && nodes.remove(origin)) {
+                        nodes.add(0, origin);
+                    }
+                    ret.add(nodes);
+                }
+            });
+            return ret;
+        }
+
+        private boolean isClosed(Node node) {
+            if (!(node instanceof LocalVarNode lvn)) {
+                return false;
+            }
+            Object variable = lvn.getVariable();
+            return !(variable instanceof Parm) && !(variable instanceof Stmt) && !(variable instanceof CaughtExceptionRef)
+                    && !invokeDefs.contains(variable);
+        }
+
+        private List<Node> dependencies(Node node) {
+            if (node instanceof FieldRefNode fr) {
+                return Collections.singletonList(fr.getBase());
+            } else if (isClosed(node)) {
+                return sources.getOrDefault((LocalVarNode) node, Collections.emptyList());
+            }
+            return Collections.emptyList();
+        }
+
+        /*
+         * Numbers node after its dependencies in an iterative depth-first traversal. A dependency found on the
+         * current path closes a cycle and simply gets a fresh number.
+         * */
+        private void number(Node root) {
+            if (numbers.containsKey(root)) {
+                return;
+            }
+            Set<Node> onPath = new HashSet<>();
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.peek();
+                if (numbers.containsKey(node)) {
+                    stack.pop();
+                    onPath.remove(node);
+                } else if (onPath.add(node)) {
+                    for (Node dep : dependencies(node)) {
+                        if (onPath.contains(dep)) {
+                            if (!numbers.containsKey(dep)) {
+                                numbers.put(dep, fresh(dep));
+                            }
+                        } else if (!numbers.containsKey(dep)) {
+                            stack.push(dep);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    onPath.remove(node);
+                    numbers.put(node, compute(node));
+                }
+            }
+        }
+
+        private int compute(Node node) {
+            if (node instanceof FieldRefNode fr) {
+                return hash(Arrays.asList(fr.getField(), numbers.get(fr.getBase())), null);
+            }
+            if (!isClosed(node)) {
+                return fresh(node);
+            }
+            Type type = node.getType();
+            SortedSet<Integer> srcNumbers = new TreeSet<>();
+            for (Node src : sources.getOrDefault((LocalVarNode) node, Collections.emptyList())) {
+                srcNumbers.add(numbers.computeIfAbsent(src, this::fresh));
+            }
+            if (srcNumbers.size() == 1) {
+                int number = srcNumbers.first();
+                if (Objects.equals(numberTypes.get(number), type)) {
+                    return number;
+                }
+            }
+            return hash(Arrays.asList(type, new ArrayList<>(srcNumbers)), type);
+        }
+
+        private int fresh(Node node) {
+            int number = numberTypes.size();
+            if (node instanceof VarNode vn) {
+                numberTypes.add(vn.getType());
+                origins.put(number, vn);
+            } else {
+                numberTypes.add(null);
+            }
+            return number;
+        }
+
+        private int hash(List<Object> key, Type type) {
+            return hashed.computeIfAbsent(key, k -> {
+                numberTypes.add(type);
+                return numberTypes.size() - 1;
+            });
+        }
+    }
+}
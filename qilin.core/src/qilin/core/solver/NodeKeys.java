@@ -0,0 +1,207 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.context.ContextElements;
+import qilin.core.pag.*;
+import qilin.util.DataFactory;
+import qilin.util.PTAUtils;
+import qilin.util.Pair;
+import soot.*;
+import soot.jimple.ClassConstant;
+import soot.jimple.StringConstant;
+import soot.jimple.spark.pag.SparkField;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/*
+ * Names the context-insensitive nodes and objects of a PAG by strings that are stable across runs on the same
+ * program, unlike node numbers which depend on the order of propagation.
+ * IR objects of a method are named by their position in its body: the index of a unit, or the index of a unit and
+ * of a value box in it for the first occurrence of a value. Bodies are indexed after their MethodPAG is built, as
+ * building it may insert statements (e.g., for reflection and System.arraycopy).
+ * Nodes and objects without a stable name (e.g., those of context-sensitive copies) are named null.
+ * */
+class NodeKeys {
+    private final PTA pta;
+    private final Map<SootMethod, BodyIndex> bodies = DataFactory.createMap();
+
+    NodeKeys(PTA pta) {
+        this.pta = pta;
+    }
+
+    /**
+     * Returns the name of a ContextVarNode or ContextField of the empty context, or null.
+     */
+    String keyOf(ValNode node) {
+        if (node instanceof ContextVarNode cvn) {
+            return isEmpty(cvn.context()) ? varKey(cvn.base()) : null;
+        } else if (node instanceof ContextField cf) {
+            ContextElements ctx = (ContextElements) cf.getContext();
+            if (ctx.size() != 1) {
+                return null;
+            }
+            String base = heapKey((AllocNode) ctx.get(0));
+            String field = fieldKey(cf.getField());
+            return base == null || field == null ? null : "O" + base + "|" + field;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of a ContextAllocNode of the empty context, or null.
+     * Objects not created by the PAG (e.g., the root object of PTA) have no name, as resolving a name always
+     * yields the ContextAllocNode of the PAG.
+     */
+    String keyOf(AllocNode heap) {
+        if (heap instanceof ContextAllocNode can && isEmpty(can.context())) {
+            if (pta.getPag().findContextAllocNode(can.base(), can.context()) == can) {
+                return heapKey(can.base());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the ContextAllocNode of the empty context named key, creating it if necessary, or null if the
+     * name does not denote an object in this run.
+     */
+    AllocNode resolveHeap(String key) {
+        PAG pag = pta.getPag();
+        String rest = key.substring(1);
+        AllocNode base = switch (key.charAt(0)) {
+            case 'S' -> pag.makeStringConstantNode(StringConstant.v(rest));
+            case 'K' -> pag.makeClassConstantNode(ClassConstant.v(rest));
+            case 'M' -> {
+                Type type = PTAScene.v().getTypeUnsafe(rest, false);
+                yield type instanceof RefLikeType rlt ? pag.makeAllocNode(MergedNewExpr.v(rlt), type, null) : null;
+            }
+            case 'X' -> pag.findAllocNode(rest);
+            case 'm' -> {
+                int sep = rest.lastIndexOf('|');
+                String sig = rest.substring(0, sep);
+                if (!PTAScene.v().containsMethod(sig)) {
+                    yield null;
+                }
+                BodyIndex index = indexOf(PTAScene.v().getMethod(sig));
+                Object value = index == null ? null : index.values.get(rest.substring(sep + 1));
+                yield value == null ? null : pag.findAllocNode(value);
+            }
+            default -> null;
+        };
+        return base == null ? null : (AllocNode) pta.parameterize(base, pta.emptyContext());
+    }
+
+    private String varKey(VarNode base) {
+        Object var = base.getVariable();
+        if (base instanceof GlobalVarNode) {
+            if (var instanceof SootField sf) {
+                return "F" + sf.getSignature();
+            }
+            return constantKey(var);
+        } else if (base instanceof LocalVarNode lvn) {
+            SootMethod method = lvn.getMethod();
+            if (var instanceof Parm parm) {
+                return "m" + method.getSignature() + "|P" + parm.getIndex();
+            } else if (var instanceof Pair<?, ?> pair) {
+                String constant = constantKey(pair.getSecond());
+                return constant == null ? null : "m" + method.getSignature() + "|C" + constant;
+            }
+            return bodyKey(method, var);
+        }
+        return null;
+    }
+
+    private String heapKey(AllocNode heap) {
+        Object newExpr = heap.getNewExpr();
+        if (newExpr instanceof MergedNewExpr) {
+            return "M" + heap.getType();
+        } else if (newExpr instanceof String s) {
+            return "X" + s;
+        } else if (heap.getMethod() != null) {
+            return bodyKey(heap.getMethod(), newExpr);
+        }
+        return constantKey(newExpr);
+    }
+
+    private String bodyKey(SootMethod method, Object value) {
+        BodyIndex index = indexOf(method);
+        String key = index == null ? null : index.keys.get(value);
+        return key == null ? null : "m" + method.getSignature() + "|" + key;
+    }
+
+    private static String constantKey(Object value) {
+        if (value instanceof StringConstant sc) {
+            return "S" + sc.value;
+        } else if (value instanceof ClassConstant cc) {
+            return "K" + cc.getValue();
+        }
+        return null;
+    }
+
+    static String fieldKey(SparkField field) {
+        if (field instanceof ArrayElement) {
+            return "[]";
+        } else if (field instanceof Field f) {
+            return f.getField().getSignature();
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(Context context) {
+        return context instanceof ContextElements ctx && ctx.size() == 0;
+    }
+
+    private BodyIndex indexOf(SootMethod method) {
+        if (method.isPhantom()) {
+            return null;
+        }
+        return bodies.computeIfAbsent(method, m -> {
+            pta.getPag().getMethodPAG(m);
+            return new BodyIndex(PTAUtils.getMethodBody(m));
+        });
+    }
+
+    private static class BodyIndex {
+        private final Map<Object, String> keys = new IdentityHashMap<>();
+        private final Map<String, Object> values = new HashMap<>();
+
+        private BodyIndex(Body body) {
+            int u = 0;
+            for (Unit unit : body.getUnits()) {
+                put(unit, "U" + u);
+                int b = 0;
+                for (ValueBox box : unit.getUseAndDefBoxes()) {
+                    put(box.getValue(), "B" + u + "." + b++);
+                }
+                ++u;
+            }
+        }
+
+        private void put(Object value, String key) {
+            if (keys.putIfAbsent(value, key) == null) {
+                values.put(key, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import qilin.core.PTA;
+import qilin.core.pag.*;
+import qilin.core.sets.DoublePointsToSet;
+import qilin.core.sets.PointsToSetInternal;
+import soot.MethodOrMethodContext;
+import soot.util.queue.QueueReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/*
+ * A wave-based multi-threaded variant of Solver.
+ * Each round takes the whole worklist as one wave (in the order of the worklist strategy) and freezes the delta
+ * (new set) of every node in it.
+ * Phase 1 propagates the deltas along simple edges concurrently; the PAG is not modified in this phase and
+ * updates of a target points-to set are guarded by a lock stripe chosen by the target's node number.
+ * Phase 2 resolves field loads/stores, exceptions and virtual calls of the wave sequentially, since these
+ * may add PAG edges, call edges and reachable methods; cycles found in phase 1 are collapsed afterwards.
+ * Both solvers compute the least fixed point of the same monotone constraint system, so the resulting
+ * points-to sets, call graph and reachable methods are identical to those of Solver; only the visiting
+ * order (and thus the numbering of context-sensitive nodes) may differ.
+ * */
+public class ParallelSolver extends Solver {
+    private static final int LOCK_STRIPES = 1 << 12;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final int nThreads;
+
+    public ParallelSolver(PTA pta, int nThreads) {
+        super(pta);
+        this.nThreads = nThreads;
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public void propagate() {
+        final QueueReader<MethodOrMethodContext> newRMs = rmQueue.reader();
+        final QueueReader<Node> newPAGEdges = edgeQueue.reader();
+        final QueueReader<ExceptionThrowSite> newThrows = throwSiteQueue.reader();
+        final QueueReader<VirtualCallSite> newCalls = virtualCallSiteQueue.reader();
+        cgb.initReachableMethods();
+        processStmts(newRMs);
+        pag.getAlloc().forEach((a, set) -> set.forEach(v -> propagatePTS(v, a)));
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            seedNewNodes();
+            while (!valNodeWorkList.isEmpty()) {
+                final ValNode[] wave = valNodeWorkList.drain().toArray(new ValNode[0]);
+                final PointsToSetInternal[] deltas = new PointsToSetInternal[wave.length];
+                final List<List<ValNode>> groups = new ArrayList<>(wave.length);
+                for (int i = 0; i < wave.length; ++i) {
+                    DoublePointsToSet pts = wave[i].getP2Set();
+                    deltas[i] = pts.getNewSet();
+                    pts.flushNew();
+                    groups.add(new ArrayList<>(pag.getCycleMembers(wave[i])));
+                }
+                // Phase 1: Resolving Direct Constraints in parallel.
+                // no allocation node is numbered in this phase, thus the type masks stay unchanged once updated.
+                typeMasks.update();
+                final Set<ValNode> changed = ConcurrentHashMap.newKeySet();
+                final Set<ValNode> cycleStarts = ConcurrentHashMap.newKeySet();
+                pool.submit(() -> IntStream.range(0, wave.length).parallel().forEach(i -> {
+                    for (ValNode member : groups.get(i)) {
+                        for (ValNode to : pag.simpleLookup(member)) {
+                            ValNode toRep = pag.getRepresentative(to);
+                            if (toRep == wave[i]) {
+                                continue;
+                            }
+                            synchronized (lockOf(toRep)) {
+                                if (addAllWithTypeFiltering(to, deltas[i])) {
+                                    changed.add(toRep);
+                                }
+                                if (cycleDetector != null && cycleDetector.shouldSearch(member, to)) {
+                                    cycleStarts.add(to);
+                                }
+                            }
+                        }
+                    }
+                })).get();
+                changed.forEach(valNodeWorkList::add);
+                // Phase 2: Resolving Indirect Constraints and Collecting New Constraints sequentially.
+                for (int i = 0; i < wave.length; ++i) {
+                    for (ValNode member : groups.get(i)) {
+                        if (member instanceof VarNode mSrc) {
+                            resolveVarNode(mSrc, deltas[i], newRMs);
+                        }
+                    }
+                    activateConstraints(newCalls, newRMs, newThrows, newPAGEdges);
+                }
+                if (cycleDetector != null) {
+                    collapseCycles(cycleStarts);
+                }
+                seedNewNodes();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+        recordWorklist();
+    }
+
+    private Object lockOf(ValNode node) {
+        return locks[node.getNumber() & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,727 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import qilin.CoreConfig;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.context.ContextElements;
+import qilin.core.pag.*;
+import qilin.core.sets.IntIterator;
+import qilin.util.DataFactory;
+import qilin.util.PTAUtils;
+import soot.*;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.Stmt;
+import soot.jimple.spark.pag.SparkField;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.util.Chain;
+import soot.util.queue.QueueReader;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * A snapshot of the solved points-to sets of a context-insensitive analysis, stored in a file and read back
+ * through a memory mapping.
+ * Nodes and objects are named by NodeKeys. A snapshot is only valid for the library and configuration it was
+ * taken from, which is checked by a fingerprint of the library class path and of the relevant options.
+ * Application classes may change between runs: the snapshot records a hash of every application class file
+ * along with the dependencies among its facts (see ChangeImpact), and the facts that may depend on a changed
+ * class are not restored.
+ * A restored snapshot seeds the solver: whenever a node is created, it receives its recorded objects, so that
+ * most nodes are processed once with their final points-to set instead of many times with small deltas.
+ * Since every seed is a subset of the least fixed point, the result is exactly that of a run without seeds,
+ * including the call graph and reachable methods; nodes or objects missing from the snapshot merely lose the
+ * speedup.
+ * */
+public class PointsToSnapshot {
+    private static final int MAGIC = 0x51505453;
+    private static final int VERSION = 2;
+    private final NodeKeys keys;
+    private final MappedByteBuffer buffer;
+    // node name --> node index.
+    private final Map<String, Integer> nodes = DataFactory.createMap();
+    // node index --> position of its objects in buffer.
+    private final int[] nodePositions;
+    private final String[] objectKeys;
+    private final AllocNode[] objects;
+    private final boolean[] resolved;
+    private final Set<String> changedClasses;
+    // null if no class has changed.
+    private final ChangeImpact impact;
+    private final int reachableMethods;
+    private final int callEdges;
+    private int seededNodes = 0;
+
+    private PointsToSnapshot(PTA pta, MappedByteBuffer buffer, Collection<String> changedClasses) {
+        this.keys = new NodeKeys(pta);
+        this.buffer = buffer;
+        this.reachableMethods = buffer.getInt();
+        this.callEdges = buffer.getInt();
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        // application classes.
+        Map<String, String> classHashes = applicationClassHashes();
+        Set<String> changed = new HashSet<>(changedClasses);
+        Set<String> recorded = new HashSet<>();
+        for (int i = buffer.getInt(); i > 0; --i) {
+            String name = strings[buffer.getInt()];
+            recorded.add(name);
+            if (!strings[buffer.getInt()].equals(classHashes.get(name))) {
+                changed.add(name);
+            }
+        }
+        for (String name : classHashes.keySet()) {
+            if (!recorded.contains(name)) {
+                changed.add(name);
+            }
+        }
+        this.changedClasses = Collections.unmodifiableSet(changed);
+        // methods.
+        boolean[] changedMethods = new boolean[buffer.getInt()];
+        boolean fakeMainChanged = isFakeMainChanged(changed);
+        String fakeMain = PTAScene.v().getFakeMainMethod().getSignature();
+        for (int i = 0; i < changedMethods.length; ++i) {
+            String sig = strings[buffer.getInt()];
+            changedMethods[i] = sig.equals(fakeMain) ? fakeMainChanged : changed.contains(Scene.signatureToClass(sig));
+        }
+        int[] roots = readInts(buffer.getInt());
+        int[] calls = readInts(3 * buffer.getInt());
+        // objects.
+        int nObjects = buffer.getInt();
+        this.objectKeys = new String[nObjects];
+        boolean[] changedObjects = new boolean[nObjects];
+        int[] objectMethods = new int[nObjects];
+        Map<String, Boolean> changedTypes = new HashMap<>();
+        for (int i = 0; i < nObjects; ++i) {
+            int key = buffer.getInt();
+            objectKeys[i] = key < 0 ? null : strings[key];
+            changedObjects[i] = changedTypes.computeIfAbsent(strings[buffer.getInt()], t -> hasChangedAncestor(t, changed));
+            objectMethods[i] = buffer.getInt();
+        }
+        this.objects = new AllocNode[nObjects];
+        this.resolved = new boolean[nObjects];
+        // nodes.
+        int nNodes = buffer.getInt();
+        this.nodePositions = new int[nNodes];
+        int[] nodeMethods = new int[nNodes];
+        int[] nodeObjects = new int[nNodes];
+        int[] nodeFields = new int[nNodes];
+        Map<Long, Integer> fieldNodes = new HashMap<>();
+        for (int i = 0; i < nNodes; ++i) {
+            int key = buffer.getInt();
+            if (key >= 0) {
+                nodes.put(strings[key], i);
+            }
+            nodeMethods[i] = buffer.getInt();
+            nodeObjects[i] = buffer.getInt();
+            nodeFields[i] = buffer.getInt();
+            if (nodeObjects[i] >= 0) {
+                fieldNodes.put(pair(nodeObjects[i], nodeFields[i]), i);
+            }
+            nodePositions[i] = buffer.position();
+            buffer.position(buffer.position() + 4 + 4 * buffer.getInt(buffer.position()));
+        }
+        // dependencies, only needed if some classes have changed.
+        if (changed.isEmpty()) {
+            this.impact = null;
+            return;
+        }
+        int[] simpleDeps = readInts(2 * buffer.getInt());
+        int[] loads = readInts(3 * buffer.getInt());
+        int[] stores = readInts(3 * buffer.getInt());
+        int[] methodDeps = readInts(2 * buffer.getInt());
+        int[] deps = expandFieldDeps(simpleDeps, loads, stores, fieldNodes);
+        this.impact = new ChangeImpact(changedMethods, roots, calls, changedObjects, objectMethods,
+                nodeMethods, nodeObjects, this::pointsTo, deps, methodDeps);
+    }
+
+    /**
+     * Returns the objects recorded for node that exist in this run, creating them if necessary.
+     * Nothing is returned for a node whose recorded facts may depend on a changed class.
+     */
+    public List<AllocNode> objectsOf(ValNode node) {
+        String key = keys.keyOf(node);
+        Integer idx = key == null ? null : nodes.get(key);
+        if (idx == null || impact != null && impact.isInvalidNode(idx)) {
+            return Collections.emptyList();
+        }
+        ++seededNodes;
+        int[] objs = pointsTo(idx);
+        List<AllocNode> ret = new ArrayList<>(objs.length);
+        for (int obj : objs) {
+            if (objectKeys[obj] == null || impact != null && impact.isInvalidObject(obj)) {
+                continue;
+            }
+            if (!resolved[obj]) {
+                resolved[obj] = true;
+                objects[obj] = keys.resolveHeap(objectKeys[obj]);
+            }
+            if (objects[obj] != null) {
+                ret.add(objects[obj]);
+            }
+        }
+        return ret;
+    }
+
+    public int getSeededNodeCount() {
+        return seededNodes;
+    }
+
+    public int getRecordedNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of recorded nodes (named or not) whose facts are not restored due to changed classes.
+     */
+    public int getInvalidatedNodeCount() {
+        return impact == null ? 0 : impact.getInvalidNodeCount();
+    }
+
+    /**
+     * Returns the names of the classes changed since the snapshot was taken.
+     */
+    public Set<String> getChangedClasses() {
+        return changedClasses;
+    }
+
+    public int getReachableMethodCount() {
+        return reachableMethods;
+    }
+
+    public int getCallEdgeCount() {
+        return callEdges;
+    }
+
+    private int[] pointsTo(int node) {
+        int pos = nodePositions[node];
+        int[] ret = new int[buffer.getInt(pos)];
+        for (int i = 0; i < ret.length; ++i) {
+            ret[i] = buffer.getInt(pos + 4 + 4 * i);
+        }
+        return ret;
+    }
+
+    private int[] readInts(int n) {
+        int[] ret = new int[n];
+        for (int i = 0; i < n; ++i) {
+            ret[i] = buffer.getInt();
+        }
+        return ret;
+    }
+
+    /*
+     * A load x = y.f makes x depend on y and on o.f for every recorded object o of y; a store y.f = x makes o.f
+     * depend on x and on y.
+     * */
+    private int[] expandFieldDeps(int[] simpleDeps, int[] loads, int[] stores, Map<Long, Integer> fieldNodes) {
+        List<Integer> ret = new ArrayList<>();
+        for (int i = 0; i < loads.length; i += 3) {
+            int base = loads[i], field = loads[i + 1], to = loads[i + 2];
+            ret.add(base);
+            ret.add(to);
+            for (int obj : pointsTo(base)) {
+                Integer fieldNode = fieldNodes.get(pair(obj, field));
+                if (fieldNode != null) {
+                    ret.add(fieldNode);
+                    ret.add(to);
+                }
+            }
+        }
+        for (int i = 0; i < stores.length; i += 3) {
+            int from = stores[i], base = stores[i + 1], field = stores[i + 2];
+            for (int obj : pointsTo(base)) {
+                Integer fieldNode = fieldNodes.get(pair(obj, field));
+                if (fieldNode != null) {
+                    ret.add(from);
+                    ret.add(fieldNode);
+                    ret.add(base);
+                    ret.add(fieldNode);
+                }
+            }
+        }
+        int[] deps = Arrays.copyOf(simpleDeps, simpleDeps.length + ret.size());
+        for (int i = 0; i < ret.size(); ++i) {
+            deps[simpleDeps.length + i] = ret.get(i);
+        }
+        return deps;
+    }
+
+    private static long pair(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    /*
+     * The body of the fake main method is generated from the main class and, depending on the options, from the
+     * static initializers of all classes.
+     * */
+    private static boolean isFakeMainChanged(Set<String> changed) {
+        CoreConfig.CorePTAConfiguration ptaConfig = CoreConfig.v().getPtaConfig();
+        if (changed.isEmpty()) {
+            return false;
+        }
+        return changed.contains(CoreConfig.v().getAppConfig().MAIN_CLASS)
+                || ptaConfig.clinitMode == CoreConfig.ClinitMode.FULL || !ptaConfig.singleentry;
+    }
+
+    /*
+     * The hierarchy of unchanged classes is read from the current scene: it is the same as in the recorded run
+     * except above changed classes, which are then ancestors in both runs.
+     * */
+    private static boolean hasChangedAncestor(String typeName, Set<String> changed) {
+        if (changed.isEmpty()) {
+            return false;
+        }
+        Type type = PTAScene.v().getTypeUnsafe(typeName, false);
+        if (type instanceof ArrayType at) {
+            type = at.baseType;
+        }
+        if (type == null) {
+            return true;
+        }
+        if (!(type instanceof RefType rt)) {
+            return false;
+        }
+        Deque<SootClass> stack = new ArrayDeque<>();
+        Set<SootClass> visited = new HashSet<>();
+        stack.push(rt.getSootClass());
+        while (!stack.isEmpty()) {
+            SootClass sc = stack.pop();
+            if (!visited.add(sc)) {
+                continue;
+            }
+            if (changed.contains(sc.getName())) {
+                return true;
+            }
+            if (sc.hasSuperclass()) {
+                stack.push(sc.getSuperclass());
+            }
+            sc.getInterfaces().forEach(stack::push);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the snapshot in file for the analysis pta, which must not have been run yet.
+     * Returns null if the file does not exist or was taken from another library or configuration.
+     */
+    public static PointsToSnapshot load(PTA pta, File file) {
+        return load(pta, file, Collections.emptySet());
+    }
+
+    /**
+     * Same as load(pta, file), where the classes of the given names are considered changed in addition to the
+     * application classes whose class files have changed since the snapshot was taken.
+     */
+    public static PointsToSnapshot load(PTA pta, File file, Collection<String> changedClasses) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            byte[] fingerprint = new byte[buffer.getInt()];
+            buffer.get(fingerprint);
+            if (!Arrays.equals(fingerprint, fingerprint())) {
+                return null;
+            }
+            return new PointsToSnapshot(pta, buffer, changedClasses);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the points-to sets of the solved context-insensitive analysis pta into file.
+     */
+    public static void save(PTA pta, File file) throws IOException {
+        new Recorder(pta).write(file);
+    }
+
+    /*
+     * Collects the tables of a snapshot from a solved analysis.
+     * */
+    private static class Recorder {
+        private final PTA pta;
+        private final PAG pag;
+        private final NodeKeys keys;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Map<SootMethod, Integer> methods = new LinkedHashMap<>();
+        private final Map<AllocNode, Integer> objects = new LinkedHashMap<>();
+        private final Map<ValNode, Integer> nodes = new LinkedHashMap<>();
+        // base node --> index of its context-insensitive node.
+        private final Map<VarNode, Integer> varNodes = new HashMap<>();
+        private final List<int[]> objectEntries = new ArrayList<>();
+        private final List<int[]> nodeEntries = new ArrayList<>();
+        private final List<Integer> roots = new ArrayList<>();
+        private final List<Integer> calls = new ArrayList<>();
+        private final List<Integer> simpleDeps = new ArrayList<>();
+        private final List<Integer> loads = new ArrayList<>();
+        private final List<Integer> stores = new ArrayList<>();
+        private final List<Integer> methodDeps = new ArrayList<>();
+
+        private Recorder(PTA pta) {
+            this.pta = pta;
+            this.pag = pta.getPag();
+            this.keys = new NodeKeys(pta);
+            for (ValNode node : pag.getValNodeNumberer()) {
+                if (node instanceof ContextVarNode cvn && ((ContextElements) cvn.context()).size() == 0
+                        || node instanceof ContextField cf && ((ContextElements) cf.getContext()).size() == 1) {
+                    nodeOf(node);
+                }
+            }
+            recordCalls();
+            recordDeps();
+        }
+
+        private int string(String s) {
+            return strings.computeIfAbsent(s, k -> strings.size());
+        }
+
+        private int methodOf(SootMethod m) {
+            Integer ret = methods.get(m);
+            if (ret == null) {
+                ret = methods.size();
+                methods.put(m, ret);
+                string(m.getSignature());
+            }
+            return ret;
+        }
+
+        private int objectOf(AllocNode heap) {
+            Integer ret = objects.get(heap);
+            if (ret == null) {
+                ret = objects.size();
+                objects.put(heap, ret);
+                String key = keys.keyOf(heap);
+                SootMethod m = heap.getMethod();
+                objectEntries.add(new int[]{key == null ? -1 : string(key), string(heap.getType().toString()), m == null ? -1 : methodOf(m)});
+            }
+            return ret;
+        }
+
+        private int nodeOf(ValNode node) {
+            Integer ret = nodes.get(node);
+            if (ret != null) {
+                return ret;
+            }
+            ret = nodes.size();
+            nodes.put(node, ret);
+            String key = keys.keyOf(node);
+            int method = -1, object = -1, field = -1;
+            if (node instanceof ContextVarNode cvn) {
+                varNodes.put(cvn.base(), ret);
+                if (cvn.base() instanceof LocalVarNode lvn) {
+                    method = methodOf(lvn.getMethod());
+                }
+            } else if (node instanceof ContextField cf) {
+                object = objectOf((AllocNode) ((ContextElements) cf.getContext()).get(0));
+                field = fieldOf(cf.getField());
+            }
+            List<Integer> objs = new ArrayList<>();
+            for (IntIterator it = node.getP2Set().intIterator(); it.hasNext(); ) {
+                objs.add(objectOf(pag.getAllocNodeNumberer().get(it.next())));
+            }
+            int[] entry = new int[5 + objs.size()];
+            entry[0] = key == null ? -1 : string(key);
+            entry[1] = method;
+            entry[2] = object;
+            entry[3] = field;
+            entry[4] = objs.size();
+            for (int i = 0; i < objs.size(); ++i) {
+                entry[5 + i] = objs.get(i);
+            }
+            nodeEntries.add(entry);
+            return ret;
+        }
+
+        private int fieldOf(SparkField field) {
+            String key = NodeKeys.fieldKey(field);
+            return string(key == null ? "?" + field : key);
+        }
+
+        /*
+         * Records the call edges along with the receiver they are dispatched on. Edges injected from the fake main
+         * method are recorded from the methods that trigger them: static initializers from the methods whose
+         * bodies trigger them; other injected edges (e.g., to Finalizer.register) are left out, so their targets
+         * are only kept if reached otherwise.
+         * */
+        private void recordCalls() {
+            SootMethod fakeMain = PTAScene.v().getFakeMainMethod();
+            roots.add(methodOf(fakeMain));
+            Chain<Unit> fakeMainUnits = PTAUtils.getMethodBody(fakeMain).getUnits();
+            for (Edge e : pta.getCgb().calledges) {
+                if (e.src() == fakeMain && !fakeMainUnits.contains(e.srcUnit())) {
+                    continue;
+                }
+                int receiver = -1;
+                if (((Stmt) e.srcUnit()).getInvokeExpr() instanceof InstanceInvokeExpr iie) {
+                    Integer recv = varNodes.get(pag.findLocalVarNode(iie.getBase()));
+                    receiver = recv == null ? -2 : recv;
+                    ContextVarNode thisRef = ciNode(pag.getMethodPAG(e.tgt()).nodeFactory().caseThis());
+                    if (recv != null && thisRef != null) {
+                        simpleDeps.add(recv);
+                        simpleDeps.add(nodeOf(thisRef));
+                    }
+                }
+                calls.add(methodOf(e.src()));
+                calls.add(methodOf(e.tgt()));
+                calls.add(receiver);
+            }
+            for (MethodOrMethodContext momc : pta.getReachableMethods()) {
+                SootMethod m = momc.method();
+                if (m.isPhantom()) {
+                    continue;
+                }
+                MethodPAG mpag = pag.getMethodPAG(m);
+                for (Iterator<SootMethod> it = mpag.triggeredClinits(); it.hasNext(); ) {
+                    calls.add(methodOf(m));
+                    calls.add(methodOf(it.next()));
+                    calls.add(-1);
+                }
+                mpag.getExceptionEdges().forEach((from, tos) -> {
+                    Integer src = varNodes.get((VarNode) from);
+                    for (Node to : tos) {
+                        Integer tgt = varNodes.get((VarNode) to);
+                        if (src != null && tgt != null) {
+                            simpleDeps.add(src);
+                            simpleDeps.add(tgt);
+                        }
+                    }
+                });
+                for (QueueReader<Node> reader = mpag.getInternalReader().clone(); reader.hasNext(); ) {
+                    reader.next();
+                    Node to = reader.next();
+                    if (to instanceof GlobalVarNode gvn && varNodes.containsKey(gvn)) {
+                        methodDeps.add(methodOf(m));
+                        methodDeps.add(varNodes.get(gvn));
+                    }
+                }
+            }
+        }
+
+        private ContextVarNode ciNode(VarNode base) {
+            return pag.findContextVarNode(base, pta.emptyContext());
+        }
+
+        private void recordDeps() {
+            pag.getSimple().forEach((from, tos) -> {
+                Integer src = nodes.get(from);
+                for (ValNode to : tos) {
+                    Integer tgt = nodes.get(to);
+                    if (src != null && tgt != null) {
+                        simpleDeps.add(src);
+                        simpleDeps.add(tgt);
+                    }
+                }
+            });
+            pag.getLoad().forEach((fr, tos) -> {
+                Integer base = nodes.get(fr.getBase());
+                for (VarNode to : tos) {
+                    Integer tgt = nodes.get(to);
+                    if (base != null && tgt != null) {
+                        loads.add(base);
+                        loads.add(fieldOf(fr.getField()));
+                        loads.add(tgt);
+                    }
+                }
+            });
+            pag.getStoreInv().forEach((fr, froms) -> {
+                Integer base = nodes.get(fr.getBase());
+                for (VarNode from : froms) {
+                    Integer src = nodes.get(from);
+                    if (base != null && src != null) {
+                        stores.add(src);
+                        stores.add(base);
+                        stores.add(fieldOf(fr.getField()));
+                    }
+                }
+            });
+        }
+
+        private void write(File file) throws IOException {
+            Map<String, String> classHashes = applicationClassHashes();
+            classHashes.forEach((name, hash) -> {
+                string(name);
+                string(hash);
+            });
+            File tmp = File.createTempFile("snapshot", ".tmp", file.getAbsoluteFile().getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                byte[] fingerprint = fingerprint();
+                out.writeInt(fingerprint.length);
+                out.write(fingerprint);
+                out.writeInt(pta.getReachableMethods().size());
+                out.writeInt(pta.getCgb().calledges.size());
+                out.writeInt(strings.size());
+                for (String s : strings.keySet()) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(classHashes.size());
+                for (Map.Entry<String, String> entry : classHashes.entrySet()) {
+                    out.writeInt(strings.get(entry.getKey()));
+                    out.writeInt(strings.get(entry.getValue()));
+                }
+                out.writeInt(methods.size());
+                for (SootMethod m : methods.keySet()) {
+                    out.writeInt(strings.get(m.getSignature()));
+                }
+                writeInts(out, roots, 1);
+                writeInts(out, calls, 3);
+                out.writeInt(objectEntries.size());
+                for (int[] entry : objectEntries) {
+                    for (int i : entry) {
+                        out.writeInt(i);
+                    }
+                }
+                out.writeInt(nodeEntries.size());
+                for (int[] entry : nodeEntries) {
+                    for (int i : entry) {
+                        out.writeInt(i);
+                    }
+                }
+                writeInts(out, simpleDeps, 2);
+                writeInts(out, loads, 3);
+                writeInts(out, stores, 3);
+                writeInts(out, methodDeps, 2);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private static void writeInts(DataOutputStream out, List<Integer> ints, int width) throws IOException {
+            out.writeInt(ints.size() / width);
+            for (int i : ints) {
+                out.writeInt(i);
+            }
+        }
+    }
+
+    /*
+     * Hashes the class files of the application, by class name.
+     * */
+    private static Map<String, String> applicationClassHashes() {
+        Map<String, String> ret = new TreeMap<>();
+        File app = new File(CoreConfig.v().getAppConfig().APP_PATH);
+        try {
+            if (app.isDirectory()) {
+                Path root = app.toPath();
+                try (Stream<Path> files = Files.walk(root)) {
+                    for (Path p : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".class"))::iterator) {
+                        ret.put(className(root.relativize(p).toString().replace(File.separatorChar, '/')), digest(Files.readAllBytes(p)));
+                    }
+                }
+            } else if (app.isFile()) {
+                try (ZipFile zip = new ZipFile(app)) {
+                    for (ZipEntry entry : Collections.list(zip.entries())) {
+                        if (entry.getName().endsWith(".class")) {
+                            try (InputStream in = zip.getInputStream(entry)) {
+                                ret.put(className(entry.getName()), digest(in.readAllBytes()));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ret;
+    }
+
+    private static String className(String path) {
+        return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+    }
+
+    private static String digest(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : sha256().digest(bytes)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     * Hashes the contents of the library class path and the options which may change the result of the analysis.
+     * */
+    private static byte[] fingerprint() throws IOException {
+        MessageDigest md = sha256();
+        CoreConfig.CorePTAConfiguration ptaConfig = CoreConfig.v().getPtaConfig();
+        CoreConfig.ApplicationConfiguration appConfig = CoreConfig.v().getAppConfig();
+        String options = String.join(";", String.valueOf(VERSION), appConfig.MAIN_CLASS, String.valueOf(appConfig.INCLUDE),
+                String.valueOf(appConfig.EXCLUDE), String.valueOf(appConfig.INCLUDE_ALL), String.valueOf(appConfig.WHOLE_PROGRAM_ANALYSIS),
+                String.valueOf(ptaConfig.singleentry), String.valueOf(ptaConfig.clinitMode), String.valueOf(ptaConfig.mergeHeap),
+                String.valueOf(ptaConfig.preciseArrayElement), String.valueOf(ptaConfig.stringConstants),
+                String.valueOf(ptaConfig.preciseExceptions), String.valueOf(ptaConfig.enforceEmptyCtxForIgnoreTypes));
+        md.update(options.getBytes(StandardCharsets.UTF_8));
+        List<String> paths = new ArrayList<>(Arrays.asList(PTAScene.v().getScene().getSootClassPath().split(File.pathSeparator)));
+        paths.remove(appConfig.APP_PATH);
+        if (appConfig.REFLECTION_LOG != null) {
+            paths.add(appConfig.REFLECTION_LOG);
+        }
+        for (String path : paths) {
+            md.update(path.getBytes(StandardCharsets.UTF_8));
+            Path root = Path.of(path);
+            if (!Files.exists(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                    md.update(root.relativize(p).toString().getBytes(StandardCharsets.UTF_8));
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(p))) {
+                        byte[] buf = new byte[1 << 16];
+                        for (int n; (n = in.read(buf)) > 0; ) {
+                            md.update(buf, 0, n);
+                        }
+                    }
+                }
+            }
+        }
+        return md.digest();
+    }
+}
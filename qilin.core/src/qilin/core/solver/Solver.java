@@ -26,14 +26,16 @@ import qilin.core.builder.ExceptionHandler;
 import qilin.core.builder.MethodNodeFactory;
 import qilin.core.pag.*;
 import qilin.core.sets.DoublePointsToSet;
-import qilin.core.sets.P2SetVisitor;
 import qilin.core.sets.PointsToSetInternal;
+import qilin.core.solver.worklist.Worklist;
+import qilin.util.Metrics;
 import qilin.util.PTAUtils;
 import soot.*;
 import soot.jimple.*;
 import soot.jimple.spark.pag.SparkField;
 import soot.jimple.toolkits.callgraph.Edge;
 import soot.options.Options;
+import soot.util.ArrayNumberer;
 import soot.util.NumberedString;
 import soot.util.queue.ChunkedQueue;
 import soot.util.queue.QueueReader;
@@ -41,16 +43,24 @@ import soot.util.queue.QueueReader;
 import java.util.*;
 
 public class Solver extends Propagator {
-    private final TreeSet<ValNode> valNodeWorkList = new TreeSet<>();
-    private final PAG pag;
-    private final PTA pta;
-    private final CallGraphBuilder cgb;
-    private final ExceptionHandler eh;
-    private final ChunkedQueue<ExceptionThrowSite> throwSiteQueue = new ChunkedQueue<>();
-    private final ChunkedQueue<VirtualCallSite> virtualCallSiteQueue = new ChunkedQueue<>();
-    private final ChunkedQueue<Node> edgeQueue = new ChunkedQueue<>();
+    protected final Worklist valNodeWorkList;
+    protected final PAG pag;
+    protected final PTA pta;
+    protected final CallGraphBuilder cgb;
+    protected final ExceptionHandler eh;
+    protected final ChunkedQueue<ExceptionThrowSite> throwSiteQueue = new ChunkedQueue<>();
+    protected final ChunkedQueue<VirtualCallSite> virtualCallSiteQueue = new ChunkedQueue<>();
+    protected final ChunkedQueue<Node> edgeQueue = new ChunkedQueue<>();
 
-    private final ChunkedQueue<MethodOrMethodContext> rmQueue = new ChunkedQueue<>();
+    protected final ChunkedQueue<MethodOrMethodContext> rmQueue = new ChunkedQueue<>();
+    protected final TypeFilterMasks typeMasks;
+    // null unless cycles of simple edges are collapsed.
+    protected final CycleDetector cycleDetector;
+    // null unless pointer-equivalent locals are merged.
+    protected final HashValueNumbering valueNumbering;
+    // null unless the points-to sets are seeded from a snapshot of an earlier run.
+    protected PointsToSnapshot seeds;
+    private int seededUpTo = 0;
 
     public Solver(PTA pta) {
         this.cgb = pta.getCgb();
@@ -59,6 +69,17 @@ public class Solver extends Propagator {
         this.pag.setEdgeQueue(edgeQueue);
         this.eh = pta.getExceptionHandler();
         this.pta = pta;
+        this.typeMasks = new TypeFilterMasks(pag);
+        this.cycleDetector = CoreConfig.v().getPtaConfig().collapseCycles ? new CycleDetector(pag) : null;
+        this.valueNumbering = CoreConfig.v().getPtaConfig().valueNumbering ? new HashValueNumbering() : null;
+        this.valNodeWorkList = Worklist.create(CoreConfig.v().getPtaConfig().worklistKind, pag);
+    }
+
+    /**
+     * Seeds the points-to set of every node, once created, with its objects recorded in the given snapshot.
+     */
+    public void setSeeds(PointsToSnapshot seeds) {
+        this.seeds = seeds;
     }
 
     @Override
@@ -70,33 +91,114 @@ public class Solver extends Propagator {
         cgb.initReachableMethods();
         processStmts(newRMs);
         pag.getAlloc().forEach((a, set) -> set.forEach(v -> propagatePTS(v, a)));
+        final List<ValNode> cycleStarts = new ArrayList<>();
+        seedNewNodes();
         while (!valNodeWorkList.isEmpty()) {
-            ValNode curr = valNodeWorkList.pollFirst();
+            ValNode curr = valNodeWorkList.poll();
             // Step 1: Resolving Direct Constraints
             assert curr != null;
             final DoublePointsToSet pts = curr.getP2Set();
             final PointsToSetInternal newset = pts.getNewSet();
-            pag.simpleLookup(curr).forEach(to -> propagatePTS(to, newset));
-
-            if (curr instanceof VarNode mSrc) {
-                // Step 1 continues.
-                Collection<ExceptionThrowSite> throwSites = eh.throwSitesLookUp(mSrc);
-                for (ExceptionThrowSite site : throwSites) {
-                    eh.exceptionDispatch(newset, site);
+            final List<ValNode> members = pag.getCycleMembers(curr);
+            for (ValNode member : members) {
+                for (ValNode to : pag.simpleLookup(member)) {
+                    if (pag.getRepresentative(to) == curr) {
+                        continue;
+                    }
+                    propagatePTS(to, newset);
+                    if (cycleDetector != null && cycleDetector.shouldSearch(member, to)) {
+                        cycleStarts.add(to);
+                    }
                 }
-                // Step 2: Resolving Indirect Constraints.
-                handleStoreAndLoadOnBase(mSrc);
-                // Step 3: Collecting New Constraints.
-                Collection<VirtualCallSite> sites = cgb.callSitesLookUp(mSrc);
-                for (VirtualCallSite site : sites) {
-                    cgb.virtualCallDispatch(newset, site);
+            }
+            for (ValNode member : members) {
+                if (member instanceof VarNode mSrc) {
+                    resolveVarNode(mSrc, newset, newRMs);
                 }
-                processStmts(newRMs);
             }
             pts.flushNew();
+            collapseCycles(cycleStarts);
+            cycleStarts.clear();
             // Step 4: Activating New Constraints.
             activateConstraints(newCalls, newRMs, newThrows, newPAGEdges);
+            seedNewNodes();
+        }
+        recordWorklist();
+    }
+
+    /**
+     * Adds the recorded objects of the nodes created since the last call into their points-to sets.
+     * The time is recorded into the timer snapshot.seed, which includes building the bodies of the methods
+     * allocating recorded objects.
+     */
+    protected void seedNewNodes() {
+        if (seeds == null) {
+            return;
+        }
+        final ArrayNumberer<ValNode> valNodes = pag.getValNodeNumberer();
+        if (seededUpTo >= valNodes.size()) {
+            return;
+        }
+        long start = System.nanoTime();
+        while (seededUpTo < valNodes.size()) {
+            ValNode node = valNodes.get(++seededUpTo);
+            if (node != null) {
+                for (AllocNode heap : seeds.objectsOf(node)) {
+                    propagatePTS(node, heap);
+                }
+            }
         }
+        Metrics.v().timer("snapshot.seed").record(System.nanoTime() - start);
+    }
+
+    /*
+     * Records the work done through the worklist into the metrics of the run, accumulated over all solves.
+     * */
+    protected void recordWorklist() {
+        Metrics metrics = Metrics.v();
+        metrics.add("solver.worklist.polls", valNodeWorkList.getPollCount());
+        metrics.add("solver.worklist.nodes", valNodeWorkList.getProcessedNodeCount());
+        metrics.add("solver.worklist.re-processed", valNodeWorkList.getReprocessCount());
+        metrics.gauge("solver.worklist.max-per-node", valNodeWorkList.getMaxProcessCount());
+    }
+
+    /**
+     * Collapses the cycles of simple edges reachable from the given nodes and keeps the worklist in terms of
+     * representatives.
+     */
+    protected void collapseCycles(Collection<ValNode> starts) {
+        for (ValNode start : starts) {
+            for (List<ValNode> cycle : cycleDetector.findCycles(start)) {
+                boolean queued = false;
+                for (ValNode node : cycle) {
+                    queued |= valNodeWorkList.remove(node);
+                }
+                ValNode rep = pag.collapseCycle(cycle);
+                if (queued || !rep.getP2Set().getNewSet().isEmpty()) {
+                    valNodeWorkList.add(rep);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles the newly added objects of a variable beyond its simple (copy) edges:
+     * exception dispatching, field loads/stores on the variable and virtual call dispatching.
+     */
+    protected void resolveVarNode(VarNode mSrc, PointsToSetInternal newset, Iterator<MethodOrMethodContext> newRMs) {
+        // Step 1 continues.
+        Collection<ExceptionThrowSite> throwSites = eh.throwSitesLookUp(mSrc);
+        for (ExceptionThrowSite site : throwSites) {
+            eh.exceptionDispatch(newset, site);
+        }
+        // Step 2: Resolving Indirect Constraints.
+        handleStoreAndLoadOnBase(mSrc, newset);
+        // Step 3: Collecting New Constraints.
+        Collection<VirtualCallSite> sites = cgb.callSitesLookUp(mSrc);
+        for (VirtualCallSite site : sites) {
+            cgb.virtualCallDispatch(newset, site);
+        }
+        processStmts(newRMs);
     }
 
     public void processStmts(Iterator<MethodOrMethodContext> newRMs) {
@@ -198,6 +300,30 @@ public class Solver extends Propagator {
                 pag.addEdge(from, to);
             }
         }
+        if (valueNumbering != null && pta.ctxSelector().keepsMethodContextForLocals()) {
+            mergeEquivalentLocals(mpag, cxt);
+        }
+    }
+
+    /**
+     * Lets the pointer-equivalent variables of a method share one points-to set in the given context.
+     * The edges of the method have just been added but not propagated, so the copies of its locals in this
+     * context are still empty; those that are not (e.g., globals) are simply left out.
+     */
+    private void mergeEquivalentLocals(MethodPAG mpag, Context cxt) {
+        for (List<VarNode> equivalent : valueNumbering.equivalenceClasses(mpag)) {
+            ValNode rep = null;
+            for (VarNode node : equivalent) {
+                ValNode cnode = (ValNode) pta.parameterize(node, cxt);
+                if (rep == null) {
+                    if (cnode.getP2Set().isEmpty()) {
+                        rep = cnode;
+                    }
+                } else {
+                    pag.mergeEquivalentNodes(rep, cnode);
+                }
+            }
+        }
     }
 
     // handle implicit calls to java.lang.ref.Finalizer.register by the JVM.
@@ -216,44 +342,44 @@ public class Solver extends Propagator {
         }
     }
 
-    private void handleStoreAndLoadOnBase(VarNode base) {
+    private void handleStoreAndLoadOnBase(VarNode base, PointsToSetInternal baseHeaps) {
         for (final FieldRefNode fr : base.getAllFieldRefs()) {
             for (final VarNode v : pag.storeInvLookup(fr)) {
-                handleStoreEdge(base.getP2Set().getNewSet(), fr.getField(), v);
+                handleStoreEdge(baseHeaps, fr.getField(), v);
             }
             for (final VarNode to : pag.loadLookup(fr)) {
-                handleLoadEdge(base.getP2Set().getNewSet(), fr.getField(), to);
+                handleLoadEdge(baseHeaps, fr.getField(), to);
             }
         }
     }
 
     private void handleStoreEdge(PointsToSetInternal baseHeaps, SparkField field, ValNode from) {
-        baseHeaps.forall(new P2SetVisitor(pta) {
-            public void visit(Node n) {
-                if (disallowStoreOrLoadOn((AllocNode) n)) {
-                    return;
-                }
-                final FieldValNode fvn = pag.makeFieldValNode(field);
-                final ValNode oDotF = (ValNode) pta.parameterize(fvn, PTAUtils.plusplusOp((AllocNode) n));
-                pag.addEdge(from, oDotF);
+        final ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        baseHeaps.forEach(idx -> {
+            final AllocNode heap = allocNodes.get(idx);
+            if (disallowStoreOrLoadOn(heap)) {
+                return;
             }
+            final FieldValNode fvn = pag.makeFieldValNode(field);
+            final ValNode oDotF = (ValNode) pta.parameterize(fvn, PTAUtils.plusplusOp(heap));
+            pag.addEdge(from, oDotF);
         });
     }
 
     private void handleLoadEdge(PointsToSetInternal baseHeaps, SparkField field, ValNode to) {
-        baseHeaps.forall(new P2SetVisitor(pta) {
-            public void visit(Node n) {
-                if (disallowStoreOrLoadOn((AllocNode) n)) {
-                    return;
-                }
-                final FieldValNode fvn = pag.makeFieldValNode(field);
-                final ValNode oDotF = (ValNode) pta.parameterize(fvn, PTAUtils.plusplusOp((AllocNode) n));
-                pag.addEdge(oDotF, to);
+        final ArrayNumberer<AllocNode> allocNodes = pag.getAllocNodeNumberer();
+        baseHeaps.forEach(idx -> {
+            final AllocNode heap = allocNodes.get(idx);
+            if (disallowStoreOrLoadOn(heap)) {
+                return;
             }
+            final FieldValNode fvn = pag.makeFieldValNode(field);
+            final ValNode oDotF = (ValNode) pta.parameterize(fvn, PTAUtils.plusplusOp(heap));
+            pag.addEdge(oDotF, to);
         });
     }
 
-    private void activateConstraints(QueueReader<VirtualCallSite> newCalls, QueueReader<MethodOrMethodContext> newRMs, QueueReader<ExceptionThrowSite> newThrows, QueueReader<Node> addedEdges) {
+    protected void activateConstraints(QueueReader<VirtualCallSite> newCalls, QueueReader<MethodOrMethodContext> newRMs, QueueReader<ExceptionThrowSite> newThrows, QueueReader<Node> addedEdges) {
         while (newCalls.hasNext()) {
             while (newCalls.hasNext()) {
                 final VirtualCallSite site = newCalls.next();
@@ -293,24 +419,28 @@ public class Solver extends Propagator {
     }
 
     protected void propagatePTS(final ValNode pointer, PointsToSetInternal other) {
+        if (addAllWithTypeFiltering(pointer, other)) {
+            valNodeWorkList.add(pag.getRepresentative(pointer));
+        }
+    }
+
+    /**
+     * Adds the objects of other that are compatible with the declared type of pointer into its points-to set.
+     * Returns true if the points-to set of pointer changed. The worklist is not touched.
+     */
+    protected boolean addAllWithTypeFiltering(final ValNode pointer, PointsToSetInternal other) {
         final DoublePointsToSet addTo = pointer.getP2Set();
-        P2SetVisitor p2SetVisitor = new P2SetVisitor(pta) {
-            @Override
-            public void visit(Node n) {
-                if (PTAUtils.addWithTypeFiltering(addTo, pointer.getType(), n)) {
-                    returnValue = true;
-                }
-            }
-        };
-        other.forall(p2SetVisitor);
-        if (p2SetVisitor.getReturnValue()) {
-            valNodeWorkList.add(pointer);
+        final Type type = pointer.getType();
+        if (type == null) {
+            return addTo.addAll(other, null);
         }
+        return addTo.addAll(other, typeMasks.get(type), null);
     }
 
     protected void propagatePTS(final ValNode pointer, AllocNode heap) {
-        if (PTAUtils.addWithTypeFiltering(pointer.getP2Set(), pointer.getType(), heap)) {
-            valNodeWorkList.add(pointer);
+        final Type type = pointer.getType();
+        if ((type == null || typeMasks.get(type).get(heap.getNumber())) && pointer.getP2Set().add(heap.getNumber())) {
+            valNodeWorkList.add(pag.getRepresentative(pointer));
         }
     }
 
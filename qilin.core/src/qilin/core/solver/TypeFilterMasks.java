@@ -0,0 +1,97 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver;
+
+import qilin.core.PTAScene;
+import qilin.core.pag.AllocNode;
+import qilin.core.pag.PAG;
+import qilin.core.sets.MaskBitVector;
+import qilin.util.PTAUtils;
+import soot.FastHierarchy;
+import soot.Type;
+import soot.util.ArrayNumberer;
+import soot.util.BitVector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Caches, for every declared type of a pointer, the set of allocation nodes (by number) that may flow into it,
+ * i.e., whose type passes PTAUtils.castNeverFails against the declared type.
+ * A mask is built on its first request and is brought up to date lazily: allocation nodes numbered after the
+ * last request are checked on the next one, so each (node, declared type) pair is tested against the hierarchy once.
+ * Masks are created under ConcurrentHashMap.computeIfAbsent and only extended when the numberer has grown;
+ * concurrent readers are therefore safe after an update() as long as no allocation node is numbered meanwhile
+ * (see ParallelSolver).
+ * */
+public class TypeFilterMasks {
+    private final ArrayNumberer<AllocNode> allocNodes;
+    private final Map<Type, Mask> masks = new ConcurrentHashMap<>();
+
+    public TypeFilterMasks(PAG pag) {
+        this.allocNodes = pag.getAllocNodeNumberer();
+    }
+
+    /**
+     * Returns the bit vector of allocation node numbers compatible with type.
+     */
+    public BitVector get(Type type) {
+        Mask mask = masks.computeIfAbsent(type, Mask::new);
+        if (mask.upTo < allocNodes.size()) {
+            mask.extend();
+        }
+        return mask.bits;
+    }
+
+    /**
+     * Brings all existing masks up to date with the allocation nodes numbered so far.
+     */
+    public void update() {
+        final int size = allocNodes.size();
+        for (Mask mask : masks.values()) {
+            if (mask.upTo < size) {
+                mask.extend();
+            }
+        }
+    }
+
+    private class Mask {
+        private final Type type;
+        private final MaskBitVector bits = new MaskBitVector();
+        // the largest node number already checked.
+        private int upTo = 0;
+
+        private Mask(Type type) {
+            this.type = type;
+            extend();
+        }
+
+        private void extend() {
+            final FastHierarchy fh = PTAScene.v().getOrMakeFastHierarchy();
+            final int size = allocNodes.size();
+            for (int i = upTo + 1; i <= size; ++i) {
+                AllocNode heap = allocNodes.get(i);
+                if (heap != null && PTAUtils.castNeverFails(fh, heap.getType(), type)) {
+                    bits.set(i);
+                }
+            }
+            upTo = size;
+        }
+    }
+}
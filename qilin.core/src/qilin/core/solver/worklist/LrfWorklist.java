@@ -0,0 +1,66 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver.worklist;
+
+import qilin.core.pag.ValNode;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/*
+ * Least Recently Fired first, refer to
+ * "Online Cycle Detection and Difference Propagation for Pointer Analysis" (SCAM'03).
+ * A node which has never been processed comes first; otherwise the node processed longest ago is chosen.
+ * The time a node was last fired only changes when it is polled, i.e., while it is not in the ordered set.
+ * */
+public class LrfWorklist extends Worklist {
+    private int[] lastFired = new int[0];
+    private int clock = 0;
+    private final TreeSet<ValNode> nodes = new TreeSet<>(Comparator.<ValNode>comparingInt(n -> lastFired[n.getNumber()])
+            .thenComparingInt(ValNode::getNumber));
+
+    @Override
+    public boolean add(ValNode node) {
+        int number = node.getNumber();
+        if (number >= lastFired.length) {
+            lastFired = Arrays.copyOf(lastFired, Math.max(number + 1, lastFired.length * 2));
+        }
+        return nodes.add(node);
+    }
+
+    @Override
+    public boolean remove(ValNode node) {
+        return node.getNumber() < lastFired.length && nodes.remove(node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    protected ValNode next() {
+        ValNode node = nodes.pollFirst();
+        if (node != null) {
+            lastFired[node.getNumber()] = ++clock;
+        }
+        return node;
+    }
+}
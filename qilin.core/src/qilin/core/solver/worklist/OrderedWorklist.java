@@ -0,0 +1,50 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver.worklist;
+
+import qilin.core.pag.ValNode;
+
+import java.util.TreeSet;
+
+/*
+ * Processes nodes in the order of ValNode.compareTo, i.e., most recently created nodes first.
+ * */
+public class OrderedWorklist extends Worklist {
+    private final TreeSet<ValNode> nodes = new TreeSet<>();
+
+    @Override
+    public boolean add(ValNode node) {
+        return nodes.add(node);
+    }
+
+    @Override
+    public boolean remove(ValNode node) {
+        return nodes.remove(node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    protected ValNode next() {
+        return nodes.pollFirst();
+    }
+}
@@ -0,0 +1,172 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver.worklist;
+
+import qilin.core.pag.PAG;
+import qilin.core.pag.ValNode;
+import qilin.util.DataFactory;
+
+import java.util.*;
+
+/*
+ * Wave propagation in topological order, in the spirit of
+ * "Wave Propagation and Deep Propagation for Pointer Analysis" (CGO'09).
+ * Nodes added while a wave is processed are deferred to the next wave, unless they are still pending in the
+ * current one. At the start of a wave, its nodes are sorted in a topological order of the strongly connected
+ * components of the simple edges among them, so that a node is processed after the nodes flowing into it.
+ * */
+public class TopoWaveWorklist extends Worklist {
+    private final PAG pag;
+    private final Set<ValNode> pending = DataFactory.createSet();
+    private final List<ValNode> nextWave = new ArrayList<>();
+    private final Deque<ValNode> wave = new ArrayDeque<>();
+
+    public TopoWaveWorklist(PAG pag) {
+        this.pag = pag;
+    }
+
+    @Override
+    public boolean add(ValNode node) {
+        if (pending.add(node)) {
+            nextWave.add(node);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Removed nodes stay in their wave and are skipped when polled.
+     * */
+    @Override
+    public boolean remove(ValNode node) {
+        return pending.remove(node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    @Override
+    protected ValNode next() {
+        while (!pending.isEmpty()) {
+            if (wave.isEmpty()) {
+                if (nextWave.isEmpty()) {
+                    break;
+                }
+                startWave();
+                continue;
+            }
+            ValNode node = wave.poll();
+            if (pending.remove(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void startWave() {
+        List<ValNode> nodes = new ArrayList<>();
+        Map<ValNode, Integer> position = new HashMap<>();
+        for (ValNode node : nextWave) {
+            if (pending.contains(node) && !position.containsKey(node)) {
+                position.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+        nextWave.clear();
+        List<ValNode> order = sccOrder(nodes, position);
+        Collections.reverse(order);
+        wave.addAll(order);
+    }
+
+    private List<Integer> successors(ValNode node, Map<ValNode, Integer> position) {
+        List<Integer> ret = new ArrayList<>();
+        for (ValNode member : pag.getCycleMembers(node)) {
+            for (ValNode to : pag.simpleLookup(member)) {
+                Integer pos = position.get(pag.getRepresentative(to));
+                if (pos != null) {
+                    ret.add(pos);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * Iterative Tarjan's algorithm, returns the nodes with the strongly connected components in reverse
+     * topological order.
+     * */
+    private List<ValNode> sccOrder(List<ValNode> nodes, Map<ValNode, Integer> position) {
+        final int n = nodes.size();
+        final int[] index = new int[n];
+        final int[] lowLink = new int[n];
+        final boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        List<ValNode> ret = new ArrayList<>(n);
+        Deque<Integer> sccStack = new ArrayDeque<>();
+        Deque<int[]> callStack = new ArrayDeque<>();
+        List<List<Integer>> succs = new ArrayList<>(Collections.nCopies(n, null));
+        int counter = 0;
+        for (int root = 0; root < n; ++root) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = lowLink[root] = counter++;
+            onStack[root] = true;
+            sccStack.push(root);
+            callStack.push(new int[]{root, 0});
+            while (!callStack.isEmpty()) {
+                int[] frame = callStack.peek();
+                int v = frame[0];
+                if (succs.get(v) == null) {
+                    succs.set(v, successors(nodes.get(v), position));
+                }
+                List<Integer> vSuccs = succs.get(v);
+                if (frame[1] < vSuccs.size()) {
+                    int w = vSuccs.get(frame[1]++);
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        onStack[w] = true;
+                        sccStack.push(w);
+                        callStack.push(new int[]{w, 0});
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                callStack.pop();
+                succs.set(v, Collections.emptyList());
+                if (!callStack.isEmpty()) {
+                    int u = callStack.peek()[0];
+                    lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                }
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = sccStack.pop();
+                        onStack[w] = false;
+                        ret.add(nodes.get(w));
+                    } while (w != v);
+                }
+            }
+        }
+        return ret;
+    }
+}
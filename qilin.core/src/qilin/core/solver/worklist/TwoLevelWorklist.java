@@ -0,0 +1,93 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver.worklist;
+
+import qilin.core.pag.LocalVarNode;
+import qilin.core.pag.ValNode;
+import qilin.core.pag.VarNode;
+import qilin.util.DataFactory;
+
+import java.util.*;
+
+/*
+ * A two-level (divide and conquer) worklist: pending nodes are partitioned by the method declaring them
+ * (all fields and globals form one more partition). Partitions are visited first-in first-out, and the
+ * visited partition is processed until it has no pending node left, including nodes added to it meanwhile,
+ * before moving on. This keeps the propagation local to a method until its points-to sets are stable.
+ * */
+public class TwoLevelWorklist extends Worklist {
+    private static final Object NON_LOCALS = new Object();
+    private final Set<ValNode> pending = DataFactory.createSet();
+    private final Map<Object, Deque<ValNode>> partitions = DataFactory.createMap();
+    private final Deque<Object> partitionQueue = new ArrayDeque<>();
+    private Object current = null;
+
+    private static Object partitionOf(ValNode node) {
+        if (node instanceof VarNode vn && vn.base() instanceof LocalVarNode lvn && lvn.getMethod() != null) {
+            return lvn.getMethod();
+        }
+        return NON_LOCALS;
+    }
+
+    @Override
+    public boolean add(ValNode node) {
+        if (!pending.add(node)) {
+            return false;
+        }
+        Object key = partitionOf(node);
+        Deque<ValNode> partition = partitions.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (partition.isEmpty() && key != current) {
+            partitionQueue.add(key);
+        }
+        partition.add(node);
+        return true;
+    }
+
+    /*
+     * Removed nodes stay in their partition and are skipped when polled.
+     * */
+    @Override
+    public boolean remove(ValNode node) {
+        return pending.remove(node);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    @Override
+    protected ValNode next() {
+        while (!pending.isEmpty()) {
+            Deque<ValNode> partition = current == null ? null : partitions.get(current);
+            if (partition == null || partition.isEmpty()) {
+                if (partitionQueue.isEmpty()) {
+                    break;
+                }
+                current = partitionQueue.poll();
+                continue;
+            }
+            ValNode node = partition.poll();
+            if (pending.remove(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+}
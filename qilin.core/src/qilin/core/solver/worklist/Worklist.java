@@ -0,0 +1,125 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.core.solver.worklist;
+
+import qilin.CoreConfig;
+import qilin.core.pag.PAG;
+import qilin.core.pag.ValNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The set of pointers whose points-to sets have to be propagated, with a scheduling strategy.
+ * Adding a node which is already pending has no effect.
+ * Every poll is counted per node, so that the number of times a node is re-processed can be compared
+ * across strategies (see CoreConfig.WorklistKind).
+ * */
+public abstract class Worklist {
+    private int[] processCounts = new int[0];
+    private long pollCount = 0;
+    private int processedNodes = 0;
+    private int maxProcessCount = 0;
+
+    public static Worklist create(CoreConfig.WorklistKind kind, PAG pag) {
+        return switch (kind) {
+            case NUMBER -> new OrderedWorklist();
+            case FIFO -> new FifoWorklist();
+            case LRF -> new LrfWorklist();
+            case TOPO -> new TopoWaveWorklist(pag);
+            case TWO_LEVEL -> new TwoLevelWorklist();
+        };
+    }
+
+    /**
+     * Adds node, returns false if it is already pending.
+     */
+    public abstract boolean add(ValNode node);
+
+    /**
+     * Removes node, returns false if it is not pending.
+     */
+    public abstract boolean remove(ValNode node);
+
+    public abstract boolean isEmpty();
+
+    /**
+     * Returns the next node to process according to the strategy, or null if there is none.
+     */
+    protected abstract ValNode next();
+
+    public ValNode poll() {
+        ValNode node = next();
+        if (node != null) {
+            record(node.getNumber());
+        }
+        return node;
+    }
+
+    /**
+     * Polls all pending nodes at once, in the order of the strategy.
+     */
+    public List<ValNode> drain() {
+        List<ValNode> ret = new ArrayList<>();
+        for (ValNode node = poll(); node != null; node = poll()) {
+            ret.add(node);
+        }
+        return ret;
+    }
+
+    private void record(int number) {
+        if (number >= processCounts.length) {
+            processCounts = Arrays.copyOf(processCounts, Math.max(number + 1, processCounts.length * 2));
+        }
+        int count = ++processCounts[number];
+        if (count == 1) {
+            ++processedNodes;
+        }
+        maxProcessCount = Math.max(maxProcessCount, count);
+        ++pollCount;
+    }
+
+    /**
+     * Returns how many times node has been polled.
+     */
+    public int getProcessCount(ValNode node) {
+        int number = node.getNumber();
+        return number < processCounts.length ? processCounts[number] : 0;
+    }
+
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public int getProcessedNodeCount() {
+        return processedNodes;
+    }
+
+    /**
+     * Returns the number of polls of nodes which had been processed before.
+     */
+    public long getReprocessCount() {
+        return pollCount - processedNodes;
+    }
+
+    public int getMaxProcessCount() {
+        return maxProcessCount;
+    }
+}
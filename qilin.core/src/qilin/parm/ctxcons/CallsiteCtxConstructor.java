@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.CallSite;
 import qilin.core.pag.ContextAllocNode;
@@ -32,12 +31,6 @@ public class CallsiteCtxConstructor implements CtxConstructor {
     public Context constructCtx(MethodOrMethodContext caller, ContextAllocNode receiverNode, CallSite callSite, SootMethod target) {
         Context callerContext = caller.context();
         assert callerContext instanceof ContextElements;
-        ContextElements ctxElems = (ContextElements) callerContext;
-        int s = ctxElems.size();
-        ContextElement[] cxt = ctxElems.getElements();
-        ContextElement[] array = new ContextElement[s + 1];
-        array[0] = callSite;
-        System.arraycopy(cxt, 0, array, 1, s);
-        return new ContextElements(array, s + 1);
+        return ((ContextElements) callerContext).prepend(callSite);
     }
 }
\ No newline at end of file
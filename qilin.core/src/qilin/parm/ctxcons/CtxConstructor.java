@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.CallSite;
 import qilin.core.pag.ContextAllocNode;
@@ -29,5 +28,5 @@ import soot.SootMethod;
 public interface CtxConstructor {
     Context constructCtx(MethodOrMethodContext caller, ContextAllocNode receiverNode, CallSite callSite, SootMethod target);
 
-    Context emptyContext = new ContextElements(new ContextElement[0], 0);
+    Context emptyContext = ContextElements.emptyContext();
 }
\ No newline at end of file
@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.CallSite;
 import qilin.core.pag.ContextAllocNode;
@@ -37,33 +36,16 @@ public class HybObjCtxConstructor implements CtxConstructor {
         if (receiverNode == null) { // static invoke
             assert callerContext instanceof ContextElements;
             ContextElements callerCtx = (ContextElements) callerContext;
-            ContextElement[] cxtAllocs = callerCtx.getElements();
-            int s = callerCtx.size();
-            ContextElement[] array;
-            if (s >= 1) {
-                array = new ContextElement[s + 1];
-                array[1] = callSite;
-                array[0] = cxtAllocs[0];
-                if (s > 1) {
-                    System.arraycopy(cxtAllocs, 1, array, 2, s - 1);
-                }
-                return new ContextElements(array, s + 1);
+            if (callerCtx.size() >= 1) {
+                // [callerCtx[0], callSite, callerCtx[1], ...]
+                return callerCtx.tail().prepend(callSite).prepend(callerCtx.get(0));
             } else {
-                array = new ContextElement[2];
-                array[1] = callSite;
-                array[0] = null;
-                return new ContextElements(array, 2);
+                return callerCtx.prepend(callSite).prepend(null);
             }
         } else {
             Context context = receiverNode.context();
             assert context instanceof ContextElements;
-            ContextElements ctx = (ContextElements) context;
-            int s = ctx.size();
-            ContextElement[] cxtAllocs = ctx.getElements();
-            ContextElement[] array = new ContextElement[s + 1];
-            array[0] = receiverNode.base();
-            System.arraycopy(cxtAllocs, 0, array, 1, s);
-            return new ContextElements(array, s + 1);
+            return ((ContextElements) context).prepend(receiverNode.base());
         }
     }
 }
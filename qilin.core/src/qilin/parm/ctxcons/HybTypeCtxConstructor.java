@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.context.TypeContextElement;
 import qilin.core.pag.CallSite;
@@ -36,25 +35,12 @@ public class HybTypeCtxConstructor implements CtxConstructor {
         if (receiverNode == null) { // static invoke
             assert callerContext instanceof ContextElements;
             ContextElements callerCtxs = (ContextElements) callerContext;
-            ContextElement[] cxtAllocs = callerCtxs.getElements();
-            int s = callerCtxs.size();
-            ContextElement[] array = new ContextElement[s + 1];
-            array[1] = callSite;
-            array[0] = cxtAllocs[0];
-            if (s > 1) {
-                System.arraycopy(cxtAllocs, 1, array, 2, s - 1);
-            }
-            return new ContextElements(array, s + 1);
+            // [callerCtxs[0], callSite, callerCtxs[1], ...]
+            return callerCtxs.tail().prepend(callSite).prepend(callerCtxs.get(0));
         } else {
             Context context = receiverNode.context();
             assert context instanceof ContextElements;
-            ContextElements ctx = (ContextElements) context;
-            int s = ctx.size();
-            ContextElement[] cxtAllocs = ctx.getElements();
-            ContextElement[] array = new ContextElement[s + 1];
-            array[0] = TypeContextElement.getTypeContextElement(receiverNode.base());
-            System.arraycopy(cxtAllocs, 0, array, 1, s);
-            return new ContextElements(array, s + 1);
+            return ((ContextElements) context).prepend(TypeContextElement.getTypeContextElement(receiverNode.base()));
         }
     }
 }
@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.CallSite;
 import qilin.core.pag.ContextAllocNode;
@@ -37,12 +36,6 @@ public class ObjCtxConstructor implements CtxConstructor {
         }
         Context context = receiverNode.context();
         assert context instanceof ContextElements;
-        ContextElements ctxElems = (ContextElements) context;
-        int s = ctxElems.size();
-        ContextElement[] cxtAllocs = ctxElems.getElements();
-        ContextElement[] array = new ContextElement[s + 1];
-        array[0] = receiverNode.base();
-        System.arraycopy(cxtAllocs, 0, array, 1, s);
-        return new ContextElements(array, s + 1);
+        return ((ContextElements) context).prepend(receiverNode.base());
     }
 }
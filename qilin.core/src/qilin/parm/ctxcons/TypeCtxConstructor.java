@@ -18,7 +18,6 @@
 
 package qilin.parm.ctxcons;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.context.TypeContextElement;
 import qilin.core.pag.AllocNode;
@@ -39,13 +38,7 @@ public class TypeCtxConstructor implements CtxConstructor {
         }
         Context context = receiverNode.context();
         assert context instanceof ContextElements;
-        ContextElements ctxElems = (ContextElements) context;
-        int s = ctxElems.size();
-        ContextElement[] cxtAllocs = ctxElems.getElements();
-        ContextElement[] array = new ContextElement[s + 1];
         AllocNode base = receiverNode.base();
-        array[0] = TypeContextElement.getTypeContextElement(base);
-        System.arraycopy(cxtAllocs, 0, array, 1, s);
-        return new ContextElements(array, s + 1);
+        return ((ContextElements) context).prepend(TypeContextElement.getTypeContextElement(base));
     }
 }
@@ -18,7 +18,6 @@
 
 package qilin.parm.select;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.AllocNode;
 import qilin.core.pag.FieldValNode;
@@ -63,20 +62,16 @@ public class BeanSelector extends CtxSelector {
         ContextElements ctxElems = (ContextElements) context;
         int s = ctxElems.size();
         if (s > 1) {
-            ContextElement[] cxtAllocs = ctxElems.getElements();
-            AllocNode allocator = (AllocNode) cxtAllocs[0];
+            AllocNode allocator = (AllocNode) ctxElems.get(0);
             if (beanNexCtxMap.containsKey(heap.getNewExpr())) {
                 Map<Object, Map<Object, Object>> mMap1 = beanNexCtxMap.get(heap.getNewExpr());
                 if (mMap1.containsKey(allocator.getNewExpr())) {
                     Map<Object, Object> mMap2 = mMap1.get(allocator.getNewExpr());
-                    AllocNode allocAllocNode = (AllocNode) cxtAllocs[1];
+                    AllocNode allocAllocNode = (AllocNode) ctxElems.get(1);
                     if (allocAllocNode != null && mMap2.containsKey(allocAllocNode.getNewExpr())) {
                         Object newCtxNode = mMap2.get(allocAllocNode.getNewExpr());
                         AllocNode newCtxAllocNode = pag.getAllocNode(newCtxNode);
-                        ContextElement[] array = new ContextElement[s];
-                        System.arraycopy(cxtAllocs, 0, array, 0, s);
-                        array[0] = newCtxAllocNode;
-                        context = new ContextElements(array, s);
+                        context = ctxElems.tail().prepend(newCtxAllocNode);
                     }
                 }
             }
@@ -0,0 +1,198 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.parm.select;
+
+import qilin.core.PTA;
+import qilin.core.pag.AllocNode;
+import qilin.core.pag.FieldValNode;
+import qilin.core.pag.LocalVarNode;
+import qilin.parm.ctxcons.CtxConstructor;
+import qilin.util.Metrics;
+import soot.Context;
+import soot.MethodOrMethodContext;
+import soot.SootMethod;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+
+/*
+ * Wraps the selector of an analysis that runs under a time and/or memory budget.
+ * Once a budget is exceeded, the heavy methods, i.e., those with the most contexts so far, are degraded:
+ * their new contexts collapse to the empty context, as with InsenSelector. Existing contexts are kept, so the
+ * result stays sound but is less precise for the degraded methods.
+ * The first degradation takes the methods with at least half of the largest number of contexts of a method;
+ * each further excess (another time budget elapsed, or the live heap grown half-way to its maximum) halves
+ * this threshold, down to degrading every method.
+ * The excesses and the degraded methods are counted in the metrics of the run.
+ * */
+public class BudgetSelector extends CtxSelector {
+    private static final int DEFAULT_CHECK_INTERVAL = 1 << 8;
+    private final CtxSelector ctxSel;
+    private final PTA pta;
+    private final long timeBudget;
+    // the budgets are checked every checkInterval selections of a method context.
+    private final int checkInterval;
+    // the heap pools, whose usage after the last collection measures the live heap.
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final Set<SootMethod> degraded = new LinkedHashSet<>();
+    private long deadline;
+    private long memoryLimit;
+    private int ticks = 0;
+    private int excesses = 0;
+    private boolean degradeAll = false;
+
+    /**
+     * @param timeBudget   budget of elapsed time in milliseconds from now, 0 for none.
+     * @param memoryBudget budget of the live heap, i.e., in use after the last garbage collection, in bytes, 0 for none.
+     */
+    public BudgetSelector(CtxSelector ctxSel, PTA pta, long timeBudget, long memoryBudget) {
+        this(ctxSel, pta, timeBudget, memoryBudget, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public BudgetSelector(CtxSelector ctxSel, PTA pta, long timeBudget, long memoryBudget, int checkInterval) {
+        this.ctxSel = ctxSel;
+        this.pta = pta;
+        this.timeBudget = timeBudget;
+        this.checkInterval = checkInterval;
+        this.deadline = timeBudget > 0 ? System.currentTimeMillis() + timeBudget : Long.MAX_VALUE;
+        this.memoryLimit = memoryBudget > 0 ? memoryBudget : Long.MAX_VALUE;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    /*
+     * The heap in use after the last garbage collection of each pool. Unlike totalMemory() - freeMemory(), it
+     * does not count the garbage not collected yet.
+     * */
+    private long liveHeap() {
+        long ret = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                ret += usage.getUsed();
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the degraded methods in the order of their degradation.
+     */
+    public Set<SootMethod> getDegradedMethods() {
+        return Collections.unmodifiableSet(degraded);
+    }
+
+    /**
+     * Returns how many times a budget has been exceeded.
+     */
+    public int getExcessCount() {
+        return excesses;
+    }
+
+    public boolean degradesAll() {
+        return degradeAll;
+    }
+
+    @Override
+    public Context select(SootMethod m, Context context) {
+        if (++ticks >= checkInterval) {
+            ticks = 0;
+            checkBudgets();
+        }
+        if (degradeAll) {
+            degrade(m);
+            return CtxConstructor.emptyContext;
+        }
+        if (degraded.contains(m)) {
+            return CtxConstructor.emptyContext;
+        }
+        return ctxSel.select(m, context);
+    }
+
+    @Override
+    public Context select(LocalVarNode lvn, Context context) {
+        return ctxSel.select(lvn, context);
+    }
+
+    @Override
+    public Context select(FieldValNode fvn, Context context) {
+        return ctxSel.select(fvn, context);
+    }
+
+    @Override
+    public Context select(AllocNode heap, Context context) {
+        return ctxSel.select(heap, context);
+    }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return ctxSel.keepsMethodContextForLocals();
+    }
+
+    /**
+     * Degrades the heavy methods if a budget has been exceeded since the last check.
+     */
+    public void checkBudgets() {
+        if (degradeAll) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long used = liveHeap();
+        if (now < deadline && used < memoryLimit) {
+            return;
+        }
+        excesses++;
+        Metrics.v().increment("budget.excesses");
+        if (now >= deadline) {
+            deadline = now + timeBudget;
+        }
+        if (used >= memoryLimit) {
+            memoryLimit = used + (Runtime.getRuntime().maxMemory() - used) / 2;
+        }
+        degradeHeavyMethods();
+    }
+
+    private void degradeHeavyMethods() {
+        Map<SootMethod, Integer> contexts = new HashMap<>();
+        for (MethodOrMethodContext momc : pta.getReachableMethods()) {
+            contexts.merge(momc.method(), 1, Integer::sum);
+        }
+        int max = contexts.values().stream().max(Integer::compare).orElse(0);
+        int threshold = max >> excesses;
+        if (threshold <= 1) {
+            degradeAll = true;
+        }
+        contexts.entrySet().stream().filter(e -> e.getValue() >= threshold)
+                .sorted(Map.Entry.<SootMethod, Integer>comparingByValue().reversed()
+                        .thenComparing(e -> e.getKey().getSignature()))
+                .forEach(e -> degrade(e.getKey()));
+    }
+
+    private void degrade(SootMethod m) {
+        if (degraded.add(m)) {
+            Metrics.v().increment("budget.degraded-methods");
+        }
+    }
+}
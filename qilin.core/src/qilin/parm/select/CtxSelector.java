@@ -18,7 +18,6 @@
 
 package qilin.parm.select;
 
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.AllocNode;
 import qilin.core.pag.FieldValNode;
@@ -36,17 +35,19 @@ public abstract class CtxSelector {
 
     public abstract Context select(AllocNode heap, Context context);
 
+    /**
+     * Returns true if every local variable gets the context of its method, i.e., select(lvn, c) == c for any
+     * context c selected for the method, so that equivalences between the locals of a method carry over to
+     * their context-sensitive copies.
+     */
+    public boolean keepsMethodContextForLocals() {
+        return false;
+    }
+
     protected Context contextTailor(Context context, int length) {
         if (length == 0) {
             return CtxConstructor.emptyContext;
         }
-        ContextElements ctx = (ContextElements) context;
-        ContextElement[] fullContexts = ctx.getElements();
-        if (length >= ctx.size()) {
-            return context;
-        }
-        ContextElement[] newContexts = new ContextElement[length];
-        System.arraycopy(fullContexts, 0, newContexts, 0, length);
-        return new ContextElements(newContexts, length);
+        return ((ContextElements) context).truncate(length);
     }
 }
@@ -59,4 +59,9 @@ public class DebloatingSelector extends CtxSelector {
             return CtxConstructor.emptyContext;
         }
     }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return true;
+    }
 }
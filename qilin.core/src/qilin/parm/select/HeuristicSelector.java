@@ -50,4 +50,9 @@ public class HeuristicSelector extends CtxSelector {
         }
         return context;
     }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return true;
+    }
 }
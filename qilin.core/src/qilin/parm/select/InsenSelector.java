@@ -45,4 +45,9 @@ public class InsenSelector extends CtxSelector {
     public Context select(AllocNode heap, Context context) {
         return CtxConstructor.emptyContext;
     }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return true;
+    }
 }
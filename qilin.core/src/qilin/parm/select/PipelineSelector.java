@@ -55,4 +55,9 @@ public class PipelineSelector extends CtxSelector {
     public Context select(AllocNode heap, Context context) {
         return ctxSelA.select(heap, ctxSelB.select(heap, context));
     }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return ctxSelA.keepsMethodContextForLocals() && ctxSelB.keepsMethodContextForLocals();
+    }
 }
@@ -52,4 +52,9 @@ public class UniformSelector extends CtxSelector {
     public Context select(AllocNode heap, Context context) {
         return contextTailor(context, hk);
     }
+
+    @Override
+    public boolean keepsMethodContextForLocals() {
+        return true;
+    }
 }
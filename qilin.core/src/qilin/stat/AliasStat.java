@@ -24,7 +24,7 @@ import qilin.core.pag.LocalVarNode;
 import qilin.core.pag.MethodPAG;
 import qilin.core.pag.Node;
 import qilin.core.pag.VarNode;
-import qilin.core.sets.PointsToSet;
+import qilin.core.query.MayAliasEngine;
 import qilin.util.Pair;
 import qilin.util.Util;
 import soot.Local;
@@ -41,13 +41,26 @@ import java.util.stream.Collectors;
 
 public class AliasStat implements AbstractStat {
     private final PTA pta;
+    private final Collection<SootMethod> reachableMethods;
+    private final MayAliasEngine aliasEngine;
+    private boolean processed = false;
     Map<LocalVarNode, Set<LocalVarNode>> assignMap = new HashMap<>();
     Map<SparkField, Map<Boolean, Set<LocalVarNode>>> globalMap = new HashMap<>();
     private int intraAlias = 0, intraAlias_incstst = 0, globalAlias = 0, globalAlias_incstst = 0;
     private int intraAlias_app = 0, intraAlias_incstst_app = 0, globalAlias_app = 0, globalAlias_incstst_app = 0;
 
     public AliasStat(PTA pta) {
+        this(pta, pta.getNakedReachableMethods());
+    }
+
+    public AliasStat(StatScope scope) {
+        this(scope.getPta(), scope.getReachableMethods());
+    }
+
+    private AliasStat(PTA pta, Collection<SootMethod> reachableMethods) {
         this.pta = pta;
+        this.reachableMethods = reachableMethods;
+        this.aliasEngine = new MayAliasEngine(pta);
     }
 
     private Pair<Integer, Integer> recordAndComputeIntraAliases(Set<SootMethod> reachableMethods) {
@@ -113,28 +126,13 @@ public class AliasStat implements AbstractStat {
         return new Pair<>(globalAlias, globalAlias_incstst);
     }
 
+    /*
+     * Counts the pairs (l1, l2) of set1 and set2 that may alias, except the pairs of exclMap. Each unordered pair is
+     * counted once, for the element of the smaller hash code (i.e., number) on the side of set1.
+     * */
     private int checkAlias(Set<LocalVarNode> set1, Set<LocalVarNode> set2, Map<LocalVarNode, Set<LocalVarNode>> exclMap) {
-        int num = 0;
-        for (LocalVarNode l1 : set1) {
-            Set<LocalVarNode> exclSet = exclMap.getOrDefault(l1, Collections.emptySet());
-            int l1Hashcode = l1.hashCode();
-            for (LocalVarNode l2 : set2) {
-                int l2Hashcode = l2.hashCode();
-                if (l2Hashcode <= l1Hashcode || exclSet.contains(l2)) {
-                    continue;
-                }
-                if (checkAlias(l1, l2)) {
-                    num++;
-                }
-            }
-        }
-        return num;
-    }
-
-    private boolean checkAlias(LocalVarNode l1, LocalVarNode l2) {
-        PointsToSet pts1 = pta.reachingObjects((Local) l1.getVariable());
-        PointsToSet pts2 = pta.reachingObjects((Local) l2.getVariable());
-        return pts1.hasNonEmptyIntersection(pts2);
+        return (int) aliasEngine.countMayAliasBatch(set1, set2, (l1, l2) -> l2.hashCode() > l1.hashCode()
+                && !exclMap.getOrDefault(l1, Collections.emptySet()).contains(l2));
     }
 
     public static <K, T, V> boolean addToMap(Map<K, Map<T, Set<V>>> m, K key1, T key2, V value) {
@@ -143,7 +141,10 @@ public class AliasStat implements AbstractStat {
     }
 
     public void aliasesProcessing() {
-        Collection<SootMethod> reachableMethods = pta.getNakedReachableMethods();
+        if (processed) {
+            return;
+        }
+        processed = true;
         Pair<Integer, Integer> r1 = recordAndComputeIntraAliases(reachableMethods.stream().filter(m -> m.getDeclaringClass().isApplicationClass()).collect(Collectors.toSet()));
         this.intraAlias_app = r1.getFirst();
         this.intraAlias_incstst_app = r1.getSecond();
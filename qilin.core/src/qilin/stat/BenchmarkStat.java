@@ -39,12 +39,16 @@ public class BenchmarkStat implements AbstractStat {
     int libReachableClasses = 0;
 
     public BenchmarkStat(PTA pta) {
-        this.pta = pta;
-        init();
+        this(new StatScope(pta));
     }
 
-    private void init() {
-        reachableClasses = pta.getNakedReachableMethods().stream().map(SootMethod::getDeclaringClass)
+    public BenchmarkStat(StatScope scope) {
+        this.pta = scope.getPta();
+        init(scope);
+    }
+
+    private void init(StatScope scope) {
+        reachableClasses = scope.getReachableMethods().stream().map(SootMethod::getDeclaringClass)
                 .collect(Collectors.toSet());
         reachableAppClasses = reachableClasses.stream().filter(SootClass::isApplicationClass)
                 .collect(Collectors.toSet());
@@ -62,14 +62,18 @@ public class CallGraphStat implements AbstractStat {
     private int CIInstancetoInstance = 0;
 
     public CallGraphStat(PTA pta) {
-        this.pta = pta;
-        init();
+        this(new StatScope(pta));
     }
 
-    private void init() {
-        CallGraph csCallGraph = pta.getCgb().getCallGraph();
+    public CallGraphStat(StatScope scope) {
+        this.pta = scope.getPta();
+        init(scope);
+    }
+
+    private void init(StatScope scope) {
+        CallGraph csCallGraph = scope.getContextCallGraph();
         CSCallEdges = csCallGraph.size();
-        for (final MethodOrMethodContext momc : pta.getCgb().getReachableMethods()) {
+        for (final MethodOrMethodContext momc : scope.getReachableContextMethods()) {
             final SootMethod m = momc.method();
             boolean toApp = m.getDeclaringClass().isApplicationClass();
             reachableParameterizedMethods.add(momc);
@@ -109,7 +113,7 @@ public class CallGraphStat implements AbstractStat {
                 }
             }
         }
-        CallGraph ciCallGraph = pta.getCallGraph();
+        CallGraph ciCallGraph = scope.getCallGraph();
         CICallEdges = ciCallGraph.size();
         for (SootMethod sm : reachableMethods) {
             boolean toApp = sm.getDeclaringClass().isApplicationClass();
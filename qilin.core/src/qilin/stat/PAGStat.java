@@ -20,7 +20,10 @@ package qilin.stat;
 
 import qilin.core.PTA;
 import qilin.core.pag.*;
+import qilin.util.DataFactory;
+import qilin.util.collect.CompactSet;
 
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,6 +38,13 @@ public class PAGStat implements AbstractStat {
     private int storeEdges = 0; // v.f = v;
     private int loadEdges = 0; // v = v.f;
 
+    // edge sets of the PAG by size: 1, 2..CompactSet.INLINE_LIMIT, and larger.
+    private int singletonEdgeSets = 0;
+    private int smallEdgeSets = 0;
+    private int largeEdgeSets = 0;
+    // estimated footprint of the edge maps (without the nodes) under each DataFactory backend.
+    private final Map<DataFactory.Backend, Long> edgeMapBytes = new EnumMap<>(DataFactory.Backend.class);
+
     public PAGStat(PTA pta) {
         this.pta = pta;
         this.pag = pta.getPag();
@@ -65,6 +75,76 @@ public class PAGStat implements AbstractStat {
         for (Map.Entry<FieldRefNode, Set<VarNode>> s : pag.getLoad().entrySet()) {
             loadEdges += s.getValue().size();
         }
+        for (DataFactory.Backend backend : DataFactory.Backend.values()) {
+            edgeMapBytes.put(backend, 0L);
+        }
+        for (Map<? extends Node, ? extends Set<? extends Node>> edgeMap : pag.getEdgeMaps()) {
+            for (Set<? extends Node> edgeSet : edgeMap.values()) {
+                int n = edgeSet.size();
+                if (n <= 1) {
+                    singletonEdgeSets++;
+                } else if (n <= CompactSet.INLINE_LIMIT) {
+                    smallEdgeSets++;
+                } else {
+                    largeEdgeSets++;
+                }
+                // edge sets are created with an initial capacity of 4, see PAG.addToMap.
+                edgeMapBytes.merge(DataFactory.Backend.JDK, hashSetBytes(n, 4), Long::sum);
+                edgeMapBytes.merge(DataFactory.Backend.COMPACT, compactSetBytes(n), Long::sum);
+                edgeMapBytes.merge(DataFactory.Backend.CONCURRENT, concurrentSetBytes(n, 4), Long::sum);
+            }
+            int n = edgeMap.size();
+            edgeMapBytes.merge(DataFactory.Backend.JDK, hashMapBytes(n, 16), Long::sum);
+            edgeMapBytes.merge(DataFactory.Backend.COMPACT, hashMapBytes(n, 16), Long::sum);
+            edgeMapBytes.merge(DataFactory.Backend.CONCURRENT, concurrentMapBytes(n, 16), Long::sum);
+        }
+    }
+
+    /*
+     * Shallow sizes of the collections (without their elements), assuming a 64-bit JVM with compressed oops:
+     * 12-byte object headers, 4-byte references and 8-byte alignment.
+     * */
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long arrayBytes(int length) {
+        return align(16 + 4L * length);
+    }
+
+    private static int tableCapacity(int n, int initial) {
+        int capacity = Integer.highestOneBit(Math.max(1, initial - 1)) << 1;
+        while (n > capacity * 3 / 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long hashMapBytes(int n, int initial) {
+        // HashMap object, its table and one 32-byte Node per entry.
+        return 48 + (n == 0 ? 0 : arrayBytes(tableCapacity(n, initial))) + 32L * n;
+    }
+
+    private static long hashSetBytes(int n, int initial) {
+        return 16 + hashMapBytes(n, initial);
+    }
+
+    private static long compactSetBytes(int n) {
+        if (n > CompactSet.INLINE_LIMIT) {
+            return 24 + hashSetBytes(n, CompactSet.INLINE_LIMIT * 4);
+        }
+        // the inline array grows from 1 to 2 to INLINE_LIMIT elements.
+        return 24 + (n == 0 ? 0 : arrayBytes(n <= 2 ? n : CompactSet.INLINE_LIMIT));
+    }
+
+    private static long concurrentMapBytes(int n, int initial) {
+        // ConcurrentHashMap sizes its table for initial * 1.5 + 1 entries; its Nodes take 32 bytes as well.
+        return 64 + (n == 0 ? 0 : arrayBytes(tableCapacity(n, initial + (initial >>> 1) + 1))) + 32L * n;
+    }
+
+    private static long concurrentSetBytes(int n, int initial) {
+        // the KeySetView of ConcurrentHashMap.newKeySet.
+        return 24 + concurrentMapBytes(n, initial);
     }
 
     @Override
@@ -76,5 +156,15 @@ public class PAGStat implements AbstractStat {
         exporter.collectMetric("\t#Local-to-Field:", String.valueOf(hstoreEdges));
         exporter.collectMetric("#Store-pag-edge:", String.valueOf(storeEdges));
         exporter.collectMetric("#Load-pag-edge:", String.valueOf(loadEdges));
+        exporter.collectMetric("#Edge-set(size 1):", String.valueOf(singletonEdgeSets));
+        exporter.collectMetric("#Edge-set(size 2-" + CompactSet.INLINE_LIMIT + "):", String.valueOf(smallEdgeSets));
+        exporter.collectMetric("#Edge-set(larger):", String.valueOf(largeEdgeSets));
+        edgeMapBytes.forEach((backend, bytes) -> {
+            String active = backend == pag.getDataFactoryBackend() && !pag.isFrozen() ? " (in use)" : "";
+            exporter.collectMetric("#Edge-map-MB-estimated(" + backend + ")" + active + ":", String.format("%.1f", bytes / 1048576.0));
+        });
+        if (pag.isFrozen()) {
+            exporter.collectMetric("#Edge-map-MB-estimated(CSR) (in use):", String.format("%.1f", pag.getFrozenEdgeBytes() / 1048576.0));
+        }
     }
 }
@@ -20,6 +20,14 @@ package qilin.stat;
 
 import qilin.CoreConfig;
 import qilin.core.PTA;
+import qilin.util.Metrics;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Gather stats on the performance and precision of a PTA run.
@@ -37,9 +45,21 @@ public class PTAEvaluator implements IEvaluator {
     protected final RuntimeStat runtimeStat;
     protected final Exporter exporter;
     protected final PTA pta;
+    protected final Set<StatKind> stats;
+    protected final int nThreads;
 
     public PTAEvaluator(PTA pta) {
+        this(pta, EnumSet.allOf(StatKind.class), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stats    the stats to compute, reported in the order of StatKind.
+     * @param nThreads the number of threads computing the stats concurrently.
+     */
+    public PTAEvaluator(PTA pta, Set<StatKind> stats, int nThreads) {
         this.pta = pta;
+        this.stats = stats.isEmpty() ? EnumSet.noneOf(StatKind.class) : EnumSet.copyOf(stats);
+        this.nThreads = Math.max(1, nThreads);
         runtimeStat = new RuntimeStat();
         exporter = new Exporter();
     }
@@ -68,16 +88,6 @@ public class PTAEvaluator implements IEvaluator {
     public void end() {
         // done with processing
         runtimeStat.end();
-        /**
-         * all method reachable from the harness main
-         */
-        PAGStat pagStat = new PAGStat(pta);
-        BenchmarkStat benchmarkStat = new BenchmarkStat(pta);
-        CallGraphStat callGraphStat = new CallGraphStat(pta);
-        TypeClientStat typeClientStat = new TypeClientStat(pta);
-        PointsToStat ptsStat = new PointsToStat(pta);
-        AliasStat aliasStat = new AliasStat(pta);
-        YummyStat yummyStat = new YummyStat(pta);
         runtimeStat.export(exporter);
         // memory stats
         Runtime runtime = Runtime.getRuntime();// Getting the runtime reference
@@ -87,21 +97,37 @@ public class PTAEvaluator implements IEvaluator {
         exporter.collectMetric("Free Memory After:", runtime.freeMemory() / GB + " GB");// Print free memory
         exporter.collectMetric("Total Memory After:", runtime.totalMemory() / GB + " GB");// Print total available memory
         exporter.collectMetric("Max Memory After:", runtime.maxMemory() / GB + " GB");// Print Maximum available memory
-        exporter.addLine(" ====== Yummy ======");
-        yummyStat.export(exporter);
-        exporter.addLine(" ====== Call Graph ======");
-        callGraphStat.export(exporter);
-        exporter.addLine(" ====== Statements ======");
-        typeClientStat.export(exporter);
-        exporter.addLine(" ====== Nodes ======");
-        ptsStat.export(exporter);
-        exporter.addLine(" ====== Assignments ======");
-        pagStat.export(exporter);
-        exporter.addLine(" ====== Aliases ======");
-        aliasStat.export(exporter);
-        exporter.addLine(" ====== Classes ======");
-        benchmarkStat.export(exporter);
+        exportStats();
+    }
 
+    /*
+     * All methods reachable from the harness main are scanned once into a StatScope, from which the stats are then
+     * computed concurrently. Each stat is exported into its own section as soon as it and all stats before it are
+     * done, so that the report is the same whatever the number of threads.
+     * */
+    protected void exportStats() {
+        if (stats.isEmpty()) {
+            return;
+        }
+        StatScope scope = Metrics.v().time("pta.stats.scope", () -> new StatScope(pta));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nThreads, stats.size()));
+        try {
+            CompletableFuture<Void> exported = CompletableFuture.completedFuture(null);
+            for (StatKind kind : stats) {
+                CompletableFuture<AbstractStat> stat = CompletableFuture.supplyAsync(() -> Metrics.v().time(
+                        "pta.stats." + kind.name().toLowerCase().replace('_', '-'), () -> kind.collect(scope)), executor);
+                exported = exported.thenCombine(stat, (done, collected) -> {
+                    exporter.addLine(" ====== " + kind.getTitle() + " ======");
+                    collected.export(exporter);
+                    return null;
+                });
+            }
+            exported.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("There were exceptions during the evaluation.", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
     }
 
     @Override
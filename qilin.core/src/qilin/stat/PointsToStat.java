@@ -20,7 +20,6 @@ package qilin.stat;
 
 import qilin.CoreConfig;
 import qilin.core.PTA;
-import qilin.core.builder.MethodNodeFactory;
 import qilin.core.pag.*;
 import qilin.core.sets.PointsToSet;
 import qilin.util.PTAUtils;
@@ -66,10 +65,14 @@ public class PointsToStat implements AbstractStat {
     private int varCntNoNative = 0;
 
     public PointsToStat(PTA pta) {
-        this.pta = pta;
+        this(new StatScope(pta));
+    }
+
+    public PointsToStat(StatScope scope) {
+        this.pta = scope.getPta();
         this.pag = pta.getPag();
         methodThrowPts = new HashMap<>();
-        init();
+        init(scope);
     }
 
     private final Set<String> handledNatives = Set.of(
@@ -98,7 +101,7 @@ public class PointsToStat implements AbstractStat {
         return allocSites;
     }
 
-    private void init() {
+    private void init(StatScope scope) {
         ciAllocs = pag.getAllocNodes().size();
         csAllocs = pag.getAlloc().keySet().size();
         // globals
@@ -191,8 +194,11 @@ public class PointsToStat implements AbstractStat {
         avgCtxPerMthd = cnts[1] * 1.0 / cnts[0];
 
         // stat method throw points-to.
-        for (SootMethod sm : pta.getNakedReachableMethods()) {
-            Node mThrow = pag.getMethodPAG(sm).nodeFactory().caseMethodThrow();
+        for (SootMethod sm : scope.getReachableMethods()) {
+            LocalVarNode mThrow = scope.getThrowNode(sm);
+            if (mThrow == null) {
+                continue;
+            }
             PointsToSet pts = pta.reachingObjects(mThrow);
             if (!pts.isEmpty()) {
                 methodThrowCnt++;
@@ -201,23 +207,15 @@ public class PointsToStat implements AbstractStat {
         }
 
         // stat avg pts.
-        for (SootMethod sm : pta.getNakedReachableMethods()) {
-            MethodPAG mpag = pag.getMethodPAG(sm);
-            MethodNodeFactory mnf = mpag.nodeFactory();
-            if (!sm.isStatic()) {
-                mLocalVarNodes.add((LocalVarNode) mnf.caseThis());
-                if (!handledNatives.contains(sm.toString())) {
-                    mLocalVarNodesNoNative.add((LocalVarNode) mnf.caseThis());
-                }
+        for (SootMethod sm : scope.getReachableMethods()) {
+            List<LocalVarNode> nodes = new ArrayList<>(scope.getParmNodes(sm));
+            LocalVarNode thisNode = scope.getThisNode(sm);
+            if (thisNode != null) {
+                nodes.add(thisNode);
             }
-            for (int i = 0; i < sm.getParameterCount(); ++i) {
-                Type mType = sm.getParameterType(i);
-                if (mType instanceof RefLikeType) {
-                    mLocalVarNodes.add((LocalVarNode) mnf.caseParm(i));
-                    if (!handledNatives.contains(sm.toString())) {
-                        mLocalVarNodesNoNative.add((LocalVarNode) mnf.caseParm(i));
-                    }
-                }
+            mLocalVarNodes.addAll(nodes);
+            if (!handledNatives.contains(sm.toString())) {
+                mLocalVarNodesNoNative.addAll(nodes);
             }
         }
         Set<LocalVarNode> tmp = new HashSet<>();
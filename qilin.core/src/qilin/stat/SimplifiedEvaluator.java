@@ -113,6 +113,7 @@ public class SimplifiedEvaluator implements IEvaluator {
         exporter.collectMetric("#May Fail Cast (Total):", String.valueOf(totalCastsMayFail));
         exporter.collectMetric("#Virtual Call Site(Polymorphic):", String.valueOf(totalPolyCalls));
         exporter.collectMetric("#globalAlias_incstst:", String.valueOf(aliasStat.getGlobalAliasesIncludingStSt()));
+        exporter.collectMetric("#Merged Node (cycles, HVN):", String.valueOf(pta.getPag().getCollapsedNodeCount()));
         ptsStat();
     }
 
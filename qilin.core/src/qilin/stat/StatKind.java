@@ -0,0 +1,57 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.stat;
+
+import java.util.function.Function;
+
+/*
+ * The stats computed by PTAEvaluator, each reported in its own section, in the order declared here.
+ * */
+public enum StatKind {
+    YUMMY("Yummy", YummyStat::new),
+    CALL_GRAPH("Call Graph", CallGraphStat::new),
+    STATEMENTS("Statements", TypeClientStat::new),
+    NODES("Nodes", PointsToStat::new),
+    ASSIGNMENTS("Assignments", scope -> new PAGStat(scope.getPta())),
+    ALIASES("Aliases", scope -> {
+        AliasStat aliasStat = new AliasStat(scope);
+        aliasStat.aliasesProcessing();
+        return aliasStat;
+    }),
+    CLASSES("Classes", BenchmarkStat::new);
+
+    private final String title;
+    private final Function<StatScope, AbstractStat> collector;
+
+    StatKind(String title, Function<StatScope, AbstractStat> collector) {
+        this.title = title;
+        this.collector = collector;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Computes the stat over the given scope; it may run concurrently with the others.
+     */
+    public AbstractStat collect(StatScope scope) {
+        return collector.apply(scope);
+    }
+}
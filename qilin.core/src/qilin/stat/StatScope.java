@@ -0,0 +1,127 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.stat;
+
+import qilin.core.PTA;
+import qilin.core.PointsToAnalysis;
+import qilin.core.pag.LocalVarNode;
+import qilin.core.pag.PAG;
+import qilin.core.pag.Parm;
+import soot.MethodOrMethodContext;
+import soot.RefLikeType;
+import soot.SootMethod;
+import soot.jimple.toolkits.callgraph.CallGraph;
+
+import java.util.*;
+
+/*
+ * The part of a solved PTA the stats are computed over, gathered in one pass shared by all stats: the reachable
+ * methods with and without contexts, both call graphs, and the interface nodes (this, reference parameters and
+ * thrown objects) of each reachable method. Everything built lazily by the PTA (the context-insensitive call
+ * graph and points-to sets) is built here as well, so that stats can afterwards read the PTA concurrently.
+ * Interface nodes are looked up rather than created; a missing node has no points-to set anyway.
+ * */
+public class StatScope {
+    private final PTA pta;
+    private final Collection<MethodOrMethodContext> reachableContextMethods;
+    private final Collection<SootMethod> reachableMethods;
+    private final CallGraph callGraph;
+    private final CallGraph contextCallGraph;
+    private final Map<SootMethod, LocalVarNode> thisNodes = new HashMap<>();
+    private final Map<SootMethod, List<LocalVarNode>> parmNodes = new HashMap<>();
+    private final Map<SootMethod, LocalVarNode> throwNodes = new HashMap<>();
+
+    public StatScope(PTA pta) {
+        this.pta = pta;
+        this.reachableContextMethods = pta.getReachableMethods();
+        this.reachableMethods = pta.getNakedReachableMethods();
+        this.callGraph = pta.getCallGraph();
+        this.contextCallGraph = pta.getCgb().getCallGraph();
+        pta.getCIPointsToTable();
+        PAG pag = pta.getPag();
+        for (SootMethod sm : reachableMethods) {
+            if (!sm.isStatic()) {
+                LocalVarNode thisNode = pag.findLocalVarNode(new Parm(sm, PointsToAnalysis.THIS_NODE));
+                if (thisNode != null) {
+                    thisNodes.put(sm, thisNode);
+                }
+            }
+            List<LocalVarNode> parms = new ArrayList<>();
+            for (int i = 0; i < sm.getParameterCount(); ++i) {
+                if (sm.getParameterType(i) instanceof RefLikeType) {
+                    LocalVarNode parm = pag.findLocalVarNode(new Parm(sm, i));
+                    if (parm != null) {
+                        parms.add(parm);
+                    }
+                }
+            }
+            if (!parms.isEmpty()) {
+                parmNodes.put(sm, parms);
+            }
+            LocalVarNode throwNode = pag.findLocalVarNode(new Parm(sm, PointsToAnalysis.THROW_NODE));
+            if (throwNode != null) {
+                throwNodes.put(sm, throwNode);
+            }
+        }
+    }
+
+    public PTA getPta() {
+        return pta;
+    }
+
+    public Collection<MethodOrMethodContext> getReachableContextMethods() {
+        return reachableContextMethods;
+    }
+
+    public Collection<SootMethod> getReachableMethods() {
+        return reachableMethods;
+    }
+
+    /**
+     * Returns the context-insensitive call graph.
+     */
+    public CallGraph getCallGraph() {
+        return callGraph;
+    }
+
+    public CallGraph getContextCallGraph() {
+        return contextCallGraph;
+    }
+
+    /**
+     * Returns the node of this of the reachable method, or null if it is static or has none.
+     */
+    public LocalVarNode getThisNode(SootMethod method) {
+        return thisNodes.get(method);
+    }
+
+    /**
+     * Returns the nodes of the parameters of reference types of the reachable method.
+     */
+    public List<LocalVarNode> getParmNodes(SootMethod method) {
+        return parmNodes.getOrDefault(method, Collections.emptyList());
+    }
+
+    /**
+     * Returns the node of the objects thrown by the reachable method, or null if it has none.
+     */
+    public LocalVarNode getThrowNode(SootMethod method) {
+        return throwNodes.get(method);
+    }
+}
@@ -48,22 +48,20 @@ public class TypeClientStat implements AbstractStat {
     private final Map<SootMethod, Set<Stmt>> mayFailCasts = new HashMap<>();
 
     public TypeClientStat(PTA pta) {
-        this.pta = pta;
-        init();
+        this(new StatScope(pta));
     }
 
-    private void init() {
-        CallGraph callGraph = pta.getCallGraph();
+    public TypeClientStat(StatScope scope) {
+        this.pta = scope.getPta();
+        init(scope);
+    }
+
+    private void init(StatScope scope) {
+        CallGraph callGraph = scope.getCallGraph();
 
         // loop over all reachable method's statement to find casts, local
         // references, virtual call sites
-        Set<SootMethod> reachableMethods = new HashSet<>();
-        for (MethodOrMethodContext momc : pta.getCgb().getReachableMethods()) {
-            final SootMethod sm = momc.method();
-            reachableMethods.add(sm);
-        }
-
-        for (SootMethod sm : reachableMethods) {
+        for (SootMethod sm : scope.getReachableMethods()) {
             boolean app = sm.getDeclaringClass().isApplicationClass();
 
             // All the statements in the method
@@ -20,9 +20,8 @@ package qilin.stat;
 
 import qilin.CoreConfig;
 import qilin.core.PTA;
-import qilin.core.builder.MethodNodeFactory;
+import qilin.core.pag.LocalVarNode;
 import qilin.core.sets.PointsToSet;
-import soot.MethodOrMethodContext;
 import soot.SootMethod;
 import soot.Unit;
 import soot.jimple.toolkits.callgraph.CallGraph;
@@ -43,13 +42,17 @@ public class YummyStat implements AbstractStat {
     private final Set<SootMethod> singleCallSingleReceivers = new HashSet<>();
 
     public YummyStat(PTA pta) {
-        this.pta = pta;
-        init();
+        this(new StatScope(pta));
     }
 
-    private void init() {
+    public YummyStat(StatScope scope) {
+        this.pta = scope.getPta();
+        init(scope);
+    }
+
+    private void init(StatScope scope) {
         Map<SootMethod, Set<Unit>> target2callsites = new HashMap<>();
-        CallGraph ciCallGraph = pta.getCallGraph();
+        CallGraph ciCallGraph = scope.getCallGraph();
         for (Edge edge : ciCallGraph) {
             Unit callUnit = edge.srcUnit();
             SootMethod target = edge.tgt();
@@ -67,16 +70,18 @@ public class YummyStat implements AbstractStat {
 
 
         Set<SootMethod> instanceReachables = new HashSet<>();
-        for (final MethodOrMethodContext momc : pta.getReachableMethods()) {
-            SootMethod method = momc.method();
+        for (SootMethod method : scope.getReachableMethods()) {
             if (!method.isPhantom() && !method.isStatic()) {
                 instanceReachables.add(method);
             }
         }
 
         for (SootMethod method : instanceReachables) {
-            MethodNodeFactory nf = pta.getPag().getMethodPAG(method).nodeFactory();
-            PointsToSet pts = pta.reachingObjects(nf.caseThis()).toCIPointsToSet();
+            LocalVarNode thisNode = scope.getThisNode(method);
+            if (thisNode == null) {
+                continue;
+            }
+            PointsToSet pts = pta.reachingObjects(thisNode).toCIPointsToSet();
             int ptSize = pts.size();
             if (ptSize == 1) {
                 singleReceivers.add(method);
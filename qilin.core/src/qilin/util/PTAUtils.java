@@ -24,8 +24,8 @@ import qilin.CoreConfig;
 import qilin.core.PTA;
 import qilin.core.PTAScene;
 import qilin.core.VirtualCalls;
+import qilin.core.builder.MethodBodyCache;
 import qilin.core.builder.MethodNodeFactory;
-import qilin.core.context.ContextElement;
 import qilin.core.context.ContextElements;
 import qilin.core.pag.*;
 import qilin.core.sets.PointsToSet;
@@ -252,6 +252,13 @@ public final class PTAUtils {
     }
 
     public static boolean castNeverFails(Type src, Type dst) {
+        return castNeverFails(null, src, dst);
+    }
+
+    /**
+     * Same as castNeverFails(src, dst), but uses the given hierarchy (if not null) instead of asking the scene for it.
+     */
+    public static boolean castNeverFails(FastHierarchy fh, Type src, Type dst) {
         if (dst == null)
             return true;
         if (dst == src)
@@ -268,7 +275,9 @@ public final class PTAUtils {
             return false;
         if (dst instanceof AnySubType)
             throw new RuntimeException("oops src=" + src + " dst=" + dst);
-        return PTAScene.v().getOrMakeFastHierarchy().canStoreType(src, dst);
+        if (fh == null)
+            fh = PTAScene.v().getOrMakeFastHierarchy();
+        return fh.canStoreType(src, dst);
     }
 
     public static QueueReader<SootMethod> dispatch(Type type, VirtualCallSite site) {
@@ -568,22 +577,10 @@ public final class PTAUtils {
     }
 
     public static Context plusplusOp(AllocNode heap) {
-        ContextElement[] array;
-        int s;
         if (heap instanceof ContextAllocNode csHeap) {
-            ContextElements ctxElems = (ContextElements) csHeap.context();
-            int ms = ctxElems.size();
-            ContextElement[] oldArray = ctxElems.getElements();
-            array = new ContextElement[ms + 1];
-            array[0] = csHeap.base();
-            System.arraycopy(oldArray, 0, array, 1, ms);
-            s = ms + 1;
-        } else {
-            array = new ContextElement[1];
-            array[0] = heap;
-            s = 1;
+            return ((ContextElements) csHeap.context()).prepend(csHeap.base());
         }
-        return new ContextElements(array, s);
+        return ContextElements.emptyContext().prepend(heap);
     }
 
     public static boolean isFakeMainMethod(SootMethod method) {
@@ -770,6 +767,7 @@ public final class PTAUtils {
     }
 
     private static final Map<SootMethod, Body> methodToBody = DataFactory.createMap();
+    private static MethodBodyCache bodyCache = null;
 
     public static Body getMethodBody(SootMethod m) {
         Body body = methodToBody.get(m);
@@ -777,7 +775,7 @@ public final class PTAUtils {
             synchronized (PTAUtils.class) {
                 if (body == null) {
                     if (m.isConcrete()) {
-                        body = m.retrieveActiveBody();
+                        body = Metrics.v().time("soot.bodies", () -> retrieveActiveBody(m));
                     } else {
                         body = new JimpleBody(m);
                     }
@@ -788,6 +786,17 @@ public final class PTAUtils {
         return body;
     }
 
+    private static Body retrieveActiveBody(SootMethod m) {
+        String cacheDir = CoreConfig.v().getPtaConfig().methodBodyCacheDir;
+        if (cacheDir == null) {
+            return m.retrieveActiveBody();
+        }
+        if (bodyCache == null || !bodyCache.getRoot().equals(cacheDir)) {
+            bodyCache = new MethodBodyCache(cacheDir);
+        }
+        return bodyCache.retrieveActiveBody(m);
+    }
+
     public static boolean isEmptyArray(AllocNode heap) {
         Object var = heap.getNewExpr();
         if (var instanceof NewArrayExpr nae) {
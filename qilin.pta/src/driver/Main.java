@@ -28,6 +28,7 @@ import qilin.core.PTAScene;
 import qilin.core.builder.FakeAndroidMainFactory;
 import qilin.pta.PTAConfig;
 import qilin.util.MemoryWatcher;
+import qilin.util.Metrics;
 import qilin.util.PTAUtils;
 import qilin.util.Stopwatch;
 import soot.PackManager;
@@ -45,7 +46,7 @@ public class Main {
     public static PTA run(String[] args) {
         PTA pta;
         new PTAOption().parseCommandLine(args);
-        setupSoot();
+        Metrics.v().time("soot.setup", (Runnable) Main::setupSoot);
         if (PTAConfig.v().getOutConfig().dumpJimple) {
             String jimplePath = PTAConfig.v().getAppConfig().APP_PATH.replace(".jar", "");
             PTAUtils.dumpJimple(jimplePath);
@@ -80,6 +81,7 @@ public class Main {
     }
 
     public static void mainRun(String[] args) {
+        Metrics.reset();
         Stopwatch ptaTimer = Stopwatch.newAndStart("Main PTA (including pre-analysis)");
         long pid = ProcessHandle.current().pid();
         MemoryWatcher memoryWatcher = new MemoryWatcher(pid, "Main PTA");
@@ -89,6 +91,23 @@ public class Main {
         System.out.println(ptaTimer);
         memoryWatcher.stop();
         System.out.println(memoryWatcher);
+        exportMetrics(memoryWatcher);
+    }
+
+    /*
+     * Exports the metrics of the run, if a metrics file is given, tagged with the analysed program and analysis.
+     * */
+    private static void exportMetrics(MemoryWatcher memoryWatcher) {
+        String metricsFile = PTAConfig.v().getOutConfig().metricsFile;
+        if (metricsFile == null) {
+            return;
+        }
+        Metrics metrics = Metrics.v();
+        metrics.tag("main-class", PTAConfig.v().getAppConfig().MAIN_CLASS);
+        metrics.tag("pta", PTAConfig.v().getPtaConfig().ptaName);
+        metrics.gauge("memory.peak-rss-mb", memoryWatcher.inMegaByte());
+        metrics.export(metricsFile);
+        logger.info("Metrics have been exported to: {}", metricsFile);
     }
 
     public static void setupSoot() {
@@ -275,7 +294,7 @@ public class Main {
     public static CallGraph runCallgraphAlg(String[] args) {
         CallGraph cg;
         new PTAOption().parseCommandLine(args);
-        setupSoot();
+        Metrics.v().time("soot.setup", (Runnable) Main::setupSoot);
         if (PTAConfig.v().getOutConfig().dumpJimple) {
             String jimplePath = PTAConfig.v().getAppConfig().APP_PATH.replace(".jar", "");
             PTAUtils.dumpJimple(jimplePath);
@@ -24,6 +24,8 @@ import org.slf4j.LoggerFactory;
 import qilin.pta.PTAConfig;
 import qilin.pta.toolkits.turner.Turner;
 import qilin.pta.tools.DebloatedPTA;
+import qilin.stat.StatKind;
+import qilin.util.DataFactory;
 
 import java.util.*;
 
@@ -68,6 +70,10 @@ public class PTAOption extends Options {
                 "Dump points-to of lib vars results to output/pts.txt (default value: false)");
         addOption("pag", "dumppag", "Print PAG to terminal. (default value: false)");
         addOption("pts", "dumppts", "Dump points-to results to output/pts.txt (default value: false)");
+        addOption("es", "evalstats", "[ALL, YUMMY, CALL_GRAPH, STATEMENTS, NODES, ASSIGNMENTS, ALIASES, CLASSES]",
+                "Compute and print the given statistics after the analysis, e.g., ALL,-ALIASES (delimiting symbol: comma ','; a leading '-' excludes a statistic; default value: a simplified evaluation)");
+        addOption("metrics", "metricsfile", "file",
+                "Export the counters, gauges and timers of the run (PAG build, pre-analysis, solving, toolkits, statistics, memory) into the file, as CSV if it ends with .csv and as JSON otherwise");
 
         // general PTA configurations
         addOption("clinit", "clinitmode", "APP|FULL|ONFLY", "clinit methods loading mode, default: ONFLY");
@@ -81,11 +87,22 @@ public class PTAOption extends Options {
         addOption("sc", "stringconstants", "Propagate all string constants (default value: false)");
         addOption("pae", "precisearray", "Enable precise Array Element type (default value: false)");
         addOption("pe", "preciseexceptions", "Enable precisely handling exceptions (default value: false)");
+        addOption("pst", "solverthreads", "threads", "Propagate points-to sets with the given number of threads (default value: 1)");
+        addOption("ptsimpl", "pointstosetimpl", "[HYBRID, ROARING]", "Specify the points-to set implementation (default value: HYBRID)");
+        addOption("lcd", "collapsecycles", "Collapse cycles of simple assignments found during propagation (default value: false)");
+        addOption("hvn", "valuenumbering", "Merge pointer-equivalent locals of each method found by hash-based value numbering (default value: false)");
+        addOption("wl", "worklist", "[NUMBER, FIFO, LRF, TOPO, TWO_LEVEL]", "Specify the scheduling strategy of the worklist (default value: NUMBER)");
+        addOption("mbc", "bodycache", "dir", "Cache method bodies in the given directory across runs (default value: no cache)");
+        addOption("df", "datafactory", "[JDK, COMPACT, CONCURRENT]", "Specify the implementation of the analysis' maps and sets (default value: JDK)");
+        addOption("tb", "timebudget", "seconds", "Degrade heavy methods to context-insensitivity once the analysis runs longer (default value: no budget)");
+        addOption("mb", "memorybudget", "MB", "Degrade heavy methods to context-insensitivity once more heap is live after a garbage collection (default value: no budget)");
+        addOption("fp", "freezepag", "Compress the edges of the PAG into read-only arrays once the analysis is solved (default value: false)");
 
         // a specific PTA's configuration
         addOption("tc", "turnerconfig", "[DEFAULT, PHASE_ONE, PHASE_TWO]", "Run Turner in the given setting (default value: DEFAULT)");
         addOption("cd", "ctxdebloat", "Enable context debloating optimization (default value: false)");
         addOption("cda", "debloatapproach", "[CONCH, DEBLOATERX]", "Specify debloating approach (default value: CONCH)");
+        addOption("cdt", "debloatthreads", "threads", "Classify heaps for context debloating with the given number of threads (default value: #processors)");
         addOption("tmd", "modular", "Enable Turner to run modularly (default value: false)");
 
         // callgraph algorithm configurations
@@ -94,6 +111,7 @@ public class PTAOption extends Options {
         // others
         addOption("h", "help", "print this message");
         addOption("pre", "preonly", "Run only pre-analysis (default value: false)");
+        addOption("cis", "cisnapshot", "file", "Seed the context-insensitive (pre-)analysis from the given snapshot file and keep it up to date (default value: no snapshot)");
 
     }
 
@@ -145,15 +163,51 @@ public class PTAOption extends Options {
         if (cmd.hasOption("preonly")) {
             PTAConfig.v().getPtaConfig().preAnalysisOnly = true;
         }
+        if (cmd.hasOption("cisnapshot")) {
+            PTAConfig.v().getPtaConfig().ciSnapshot = cmd.getOptionValue("cisnapshot");
+        }
         if (cmd.hasOption("ctxdebloat")) {
             PTAConfig.v().getPtaConfig().ctxDebloating = true;
             if (cmd.hasOption("debloatapproach")) {
                 PTAConfig.v().getPtaConfig().debloatApproach = DebloatedPTA.DebloatApproach.valueOf(cmd.getOptionValue("debloatapproach"));
             }
+            if (cmd.hasOption("debloatthreads")) {
+                PTAConfig.v().getPtaConfig().debloatThreads = Integer.parseInt(cmd.getOptionValue("debloatthreads"));
+            }
         }
         if (cmd.hasOption("preciseexceptions")) {
             PTAConfig.v().getPtaConfig().preciseExceptions = true;
         }
+        if (cmd.hasOption("solverthreads")) {
+            PTAConfig.v().getPtaConfig().solverThreads = Integer.parseInt(cmd.getOptionValue("solverthreads"));
+        }
+        if (cmd.hasOption("pointstosetimpl")) {
+            PTAConfig.v().getPtaConfig().pointsToSetKind = PTAConfig.PointsToSetKind.valueOf(cmd.getOptionValue("pointstosetimpl"));
+        }
+        if (cmd.hasOption("collapsecycles")) {
+            PTAConfig.v().getPtaConfig().collapseCycles = true;
+        }
+        if (cmd.hasOption("valuenumbering")) {
+            PTAConfig.v().getPtaConfig().valueNumbering = true;
+        }
+        if (cmd.hasOption("worklist")) {
+            PTAConfig.v().getPtaConfig().worklistKind = PTAConfig.WorklistKind.valueOf(cmd.getOptionValue("worklist"));
+        }
+        if (cmd.hasOption("bodycache")) {
+            PTAConfig.v().getPtaConfig().methodBodyCacheDir = cmd.getOptionValue("bodycache");
+        }
+        if (cmd.hasOption("datafactory")) {
+            PTAConfig.v().getPtaConfig().dataFactoryBackend = DataFactory.Backend.valueOf(cmd.getOptionValue("datafactory"));
+        }
+        if (cmd.hasOption("timebudget")) {
+            PTAConfig.v().getPtaConfig().timeBudget = Integer.parseInt(cmd.getOptionValue("timebudget"));
+        }
+        if (cmd.hasOption("memorybudget")) {
+            PTAConfig.v().getPtaConfig().memoryBudget = Integer.parseInt(cmd.getOptionValue("memorybudget"));
+        }
+        if (cmd.hasOption("freezepag")) {
+            PTAConfig.v().getPtaConfig().freezePAG = true;
+        }
         if (cmd.hasOption("modular")) {
             Turner.isModular = true;
         }
@@ -209,6 +263,28 @@ public class PTAOption extends Options {
         if (cmd.hasOption("dumpstats")) {
             PTAConfig.v().getOutConfig().dumpStats = true;
         }
+        if (cmd.hasOption("evalstats")) {
+            PTAConfig.v().getOutConfig().evalStats = parseStats(cmd.getOptionValue("evalstats"));
+        }
+        if (cmd.hasOption("metricsfile")) {
+            PTAConfig.v().getOutConfig().metricsFile = cmd.getOptionValue("metricsfile");
+        }
+    }
+
+    static Set<StatKind> parseStats(String statsString) {
+        Set<StatKind> stats = EnumSet.noneOf(StatKind.class);
+        for (String stat : statsString.split(",")) {
+            stat = stat.trim();
+            boolean excluded = stat.startsWith("-");
+            String name = excluded ? stat.substring(1) : stat;
+            Set<StatKind> kinds = name.equals("ALL") ? EnumSet.allOf(StatKind.class) : EnumSet.of(StatKind.valueOf(name));
+            if (excluded) {
+                stats.removeAll(kinds);
+            } else {
+                stats.addAll(kinds);
+            }
+        }
+        return stats;
     }
 
     static List<String> parsePackages(String packagesString) {
@@ -46,11 +46,32 @@ public class PTAConfig extends CoreConfig {
          */
         public boolean preAnalysisOnly = false;
 
+        /**
+         * File of the snapshot of the context-insensitive analysis, i.e., Spark or the pre-analysis of a staged
+         * analysis (null: no snapshot).
+         * The analysis is seeded from the snapshot if it was taken from the same library and configuration, and
+         * the snapshot is (re)taken afterwards unless it is up to date.
+         */
+        public String ciSnapshot = null;
+
         /**
          * If this option is turned on, we will apply context debloating techniques.
          */
         public boolean ctxDebloating = false;
         public DebloatedPTA.DebloatApproach debloatApproach = DebloatedPTA.DebloatApproach.CONCH;
+        /**
+         * Number of threads classifying the heaps for context debloating.
+         */
+        public int debloatThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Budgets of the (main) analysis: elapsed seconds and megabytes of live heap, i.e., in use after the last
+         * garbage collection, 0 for none.
+         * Once a budget is exceeded, new contexts of the methods with the most contexts so far collapse to the
+         * empty context, see BudgetSelector.
+         */
+        public int timeBudget = 0;
+        public int memoryBudget = 0;
 
     }
 
@@ -0,0 +1,149 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.pta.toolkits.common;
+
+import qilin.core.pag.AllocNode;
+import qilin.util.Metrics;
+import soot.SootMethod;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * The engine classifying heaps for context debloating, shared by Conch and DebloaterX.
+ * Heaps are partitioned by their containing methods and the partitions are classified by the given number of
+ * threads. A classifier is created per method, so that per-method state (e.g., an intra-procedural analysis)
+ * is built once and confined to one thread. Results come in a deterministic order, i.e., methods by signature
+ * and the heaps of a method by number, whatever the number of threads.
+ * It also records the elapsed time of each phase of the approach using it.
+ * */
+public class HeapClassifier {
+    private final String name;
+    private final int nThreads;
+    private final Map<String, Metrics.Timer> phaseTimers = new LinkedHashMap<>();
+
+    public HeapClassifier(String name, int nThreads) {
+        this.name = name;
+        this.nThreads = Math.max(1, nThreads);
+    }
+
+    public int getThreads() {
+        return nThreads;
+    }
+
+    /*
+     * Runs the given phase and adds its elapsed time to the timer "<name>.<phase name>" of the metrics of the run,
+     * from which the phase times are reported.
+     * */
+    public <T> T phase(String phaseName, Supplier<T> phase) {
+        Metrics.Timer timer = phaseTimers.computeIfAbsent(phaseName, k -> Metrics.v().timer(name + "." + k));
+        long start = System.nanoTime();
+        try {
+            return phase.get();
+        } finally {
+            timer.record(System.nanoTime() - start);
+        }
+    }
+
+    public void phase(String phaseName, Runnable phase) {
+        phase(phaseName, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param heaps        heaps to classify.
+     * @param classifierOf creates the classifier of the heaps of a method (null for heaps without one).
+     * @return the result of each heap, in the order of methods by signature and then heaps by number.
+     */
+    public <R> Map<AllocNode, R> classify(Collection<AllocNode> heaps, Function<SootMethod, Function<AllocNode, R>> classifierOf) {
+        Map<SootMethod, List<AllocNode>> m2heaps = new HashMap<>();
+        for (AllocNode heap : heaps) {
+            m2heaps.computeIfAbsent(heap.getMethod(), k -> new ArrayList<>()).add(heap);
+        }
+        List<SootMethod> methods = new ArrayList<>(m2heaps.keySet());
+        methods.sort(Comparator.nullsFirst(Comparator.comparing(SootMethod::getSignature)));
+        List<Callable<List<R>>> tasks = new ArrayList<>(methods.size());
+        for (SootMethod method : methods) {
+            List<AllocNode> partition = m2heaps.get(method);
+            partition.sort(Comparator.comparingInt(AllocNode::getNumber));
+            tasks.add(() -> {
+                Function<AllocNode, R> classifier = classifierOf.apply(method);
+                List<R> results = new ArrayList<>(partition.size());
+                partition.forEach(heap -> results.add(classifier.apply(heap)));
+                return results;
+            });
+        }
+        List<List<R>> results = runAll(tasks);
+        Map<AllocNode, R> ret = new LinkedHashMap<>();
+        for (int i = 0; i < methods.size(); ++i) {
+            List<AllocNode> partition = m2heaps.get(methods.get(i));
+            for (int j = 0; j < partition.size(); ++j) {
+                ret.put(partition.get(j), results.get(i).get(j));
+            }
+        }
+        return ret;
+    }
+
+    private <T> List<T> runAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (nThreads == 1) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+                return results;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+            try {
+                for (Future<T> future : executor.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("There were exceptions during heap classification.", e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("There were exceptions during heap classification.", e);
+        }
+        return results;
+    }
+
+    /**
+     * @return the elapsed time of each phase in milliseconds, in the order of their first run. The times are read
+     * from the timers of the run, which are shared by all classifiers of the same name.
+     */
+    public Map<String, Double> getPhaseTimes() {
+        Map<String, Double> ret = new LinkedHashMap<>();
+        phaseTimers.forEach((phaseName, timer) -> ret.put(phaseName, timer.getTotalMillis()));
+        return ret;
+    }
+
+    public void reportPhaseTimes() {
+        System.out.println(name + " threads: " + nThreads);
+        getPhaseTimes().forEach((phaseName, time) ->
+                System.out.println(String.format("%s %s elapsed time: %.2fs", name, phaseName, time / 1000.0)));
+    }
+}
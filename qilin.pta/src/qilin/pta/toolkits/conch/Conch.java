@@ -22,6 +22,7 @@ import qilin.core.PTA;
 import qilin.core.builder.MethodNodeFactory;
 import qilin.core.pag.*;
 import qilin.core.sets.PointsToSet;
+import qilin.pta.toolkits.common.HeapClassifier;
 import qilin.util.PTAUtils;
 import qilin.util.Pair;
 import soot.SootMethod;
@@ -34,6 +35,8 @@ import soot.jimple.Stmt;
 import soot.jimple.spark.pag.SparkField;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /*
@@ -41,14 +44,15 @@ import java.util.stream.Collectors;
  * */
 public class Conch extends AbstractConch {
 
+    private final HeapClassifier classifier;
     private final LeakAnalysis mfg;
     private final DepOnParamAnalysis pfg;
 
-    private final Set<AllocNode> csHeaps = new HashSet<>();
-    private final Set<AllocNode> ciHeaps = new HashSet<>();
+    private final Set<AllocNode> csHeaps = new LinkedHashSet<>();
+    private final Set<AllocNode> ciHeaps = new LinkedHashSet<>();
 
     public Set<Object> ctxDependentHeaps() {
-        return csHeaps.stream().map(AllocNode::getNewExpr).collect(Collectors.toSet());
+        return csHeaps.stream().map(AllocNode::getNewExpr).collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     public Set<AllocNode> ctxIndenpendentHeaps() {
@@ -60,9 +64,21 @@ public class Conch extends AbstractConch {
     }
 
     public Conch(PTA pta) {
+        this(pta, Runtime.getRuntime().availableProcessors());
+    }
+
+    /*
+     * The heaps are classified by the rules with nThreads threads.
+     * */
+    public Conch(PTA pta, int nThreads) {
         super(pta);
-        this.mfg = new LeakAnalysis(pta);
-        this.pfg = new DepOnParamAnalysis(pta);
+        this.classifier = new HeapClassifier("Conch", nThreads);
+        this.mfg = classifier.phase("LeakAnalysis", () -> new LeakAnalysis(pta));
+        this.pfg = classifier.phase("DepOnParamAnalysis", () -> new DepOnParamAnalysis(pta));
+    }
+
+    public HeapClassifier getClassifier() {
+        return classifier;
     }
 
     private SootMethod findInvokedConstructorOf(AllocNode heap) {
@@ -213,7 +229,7 @@ public class Conch extends AbstractConch {
         }
     }
 
-    private final Map<AllocNode, Set<SparkField>> notSureFields = new HashMap<>();
+    private final Map<AllocNode, Set<SparkField>> notSureFields = new ConcurrentHashMap<>();
 
     private Trilean checkHeap(AllocNode heap) {
         Set<SparkField> fields = o2fs.getOrDefault(heap, Collections.emptySet());
@@ -237,7 +253,7 @@ public class Conch extends AbstractConch {
                         Trilean fromparam = isCommingFromParams((LocalVarNode) from, storeBase.getMethod(), heap);
                         csorci = Trilean.OR(csorci, fromparam);
                         if (fromparam == Trilean.UNKNOWN) {
-                            notSureFields.computeIfAbsent(heap, k -> new HashSet<>()).add(field);
+                            notSureFields.computeIfAbsent(heap, k -> ConcurrentHashMap.newKeySet()).add(field);
                         }
                     }
                 }
@@ -257,7 +273,7 @@ public class Conch extends AbstractConch {
 
             ret = Trilean.OR(ret, csorci);
             if (csorci == Trilean.UNKNOWN) {
-                notSureFields.computeIfAbsent(heap, k -> new HashSet<>()).add(field);
+                notSureFields.computeIfAbsent(heap, k -> ConcurrentHashMap.newKeySet()).add(field);
             }
         }
         return ret;
@@ -280,67 +296,65 @@ public class Conch extends AbstractConch {
     public void runClassifier() {
         Collection<AllocNode> allHeaps = pag.getAllocNodes();
         int heapCnt = allHeaps.size();
-        int[] condACnt = new int[1];
+        AtomicInteger condACnt = new AtomicInteger();
 
-        /*
-         * pre-process.
-         * Those heaps usually are assigned empty context in a tradition pointer analysis.
-         * Classify them to be CS or CI does not affect the efficiency of pointer analysis.
-         * Thus, we handle them in the pre-process.
-         */
-        Set<AllocNode> remainToSolve = new HashSet<>();
-        allHeaps.forEach(heap -> {
-            if (heap.getMethod() == null
-                    || heap instanceof ConstantNode
-                    || PTAUtils.isEmptyArray(heap)
-                    || PTAUtils.isOfPrimitiveBaseType(heap)) {
-                ciHeaps.add(heap);
-            } else {
-                SootMethod mthd = heap.getMethod();
-                if (mthd.isStaticInitializer()) {
+        // check by rules.
+        List<AllocNode> unknownyet = new ArrayList<>();
+        classifier.phase("Rules", () -> {
+            Map<AllocNode, Trilean> results = classifier.classify(allHeaps, method -> heap -> classify(heap, condACnt));
+            results.forEach((heap, result) -> {
+                if (result == Trilean.TRUE) {
+                    csHeaps.add(heap);
+                } else if (result == Trilean.FALSE) {
                     ciHeaps.add(heap);
                 } else {
-                    remainToSolve.add(heap);
+                    unknownyet.add(heap);
                 }
-            }
-        });
-
-        // check by rules.
-        Set<AllocNode> unknownyet = new HashSet<>();
-        remainToSolve.forEach(heap -> {
-            // Obs 2
-            boolean condA = this.mfg.isLeakObject(heap);
-            condACnt[0] += (condA ? 1 : 0);
-            if (!condA) {
-                ciHeaps.add(heap);
-                return;
-            }
-            // Obs 1
-            boolean condB = hasInstanceFieldWithStoreLoad(heap);
-            if (!condB) {
-                ciHeaps.add(heap);
-                return;
-            }
-            // Obs 3 (a)
-            Trilean condExtra = checkHeap(heap);
-            if (condExtra == Trilean.TRUE) {
-                csHeaps.add(heap);
-            } else if (condExtra == Trilean.FALSE) {
-                ciHeaps.add(heap);
-            } else {
-                unknownyet.add(heap);
-            }
+            });
         });
         // Obs 3 (b)
-        classifyForRemain(unknownyet);
+        classifier.phase("CSDG", () -> classifyForRemain(unknownyet));
         // stat
         System.out.println("#Heaps:" + heapCnt);
-        System.out.println("#CondA:" + condACnt[0]);
+        System.out.println("#CondA:" + condACnt.get());
         System.out.println("#CS:" + csHeaps.size());
         System.out.println("#CI:" + ciHeaps.size());
+        classifier.reportPhaseTimes();
+    }
+
+    /*
+     * Classifies a heap by the rules: TRUE for CS, FALSE for CI and UNKNOWN if it depends on other heaps.
+     * */
+    private Trilean classify(AllocNode heap, AtomicInteger condACnt) {
+        /*
+         * pre-process.
+         * Those heaps usually are assigned empty context in a tradition pointer analysis.
+         * Classify them to be CS or CI does not affect the efficiency of pointer analysis.
+         * Thus, we handle them in the pre-process.
+         */
+        if (heap.getMethod() == null
+                || heap instanceof ConstantNode
+                || PTAUtils.isEmptyArray(heap)
+                || PTAUtils.isOfPrimitiveBaseType(heap)
+                || heap.getMethod().isStaticInitializer()) {
+            return Trilean.FALSE;
+        }
+        // Obs 2
+        boolean condA = this.mfg.isLeakObject(heap);
+        if (!condA) {
+            return Trilean.FALSE;
+        }
+        condACnt.incrementAndGet();
+        // Obs 1
+        boolean condB = hasInstanceFieldWithStoreLoad(heap);
+        if (!condB) {
+            return Trilean.FALSE;
+        }
+        // Obs 3 (a)
+        return checkHeap(heap);
     }
 
-    private void classifyForRemain(Set<AllocNode> unknownyet) {
+    private void classifyForRemain(List<AllocNode> unknownyet) {
         CSDG csdg = new CSDG();
         // build the dependency graph.
         for (AllocNode heap : unknownyet) {
@@ -4,11 +4,13 @@ import com.google.common.collect.Sets;
 import qilin.core.PTA;
 import qilin.core.pag.*;
 import qilin.core.sets.PointsToSet;
+import qilin.pta.toolkits.common.HeapClassifier;
 import soot.*;
 import soot.jimple.spark.pag.SparkField;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /*
  * A container usage pattern-based approach to identifying context-independent objects for context debloating.
@@ -19,13 +21,26 @@ public class DebloaterX {
     private final PAG pag;
     private final ContainerFinder containerFinder;
     private final XUtility utility;
+    private final HeapClassifier classifier;
 
     public DebloaterX(PTA pta) {
+        this(pta, Runtime.getRuntime().availableProcessors());
+    }
+
+    /*
+     * The objects are classified by the container-usage patterns with nThreads threads.
+     * */
+    public DebloaterX(PTA pta, int nThreads) {
         this.pta = pta;
         this.pag = pta.getPag();
-        this.utility = new XUtility(pta);
+        this.classifier = new HeapClassifier("DebloaterX", nThreads);
+        this.utility = classifier.phase("XUtility", () -> new XUtility(pta));
         this.containerFinder = new ContainerFinder(pta, utility);
-        this.containerFinder.run();
+        classifier.phase("ContainerFinder", () -> this.containerFinder.run());
+    }
+
+    public HeapClassifier getClassifier() {
+        return classifier;
     }
 
     /*
@@ -97,41 +112,59 @@ public class DebloaterX {
         return false;
     }
 
-    protected final Set<AllocNode> ctxDepHeaps = ConcurrentHashMap.newKeySet();
-    protected final Set<AllocNode> containerFactory = ConcurrentHashMap.newKeySet();
-    protected final Set<AllocNode> containerWrapper = ConcurrentHashMap.newKeySet();
-    protected final Set<AllocNode> innerContainer = ConcurrentHashMap.newKeySet();
+    protected final Set<AllocNode> ctxDepHeaps = new LinkedHashSet<>();
+    protected final Set<AllocNode> containerFactory = new LinkedHashSet<>();
+    protected final Set<AllocNode> containerWrapper = new LinkedHashSet<>();
+    protected final Set<AllocNode> innerContainer = new LinkedHashSet<>();
+
+    /*
+     * The container-usage patterns an object matches.
+     * */
+    private enum Pattern {
+        FACTORY, WRAPPER, INNER
+    }
+
+    private Set<Pattern> patternsOf(AllocNode heap, IntraFlowAnalysis ifa) {
+        Set<Pattern> ret = EnumSet.noneOf(Pattern.class);
+        if (!this.containerFinder.isAContainer(heap)) {
+            return ret;
+        }
+        if (isAFactoryCreatedContainer(heap, ifa)) {
+            ret.add(Pattern.FACTORY);
+        }
+        if (isAContainerWrapper(heap, ifa)) {
+            ret.add(Pattern.WRAPPER);
+        }
+        if (isAnInnerContainer(heap, ifa)) {
+            ret.add(Pattern.INNER);
+        }
+        return ret;
+    }
 
     /*
      * Implementing Step 3 of Algorithm 1 (in the paper): finding context-dependent objects according to container-usage patterns
      * */
     public void run() {
-        Map<SootMethod, Set<AllocNode>> m2o = new HashMap<>();
-        for (AllocNode heap : pag.getAllocNodes()) {
-            SootMethod method = heap.getMethod();
-            if (method == null || method.isStaticInitializer()) {
-                continue;
+        List<AllocNode> heaps = pag.getAllocNodes().stream()
+                .filter(heap -> heap.getMethod() != null && !heap.getMethod().isStaticInitializer())
+                .collect(Collectors.toList());
+        Map<AllocNode, Set<Pattern>> results = classifier.phase("Classification", () ->
+                classifier.classify(heaps, method -> {
+                    IntraFlowAnalysis ifa = new IntraFlowAnalysis(utility, method);
+                    return (Function<AllocNode, Set<Pattern>>) heap -> patternsOf(heap, ifa);
+                }));
+        results.forEach((heap, patterns) -> {
+            if (patterns.contains(Pattern.FACTORY)) {
+                containerFactory.add(heap);
             }
-            m2o.computeIfAbsent(method, k -> new HashSet<>()).add(heap);
-        }
-        m2o.keySet().parallelStream().forEach(method -> {
-            IntraFlowAnalysis ifa = new IntraFlowAnalysis(utility, method);
-            for (AllocNode heap : m2o.get(method)) {
-                if (!this.containerFinder.isAContainer(heap)) {
-                    continue;
-                }
-                if (isAFactoryCreatedContainer(heap, ifa)) {
-                    containerFactory.add(heap);
-                    ctxDepHeaps.add(heap);
-                }
-                if (isAContainerWrapper(heap, ifa)) {
-                    containerWrapper.add(heap);
-                    ctxDepHeaps.add(heap);
-                }
-                if (isAnInnerContainer(heap, ifa)) {
-                    innerContainer.add(heap);
-                    ctxDepHeaps.add(heap);
-                }
+            if (patterns.contains(Pattern.WRAPPER)) {
+                containerWrapper.add(heap);
+            }
+            if (patterns.contains(Pattern.INNER)) {
+                innerContainer.add(heap);
+            }
+            if (!patterns.isEmpty()) {
+                ctxDepHeaps.add(heap);
             }
         });
         System.out.println("#OBJECTS:" + pag.getAllocNodes().size());
@@ -160,6 +193,7 @@ public class DebloaterX {
             System.out.println("venn3(subsets = (" + onlyInFactory + "," + onlyInWrapper + "," + onlyInFactoryAndWrapper + "," + onlyInInner + ","
                     + onlyInFactoryAndInner + "," + onlyInWrapperAndInner + ", " + inAll + "))");
         }
+        classifier.reportPhaseTimes();
     }
 
     public Set<AllocNode> getCtxDepHeaps() {
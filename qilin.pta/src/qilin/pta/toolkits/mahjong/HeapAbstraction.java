@@ -3,11 +3,11 @@ package qilin.pta.toolkits.mahjong;
 import qilin.core.pag.AllocNode;
 import qilin.core.pag.Node;
 import qilin.pta.toolkits.mahjong.automata.DFA;
-import qilin.pta.toolkits.mahjong.automata.DFAEquivalenceChecker;
 import qilin.pta.toolkits.mahjong.automata.DFAFactory;
 import qilin.pta.toolkits.mahjong.automata.DFAState;
+import qilin.pta.toolkits.mahjong.automata.DFAStatePartition;
 import qilin.pta.toolkits.common.FieldPointstoGraph;
-import qilin.util.UnionFindSet;
+import qilin.util.ConcurrentUnionFind;
 import soot.Type;
 
 import java.util.Collection;
@@ -26,7 +26,6 @@ public class HeapAbstraction {
 
     private final FieldPointstoGraph fpg;
     private final DFAFactory dfaFactory;
-    private final DFAEquivalenceChecker dfaEqChecker;
 
     /**
      * This map would be manipulated by multiple threads
@@ -37,54 +36,41 @@ public class HeapAbstraction {
     public HeapAbstraction(FieldPointstoGraph fpg) {
         this.fpg = fpg;
         this.dfaFactory = new DFAFactory(fpg);
-        this.dfaEqChecker = new DFAEquivalenceChecker();
     }
 
     public Map<AllocNode, AllocNode> computeMergedObjectMap() {
-        UnionFindSet<AllocNode> uf = modelHeap();
-        return convertToMap(uf.getDisjointSets());
+        ConcurrentUnionFind uf = modelHeap();
+        return convertToMap(fpg.getAllObjs().stream()
+                .collect(Collectors.groupingBy(o -> uf.find(o.getNumber()), Collectors.toSet())).values());
     }
 
     /**
      * Modeling the heap by checking the equivalence of automata.
+     * Instead of checking every pair of objects of a type, the objects are bucketed by the block of the
+     * start states of their DFAs in the minimized DFA, which are the same iff the DFAs are equivalent.
+     * The types are processed in parallel, and the objects are unioned by their numbers in a lock-free union-find.
      */
-    private UnionFindSet<AllocNode> modelHeap() {
+    private ConcurrentUnionFind modelHeap() {
         canMerged = new ConcurrentHashMap<>();
         Set<AllocNode> allObjs = fpg.getAllObjs();
-        UnionFindSet<AllocNode> uf = new UnionFindSet<>(allObjs);
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(allObjs.stream().mapToInt(Node::getNumber).max().orElse(0) + 1);
+        DFAStatePartition partition = new DFAStatePartition(dfaFactory.getStates());
         // group the objects by their types
         Map<Type, Set<AllocNode>> groupedObjs = allObjs.stream()
                 .collect(Collectors.groupingBy(Node::getType, Collectors.toSet()));
         groupedObjs.entrySet().parallelStream().forEach(entry -> {
             DFAMap dfaMap = new DFAMap();
-            Set<AllocNode> objs = entry.getValue().stream().filter(o -> canBeMerged(o, dfaMap)).collect(Collectors.toSet());
-            for (AllocNode o1 : objs) {
-                for (AllocNode o2 : objs) {
-                    if (o1.getNumber() <= o2.getNumber() && !uf.isConnected(o1, o2)) {
-                        if (canBeMerged(o1, o2, dfaMap)) {
-                            uf.union(o1, o2);
-                        }
-                    }
+            Map<Integer, AllocNode> buckets = new HashMap<>();
+            entry.getValue().stream().filter(o -> canBeMerged(o, dfaMap)).forEach(o -> {
+                AllocNode first = buckets.putIfAbsent(partition.blockOf(dfaMap.retrieveDFA(o).getStartState()), o);
+                if (first != null) {
+                    uf.union(first.getNumber(), o.getNumber());
                 }
-            }
+            });
         });
         return uf;
     }
 
-    /**
-     * @param o1
-     * @param o2
-     * @return whether o1 and o2 can be merged.
-     */
-    private boolean canBeMerged(AllocNode o1, AllocNode o2, DFAMap dfaMap) {
-        if (o1 == o2) {
-            return true;
-        }
-        DFA dfa1 = dfaMap.retrieveDFA(o1);
-        DFA dfa2 = dfaMap.retrieveDFA(o2);
-        return dfaEqChecker.isEquivalent(dfa1, dfa2);
-    }
-
     /**
      * @param o
      * @return whether o can be merged with other objects.
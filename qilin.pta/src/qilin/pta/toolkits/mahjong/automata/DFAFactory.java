@@ -29,6 +29,13 @@ public class DFAFactory {
         return new DFA(q0);
     }
 
+    /**
+     * @return the states of the DFAs of all objects, excluding the dead state.
+     */
+    public Set<DFAState> getStates() {
+        return states;
+    }
+
     private void buildAllDFA() {
         stateMap = new HashMap<>();
         states = new HashSet<>();
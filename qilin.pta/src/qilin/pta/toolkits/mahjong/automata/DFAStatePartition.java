@@ -0,0 +1,106 @@
+package qilin.pta.toolkits.mahjong.automata;
+
+import soot.Type;
+import soot.jimple.spark.pag.SparkField;
+
+import java.util.*;
+
+/**
+ * The coarsest partition of a set of DFA states (closed under transitions) into equivalent states, i.e., the
+ * states of the minimized DFA. It is computed by Moore's partition refinement: states start in blocks by
+ * output, and a block is split by the blocks of the successors of its states until no block changes.
+ * A missing transition leads to the dead state, as in DFAEquivalenceChecker.
+ * <p>
+ * Two DFAs are equivalent iff their start states are in the same block, so the block of a start state is
+ * a canonical signature of the DFA.
+ */
+public class DFAStatePartition {
+
+    private final Map<DFAState, Integer> blocks = new HashMap<>();
+    private int nBlocks;
+
+    public DFAStatePartition(Collection<DFAState> states) {
+        List<DFAState> all = new ArrayList<>(states);
+        if (!states.contains(DFA.getDeadState())) {
+            all.add(DFA.getDeadState());
+        }
+        Map<SparkField, Integer> fieldIds = new HashMap<>();
+        Map<Set<Type>, Integer> outputs = new HashMap<>();
+        for (DFAState s : all) {
+            blocks.put(s, outputs.computeIfAbsent(s.getOutput(), k -> outputs.size()));
+            s.outEdges().forEach(f -> fieldIds.computeIfAbsent(f, k -> fieldIds.size()));
+        }
+        nBlocks = outputs.size();
+        while (true) {
+            int deadBlock = blocks.get(DFA.getDeadState());
+            Map<Signature, Integer> signatures = new HashMap<>();
+            Map<DFAState, Integer> refined = new HashMap<>();
+            for (DFAState s : all) {
+                Signature sig = signatureOf(s, fieldIds, deadBlock);
+                refined.put(s, signatures.computeIfAbsent(sig, k -> signatures.size()));
+            }
+            blocks.putAll(refined);
+            // blocks are only ever split, so an unchanged number of blocks means a stable partition.
+            if (signatures.size() == nBlocks) {
+                break;
+            }
+            nBlocks = signatures.size();
+        }
+    }
+
+    /**
+     * @return the block of the given state, the same for two states iff they are equivalent.
+     */
+    public int blockOf(DFAState s) {
+        return blocks.get(s);
+    }
+
+    public int numberOfBlocks() {
+        return nBlocks;
+    }
+
+    /**
+     * The block of a state and the blocks of its successors, by field; transitions into the block of the
+     * dead state are left out since they equal missing ones.
+     */
+    private Signature signatureOf(DFAState s, Map<SparkField, Integer> fieldIds, int deadBlock) {
+        int[] succ = new int[2 * s.outEdges().size()];
+        int n = 0;
+        for (Map.Entry<SparkField, DFAState> e : s.getNextMap().entrySet()) {
+            int block = blocks.get(e.getValue());
+            if (block != deadBlock) {
+                succ[n++] = fieldIds.get(e.getKey());
+                succ[n++] = block;
+            }
+        }
+        long[] pairs = new long[n / 2];
+        for (int i = 0; i < pairs.length; ++i) {
+            pairs[i] = ((long) succ[2 * i] << 32) | (succ[2 * i + 1] & 0xffffffffL);
+        }
+        Arrays.sort(pairs);
+        return new Signature(blocks.get(s), pairs);
+    }
+
+    private static final class Signature {
+        private final int block;
+        private final long[] pairs;
+        private final int hashCode;
+
+        private Signature(int block, long[] pairs) {
+            this.block = block;
+            this.pairs = pairs;
+            this.hashCode = 31 * block + Arrays.hashCode(pairs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Signature sig && block == sig.block && Arrays.equals(pairs, sig.pairs);
+        }
+    }
+
+}
@@ -8,17 +8,16 @@ import qilin.pta.toolkits.zipper.Global;
 import qilin.pta.toolkits.zipper.flowgraph.FlowAnalysis;
 import qilin.pta.toolkits.zipper.flowgraph.ObjectFlowGraph;
 import qilin.util.ANSIColor;
+import qilin.util.Pair;
 import qilin.util.Stopwatch;
-import qilin.util.graph.ConcurrentDirectedGraphImpl;
+import qilin.util.graph.DirectedGraph;
+import qilin.util.graph.DirectedGraphImpl;
 import soot.RefType;
 import soot.SootMethod;
 import soot.Type;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -29,14 +28,18 @@ import static qilin.util.ANSIColor.color;
  * in the program being analyzed.
  */
 public class Zipper {
+    // a type whose cost exceeds 1 / (SPLIT_FACTOR * #threads) of the total cost is split into sub-tasks.
+    private static final int SPLIT_FACTOR = 4;
     private final PTA pta;
     private final PotentialContextElement pce;
     private final ObjectFlowGraph ofg;
     private final AtomicInteger analyzedClasses = new AtomicInteger(0);
     private final AtomicInteger totalPFGNodes = new AtomicInteger(0);
     private final AtomicInteger totalPFGEdges = new AtomicInteger(0);
-    private final ConcurrentDirectedGraphImpl<Node> overallPFG = new ConcurrentDirectedGraphImpl<>();
+    private final DirectedGraphImpl<Node> overallPFG = new DirectedGraphImpl<>();
     private final Map<SootMethod, Integer> methodPts;
+    // methods invoked on the objects of each type (including inherited methods).
+    private Map<Type, Set<SootMethod>> typeMethods;
     private final Map<Type, Collection<SootMethod>> pcmMap = new ConcurrentHashMap<>(1024);
 
     public Zipper(PTA pta) {
@@ -105,6 +108,7 @@ public class Zipper {
                 .filter(t -> t instanceof RefType)
                 .map(t -> (RefType) t)
                 .collect(Collectors.toList());
+        typeMethods = getTypeMethods();
         if (Global.getThread() == Global.UNDEFINE) {
             computePCM(types);
         } else {
@@ -131,19 +135,41 @@ public class Zipper {
         types.forEach(type -> analyze(type, fa));
     }
 
+    /*
+     * The types are analyzed by the tasks of a ForkJoinPool, submitted in the descending order of their
+     * estimated cost (the points-to sizes of the methods invoked on their objects), so that the few expensive
+     * types, e.g., collections, start first. The IN methods of an expensive type are split among sub-tasks,
+     * each with its own FlowAnalysis. The PFG of a type is the union of the graphs reachable from the parameters
+     * of its IN methods. A FlowAnalysis follows the wrapped/unwrapped flows added while it runs from every node
+     * it has already expanded (see FlowAnalysis.addWUEdge), so the graph reached from a parameter does not depend
+     * on the parameters analyzed before it, and the flow nodes and the PFG are those of a single FlowAnalysis
+     * (ZipperTests checks this for one and several threads).
+     * Each worker merges the PFGs of its types into a graph of its own; these are merged into overallPFG at the end.
+     * */
     private void computePCMConcurrent(List<RefType> types, int nThread) {
-        ExecutorService executorService = Executors.newFixedThreadPool(nThread);
-        types.forEach(type ->
-                executorService.execute(() -> {
-                    FlowAnalysis fa = new FlowAnalysis(pta, pce, ofg);
-                    analyze(type, fa);
-                }));
-        executorService.shutdown();
+        Map<Type, Long> costs = new HashMap<>();
+        types.forEach(type -> costs.put(type, getAccumulativePointsToSetSize(typeMethods.getOrDefault(type, Collections.emptySet()))));
+        long splitCost = Math.max(1, costs.values().stream().mapToLong(Long::longValue).sum() / ((long) SPLIT_FACTOR * nThread));
+        Queue<DirectedGraphImpl<Node>> localPFGs = new ConcurrentLinkedQueue<>();
+        ThreadLocal<DirectedGraphImpl<Node>> localPFG = ThreadLocal.withInitial(() -> {
+            DirectedGraphImpl<Node> pfg = new DirectedGraphImpl<>();
+            localPFGs.add(pfg);
+            return pfg;
+        });
+        ForkJoinPool pool = new ForkJoinPool(nThread);
         try {
-            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            List<ForkJoinTask<?>> tasks = types.stream()
+                    .sorted(Comparator.comparing(costs::get).reversed())
+                    .map(type -> pool.submit(() -> {
+                        int nSubTasks = (int) Math.min(nThread, (costs.get(type) + splitCost - 1) / splitCost);
+                        analyze(type, nSubTasks, localPFG.get());
+                    }))
+                    .collect(Collectors.toList());
+            tasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdown();
         }
+        localPFGs.forEach(pfg -> mergeSinglePFG(pfg, overallPFG));
     }
 
     /**
@@ -152,17 +178,61 @@ public class Zipper {
      *             to the pcm collection.
      */
     private void analyze(RefType type, FlowAnalysis fa) {
+        Pair<Set<SootMethod>, Set<SootMethod>> inOutMethods = inOutMethodsOf(type);
+        fa.initialize(type, inOutMethods.getFirst(), inOutMethods.getSecond());
+        inOutMethods.getFirst().forEach(fa::analyze);
+        mergeAnalysisResults(type, fa.getFlowNodes(), fa.getPFG(), overallPFG);
+        fa.clear();
+    }
+
+    /*
+     * Analyzes the type in a ForkJoinPool, splitting its IN methods among at most nSubTasks sub-tasks.
+     * */
+    private void analyze(RefType type, int nSubTasks, DirectedGraphImpl<Node> localPFG) {
+        Pair<Set<SootMethod>, Set<SootMethod>> inOutMethods = inOutMethodsOf(type);
+        List<SootMethod> inms = inOutMethods.getFirst().stream()
+                .sorted(Comparator.comparing(SootMethod::getSignature))
+                .collect(Collectors.toList());
+        int n = Math.max(1, Math.min(nSubTasks, inms.size()));
+        List<RecursiveTask<Pair<Set<Node>, DirectedGraphImpl<Node>>>> subTasks = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            List<SootMethod> part = inms.subList(i * inms.size() / n, (i + 1) * inms.size() / n);
+            subTasks.add(new RecursiveTask<>() {
+                @Override
+                protected Pair<Set<Node>, DirectedGraphImpl<Node>> compute() {
+                    FlowAnalysis fa = new FlowAnalysis(pta, pce, ofg);
+                    fa.initialize(type, inOutMethods.getFirst(), inOutMethods.getSecond());
+                    part.forEach(fa::analyze);
+                    return new Pair<>(fa.getFlowNodes(), fa.getPFG());
+                }
+            });
+        }
+        if (n == 1) {
+            Pair<Set<Node>, DirectedGraphImpl<Node>> result = subTasks.get(0).invoke();
+            mergeAnalysisResults(type, result.getFirst(), result.getSecond(), localPFG);
+            return;
+        }
+        ForkJoinTask.invokeAll(subTasks);
+        Set<Node> flowNodes = new HashSet<>();
+        DirectedGraphImpl<Node> pfg = new DirectedGraphImpl<>();
+        for (RecursiveTask<Pair<Set<Node>, DirectedGraphImpl<Node>>> subTask : subTasks) {
+            flowNodes.addAll(subTask.join().getFirst());
+            mergeSinglePFG(subTask.join().getSecond(), pfg);
+        }
+        mergeAnalysisResults(type, flowNodes, pfg, localPFG);
+    }
+
+    /**
+     * @return the IN methods and the OUT methods of the type.
+     */
+    private Pair<Set<SootMethod>, Set<SootMethod>> inOutMethodsOf(RefType type) {
         if (Global.isDebug()) {
             System.out.println("----------------------------------------");
         }
         // System.out.println(color(YELLOW, "Zipper: analyzing ") + type);
 
         // Obtain all methods of type (including inherited methods)
-        Set<SootMethod> ms = pta.getPag().getAllocNodes().stream().
-                filter(o -> o.getType().equals(type))
-                .map(pce::methodsInvokedOn)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
+        Set<SootMethod> ms = typeMethods.getOrDefault(type, Collections.emptySet());
         if (type.toString().equals("java.util.HashMap")) {
             System.out.println("ssssss");
         }
@@ -204,35 +274,34 @@ public class Zipper {
                     .sorted(Comparator.comparing(SootMethod::toString))
                     .forEach(m -> System.out.println("  " + m));
         }
+        return new Pair<>(inms, outms);
+    }
 
-        fa.initialize(type, inms, outms);
-        inms.forEach(fa::analyze);
-        Set<Node> flowNodes = fa.getFlowNodes();
+    private static void mergeSinglePFG(DirectedGraph<Node> pfg, DirectedGraphImpl<Node> target) {
+        for (Node node : pfg.allNodes()) {
+            target.addNode(node);
+            for (Node succ : pfg.succsOf(node)) {
+                target.addEdge(node, succ);
+            }
+        }
+    }
+
+    private void mergeAnalysisResults(Type type, Set<Node> flowNodes, DirectedGraph<Node> pfg, DirectedGraphImpl<Node> targetPFG) {
         Set<SootMethod> precisionCriticalMethods = getPrecisionCriticalMethods(type, flowNodes);
         if (Global.isDebug()) {
             if (!precisionCriticalMethods.isEmpty()) {
                 System.out.println(color(ANSIColor.BLUE, "Flow found: ") + type);
             }
         }
-        mergeAnalysisResults(type, fa.numberOfPFGNodes(), fa.numberOfPFGEdges(), precisionCriticalMethods);
-        mergeSinglePFG(fa.getPFG());
-        fa.clear();
-    }
-
-    private void mergeSinglePFG(ConcurrentDirectedGraphImpl<Node> pfg) {
+        int nrPFGEdges = 0;
         for (Node node : pfg.allNodes()) {
-            this.overallPFG.addNode(node);
-            for (Node succ : pfg.succsOf(node)) {
-                this.overallPFG.addEdge(node, succ);
-            }
+            nrPFGEdges += pfg.succsOf(node).size();
         }
-    }
-
-    private void mergeAnalysisResults(Type type, int nrPFGNodes, int nrPFGEdges, Set<SootMethod> precisionCriticalMethods) {
         analyzedClasses.incrementAndGet();
-        totalPFGNodes.addAndGet(nrPFGNodes);
+        totalPFGNodes.addAndGet(pfg.allNodes().size());
         totalPFGEdges.addAndGet(nrPFGEdges);
         pcmMap.put(type, new ArrayList<>(precisionCriticalMethods));
+        mergeSinglePFG(pfg, targetPFG);
     }
 
     private Set<SootMethod> collectAllPrecisionCriticalMethods(
@@ -306,7 +375,15 @@ public class Zipper {
 
     private long getAccumulativePointsToSetSize(Collection<SootMethod> methods) {
         return methods.stream()
-                .mapToInt(methodPts::get)
+                .mapToInt(m -> methodPts.getOrDefault(m, 0))
                 .sum();
     }
+
+    private Map<Type, Set<SootMethod>> getTypeMethods() {
+        Map<Type, Set<SootMethod>> results = new HashMap<>();
+        for (AllocNode o : pta.getPag().getAllocNodes()) {
+            results.computeIfAbsent(o.getType(), k -> new HashSet<>()).addAll(pce.methodsInvokedOn(o));
+        }
+        return results;
+    }
 }
\ No newline at end of file
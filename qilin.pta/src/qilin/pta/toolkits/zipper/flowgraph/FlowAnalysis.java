@@ -6,7 +6,7 @@ import qilin.pta.toolkits.common.ToolUtil;
 import qilin.pta.toolkits.zipper.Global;
 import qilin.pta.toolkits.zipper.analysis.PotentialContextElement;
 import qilin.util.ANSIColor;
-import qilin.util.graph.ConcurrentDirectedGraphImpl;
+import qilin.util.graph.DirectedGraphImpl;
 import qilin.util.graph.Reachability;
 import soot.*;
 import soot.jimple.AssignStmt;
@@ -28,8 +28,10 @@ public class FlowAnalysis {
     private Set<VarNode> inVars;
     private Set<Node> outNodes;
     private Set<Node> visitedNodes;
+    // visited nodes whose out edges have been taken; a wu-edge added to such a node later is followed at once.
+    private Set<Node> expandedNodes;
     private Map<Node, Set<Edge>> wuEdges;
-    private ConcurrentDirectedGraphImpl<Node> pollutionFlowGraph;
+    private DirectedGraphImpl<Node> pollutionFlowGraph;
     private Reachability<Node> reachability;
 
     public FlowAnalysis(PTA pta,
@@ -52,8 +54,9 @@ public class FlowAnalysis {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
         visitedNodes = new HashSet<>();
+        expandedNodes = new HashSet<>();
         wuEdges = new HashMap<>();
-        pollutionFlowGraph = new ConcurrentDirectedGraphImpl<>();
+        pollutionFlowGraph = new DirectedGraphImpl<>();
         reachability = new Reachability<>(pollutionFlowGraph);
     }
 
@@ -107,7 +110,7 @@ public class FlowAnalysis {
         return nrEdges;
     }
 
-    public ConcurrentDirectedGraphImpl<Node> getPFG() {
+    public DirectedGraphImpl<Node> getPFG() {
         return pollutionFlowGraph;
     }
 
@@ -116,6 +119,7 @@ public class FlowAnalysis {
         inVars = null;
         outNodes = null;
         visitedNodes = null;
+        expandedNodes = null;
         wuEdges = null;
         pollutionFlowGraph = null;
         reachability = null;
@@ -166,76 +170,99 @@ public class FlowAnalysis {
                             });
                 }
             }
+            Set<Edge> outEdges = outEdgesOf(node);
+            expandedNodes.add(node);
             List<Edge> nextEdges = new ArrayList<>();
-            for (Edge edge : outEdgesOf(node)) {
-                switch (edge.getKind()) {
-                    case LOCAL_ASSIGN, UNWRAPPED_FLOW -> {
-                        nextEdges.add(edge);
-                    }
-                    case INTERPROCEDURAL_ASSIGN, INSTANCE_LOAD, WRAPPED_FLOW -> {
-                        // next must be a variable
-                        LocalVarNode next = (LocalVarNode) edge.getTarget();
-                        SootMethod inMethod = next.getMethod();
-                        // Optimization: filter out some potential spurious flows due to
-                        // the imprecision of context-insensitive pre-analysis, which
-                        // helps improve the performance of Zipper and pointer analysis.
-                        if (pce.PCEMethodsOf(currentType).contains(inMethod)) {
-                            nextEdges.add(edge);
-                        }
+            for (Edge edge : outEdges) {
+                if (isFollowed(edge)) {
+                    nextEdges.add(edge);
+                }
+            }
+            for (Edge nextEdge : nextEdges) {
+                follow(nextEdge);
+            }
+        }
+    }
+
+    /*
+     * Whether the edge is a flow of an object of the current type, adding the wu-edges it gives rise to.
+     * */
+    private boolean isFollowed(Edge edge) {
+        switch (edge.getKind()) {
+            case LOCAL_ASSIGN, UNWRAPPED_FLOW -> {
+                return true;
+            }
+            case INTERPROCEDURAL_ASSIGN, INSTANCE_LOAD, WRAPPED_FLOW -> {
+                // next must be a variable
+                LocalVarNode next = (LocalVarNode) edge.getTarget();
+                SootMethod inMethod = next.getMethod();
+                // Optimization: filter out some potential spurious flows due to
+                // the imprecision of context-insensitive pre-analysis, which
+                // helps improve the performance of Zipper and pointer analysis.
+                if (pce.PCEMethodsOf(currentType).contains(inMethod)) {
+                    return true;
+                }
+            }
+            case INSTANCE_STORE -> {
+                ContextField next = (ContextField) edge.getTarget();
+                AllocNode base = next.getBase();
+                if (base.getType().equals(currentType)) {
+                    // add wrapped flow edges to this variable
+                    if (Global.isEnableWrappedFlow()) {
+                        methodsInvokedOn(currentType).stream()
+                                .map(m -> ToolUtil.getThis(pta.getPag(), m)) // filter this variable of native methods
+                                .map(n -> new Edge(Kind.WRAPPED_FLOW, next, n))
+                                .forEach(e -> addWUEdge(next, e));
                     }
-                    case INSTANCE_STORE -> {
-                        ContextField next = (ContextField) edge.getTarget();
-                        AllocNode base = next.getBase();
-                        if (base.getType().equals(currentType)) {
-                            // add wrapped flow edges to this variable
-                            if (Global.isEnableWrappedFlow()) {
-                                methodsInvokedOn(currentType).stream()
-                                        .map(m -> ToolUtil.getThis(pta.getPag(), m)) // filter this variable of native methods
-                                        .map(n -> new Edge(Kind.WRAPPED_FLOW, next, n))
-                                        .forEach(e -> addWUEdge(next, e));
-                            }
-                            nextEdges.add(edge);
-                        } else if (pce.allocateesOf(currentType).contains(base)) {
-                            // Optimization, similar as above.
-                            if (Global.isEnableWrappedFlow()) {
-                                Set<VarNode> r = new HashSet<>();
-                                AllocNode mBase = (AllocNode) pta.parameterize(base, pta.emptyContext());
-                                pta.getPag().allocLookup(mBase).forEach(v -> {
-                                    if (v instanceof ContextVarNode cvn) {
-                                        if (cvn.base() instanceof LocalVarNode lvn) {
-                                            if (!lvn.isThis()) {
-                                                r.add(lvn);
-                                            }
-                                        }
-                                    }
-                                });
-                                Iterator<VarNode> it = r.iterator();
-                                if (it.hasNext()) {
-                                    Node assigned = r.iterator().next();
-                                    if (assigned != null) {
-                                        Edge e = new Edge(Kind.WRAPPED_FLOW, next, assigned);
-                                        addWUEdge(next, e);
+                    return true;
+                } else if (pce.allocateesOf(currentType).contains(base)) {
+                    // Optimization, similar as above.
+                    if (Global.isEnableWrappedFlow()) {
+                        Set<VarNode> r = new HashSet<>();
+                        AllocNode mBase = (AllocNode) pta.parameterize(base, pta.emptyContext());
+                        pta.getPag().allocLookup(mBase).forEach(v -> {
+                            if (v instanceof ContextVarNode cvn) {
+                                if (cvn.base() instanceof LocalVarNode lvn) {
+                                    if (!lvn.isThis()) {
+                                        r.add(lvn);
                                     }
                                 }
                             }
-                            nextEdges.add(edge);
+                        });
+                        Iterator<VarNode> it = r.iterator();
+                        if (it.hasNext()) {
+                            Node assigned = r.iterator().next();
+                            if (assigned != null) {
+                                Edge e = new Edge(Kind.WRAPPED_FLOW, next, assigned);
+                                addWUEdge(next, e);
+                            }
                         }
                     }
-                    default -> {
-                        throw new RuntimeException("Unknown edge: " + edge);
-                    }
+                    return true;
                 }
             }
-            for (Edge nextEdge : nextEdges) {
-                Node nextNode = nextEdge.getTarget();
-                pollutionFlowGraph.addEdge(node, nextNode);
-                dfs(nextNode);
+            default -> {
+                throw new RuntimeException("Unknown edge: " + edge);
             }
         }
+        return false;
     }
 
+    private void follow(Edge edge) {
+        pollutionFlowGraph.addEdge(edge.getSource(), edge.getTarget());
+        dfs(edge.getTarget());
+    }
+
+    /*
+     * A wu-edge of a node is usually added before the node is visited. Otherwise, it is followed here, so that
+     * the PFG is the closure of the flows from the IN methods whatever the order in which nodes are visited, and
+     * the PFGs of several analyses of a type, each from some of its IN methods, add up to that of one analysis.
+     * */
     private void addWUEdge(Node sourceNode, Edge edge) {
-        wuEdges.computeIfAbsent(sourceNode, k -> new HashSet<>()).add(edge);
+        if (wuEdges.computeIfAbsent(sourceNode, k -> new HashSet<>()).add(edge)
+                && expandedNodes.contains(sourceNode) && isFollowed(edge)) {
+            follow(edge);
+        }
     }
 
     private Collection<SootMethod> methodsInvokedOn(Type type) {
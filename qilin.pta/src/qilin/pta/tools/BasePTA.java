@@ -22,18 +22,35 @@ import qilin.CoreConfig;
 import qilin.core.CorePTA;
 import qilin.core.builder.CallGraphBuilder;
 import qilin.core.pag.PAG;
+import qilin.core.solver.ParallelSolver;
+import qilin.core.solver.PointsToSnapshot;
 import qilin.core.solver.Propagator;
 import qilin.core.solver.Solver;
+import qilin.parm.select.BudgetSelector;
+import qilin.pta.PTAConfig;
 import qilin.stat.IEvaluator;
+import qilin.stat.PTAEvaluator;
 import qilin.stat.SimplifiedEvaluator;
+import qilin.stat.StatKind;
+import qilin.util.Metrics;
 import qilin.util.PTAUtils;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Set;
+
 public abstract class BasePTA extends CorePTA {
     protected IEvaluator evaluator;
+    protected PointsToSnapshot seeds;
 
     public BasePTA() {
-//        this.evaluator = new PTAEvaluator(this);
-        this.evaluator = new SimplifiedEvaluator(this);
+        Set<StatKind> evalStats = CoreConfig.v().getOutConfig().evalStats;
+        if (evalStats.isEmpty()) {
+            this.evaluator = new SimplifiedEvaluator(this);
+        } else {
+            this.evaluator = new PTAEvaluator(this, evalStats, Runtime.getRuntime().availableProcessors());
+        }
     }
 
     public IEvaluator evaluator() {
@@ -42,7 +59,7 @@ public abstract class BasePTA extends CorePTA {
 
     @Override
     protected PAG createPAG() {
-        return new PAG(this);
+        return new PAG(this, PTAConfig.v().getPtaConfig().dataFactoryBackend);
     }
 
     @Override
@@ -50,18 +67,68 @@ public abstract class BasePTA extends CorePTA {
         return new CallGraphBuilder(this);
     }
 
+    /**
+     * Seeds the next run with the points-to sets recorded in the given snapshot.
+     */
+    public void setSeeds(PointsToSnapshot seeds) {
+        this.seeds = seeds;
+    }
+
     @Override
     public Propagator getPropagator() {
-        return new Solver(this);
+        int nThreads = CoreConfig.v().getPtaConfig().solverThreads;
+        Solver solver = nThreads > 1 ? new ParallelSolver(this, nThreads) : new Solver(this);
+        solver.setSeeds(seeds);
+        return solver;
     }
 
+    /*
+     * With a time or memory budget configured, the context selector is wrapped so that heavy methods are
+     * degraded to context-insensitivity once the budget is exceeded, and the degraded methods are reported.
+     * */
     @Override
     public void run(boolean isSceneProvided) {
+        PTAConfig.PointerAnalysisConfiguration config = PTAConfig.v().getPtaConfig();
+        BudgetSelector budgetSel = null;
+        if (config.timeBudget > 0 || config.memoryBudget > 0) {
+            budgetSel = new BudgetSelector(ctxSel, this, config.timeBudget * 1000L, config.memoryBudget * 1024L * 1024L);
+            ctxSel = budgetSel;
+        }
         evaluator.begin();
-        pureRun();
-        evaluator.end();
+        Metrics.v().time("pta.solve", this::pureRun);
+        Metrics.v().time("pta.stats", evaluator::end);
+        recordMetrics();
+        if (budgetSel != null) {
+            reportDegradedMethods(budgetSel);
+        }
         dumpStats();
-//        System.out.println(evaluator());
+        if (!CoreConfig.v().getOutConfig().evalStats.isEmpty()) {
+            System.out.println(evaluator());
+        }
+    }
+
+    /*
+     * The size of the solution, recorded into the metrics of the run.
+     * */
+    protected void recordMetrics() {
+        Metrics metrics = Metrics.v();
+        metrics.gauge("pta.reachable-methods", getNakedReachableMethods().size());
+        metrics.gauge("pta.call-edges", cgb.calledges.size());
+        metrics.gauge("pag.alloc-nodes", pag.getAllocNodeNumberer().size());
+        metrics.gauge("pag.val-nodes", pag.getValNodeNumberer().size());
+    }
+
+    protected void reportDegradedMethods(BudgetSelector budgetSel) {
+        System.out.println("#Budget exceeded: " + budgetSel.getExcessCount() + " times, degraded methods: "
+                + budgetSel.getDegradedMethods().size() + (budgetSel.degradesAll() ? " (all)" : ""));
+        if (budgetSel.getExcessCount() == 0) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new File(CoreConfig.v().getOutConfig().outDir, "degradedMethods.txt"))) {
+            budgetSel.getDegradedMethods().forEach(out::println);
+        } catch (FileNotFoundException e) {
+            System.out.println("failed to write the degraded methods: " + e.getMessage());
+        }
     }
 
     protected void dumpStats() {
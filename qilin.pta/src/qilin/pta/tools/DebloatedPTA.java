@@ -78,7 +78,7 @@ public class DebloatedPTA extends StagedPTA {
 //        System.out.println(sparkTimer);
         if (debloatApproach == DebloatApproach.CONCH) {
             Stopwatch conchTimer = Stopwatch.newAndStart("Conch");
-            Conch hc = new Conch(prePTA);
+            Conch hc = new Conch(prePTA, PTAConfig.v().getPtaConfig().debloatThreads);
             hc.runClassifier();
             this.ctxDepHeaps.addAll(hc.ctxDependentHeaps());
 //            System.out.println();
@@ -86,7 +86,7 @@ public class DebloatedPTA extends StagedPTA {
 //            System.out.println(conchTimer);
         } else if (debloatApproach == DebloatApproach.DEBLOATERX) {
             Stopwatch debloaterXTimer = Stopwatch.newAndStart("DebloaterX");
-            DebloaterX debloaterX = new DebloaterX(prePTA);
+            DebloaterX debloaterX = new DebloaterX(prePTA, PTAConfig.v().getPtaConfig().debloatThreads);
             debloaterX.run();
             Set<AllocNode> mCtxDepHeaps = debloaterX.getCtxDepHeaps();
             for (AllocNode obj : mCtxDepHeaps) {
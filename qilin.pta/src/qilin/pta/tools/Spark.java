@@ -18,11 +18,16 @@
 
 package qilin.pta.tools;
 
+import qilin.core.solver.PointsToSnapshot;
 import qilin.parm.ctxcons.InsensCtxConstructor;
 import qilin.parm.heapabst.AllocSiteAbstractor;
 import qilin.parm.heapabst.HeuristicAbstractor;
 import qilin.parm.select.InsenSelector;
 import qilin.pta.PTAConfig;
+import qilin.util.Metrics;
+
+import java.io.File;
+import java.io.IOException;
 
 /*
  * refer to "Scaling Java Points-To Analysis using SPARK" (CC'03)
@@ -38,4 +43,39 @@ public class Spark extends BasePTA {
         }
         System.out.println("Context-Insensitive ...");
     }
+
+    /*
+     * With a snapshot configured, the analysis is seeded from the snapshot of an earlier run, re-solving only
+     * the facts that may depend on changed application classes, and the snapshot is updated afterwards.
+     * */
+    @Override
+    public void pureRun() {
+        String snapshotFile = PTAConfig.v().getPtaConfig().ciSnapshot;
+        if (snapshotFile == null || seeds != null) {
+            super.pureRun();
+            return;
+        }
+        File file = new File(snapshotFile);
+        PointsToSnapshot snapshot = Metrics.v().time("snapshot.load", () -> PointsToSnapshot.load(this, file));
+        if (snapshot != null) {
+            setSeeds(snapshot);
+            super.pureRun();
+            setSeeds(null);
+            System.out.println("#Snapshot changed classes: " + snapshot.getChangedClasses().size() + ", invalidated nodes: "
+                    + snapshot.getInvalidatedNodeCount() + ", seeded nodes: " + snapshot.getSeededNodeCount() + " of " + snapshot.getRecordedNodeCount());
+            if (snapshot.getChangedClasses().isEmpty()) {
+                return;
+            }
+        } else {
+            super.pureRun();
+        }
+        long start = System.nanoTime();
+        try {
+            PointsToSnapshot.save(this, file);
+        } catch (IOException e) {
+            System.out.println("failed to save the snapshot: " + e.getMessage());
+        } finally {
+            Metrics.v().timer("snapshot.save").record(System.nanoTime() - start);
+        }
+    }
 }
@@ -19,6 +19,7 @@
 package qilin.pta.tools;
 
 import qilin.pta.PTAConfig;
+import qilin.util.Metrics;
 
 /*
  * Many recent pointer analyses are two-staged analyses with a preanalysis and a main analysis.
@@ -42,8 +43,8 @@ public abstract class StagedPTA extends BasePTA {
 
     @Override
     public void run(boolean isSootSceneProvided) {
-        preAnalysis();
-        prePTA.getPag().resetPointsToSet();
-        mainAnalysis();
+        Metrics.v().time("pta.pre-analysis", this::preAnalysis);
+        prePTA.resetPointsToSet();
+        Metrics.v().time("pta.main-analysis", this::mainAnalysis);
     }
 }
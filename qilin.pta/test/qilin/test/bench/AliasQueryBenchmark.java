@@ -0,0 +1,93 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.bench;
+
+import driver.Main;
+import qilin.core.PTA;
+import qilin.core.pag.*;
+import qilin.core.query.MayAliasEngine;
+import soot.Local;
+import soot.SootMethod;
+import soot.jimple.spark.pag.SparkField;
+import soot.util.queue.QueueReader;
+
+import java.util.*;
+
+/*
+ * Compares the alias pairs counted by AliasStat with the batch queries of MayAliasEngine against intersecting the
+ * points-to sets of every pair of variables as AliasStat formerly did. The pairs are those of the global aliases
+ * of AliasStat: for every field, the pairs of stores and loads and of stores and stores. The best of 5 rounds is
+ * reported.
+ * Usage: AliasQueryBenchmark <arguments of driver.Main>
+ * */
+public class AliasQueryBenchmark {
+    public static void main(String[] args) {
+        PTA pta = Main.run(args);
+        Map<SparkField, Set<LocalVarNode>> stores = new LinkedHashMap<>(), loads = new LinkedHashMap<>();
+        for (SootMethod method : pta.getNakedReachableMethods()) {
+            QueueReader<Node> reader = pta.getPag().getMethodPAG(method).getInternalReader().clone();
+            while (reader.hasNext()) {
+                Node from = reader.next(), to = reader.next();
+                if (to instanceof FieldRefNode fr && fr.getBase().getVariable() instanceof Local) {
+                    stores.computeIfAbsent(fr.getField(), k -> new LinkedHashSet<>()).add((LocalVarNode) fr.getBase());
+                } else if (from instanceof FieldRefNode fr && fr.getBase().getVariable() instanceof Local) {
+                    loads.computeIfAbsent(fr.getField(), k -> new LinkedHashSet<>()).add((LocalVarNode) fr.getBase());
+                }
+            }
+        }
+        List<List<Set<LocalVarNode>>> batches = new ArrayList<>();
+        stores.forEach((field, storeSet) -> {
+            Set<LocalVarNode> loadSet = loads.getOrDefault(field, Collections.emptySet());
+            batches.add(List.of(storeSet, loadSet));
+            batches.add(List.of(loadSet, storeSet));
+            batches.add(List.of(storeSet, storeSet));
+        });
+        MayAliasEngine engine = new MayAliasEngine(pta);
+
+        long pairwise = Long.MAX_VALUE, batched = Long.MAX_VALUE;
+        long pairwiseCount = 0, batchedCount = 0;
+        for (int round = 0; round < 5; ++round) {
+            long t0 = System.nanoTime();
+            pairwiseCount = 0;
+            for (List<Set<LocalVarNode>> batch : batches) {
+                for (LocalVarNode l1 : batch.get(0)) {
+                    for (LocalVarNode l2 : batch.get(1)) {
+                        if (l2.hashCode() > l1.hashCode() && pta.reachingObjects((Local) l1.getVariable())
+                                .hasNonEmptyIntersection(pta.reachingObjects((Local) l2.getVariable()))) {
+                            pairwiseCount++;
+                        }
+                    }
+                }
+            }
+            pairwise = Math.min(pairwise, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            batchedCount = 0;
+            for (List<Set<LocalVarNode>> batch : batches) {
+                batchedCount += engine.countMayAliasBatch(batch.get(0), batch.get(1), (l1, l2) -> l2.hashCode() > l1.hashCode());
+            }
+            batched = Math.min(batched, System.nanoTime() - t0);
+        }
+
+        System.out.println("fields: " + stores.size() + ", batches: " + batches.size()
+                + " (alias pairs: " + pairwiseCount + " / " + batchedCount + ")");
+        System.out.printf("pairwise intersections: %d ms%n", pairwise / 1000000);
+        System.out.printf("batch queries:          %d ms%n", batched / 1000000);
+    }
+}
@@ -0,0 +1,103 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+package qilin.test.bench;
+
+import qilin.core.context.ContextElement;
+import qilin.core.context.ContextElements;
+import qilin.core.pag.CallSite;
+import qilin.util.collect.Long2ObjectOpenHashMap;
+import soot.Context;
+import soot.jimple.Jimple;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Compares the two-level HashMap<base, HashMap<Context, node>> formerly used by PAG for its context-sensitive
+ * nodes with the flat (base number, context id) table, in retained heap and lookup time.
+ * Usage: ContextTableBenchmark [#bases] [#contexts per base]
+ * */
+public class ContextTableBenchmark {
+    public static void main(String[] args) {
+        int nBases = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int nContexts = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        ContextElements[] contexts = new ContextElements[nContexts * 4];
+        ContextElements empty = ContextElements.emptyContext();
+        for (int i = 0; i < contexts.length; ++i) {
+            ContextElement e1 = new CallSite(Jimple.v().newNopStmt()), e2 = new CallSite(Jimple.v().newNopStmt());
+            contexts[i] = empty.prepend(e2).prepend(e1);
+        }
+        Object[] bases = new Object[nBases];
+        for (int i = 0; i < nBases; ++i) {
+            bases[i] = new Object();
+        }
+        Random random = new Random(0);
+        int[] picks = new int[nBases * nContexts];
+        for (int i = 0; i < picks.length; ++i) {
+            picks[i] = random.nextInt(contexts.length);
+        }
+        Object value = new Object();
+
+        long before = usedMemory();
+        long t0 = System.nanoTime();
+        Map<Object, Map<Context, Object>> nested = new HashMap<>();
+        for (int i = 0; i < picks.length; ++i) {
+            nested.computeIfAbsent(bases[i / nContexts], k -> new HashMap<>()).putIfAbsent(contexts[picks[i]], value);
+        }
+        long nestedBuild = System.nanoTime() - t0;
+        long nestedBytes = usedMemory() - before;
+        t0 = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < picks.length; ++i) {
+            Map<Context, Object> map = nested.get(bases[i / nContexts]);
+            hits += map != null && map.get(contexts[picks[i]]) != null ? 1 : 0;
+        }
+        long nestedLookup = System.nanoTime() - t0;
+        int nestedSize = nested.values().stream().mapToInt(Map::size).sum();
+        nested = null;
+
+        before = usedMemory();
+        t0 = System.nanoTime();
+        Long2ObjectOpenHashMap<Object> flat = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < picks.length; ++i) {
+            flat.computeIfAbsent(Long2ObjectOpenHashMap.key(i / nContexts, contexts[picks[i]].getId()), k -> value);
+        }
+        long flatBuild = System.nanoTime() - t0;
+        long flatBytes = usedMemory() - before;
+        t0 = System.nanoTime();
+        for (int i = 0; i < picks.length; ++i) {
+            hits += flat.get(Long2ObjectOpenHashMap.key(i / nContexts, contexts[picks[i]].getId())) != null ? 1 : 0;
+        }
+        long flatLookup = System.nanoTime() - t0;
+
+        System.out.println("entries: " + nestedSize + " (flat: " + flat.size() + "), hits: " + hits);
+        System.out.printf("nested HashMap: %,d bytes (%.1f per entry), build %d ms, lookup %d ms%n",
+                nestedBytes, (double) nestedBytes / nestedSize, nestedBuild / 1000000, nestedLookup / 1000000);
+        System.out.printf("flat table:     %,d bytes (%.1f per entry), build %d ms, lookup %d ms%n",
+                flatBytes, (double) flatBytes / flat.size(), flatBuild / 1000000, flatLookup / 1000000);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,109 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.bench;
+
+import driver.Main;
+import qilin.core.PTA;
+import qilin.core.pag.*;
+import qilin.core.sets.HybridPointsToSet;
+import qilin.core.sets.PointsToSet;
+import qilin.core.sets.PointsToSetInternal;
+import qilin.core.sets.UnmodifiablePointsToSet;
+import soot.SootField;
+import soot.SootMethod;
+import soot.jimple.spark.pag.SparkField;
+import soot.util.queue.QueueReader;
+
+import java.util.*;
+
+/*
+ * Compares the field queries of PTA, answered from the indexes of the context-sensitive fields of PAG, with
+ * scanning all context-sensitive fields per query as they formerly were. The queries are those of an alias
+ * client: the objects pointed to by x.f for every load and store x.f in the reachable methods, and the objects
+ * pointed to by every instance field. The best of 5 rounds is reported.
+ * Usage: FieldQueryBenchmark <arguments of driver.Main>
+ * */
+public class FieldQueryBenchmark {
+    public static void main(String[] args) {
+        PTA pta = Main.run(args);
+        PAG pag = pta.getPag();
+        Map<VarNode, Set<SparkField>> accesses = new LinkedHashMap<>();
+        Set<SootField> fields = new LinkedHashSet<>();
+        for (SootMethod method : pta.getNakedReachableMethods()) {
+            QueueReader<Node> reader = pag.getMethodPAG(method).getInternalReader().clone();
+            while (reader.hasNext()) {
+                Node from = reader.next(), to = reader.next();
+                for (Node node : new Node[]{from, to}) {
+                    if (node instanceof FieldRefNode frn && frn.getField() instanceof Field field) {
+                        accesses.computeIfAbsent(frn.getBase(), k -> new LinkedHashSet<>()).add(field);
+                        fields.add(field.getField());
+                    }
+                }
+            }
+        }
+        List<PointsToSet> bases = new ArrayList<>();
+        List<SparkField> baseFields = new ArrayList<>();
+        accesses.forEach((base, fs) -> fs.forEach(f -> {
+            bases.add(pta.reachingObjects(base).toCIPointsToSet());
+            baseFields.add(f);
+        }));
+
+        long scan = Long.MAX_VALUE, indexed = Long.MAX_VALUE;
+        long scanSize = 0, indexedSize = 0;
+        for (int round = 0; round < 5; ++round) {
+            long t0 = System.nanoTime();
+            scanSize = 0;
+            for (int i = 0; i < bases.size(); ++i) {
+                scanSize += scanReachingObjects(pta, bases.get(i), baseFields.get(i)).size();
+            }
+            for (SootField f : fields) {
+                scanSize += scanReachingObjects(pta, null, new Field(f)).size();
+            }
+            scan = Math.min(scan, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            indexedSize = 0;
+            for (int i = 0; i < bases.size(); ++i) {
+                indexedSize += pta.reachingObjectsInternal(bases.get(i), baseFields.get(i)).size();
+            }
+            for (SootField f : fields) {
+                indexedSize += pta.reachingObjects(f).size();
+            }
+            indexed = Math.min(indexed, System.nanoTime() - t0);
+        }
+
+        System.out.println("context fields: " + pag.getContextFields().size() + ", x.f queries: " + bases.size()
+                + ", field queries: " + fields.size() + " (answers: " + scanSize + " / " + indexedSize + ")");
+        System.out.printf("scanning all context fields: %d ms%n", scan / 1000000);
+        System.out.printf("field indexes:               %d ms%n", indexed / 1000000);
+    }
+
+    /*
+     * The former answer of a field query: a scan of all context-sensitive fields (of the bases if not null).
+     * */
+    private static PointsToSet scanReachingObjects(PTA pta, PointsToSet bases, SparkField f) {
+        PointsToSetInternal ret = new HybridPointsToSet();
+        for (ContextField contextField : pta.getPag().getContextFields()) {
+            if (contextField.getField().equals(f) && (bases == null || bases.contains(contextField.getBase()))) {
+                ret.addAll(contextField.getP2Set(), null);
+            }
+        }
+        return new UnmodifiablePointsToSet(pta, ret);
+    }
+}
@@ -0,0 +1,158 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.bench;
+
+import qilin.util.ConcurrentUnionFind;
+import qilin.util.UnionFindSet;
+
+import java.util.*;
+
+/*
+ * Compares the HashMap-of-entries union-find formerly behind UnionFindSet (single-threaded only) with the
+ * current UnionFindSet and with ConcurrentUnionFind on ints, sequentially and with several threads.
+ * Each round does the same random unions followed by an isConnected query per union; the best of 5 rounds
+ * is reported.
+ * Usage: UnionFindBenchmark [#elements] [#unions] [#threads]
+ * */
+public class UnionFindBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int nElems = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int nUnions = args.length > 1 ? Integer.parseInt(args[1]) : 800000;
+        int nThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Random random = new Random(0);
+        int[] from = new int[nUnions], to = new int[nUnions];
+        for (int i = 0; i < nUnions; ++i) {
+            from[i] = random.nextInt(nElems);
+            to[i] = random.nextInt(nElems);
+        }
+        List<Object> elems = new ArrayList<>(nElems);
+        for (int i = 0; i < nElems; ++i) {
+            elems.add(new Object());
+        }
+
+        long legacy = Long.MAX_VALUE, generic = Long.MAX_VALUE, ints = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+        int sets = 0;
+        for (int round = 0; round < 5; ++round) {
+            long t0 = System.nanoTime();
+            LegacyUnionFindSet<Object> luf = new LegacyUnionFindSet<>(elems);
+            for (int i = 0; i < nUnions; ++i) {
+                luf.union(elems.get(from[i]), elems.get(to[i]));
+            }
+            for (int i = 0; i < nUnions; ++i) {
+                sets += luf.isConnected(elems.get(to[i]), elems.get(from[i])) ? 0 : 1;
+            }
+            legacy = Math.min(legacy, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            UnionFindSet<Object> guf = new UnionFindSet<>(elems);
+            for (int i = 0; i < nUnions; ++i) {
+                guf.union(elems.get(from[i]), elems.get(to[i]));
+            }
+            for (int i = 0; i < nUnions; ++i) {
+                sets += guf.isConnected(elems.get(to[i]), elems.get(from[i])) ? 0 : 1;
+            }
+            generic = Math.min(generic, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            ConcurrentUnionFind cuf = new ConcurrentUnionFind(nElems);
+            for (int i = 0; i < nUnions; ++i) {
+                cuf.union(from[i], to[i]);
+            }
+            for (int i = 0; i < nUnions; ++i) {
+                sets += cuf.isConnected(to[i], from[i]) ? 0 : 1;
+            }
+            ints = Math.min(ints, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            ConcurrentUnionFind puf = new ConcurrentUnionFind(nElems);
+            Thread[] threads = new Thread[nThreads];
+            for (int t = 0; t < nThreads; ++t) {
+                final int offset = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = offset; i < nUnions; i += nThreads) {
+                        puf.union(from[i], to[i]);
+                    }
+                    for (int i = offset; i < nUnions; i += nThreads) {
+                        puf.isConnected(to[i], from[i]);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            parallel = Math.min(parallel, System.nanoTime() - t0);
+            sets += puf.numberOfSets() - cuf.numberOfSets();
+        }
+
+        System.out.println("elements: " + nElems + ", unions: " + nUnions + ", threads: " + nThreads + " (check: " + sets + ")");
+        System.out.printf("legacy UnionFindSet (HashMap of entries): %d ms%n", legacy / 1000000);
+        System.out.printf("UnionFindSet (indexed, lock-free):        %d ms%n", generic / 1000000);
+        System.out.printf("ConcurrentUnionFind, 1 thread:            %d ms%n", ints / 1000000);
+        System.out.printf("ConcurrentUnionFind, %d threads:           %d ms%n", nThreads, parallel / 1000000);
+    }
+
+    /*
+     * The union-find formerly behind UnionFindSet: union by rank over a HashMap of entries, not thread-safe.
+     * */
+    private static class LegacyUnionFindSet<E> {
+        private final Map<E, Entry> entries = new HashMap<>();
+
+        LegacyUnionFindSet(Collection<E> elems) {
+            elems.forEach(elem -> entries.put(elem, new Entry()));
+        }
+
+        boolean union(E e1, E e2) {
+            Entry root1 = findRoot(entries.get(e1));
+            Entry root2 = findRoot(entries.get(e2));
+            if (root1 == root2) {
+                return false;
+            }
+            if (root1.rank < root2.rank) {
+                root1.parent = root2;
+            } else if (root1.rank > root2.rank) {
+                root2.parent = root1;
+            } else {
+                root2.parent = root1;
+                ++root2.rank;
+            }
+            return true;
+        }
+
+        boolean isConnected(E e1, E e2) {
+            return findRoot(entries.get(e1)) == findRoot(entries.get(e2));
+        }
+
+        private Entry findRoot(Entry ent) {
+            if (ent.parent != ent) {
+                ent.parent = findRoot(ent.parent);
+            }
+            return ent.parent;
+        }
+
+        private class Entry {
+            private Entry parent;
+            private int rank;
+
+            private Entry() {
+                this.parent = this;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.context;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.AllocNode;
+import qilin.pta.toolkits.conch.Conch;
+import qilin.pta.toolkits.debloaterx.DebloaterX;
+import qilin.test.util.JunitTests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DebloatingTests extends JunitTests {
+    @Test
+    public void testDeterministicClassification() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "insens");
+        Conch conch1 = new Conch(pta, 1);
+        conch1.runClassifier();
+        Conch conch4 = new Conch(pta, 4);
+        conch4.runClassifier();
+        assertFalse(conch1.ctxDependentHeaps2().isEmpty());
+        assertEquals(new ArrayList<>(conch1.ctxDependentHeaps2()), new ArrayList<>(conch4.ctxDependentHeaps2()));
+        assertEquals(new ArrayList<>(conch1.ctxIndenpendentHeaps()), new ArrayList<>(conch4.ctxIndenpendentHeaps()));
+        assertTrue(conch4.getClassifier().getPhaseTimes().keySet().containsAll(List.of("LeakAnalysis", "Rules", "CSDG")));
+
+        DebloaterX debloaterX1 = new DebloaterX(pta, 1);
+        debloaterX1.run();
+        DebloaterX debloaterX4 = new DebloaterX(pta, 4);
+        debloaterX4.run();
+        List<AllocNode> ctxDepHeaps = new ArrayList<>(debloaterX1.getCtxDepHeaps());
+        assertEquals(ctxDepHeaps, new ArrayList<>(debloaterX4.getCtxDepHeaps()));
+        assertTrue(debloaterX4.getClassifier().getPhaseTimes().containsKey("Classification"));
+    }
+}
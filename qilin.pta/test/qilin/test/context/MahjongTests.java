@@ -0,0 +1,77 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.context;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.AllocNode;
+import qilin.pta.toolkits.common.FieldPointstoGraph;
+import qilin.pta.toolkits.mahjong.HeapAbstraction;
+import qilin.pta.toolkits.mahjong.automata.DFA;
+import qilin.pta.toolkits.mahjong.automata.DFAEquivalenceChecker;
+import qilin.pta.toolkits.mahjong.automata.DFAFactory;
+import qilin.test.util.JunitTests;
+import qilin.util.UnionFindSet;
+import soot.Type;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MahjongTests extends JunitTests {
+    @Test
+    public void testMergedObjects() {
+        PTA pta = run("qilin.microben.context.collections.ArrayList0", "insens");
+        FieldPointstoGraph fpg = new FieldPointstoGraph(pta);
+        Map<AllocNode, AllocNode> mom = new HeapAbstraction(fpg).computeMergedObjectMap();
+        assertEquals(fpg.getAllObjs(), mom.keySet());
+        Set<Set<AllocNode>> merged = new HashSet<>(mom.keySet().stream()
+                .collect(Collectors.groupingBy(mom::get, Collectors.toSet())).values());
+        Set<Set<AllocNode>> expected = mergePairwise(fpg);
+        assertTrue(merged.size() < mom.size());
+        assertEquals(expected, merged);
+    }
+
+    /*
+     * Merges the objects of each type by checking the equivalence of the DFAs of every pair of them.
+     * */
+    private static Set<Set<AllocNode>> mergePairwise(FieldPointstoGraph fpg) {
+        DFAFactory dfaFactory = new DFAFactory(fpg);
+        DFAEquivalenceChecker checker = new DFAEquivalenceChecker();
+        UnionFindSet<AllocNode> uf = new UnionFindSet<>(fpg.getAllObjs());
+        Map<Type, List<AllocNode>> groupedObjs = fpg.getAllObjs().stream()
+                .filter(o -> isSingleTyped(dfaFactory.getDFA(o)))
+                .collect(Collectors.groupingBy(AllocNode::getType));
+        groupedObjs.values().forEach(objs -> {
+            for (AllocNode o1 : objs) {
+                for (AllocNode o2 : objs) {
+                    if (!uf.isConnected(o1, o2) && checker.isEquivalent(dfaFactory.getDFA(o1), dfaFactory.getDFA(o2))) {
+                        uf.union(o1, o2);
+                    }
+                }
+            }
+        });
+        return new HashSet<>(uf.getDisjointSets());
+    }
+
+    private static boolean isSingleTyped(DFA dfa) {
+        return dfa.getStates().stream().allMatch(s -> dfa.outputOf(s).size() <= 1);
+    }
+}
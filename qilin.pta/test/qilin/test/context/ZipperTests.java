@@ -0,0 +1,53 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.context;
+
+import org.junit.After;
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.pta.toolkits.zipper.Global;
+import qilin.pta.toolkits.zipper.analysis.Zipper;
+import qilin.test.util.JunitTests;
+import soot.SootMethod;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ZipperTests extends JunitTests {
+    @After
+    public void resetThreads() {
+        Global.setThread(Global.UNDEFINE);
+    }
+
+    @Test
+    public void testThreadsAgree() {
+        PTA pta = run("qilin.microben.context.collections.HashMap0", "insens");
+        Zipper sequential = new Zipper(pta);
+        Set<SootMethod> expected = sequential.analyze();
+        assertFalse(expected.isEmpty());
+        for (int nThreads : new int[]{1, 4}) {
+            Global.setThread(nThreads);
+            Zipper zipper = new Zipper(pta);
+            assertEquals(expected, zipper.analyze());
+            assertEquals(sequential.numberOfOverallPFGNodes(), zipper.numberOfOverallPFGNodes());
+            assertEquals(sequential.numberOfOverallPFGEdges(), zipper.numberOfOverallPFGEdges());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.builder.MethodBodyCache;
+import qilin.test.util.JunitTests;
+import qilin.util.Metrics;
+import soot.Body;
+import soot.SootMethod;
+import soot.jimple.Jimple;
+import soot.options.Options;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BodyCacheTests extends JunitTests {
+    private final List<File> dirs = new ArrayList<>();
+
+    @After
+    public void deleteCacheDirs() throws IOException {
+        for (File dir : dirs) {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private String createCacheDir() throws IOException {
+        File dir = Files.createTempDirectory("bodies").toFile();
+        dirs.add(dir);
+        return dir.toString();
+    }
+
+    private PTA runCached(String mainClass) throws IOException {
+        String dir = createCacheDir();
+        return run(mainClass, "insens", config -> config.methodBodyCacheDir = dir);
+    }
+
+    @Test
+    public void testInterAssign() throws IOException {
+        checkAssertions(runCached("qilin.microben.core.assign.InterAssign"));
+    }
+
+    @Test
+    public void testExceptionChain() throws IOException {
+        checkAssertions(runCached("qilin.microben.core.exception.ExceptionChain"));
+    }
+
+    @Test
+    public void testReadBack() throws IOException {
+        String dir = createCacheDir();
+        SootMethod m = PTAScene.v().getSootClass("qilin.microben.core.exception.ExceptionChain").getMethodByName("main");
+        Body expected = m.retrieveActiveBody();
+        useSource(m, expected);
+        Metrics.reset();
+        m.releaseActiveBody();
+        new MethodBodyCache(dir).retrieveActiveBody(m);
+        File[] versions = new File(dir).listFiles();
+        assertNotNull(versions);
+        assertEquals(1, versions.length);
+        File stale = new File(versions[0], m.getDeclaringClass().getName() + File.separator + "stale");
+        assertTrue(stale.mkdirs());
+        m.releaseActiveBody();
+        Body actual = new MethodBodyCache(dir).retrieveActiveBody(m);
+        m.setActiveBody(expected);
+        assertFalse(stale.exists());
+        assertEquals(1, Metrics.v().getCount("body-cache.misses"));
+        assertEquals(1, Metrics.v().getCount("body-cache.hits"));
+        assertEquals(expected.getUnits().toString(), actual.getUnits().toString());
+        assertEquals(names(expected), names(actual));
+        assertEquals(expected.getTraps().size(), actual.getTraps().size());
+    }
+
+    @Test
+    public void testOptionsChangeVersion() throws IOException {
+        String dir = createCacheDir();
+        SootMethod m = PTAScene.v().getSootClass("qilin.microben.core.exception.ExceptionChain").getMethodByName("main");
+        Body expected = m.retrieveActiveBody();
+        useSource(m, expected);
+        boolean keepOffset = Options.v().keep_offset();
+        try {
+            m.releaseActiveBody();
+            new MethodBodyCache(dir).retrieveActiveBody(m);
+            Options.v().set_keep_offset(!keepOffset);
+            useSource(m, expected);
+            m.releaseActiveBody();
+            new MethodBodyCache(dir).retrieveActiveBody(m);
+        } finally {
+            Options.v().set_keep_offset(keepOffset);
+            m.setActiveBody(expected);
+        }
+        File[] versions = new File(dir).listFiles();
+        assertNotNull(versions);
+        assertEquals(2, versions.length);
+    }
+
+    /*
+     * Soot drops the source of a method once its body is built, so the body is rebuilt from a copy instead.
+     * */
+    private static void useSource(SootMethod m, Body body) {
+        m.setSource((method, phaseName) -> {
+            Body copy = Jimple.v().newBody(method);
+            copy.importBodyContentsFrom(body);
+            return copy;
+        });
+    }
+
+    private static Set<String> names(Body body) {
+        Set<String> ret = new HashSet<>();
+        body.getLocals().forEach(local -> ret.add(local.getName()));
+        return ret;
+    }
+}
@@ -0,0 +1,65 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTAScene;
+import qilin.parm.select.BudgetSelector;
+import qilin.pta.PTAConfig;
+import qilin.pta.tools.BasePTA;
+import qilin.test.util.JunitTests;
+import qilin.util.Metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BudgetTests extends JunitTests {
+    private static final String MAIN_CLASS = "qilin.microben.context.obj.OBJ1k1";
+
+    @Test
+    public void testDegradation() {
+        PTAConfig.v().getPtaConfig().timeBudget = 3600;
+        BasePTA precise = (BasePTA) create(MAIN_CLASS, "2o");
+        precise.run(false);
+        BudgetSelector unused = (BudgetSelector) precise.ctxSelector();
+        assertEquals(0, unused.getExcessCount());
+        assertTrue(unused.getDegradedMethods().isEmpty());
+        Map<String, Set<String>> expected = ciPointsTo(precise);
+        PTAScene.junitReset();
+        BasePTA degraded = (BasePTA) create(MAIN_CLASS, "2o");
+        // any live heap exceeds a budget of one byte, checked at every selection of a method context; the live heap
+        // is measured by the last collection.
+        System.gc();
+        BudgetSelector budgetSel = new BudgetSelector(degraded.ctxSelector(), degraded, 0, 1, 1);
+        degraded.setContextSelector(budgetSel);
+        Metrics.reset();
+        degraded.pureRun();
+        assertTrue(budgetSel.getExcessCount() > 0);
+        assertFalse(budgetSel.getDegradedMethods().isEmpty());
+        assertEquals(budgetSel.getExcessCount(), Metrics.v().getCount("budget.excesses"));
+        assertEquals(budgetSel.getDegradedMethods().size(), Metrics.v().getCount("budget.degraded-methods"));
+        assertTrue(degraded.getReachableMethods().size() < precise.getReachableMethods().size());
+        assertEquals(precise.getNakedReachableMethods().size(), degraded.getNakedReachableMethods().size());
+        Map<String, Set<String>> actual = ciPointsTo(degraded);
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((var, heaps) -> assertTrue(actual.get(var).containsAll(heaps)));
+    }
+}
@@ -0,0 +1,73 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.*;
+import qilin.core.sets.CIPointsToTable;
+import qilin.core.sets.PointsToSet;
+import qilin.test.util.JunitTests;
+import soot.Local;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CIPointsToTableTests extends JunitTests {
+    @Test
+    public void testProjection() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "2o");
+        CIPointsToTable table = pta.getCIPointsToTable();
+        assertNotNull(table);
+        assertSame(table, pta.getCIPointsToTable());
+        boolean sensitive = false;
+        for (ValNode node : pta.getPag().getValNodeNumberer()) {
+            if (!(node instanceof LocalVarNode || node instanceof GlobalVarNode)) {
+                continue;
+            }
+            VarNode var = (VarNode) node;
+            Set<AllocNode> expected = new HashSet<>(), expectedCI = new HashSet<>();
+            for (ContextVarNode cvn : pta.getPag().getContextVarNodes(var)) {
+                for (AllocNode heap : pta.reachingObjects(cvn).toCollection()) {
+                    expected.add(heap);
+                    expectedCI.add(heap.base());
+                    sensitive |= heap != heap.base();
+                }
+            }
+            PointsToSet pts = pta.reachingObjects(var);
+            assertEquals(expected, new HashSet<>(pts.toCollection()));
+            assertEquals(expectedCI, new HashSet<>(pts.toCIPointsToSet().toCollection()));
+            if (var instanceof LocalVarNode && var.getVariable() instanceof Local local) {
+                assertEquals(expected, new HashSet<>(pta.reachingObjects(local).toCollection()));
+            }
+        }
+        assertTrue(sensitive);
+        checkAssertions(pta);
+    }
+
+    @Test
+    public void testReset() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "insens");
+        assertNotNull(pta.getCIPointsToTable());
+        pta.resetPointsToSet();
+        assertNull(pta.getCIPointsToTable());
+    }
+}
@@ -0,0 +1,148 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.util.ConcurrentUnionFind;
+import qilin.util.UnionFindSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentUnionFindTests {
+    private static final int SIZE = 100000;
+    private static final int UNIONS = 80000;
+
+    private static int[][] randomPairs(long seed) {
+        Random random = new Random(seed);
+        int[][] pairs = new int[UNIONS][];
+        for (int i = 0; i < UNIONS; ++i) {
+            pairs[i] = new int[]{random.nextInt(SIZE), random.nextInt(SIZE)};
+        }
+        return pairs;
+    }
+
+    /*
+     * The smallest element of the set of each element, by a naive relabeling union-find.
+     * */
+    private static int[] expectedRoots(int[][] pairs) {
+        int[] label = new int[SIZE];
+        List<List<Integer>> members = new ArrayList<>();
+        for (int i = 0; i < SIZE; ++i) {
+            label[i] = i;
+            members.add(new ArrayList<>(List.of(i)));
+        }
+        for (int[] pair : pairs) {
+            int l1 = label[pair[0]], l2 = label[pair[1]];
+            if (l1 != l2) {
+                int to = Math.min(l1, l2), from = Math.max(l1, l2);
+                members.get(from).forEach(e -> label[e] = to);
+                members.get(to).addAll(members.get(from));
+                members.set(from, null);
+            }
+        }
+        return label;
+    }
+
+    @Test
+    public void testSequential() {
+        int[][] pairs = randomPairs(42);
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(SIZE);
+        int merges = 0;
+        for (int[] pair : pairs) {
+            merges += uf.union(pair[0], pair[1]) ? 1 : 0;
+        }
+        int[] roots = expectedRoots(pairs);
+        for (int i = 0; i < SIZE; ++i) {
+            assertEquals(roots[i], uf.find(i));
+        }
+        assertEquals(SIZE - merges, uf.numberOfSets());
+        assertEquals(Arrays.stream(roots).distinct().count(), uf.numberOfSets());
+        assertTrue(uf.isConnected(pairs[0][0], pairs[0][1]));
+    }
+
+    @Test
+    public void testConcurrentUnions() throws InterruptedException {
+        int nThreads = 8;
+        for (long seed = 0; seed < 5; ++seed) {
+            int[][] pairs = randomPairs(seed);
+            ConcurrentUnionFind uf = new ConcurrentUnionFind(SIZE);
+            AtomicInteger merges = new AtomicInteger();
+            AtomicInteger wrongAnswers = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < nThreads; ++t) {
+                final int offset = t;
+                threads.add(new Thread(() -> {
+                    for (int i = offset; i < UNIONS; i += nThreads) {
+                        if (uf.union(pairs[i][0], pairs[i][1])) {
+                            merges.incrementAndGet();
+                        }
+                        // a union done by this thread must be visible to it right away.
+                        if (!uf.isConnected(pairs[i][1], pairs[i][0])) {
+                            wrongAnswers.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(0, wrongAnswers.get());
+            int[] roots = expectedRoots(pairs);
+            for (int i = 0; i < SIZE; ++i) {
+                assertEquals(roots[i], uf.find(i));
+            }
+            assertEquals(SIZE - merges.get(), uf.numberOfSets());
+        }
+    }
+
+    @Test
+    public void testUnionFindSet() throws InterruptedException {
+        int[][] pairs = randomPairs(7);
+        List<String> elems = new ArrayList<>();
+        for (int i = 0; i < SIZE; ++i) {
+            elems.add("e" + i);
+        }
+        UnionFindSet<String> uf = new UnionFindSet<>(elems);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; i < UNIONS; i += threads.length) {
+                    uf.union(elems.get(pairs[i][0]), elems.get(pairs[i][1]));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int[] roots = expectedRoots(pairs);
+        Map<Integer, Set<String>> expected = new HashMap<>();
+        for (int i = 0; i < SIZE; ++i) {
+            expected.computeIfAbsent(roots[i], k -> new HashSet<>()).add(elems.get(i));
+            assertEquals(elems.get(roots[i]), uf.find(elems.get(i)));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(uf.getDisjointSets()));
+        assertEquals(expected.size(), uf.numberOfSets());
+    }
+}
@@ -0,0 +1,71 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.context.ContextElement;
+import qilin.core.context.ContextElements;
+import qilin.core.pag.CallSite;
+import soot.jimple.Jimple;
+
+import static org.junit.Assert.*;
+
+public class ContextInterningTests {
+    private static ContextElement callSite() {
+        return new CallSite(Jimple.v().newNopStmt());
+    }
+
+    @Test
+    public void testCanonicalContexts() {
+        ContextElement a = callSite(), b = callSite(), c = callSite();
+        ContextElements empty = ContextElements.emptyContext();
+        ContextElements abc = empty.prepend(c).prepend(b).prepend(a);
+        assertSame(abc, ContextElements.of(new ContextElement[]{a, b, c}, 3));
+        assertSame(abc, ContextElements.of(new ContextElement[]{a, b, c, a}, 3));
+        assertSame(abc.tail(), empty.prepend(c).prepend(b));
+        assertSame(abc, ContextElements.newContext(empty.prepend(c).prepend(b), a, 3));
+        assertNotSame(abc, empty.prepend(b).prepend(c).prepend(a));
+        assertNotEquals(abc.getId(), empty.prepend(a).getId());
+        assertArrayEquals(new ContextElement[]{a, b, c}, abc.getElements());
+        assertEquals(3, abc.size());
+        assertSame(b, abc.get(1));
+        assertSame(c, abc.get(2));
+        assertTrue(abc.contains(c));
+        assertFalse(abc.tail().contains(a));
+        assertEquals("[" + a + ", " + b + ", " + c + "]", abc.toString());
+        assertSame(ContextElements.of(new ContextElement[]{null, a}, 2), empty.prepend(a).prepend(null));
+    }
+
+    @Test
+    public void testTruncate() {
+        ContextElement a = callSite(), b = callSite(), c = callSite();
+        ContextElements empty = ContextElements.emptyContext();
+        ContextElements abc = ContextElements.of(new ContextElement[]{a, b, c}, 3);
+        assertSame(abc, abc.truncate(3));
+        assertSame(abc, abc.truncate(5));
+        assertSame(empty, abc.truncate(0));
+        assertSame(empty.prepend(a), abc.truncate(1));
+        assertSame(empty.prepend(b).prepend(a), abc.truncate(2));
+        assertSame(abc.truncate(2), abc.truncate(2));
+        // the cached truncation is replaced when another length is asked for.
+        assertSame(empty.prepend(a), abc.truncate(1));
+        assertSame(empty.prepend(b).prepend(a), abc.truncate(2));
+        assertSame(empty.prepend(b).prepend(a), ContextElements.newContext(abc.tail(), a, 2));
+    }
+}
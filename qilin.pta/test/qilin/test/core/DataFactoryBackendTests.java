@@ -0,0 +1,83 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.test.util.JunitTests;
+import qilin.util.DataFactory;
+import qilin.util.collect.CompactSet;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DataFactoryBackendTests extends JunitTests {
+    private PTA runWith(DataFactory.Backend backend, String mainClass, String ptaPattern) {
+        PTA pta = run(mainClass, ptaPattern, config -> config.dataFactoryBackend = backend);
+        assertEquals(backend, pta.getPag().getDataFactoryBackend());
+        Set<?> edges = pta.getPag().getSimple().values().iterator().next();
+        assertEquals(backend == DataFactory.Backend.COMPACT, edges instanceof CompactSet);
+        // the collections created outside of the PAG are not affected.
+        assertTrue(DataFactory.createSet() instanceof HashSet);
+        return pta;
+    }
+
+    @Test
+    public void testCompactInstanceStore() {
+        checkAssertions(runWith(DataFactory.Backend.COMPACT, "qilin.microben.core.field.InstanceStore", "insens"));
+    }
+
+    @Test
+    public void testCompactVirtualCall() {
+        checkAssertions(runWith(DataFactory.Backend.COMPACT, "qilin.microben.core.call.VirtualCall1", "insens"));
+    }
+
+    @Test
+    public void testConcurrentArrayCopy() {
+        checkAssertions(runWith(DataFactory.Backend.CONCURRENT, "qilin.microben.core.natives.ArrayCopy", "insens"));
+    }
+
+    @Test
+    public void testCompactSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 1000; ++round) {
+            Set<Integer> expected = new HashSet<>();
+            Set<Integer> set = new CompactSet<>();
+            for (int i = 0; i < 12; ++i) {
+                int e = random.nextInt(8);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(e), set.remove(e));
+                } else {
+                    assertEquals(expected.add(e), set.add(e));
+                }
+                assertEquals(expected.size(), set.size());
+                assertEquals(expected, set);
+            }
+            set.removeIf(e -> e % 2 == 0);
+            expected.removeIf(e -> e % 2 == 0);
+            assertEquals(expected, set);
+            assertEquals(expected.hashCode(), set.hashCode());
+        }
+        Set<Object> small = new CompactSet<>();
+        small.add(null);
+        assertTrue(small.contains(null));
+        assertTrue(((CompactSet<Object>) small).isInline());
+    }
+}
@@ -0,0 +1,128 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.pag.AllocNode;
+import qilin.core.query.DemandPointsTo;
+import qilin.core.query.DemandScope;
+import qilin.core.sets.PointsToSet;
+import qilin.test.util.JunitTests;
+import qilin.util.PTAUtils;
+import soot.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DemandPointsToTests extends JunitTests {
+    private static Set<AllocNode> toSet(PointsToSet pts) {
+        return new HashSet<>(pts.toCollection());
+    }
+
+    /*
+     * Answers all locals of the methods of the main class on demand.
+     * */
+    private static Map<SootMethod, Map<Local, Set<AllocNode>>> answer(DemandPointsTo demand, String mainClass) {
+        Map<SootMethod, Map<Local, Set<AllocNode>>> ret = new LinkedHashMap<>();
+        for (SootMethod m : PTAScene.v().getSootClass(mainClass).getMethods()) {
+            if (!m.isConcrete()) {
+                continue;
+            }
+            for (Local l : PTAUtils.getMethodBody(m).getLocals()) {
+                if (l.getType() instanceof RefLikeType) {
+                    ret.computeIfAbsent(m, k -> new LinkedHashMap<>()).put(l, toSet(demand.reachingObjects(m, l)));
+                }
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * Compares the answers for the methods reached by the whole-program analysis with its results; the analysis
+     * has already been run if some query has fallen back to it.
+     * */
+    private static void assertAgrees(PTA pta, DemandPointsTo demand, Map<SootMethod, Map<Local, Set<AllocNode>>> answers) {
+        if (demand.getFallbackCount() == 0) {
+            pta.pureRun();
+        }
+        Collection<SootMethod> reachables = pta.getNakedReachableMethods();
+        answers.forEach((m, locals) -> {
+            if (reachables.contains(m)) {
+                locals.forEach((l, objs) -> assertEquals(m + ": " + l, toSet(pta.reachingObjects(l).toCIPointsToSet()), objs));
+            }
+        });
+    }
+
+    private void assertDemandAgrees(String mainClass) {
+        PTA pta = create(mainClass, "insens");
+        DemandPointsTo demand = new DemandPointsTo(pta);
+        Map<SootMethod, Map<Local, Set<AllocNode>>> answers = answer(demand, mainClass);
+        assertFalse(answers.isEmpty());
+        assertEquals(0, demand.getFallbackCount());
+        int demanded = demand.getScope().getMethodCount();
+        assertAgrees(pta, demand, answers);
+        assertTrue(demanded < pta.getNakedReachableMethods().size());
+    }
+
+    @Test
+    public void testInstanceStore() {
+        assertDemandAgrees("qilin.microben.core.field.InstanceStore");
+    }
+
+    @Test
+    public void testFieldSensitivity() {
+        assertDemandAgrees("qilin.microben.core.field.FieldSensitivity2");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        assertDemandAgrees("qilin.microben.core.call.VirtualCall1");
+    }
+
+    @Test
+    public void testCallersAndFields() {
+        // the fields of A are stored into by the constructor and loaded through the callers of getF.
+        assertDemandAgrees("qilin.microben.context.obj.OBJ1k1");
+    }
+
+    @Test
+    public void testFallback() {
+        String mainClass = "qilin.microben.core.call.VirtualCall0";
+        PTA pta = create(mainClass, "insens");
+        DemandPointsTo demand = new DemandPointsTo(pta, new DemandScope(pta), 1);
+        Map<SootMethod, Map<Local, Set<AllocNode>>> answers = answer(demand, mainClass);
+        assertTrue(demand.getFallbackCount() > 0);
+        assertAgrees(pta, demand, answers);
+    }
+
+    @Test
+    public void testLibraryFallback() {
+        // the elements of an ArrayList are stored by its methods, whose callers may be anywhere in the library.
+        String mainClass = "qilin.microben.context.collections.ArrayList0";
+        PTA pta = create(mainClass, "insens");
+        DemandPointsTo demand = new DemandPointsTo(pta);
+        Map<SootMethod, Map<Local, Set<AllocNode>>> answers = answer(demand, mainClass);
+        assertTrue(demand.getFallbackCount() > 0);
+        assertTrue(demand.getFallbackCount() < demand.getQueryCount());
+        assertAgrees(pta, demand, answers);
+    }
+}
@@ -19,7 +19,20 @@
 package qilin.test.core;
 
 import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.AllocNode;
+import qilin.core.pag.ContextField;
+import qilin.core.pag.LocalVarNode;
+import qilin.core.pag.PAG;
+import qilin.core.pag.ValNode;
+import qilin.core.sets.PointsToSet;
 import qilin.test.util.JunitTests;
+import soot.jimple.spark.pag.SparkField;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
 
 public class FieldTests extends JunitTests {
     @Test
@@ -41,4 +54,42 @@ public class FieldTests extends JunitTests {
     public void testFieldSensitivity2() {
         checkAssertions(run("qilin.microben.core.field.FieldSensitivity2"));
     }
+
+    @Test
+    public void testFieldIndexes() {
+        PTA pta = run("qilin.microben.core.field.FieldSensitivity2", "2o");
+        PAG pag = pta.getPag();
+        assertFalse(pag.getContextFields().isEmpty());
+        Set<SparkField> fields = new HashSet<>();
+        for (ContextField cf : pag.getContextFields()) {
+            assertTrue(pag.getContextFields(cf.getField()).contains(cf));
+            assertTrue(pag.getContextFields(cf.getBase(), cf.getField()).contains(cf));
+            assertEquals(scan(pta, Set.of(cf.getBase()), cf.getField()), toSet(pta.reachingObjectsInternal(cf.getBase(), cf.getField())));
+            fields.add(cf.getField());
+        }
+        for (ValNode node : pag.getValNodeNumberer()) {
+            if (!(node instanceof LocalVarNode var)) {
+                continue;
+            }
+            PointsToSet bases = pta.reachingObjects(var).toCIPointsToSet();
+            for (SparkField field : fields) {
+                assertEquals(scan(pta, toSet(bases), field), toSet(pta.reachingObjectsInternal(bases, field)));
+            }
+        }
+    }
+
+    /*
+     * The objects pointed to by the field of the bases, by scanning all context-sensitive fields.
+     * */
+    private static Set<AllocNode> scan(PTA pta, Set<AllocNode> bases, SparkField field) {
+        Set<AllocNode> ret = new HashSet<>();
+        pta.getPag().getContextFields().stream()
+                .filter(cf -> cf.getField().equals(field) && bases.contains(cf.getBase()))
+                .forEach(cf -> ret.addAll(pta.reachingObjects(cf).toCollection()));
+        return ret;
+    }
+
+    private static Set<AllocNode> toSet(PointsToSet pts) {
+        return new HashSet<>(pts.toCollection());
+    }
 }
@@ -0,0 +1,57 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.util.collect.Long2ObjectOpenHashMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Long2ObjectOpenHashMapTests {
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        Long2ObjectOpenHashMap<String> map = new Long2ObjectOpenHashMap<>(0);
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; ++i) {
+            long key = Long2ObjectOpenHashMap.key(random.nextInt(1000), random.nextInt(100) - 50);
+            String value = String.valueOf(i);
+            if (i % 3 == 0) {
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        assertNull(map.get(Long2ObjectOpenHashMap.key(1000, 0)));
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    @Test
+    public void testKey() {
+        assertNotEquals(Long2ObjectOpenHashMap.key(1, -1), Long2ObjectOpenHashMap.key(0, -1));
+        assertEquals(0x1_0000_0002L, Long2ObjectOpenHashMap.key(1, 2));
+    }
+}
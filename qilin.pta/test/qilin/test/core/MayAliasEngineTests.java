@@ -0,0 +1,71 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.LocalVarNode;
+import qilin.core.pag.ValNode;
+import qilin.core.query.MayAliasEngine;
+import qilin.core.sets.PointsToSet;
+import qilin.test.util.JunitTests;
+import soot.Local;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+
+import static org.junit.Assert.*;
+
+public class MayAliasEngineTests extends JunitTests {
+    @Test
+    public void testBatchAgreesWithPairs() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "2o");
+        List<LocalVarNode> vars = new ArrayList<>();
+        for (ValNode node : pta.getPag().getValNodeNumberer()) {
+            if (node instanceof LocalVarNode lvn && lvn.getVariable() instanceof Local) {
+                vars.add(lvn);
+            }
+        }
+        List<LocalVarNode> ys = vars.subList(0, vars.size() / 2);
+        MayAliasEngine engine = new MayAliasEngine(pta);
+        BiPredicate<LocalVarNode, LocalVarNode> ordered = (x, y) -> y.hashCode() > x.hashCode();
+
+        Map<LocalVarNode, List<LocalVarNode>> expected = new LinkedHashMap<>();
+        long expectedOrdered = 0;
+        for (LocalVarNode x : vars) {
+            PointsToSet xPts = pta.reachingObjects((Local) x.getVariable());
+            for (LocalVarNode y : ys) {
+                if (xPts.hasNonEmptyIntersection(pta.reachingObjects((Local) y.getVariable()))) {
+                    expected.computeIfAbsent(x, k -> new ArrayList<>()).add(y);
+                    expectedOrdered += ordered.test(x, y) ? 1 : 0;
+                }
+            }
+        }
+        assertFalse(expected.isEmpty());
+        Map<LocalVarNode, List<LocalVarNode>> actual = engine.mayAliasBatch(vars, ys, (x, y) -> true);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        assertEquals(expected, actual);
+        assertEquals(expectedOrdered, engine.countMayAliasBatch(vars, ys, ordered));
+        assertEquals(0, engine.countMayAliasBatch(vars, Collections.emptyList(), (x, y) -> true));
+        // tiny indexes split ys into many chunks, down to one variable per chunk.
+        MayAliasEngine chunked = new MayAliasEngine(pta, 3);
+        assertEquals(expected, chunked.mayAliasBatch(vars, ys, (x, y) -> true));
+        assertEquals(expectedOrdered, chunked.countMayAliasBatch(vars, ys, ordered));
+    }
+}
@@ -0,0 +1,117 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import qilin.pta.tools.StagedPTA;
+import qilin.test.util.JunitTests;
+import qilin.util.Metrics;
+import qilin.util.Stopwatch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class MetricsTests extends JunitTests {
+    @Test
+    public void testRegistry() {
+        Metrics.reset();
+        Metrics metrics = Metrics.v();
+        IntStream.range(0, 10000).parallel().forEach(i -> {
+            metrics.increment("hits");
+            metrics.time("section", () -> {
+            });
+        });
+        metrics.add("hits", 5);
+        metrics.gauge("size", 3);
+        metrics.gauge("size", 4);
+        Stopwatch stopwatch = Stopwatch.newAndStart("stopwatch");
+        stopwatch.stop();
+        assertEquals(10005, metrics.getCount("hits"));
+        assertEquals(0, metrics.getCount("misses"));
+        assertEquals(Double.valueOf(4), metrics.getGauge("size"));
+        assertNull(metrics.getGauge("missing"));
+        assertEquals(10000, metrics.getTimer("section").getCount());
+        assertEquals(1, metrics.getTimer("stopwatch").getCount());
+        assertTrue(metrics.getTimer("section").getMaxMillis() <= metrics.getTimer("section").getTotalMillis());
+        Metrics.reset();
+        assertEquals(0, Metrics.v().getCount("hits"));
+        assertNull(Metrics.v().getTimer("section"));
+    }
+
+    @Test
+    public void testFormats() {
+        Metrics.reset();
+        Metrics metrics = Metrics.v();
+        metrics.tag("program", "a \"quoted\", name");
+        metrics.add("b.counter", 2);
+        metrics.add("a.counter", 1);
+        metrics.gauge("ratio", 0.5);
+        metrics.gauge("undefined", Double.NaN);
+        metrics.timer("phase").record(2_000_000L);
+        metrics.timer("phase").record(1_000_000L);
+        String json = metrics.toJson();
+        assertTrue(json.contains("\"program\": \"a \\\"quoted\\\", name\""));
+        assertTrue(json.indexOf("\"a.counter\": 1") < json.indexOf("\"b.counter\": 2"));
+        assertTrue(json.contains("\"ratio\": 0.5"));
+        assertTrue(json.contains("\"undefined\": null"));
+        assertTrue(json.contains("\"phase\": {\"count\": 2, \"total-ms\": 3.0, \"max-ms\": 2.0}"));
+        List<String> csv = List.of(metrics.toCsv().split("\n"));
+        assertEquals("kind,name,value,count,max", csv.get(0));
+        assertTrue(csv.contains("tag,program,\"a \"\"quoted\"\", name\",,"));
+        assertTrue(csv.indexOf("counter,a.counter,1,,") < csv.indexOf("counter,b.counter,2,,"));
+        assertTrue(csv.contains("gauge,ratio,0.5,,"));
+        assertTrue(csv.contains("timer,phase,3.0,2,2.0"));
+        Metrics empty = new Metrics();
+        assertTrue(empty.toJson().contains("\"counters\": {}"));
+    }
+
+    @Test
+    public void testPhaseTimers() throws IOException {
+        Metrics.reset();
+        StagedPTA pta = (StagedPTA) create("qilin.microben.context.obj.OBJ2k1", "E-2o");
+        pta.run(false);
+        Metrics metrics = Metrics.v();
+        for (String timer : List.of("pag.build", "pta.pre-analysis", "pta.main-analysis", "pta.solve", "pta.stats",
+                "Eagle Selection")) {
+            assertNotNull(timer, metrics.getTimer(timer));
+        }
+        assertEquals(1, metrics.getTimer("pta.solve").getCount());
+        assertTrue(metrics.getTimer("pag.build").getCount() >= pta.getNakedReachableMethods().size());
+        assertEquals(Double.valueOf(pta.getNakedReachableMethods().size()), metrics.getGauge("pta.reachable-methods"));
+        assertEquals(Double.valueOf(pta.getCgb().calledges.size()), metrics.getGauge("pta.call-edges"));
+
+        File dir = Files.createTempDirectory("metrics").toFile();
+        String json = new File(dir, "run.json").getPath();
+        String csv = new File(dir, "run.csv").getPath();
+        try {
+            metrics.export(json);
+            metrics.export(csv);
+            assertEquals(metrics.toJson(), Files.readString(new File(json).toPath()));
+            assertEquals(metrics.toCsv(), Files.readString(new File(csv).toPath()));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.pag.*;
+import qilin.test.util.JunitTests;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PAGFreezeTests extends JunitTests {
+    @Test
+    public void testFrozenEdges() {
+        PTA pta = run("qilin.microben.core.field.InstanceStore", "insens");
+        PAG pag = pta.getPag();
+        assertFalse(pag.isFrozen());
+        List<Map<Node, Set<Node>>> expected = new ArrayList<>();
+        for (Map<? extends Node, ? extends Set<? extends Node>> edgeMap : pag.getEdgeMaps()) {
+            Map<Node, Set<Node>> copy = new HashMap<>();
+            edgeMap.forEach((k, v) -> copy.put(k, new HashSet<>(v)));
+            expected.add(copy);
+        }
+        pag.freeze();
+        assertTrue(pag.isFrozen());
+        assertTrue(pag.getFrozenEdgeBytes() > 0);
+        List<Map<? extends Node, ? extends Set<? extends Node>>> frozen = pag.getEdgeMaps();
+        for (int i = 0; i < frozen.size(); ++i) {
+            assertEquals(expected.get(i), frozen.get(i));
+            assertEquals(expected.get(i).size(), frozen.get(i).size());
+        }
+        pag.getSimple().forEach((from, tos) -> {
+            assertEquals(tos, pag.simpleLookup(from));
+            tos.forEach(to -> assertTrue(pag.simpleInvLookup(to).contains(from)));
+        });
+        pag.getLoad().forEach((from, tos) -> assertEquals(tos, pag.loadLookup(from)));
+        // the root object has no node number.
+        assertFalse(pag.allocLookup(pta.getRootNode()).isEmpty());
+        checkAssertions(pta);
+    }
+
+    @Test
+    public void testFrozenAfterRun() {
+        PTA pta = run("qilin.microben.core.call.VirtualCall1", "insens", config -> config.freezePAG = true);
+        PAG pag = pta.getPag();
+        assertTrue(pag.isFrozen());
+        checkAssertions(pta);
+        VarNode var = pag.getAlloc().values().iterator().next().iterator().next();
+        try {
+            pag.addEdge(pta.getRootNode(), var);
+            fail("an edge was added to a frozen PAG");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
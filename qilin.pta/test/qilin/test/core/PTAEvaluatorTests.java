@@ -0,0 +1,75 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.stat.PTAEvaluator;
+import qilin.stat.StatKind;
+import qilin.test.util.JunitTests;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PTAEvaluatorTests extends JunitTests {
+    @Test
+    public void testConcurrentStats() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "2o");
+        String sequential = evaluate(pta, EnumSet.allOf(StatKind.class), 1);
+        String concurrent = evaluate(pta, EnumSet.allOf(StatKind.class), 4);
+        assertEquals(sequential, concurrent);
+        int last = -1;
+        for (StatKind kind : StatKind.values()) {
+            int section = sequential.indexOf(" ====== " + kind.getTitle() + " ======");
+            assertTrue(section > last);
+            last = section;
+        }
+        assertTrue(sequential.contains("#Reachable Method (CI):"));
+        assertTrue(sequential.contains("#globalAlias:"));
+    }
+
+    @Test
+    public void testSelectedStats() {
+        PTA pta = run("qilin.microben.context.obj.OBJ2k1", "insens");
+        String report = evaluate(pta, EnumSet.of(StatKind.CLASSES, StatKind.YUMMY), 2);
+        assertTrue(report.contains(" ====== Yummy ======"));
+        assertTrue(report.contains(" ====== Classes ======"));
+        assertFalse(report.contains(" ====== Aliases ======"));
+        assertFalse(report.contains("#globalAlias:"));
+        assertTrue(report.indexOf(" ====== Yummy ======") < report.indexOf(" ====== Classes ======"));
+        String none = evaluate(pta, EnumSet.noneOf(StatKind.class), 2);
+        assertFalse(none.contains("#Class:"));
+    }
+
+    /*
+     * The report without the lines on the time and memory of the run.
+     * */
+    private static String evaluate(PTA pta, Set<StatKind> stats, int nThreads) {
+        PTAEvaluator evaluator = new PTAEvaluator(pta, stats, nThreads);
+        evaluator.begin();
+        evaluator.end();
+        return Arrays.stream(evaluator.toString().split("\n"))
+                .filter(line -> !line.contains("Memory") && !line.startsWith("Time (sec)"))
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,67 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.test.util.JunitTests;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelSolverTests extends JunitTests {
+    private PTA runParallel(String mainClass, String ptaPattern) {
+        return run(mainClass, ptaPattern, config -> config.solverThreads = 4);
+    }
+
+    @Test
+    public void testInterAssign() {
+        checkAssertions(runParallel("qilin.microben.core.assign.InterAssign", "insens"));
+    }
+
+    @Test
+    public void testFieldSensitivity2() {
+        checkAssertions(runParallel("qilin.microben.core.field.FieldSensitivity2", "insens"));
+    }
+
+    @Test
+    public void testVirtualCall1() {
+        checkAssertions(runParallel("qilin.microben.core.call.VirtualCall1", "insens"));
+    }
+
+    @Test
+    public void testExceptionChain() {
+        checkAssertions(runParallel("qilin.microben.core.exception.ExceptionChain", "insens"));
+    }
+
+    @Test
+    public void testHashMap0() {
+        checkAssertions(runParallel("qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testSameResultsAsSolver() {
+        String mainClass = "qilin.microben.context.collections.ArrayList0";
+        Map<String, Set<String>> expected = ciPointsTo(run(mainClass, "2o"));
+        Map<String, Set<String>> actual = ciPointsTo(runParallel(mainClass, "2o"));
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,115 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.sets.MaskBitVector;
+import qilin.core.sets.RoaringPointsToSet;
+import qilin.pta.PTAConfig;
+import qilin.test.util.JunitTests;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RoaringPointsToSetTests extends JunitTests {
+    private PTA runRoaring(String mainClass, String ptaPattern) {
+        return run(mainClass, ptaPattern, config -> config.pointsToSetKind = PTAConfig.PointsToSetKind.ROARING);
+    }
+
+    @Test
+    public void testSimpleAssign() {
+        checkAssertions(runRoaring("qilin.microben.core.assign.SimpleAssign", "insens"));
+    }
+
+    @Test
+    public void testInstanceStore() {
+        checkAssertions(runRoaring("qilin.microben.core.field.InstanceStore", "insens"));
+    }
+
+    @Test
+    public void testArrayCopy() {
+        checkAssertions(runRoaring("qilin.microben.core.natives.ArrayCopy", "insens"));
+    }
+
+    @Test
+    public void testTreeMap0() {
+        checkAssertions(runRoaring("qilin.microben.context.collections.TreeMap0", "2o"));
+    }
+
+    @Test
+    public void testMaskedAddAll() {
+        for (long seed = 0; seed < 20; ++seed) {
+            Random random = new Random(seed);
+            // a dense (bitmap) chunk, a run chunk, a sparse chunk and a chunk beyond the mask.
+            RoaringPointsToSet other = new RoaringPointsToSet();
+            for (int i = 0; i < 65536; ++i) {
+                if (random.nextInt(3) == 0) {
+                    other.add(i);
+                }
+            }
+            for (int i = 70000; i < 70000 + random.nextInt(5000); ++i) {
+                other.add(i);
+            }
+            for (int i = 0; i < 100; ++i) {
+                other.add(2 * 65536 + random.nextInt(65536));
+                other.add(5 * 65536 + random.nextInt(65536));
+            }
+            MaskBitVector mask = new MaskBitVector();
+            for (int i = 0; i < 3 * 65536; ++i) {
+                if (random.nextBoolean()) {
+                    mask.set(i);
+                }
+            }
+            RoaringPointsToSet exclude = randomSet(random, seed % 2 == 0 ? 40000 : 200);
+            RoaringPointsToSet target = randomSet(random, 500);
+
+            Set<Integer> expected = contents(target);
+            int initialSize = expected.size();
+            other.forEach(idx -> {
+                if (mask.get(idx) && !exclude.contains(idx)) {
+                    expected.add(idx);
+                }
+            });
+            boolean changed = target.addAll(other, mask, exclude);
+            assertEquals(expected, contents(target));
+            assertEquals(expected.size(), target.size());
+            assertEquals(expected.size() != initialSize, changed);
+            assertFalse(target.addAll(other, mask, exclude));
+        }
+    }
+
+    private static RoaringPointsToSet randomSet(Random random, int n) {
+        RoaringPointsToSet set = new RoaringPointsToSet();
+        for (int i = 0; i < n; ++i) {
+            set.add(random.nextInt(3 * 65536));
+        }
+        return set;
+    }
+
+    private static Set<Integer> contents(RoaringPointsToSet set) {
+        Set<Integer> ret = new TreeSet<>();
+        set.forEach(ret::add);
+        return ret;
+    }
+}
@@ -0,0 +1,152 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.After;
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.solver.PointsToSnapshot;
+import qilin.pta.PTAConfig;
+import qilin.pta.tools.BasePTA;
+import qilin.pta.tools.StagedPTA;
+import qilin.test.util.JunitTests;
+import qilin.util.PTAUtils;
+import soot.Body;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.InvokeStmt;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTests extends JunitTests {
+    private final List<File> files = new ArrayList<>();
+
+    @After
+    public void deleteSnapshots() {
+        files.forEach(File::delete);
+    }
+
+    private File createSnapshotFile() throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        files.add(file);
+        return file;
+    }
+
+    @Test
+    public void testSeededSolve() throws IOException {
+        String mainClass = "qilin.microben.context.collections.ArrayList0";
+        File file = createSnapshotFile();
+        PTA expected = run(mainClass, "insens");
+        PointsToSnapshot.save(expected, file);
+        BasePTA seeded = (BasePTA) create(mainClass, "insens");
+        PointsToSnapshot snapshot = PointsToSnapshot.load(seeded, file);
+        assertNotNull(snapshot);
+        seeded.setSeeds(snapshot);
+        seeded.pureRun();
+        assertTrue(snapshot.getSeededNodeCount() > 0);
+        assertEquals(expected.getReachableMethods().size(), snapshot.getReachableMethodCount());
+        assertEquals(snapshot.getReachableMethodCount(), seeded.getReachableMethods().size());
+        assertEquals(snapshot.getCallEdgeCount(), seeded.getCgb().calledges.size());
+        assertEquals(ciPointsTo(expected), ciPointsTo(seeded));
+    }
+
+    @Test
+    public void testFingerprintMismatch() throws IOException {
+        String mainClass = "qilin.microben.core.assign.InterAssign";
+        File file = createSnapshotFile();
+        PointsToSnapshot.save(run(mainClass, "insens"), file);
+        PTAConfig.v().getPtaConfig().mergeHeap = false;
+        assertNull(PointsToSnapshot.load(create(mainClass, "insens"), file));
+    }
+
+    @Test
+    public void testStagedAnalysis() throws IOException {
+        String mainClass = "qilin.microben.context.collections.ArrayList0";
+        File file = createSnapshotFile();
+        assertTrue(file.delete());
+        PTAConfig.v().getPtaConfig().ciSnapshot = file.getPath();
+        PTAConfig.v().getPtaConfig().preAnalysisOnly = true;
+        StagedPTA taken = (StagedPTA) create(mainClass, "E-2o");
+        taken.run(false);
+        assertTrue(file.isFile());
+        StagedPTA seeded = (StagedPTA) create(mainClass, "E-2o");
+        seeded.run(false);
+        assertEquals(taken.getPrePTA().getReachableMethods().size(), seeded.getPrePTA().getReachableMethods().size());
+        assertEquals(taken.getPrePTA().getCgb().calledges.size(), seeded.getPrePTA().getCgb().calledges.size());
+    }
+
+    @Test
+    public void testRemovedCall() throws IOException {
+        // list1.add(o1): o1 no longer flows into the elements of the (context-insensitive) lists.
+        String mainClass = "qilin.microben.context.collections.ArrayList0";
+        assertIncremental(mainClass, mainClass, "main",
+                unit -> unit instanceof InvokeStmt invoke && invoke.getInvokeExpr().getMethod().getName().equals("add"));
+    }
+
+    @Test
+    public void testRemovedFieldStore() throws IOException {
+        // this.f = p in the constructor of A: the objects of main no longer flow into the fields of A.
+        assertIncremental("qilin.microben.context.obj.OBJ1k1", "qilin.microben.context.obj.OBJ1k1$A", "<init>",
+                unit -> unit instanceof AssignStmt assign && assign.getLeftOp() instanceof InstanceFieldRef);
+    }
+
+    /*
+     * Takes a snapshot of the program, changes a class by removing the first statement of the given method
+     * matching the given predicate, and checks the re-analysis of the changed program from the snapshot against
+     * a from-scratch run. Bodies are shared by all tests, so the statement is put back afterwards.
+     * */
+    private void assertIncremental(String mainClass, String changedClass, String methodName, Predicate<Unit> removed)
+            throws IOException {
+        File file = createSnapshotFile();
+        PTA original = run(mainClass, "insens");
+        PointsToSnapshot.save(original, file);
+        SootMethod method = PTAScene.v().getSootClass(changedClass).getMethodByName(methodName);
+        Body body = PTAUtils.getMethodBody(method);
+        Unit unit = body.getUnits().stream().filter(removed).findFirst().orElseThrow();
+        Unit succ = body.getUnits().getSuccOf(unit);
+        body.getUnits().remove(unit);
+        try {
+            PTA expected = run(mainClass, "insens");
+            assertNotEquals(ciPointsTo(original), ciPointsTo(expected));
+            BasePTA seeded = (BasePTA) create(mainClass, "insens");
+            PointsToSnapshot snapshot = PointsToSnapshot.load(seeded, file, Set.of(changedClass));
+            assertNotNull(snapshot);
+            assertEquals(Set.of(changedClass), snapshot.getChangedClasses());
+            assertTrue(snapshot.getInvalidatedNodeCount() > 0);
+            seeded.setSeeds(snapshot);
+            seeded.pureRun();
+            assertTrue(snapshot.getSeededNodeCount() > 0);
+            assertEquals(expected.getReachableMethods().size(), seeded.getReachableMethods().size());
+            assertEquals(expected.getCgb().calledges.size(), seeded.getCgb().calledges.size());
+            assertEquals(ciPointsTo(expected), ciPointsTo(seeded));
+        } finally {
+            body.getUnits().insertBefore(unit, succ);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.pta.PTAConfig;
+import qilin.test.util.JunitTests;
+
+public class ValueNumberingTests extends JunitTests {
+    private PTA runNumbered(String mainClass, String ptaPattern) {
+        return run(mainClass, ptaPattern, config -> config.valueNumbering = true);
+    }
+
+    @Test
+    public void testInterAssign() {
+        checkAssertions(runNumbered("qilin.microben.core.assign.InterAssign", "insens"));
+    }
+
+    @Test
+    public void testFieldSensitivity2() {
+        checkAssertions(runNumbered("qilin.microben.core.field.FieldSensitivity2", "insens"));
+    }
+
+    @Test
+    public void testVirtualCall1() {
+        checkAssertions(runNumbered("qilin.microben.core.call.VirtualCall1", "insens"));
+    }
+
+    @Test
+    public void testExceptionChain() {
+        checkAssertions(runNumbered("qilin.microben.core.exception.ExceptionChain", "insens"));
+    }
+
+    @Test
+    public void testHashMap0() {
+        checkAssertions(runNumbered("qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testHashMap0WithCycleCollapse() {
+        PTAConfig.v().getPtaConfig().collapseCycles = true;
+        checkAssertions(runNumbered("qilin.microben.context.collections.HashMap0", "2o"));
+    }
+}
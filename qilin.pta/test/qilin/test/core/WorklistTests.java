@@ -0,0 +1,69 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.test.core;
+
+import org.junit.Test;
+import qilin.core.PTA;
+import qilin.pta.PTAConfig;
+import qilin.test.util.JunitTests;
+import qilin.util.Metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorklistTests extends JunitTests {
+    private PTA runWith(PTAConfig.WorklistKind kind, String mainClass, String ptaPattern) {
+        return run(mainClass, ptaPattern, config -> config.worklistKind = kind);
+    }
+
+    @Test
+    public void testFifo() {
+        checkAssertions(runWith(PTAConfig.WorklistKind.FIFO, "qilin.microben.core.assign.InterAssign", "insens"));
+        checkAssertions(runWith(PTAConfig.WorklistKind.FIFO, "qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testLrf() {
+        checkAssertions(runWith(PTAConfig.WorklistKind.LRF, "qilin.microben.core.field.FieldSensitivity2", "insens"));
+        checkAssertions(runWith(PTAConfig.WorklistKind.LRF, "qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testTopo() {
+        checkAssertions(runWith(PTAConfig.WorklistKind.TOPO, "qilin.microben.core.call.VirtualCall1", "insens"));
+        checkAssertions(runWith(PTAConfig.WorklistKind.TOPO, "qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testTwoLevel() {
+        checkAssertions(runWith(PTAConfig.WorklistKind.TWO_LEVEL, "qilin.microben.core.exception.ExceptionChain", "insens"));
+        checkAssertions(runWith(PTAConfig.WorklistKind.TWO_LEVEL, "qilin.microben.context.collections.HashMap0", "2o"));
+    }
+
+    @Test
+    public void testMetrics() {
+        Metrics.reset();
+        runWith(PTAConfig.WorklistKind.NUMBER, "qilin.microben.core.assign.InterAssign", "insens");
+        Metrics metrics = Metrics.v();
+        long polls = metrics.getCount("solver.worklist.polls");
+        assertTrue(polls > 0);
+        assertEquals(polls, metrics.getCount("solver.worklist.nodes") + metrics.getCount("solver.worklist.re-processed"));
+        assertTrue(metrics.getGauge("solver.worklist.max-per-node") >= 1);
+    }
+}
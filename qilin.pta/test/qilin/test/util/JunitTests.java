@@ -22,16 +22,26 @@ import driver.Main;
 import driver.PTAFactory;
 import driver.PTAOption;
 import driver.PTAPattern;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import qilin.core.PTA;
 import qilin.core.PTAScene;
+import qilin.core.pag.AllocNode;
+import qilin.core.pag.LocalVarNode;
+import qilin.core.pag.VarNode;
 import qilin.pta.PTAConfig;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
 import soot.options.Options;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Set;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertTrue;
 
@@ -59,9 +69,59 @@ public abstract class JunitTests {
         isSetUp = true;
     }
 
+    // the options of the analysis and of its outputs before each test, restored after it.
+    private Map<Field, Object> ptaOptions, outOptions;
+    private List<SootMethod> entryPoints;
+    private SootClass mainClass;
+    private String optionsMainClass;
+
     @Before
     public void reset() {
         PTAScene.junitReset();
+        ptaOptions = optionsOf(PTAConfig.v().getPtaConfig());
+        outOptions = optionsOf(PTAConfig.v().getOutConfig());
+        entryPoints = Scene.v().hasCustomEntryPoints() ? Scene.v().getEntryPoints() : null;
+        mainClass = Scene.v().hasMainClass() ? Scene.v().getMainClass() : null;
+        optionsMainClass = Options.v().main_class();
+    }
+
+    /*
+     * The scene computes its entry points once, for the main class of that time, so they are restored as well:
+     * each test gets those of the main class it analyses.
+     * */
+    @After
+    public void restoreOptions() {
+        restoreOptions(PTAConfig.v().getPtaConfig(), ptaOptions);
+        restoreOptions(PTAConfig.v().getOutConfig(), outOptions);
+        Scene.v().setEntryPoints(entryPoints);
+        if (mainClass != null) {
+            Scene.v().setMainClass(mainClass);
+        }
+        Options.v().set_main_class(optionsMainClass);
+    }
+
+    private static Map<Field, Object> optionsOf(Object config) {
+        Map<Field, Object> ret = new HashMap<>();
+        try {
+            for (Field field : config.getClass().getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    ret.put(field, field.get(config));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return ret;
+    }
+
+    private static void restoreOptions(Object config, Map<Field, Object> options) {
+        try {
+            for (Map.Entry<Field, Object> entry : options.entrySet()) {
+                entry.getKey().set(config, entry.getValue());
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public PTA run(String mainClass) {
@@ -69,15 +129,48 @@ public abstract class JunitTests {
     }
 
     public PTA run(String mainClass, String ptaPattern) {
+        System.out.println(PTAConfig.v().getAppConfig().APP_PATH);
+        PTA pta = create(mainClass, ptaPattern);
+        pta.pureRun();
+        return pta;
+    }
+
+    /**
+     * Runs the analysis with the options set by the given function, which are restored after the test.
+     */
+    public PTA run(String mainClass, String ptaPattern, Consumer<PTAConfig.PointerAnalysisConfiguration> options) {
+        options.accept(PTAConfig.v().getPtaConfig());
+        return run(mainClass, ptaPattern);
+    }
+
+    /**
+     * Creates the analysis of the given main class, without running it.
+     */
+    public static PTA create(String mainClass, String ptaPattern) {
         PTAConfig.v().getAppConfig().MAIN_CLASS = mainClass;
         Options.v().set_main_class(mainClass);
         PTAScene.v().setMainClass(PTAScene.v().getSootClass(mainClass));
         PTAConfig.v().getPtaConfig().ptaPattern = new PTAPattern(ptaPattern);
         PTAConfig.v().getPtaConfig().ptaName = PTAConfig.v().getPtaConfig().ptaPattern.toString();
-        System.out.println(PTAConfig.v().getAppConfig().APP_PATH);
-        PTA pta = PTAFactory.createPTA(PTAConfig.v().getPtaConfig().ptaPattern);
-        pta.pureRun();
-        return pta;
+        return PTAFactory.createPTA(PTAConfig.v().getPtaConfig().ptaPattern);
+    }
+
+    /*
+     * The context-insensitive points-to sets of all variables, to compare the results of two runs. Variables and
+     * allocation sites are compared by name, as parameter and return nodes are recreated by each run.
+     * */
+    public static Map<String, Set<String>> ciPointsTo(PTA pta) {
+        Map<String, Set<String>> ret = new HashMap<>();
+        pta.getPag().getValNodes().forEach(valNode -> {
+            if (valNode instanceof VarNode varNode) {
+                String name = varNode instanceof LocalVarNode lvn ? lvn.getMethod() + ": " + lvn.getVariable() : String.valueOf(varNode.getVariable());
+                Set<String> allocSites = ret.computeIfAbsent(name, k -> new HashSet<>());
+                for (Iterator<AllocNode> it = pta.reachingObjects(varNode).toCIPointsToSet().iterator(); it.hasNext(); ) {
+                    allocSites.add(String.valueOf(it.next().getNewExpr()));
+                }
+            }
+        });
+        return ret;
     }
 
     public static String[] generateArgumentsx() {
@@ -0,0 +1,95 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * A lock-free union-find over the ints 0 .. size - 1 (e.g., node numbers), safe to use from several threads.
+ * The parent of each element is kept in an AtomicIntegerArray. find halves the path it walks by CAS, which may
+ * fail harmlessly when another thread has changed the parent meanwhile. union links the root with the larger
+ * index under the one with the smaller index by CAS and retries if that root stopped being a root; hence the
+ * root of a set is always its smallest element, independently of the order of the unions.
+ * */
+public class ConcurrentUnionFind {
+    private final AtomicIntegerArray parents;
+    private final AtomicInteger nrsets;
+
+    public ConcurrentUnionFind(int size) {
+        this.parents = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; ++i) {
+            parents.set(i, i);
+        }
+        this.nrsets = new AtomicInteger(size);
+    }
+
+    public int size() {
+        return parents.length();
+    }
+
+    public int find(int e) {
+        int parent = parents.get(e);
+        while (parent != e) {
+            int grandParent = parents.get(parent);
+            if (grandParent != parent) {
+                parents.compareAndSet(e, parent, grandParent);
+            }
+            e = grandParent;
+            parent = parents.get(e);
+        }
+        return e;
+    }
+
+    /**
+     * @return true if e1 and e2 were in different sets.
+     */
+    public boolean union(int e1, int e2) {
+        while (true) {
+            int root1 = find(e1);
+            int root2 = find(e2);
+            if (root1 == root2) {
+                return false;
+            }
+            int from = Math.max(root1, root2);
+            if (parents.compareAndSet(from, from, Math.min(root1, root2))) {
+                nrsets.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public boolean isConnected(int e1, int e2) {
+        while (true) {
+            int root1 = find(e1);
+            int root2 = find(e2);
+            if (root1 == root2) {
+                return true;
+            }
+            // root1 may have been linked under root2 after it was found.
+            if (parents.get(root1) == root1) {
+                return false;
+            }
+        }
+    }
+
+    public int numberOfSets() {
+        return nrsets.get();
+    }
+}
@@ -18,31 +18,88 @@
 
 package qilin.util;
 
+import qilin.util.collect.CompactSet;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/*
+ * Creates the collections used throughout the analysis. The static methods create JDK collections; the data
+ * structures of a PAG are created with the backend of its analysis (see CoreConfig), which is passed to it.
+ * */
 public class DataFactory {
+    public enum Backend {
+        /**
+         * HashMap, HashSet and ArrayList.
+         */
+        JDK,
+        /**
+         * like JDK, but sets keep up to 4 elements in an inline array, as most sets of the PAG (edges of a node,
+         * call sites of a receiver, ...) are that small.
+         */
+        COMPACT,
+        /**
+         * ConcurrentHashMap, concurrent key sets and CopyOnWriteArrayList, for analyses that update shared data
+         * from several threads. Note that these collections do not accept null keys or values.
+         */
+        CONCURRENT;
+
+        public <T> List<T> createList() {
+            if (this == CONCURRENT) {
+                return new CopyOnWriteArrayList<>();
+            }
+            return new ArrayList<>();
+        }
+
+        public <T> Set<T> createSet() {
+            return switch (this) {
+                case JDK -> new HashSet<>();
+                case COMPACT -> new CompactSet<>();
+                case CONCURRENT -> ConcurrentHashMap.newKeySet();
+            };
+        }
+
+        public <T> Set<T> createSet(int initCapacity) {
+            return switch (this) {
+                case JDK -> new HashSet<>(initCapacity);
+                case COMPACT -> new CompactSet<>(initCapacity);
+                case CONCURRENT -> ConcurrentHashMap.newKeySet(initCapacity);
+            };
+        }
+
+        public <K, V> Map<K, V> createMap() {
+            if (this == CONCURRENT) {
+                return new ConcurrentHashMap<>();
+            }
+            return new HashMap<>();
+        }
+
+        public <K, V> Map<K, V> createMap(int initCapacity) {
+            if (this == CONCURRENT) {
+                return new ConcurrentHashMap<>(initCapacity);
+            }
+            return new HashMap<>(initCapacity);
+        }
+    }
+
     public static <T> List<T> createList() {
         return new ArrayList<>();
-//        return new CopyOnWriteArrayList<>();
     }
 
     public static <T> Set<T> createSet() {
         return new HashSet<>();
-//        return ConcurrentHashMap.newKeySet();
     }
 
     public static <T> Set<T> createSet(int initCapacity) {
         return new HashSet<>(initCapacity);
-//        return ConcurrentHashMap.newKeySet(initCapacity);
     }
 
     public static <K, V> Map<K, V> createMap() {
         return new HashMap<>();
-//        return new ConcurrentHashMap<>();
     }
 
     public static <K, V> Map<K, V> createMap(int initCapacity) {
         return new HashMap<>(initCapacity);
-//        return new ConcurrentHashMap<>(initCapacity);
     }
 }
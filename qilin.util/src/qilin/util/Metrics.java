@@ -0,0 +1,258 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.util;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * The metrics of a run: tags describing the run, counters, gauges (the last value set) and timers (the number,
+ * total and maximal duration of the timed sections). A metric is created on its first use by name and updating
+ * it is a map lookup plus an atomic update, so metrics may be recorded from concurrent phases. The whole run is
+ * exported to one file, in JSON or CSV, with names sorted so that the files of two runs can be compared line by
+ * line. Every Stopwatch also records its sections into the timer of its name.
+ * */
+public class Metrics {
+    private static volatile Metrics metrics = new Metrics();
+
+    public static Metrics v() {
+        return metrics;
+    }
+
+    /**
+     * Starts a new run, discarding the metrics recorded so far.
+     */
+    public static void reset() {
+        metrics = new Metrics();
+    }
+
+    private final Instant started = Instant.now();
+    private final Map<String, String> tags = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Double> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+    }
+
+    public void tag(String name, String value) {
+        tags.put(name, String.valueOf(value));
+    }
+
+    public void increment(String name) {
+        add(name, 1L);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public void gauge(String name, double value) {
+        gauges.put(name, value);
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /*
+     * Runs the given section and records its elapsed time into the timer of the given name.
+     * */
+    public <T> T time(String name, Supplier<T> section) {
+        long start = System.nanoTime();
+        try {
+            return section.get();
+        } finally {
+            timer(name).record(System.nanoTime() - start);
+        }
+    }
+
+    public void time(String name, Runnable section) {
+        time(name, () -> {
+            section.run();
+            return null;
+        });
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return the value of the counter, 0 if it has never been updated.
+     */
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /**
+     * @return the last value of the gauge, or null if it has never been set.
+     */
+    public Double getGauge(String name) {
+        return gauges.get(name);
+    }
+
+    /**
+     * @return the timer, or null if nothing has been timed under that name.
+     */
+    public Timer getTimer(String name) {
+        return timers.get(name);
+    }
+
+    /**
+     * Writes the metrics to the given file, as CSV if its name ends with ".csv" and as JSON otherwise.
+     */
+    public void export(String file) {
+        File parent = new File(file).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Util.writeToFile(file, file.endsWith(".csv") ? toCsv() : toJson());
+    }
+
+    /*
+     * {"started": ..., "tags": {name: value}, "counters": {name: value}, "gauges": {name: value},
+     *  "timers": {name: {"count": n, "total-ms": t, "max-ms": m}}}
+     * Non-finite gauges are exported as null.
+     * */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n");
+        builder.append("  \"started\": ").append(jsonString(started.toString())).append(",\n");
+        builder.append("  \"tags\": {");
+        appendJsonEntries(builder, new TreeMap<>(tags), Metrics::jsonString);
+        builder.append("},\n  \"counters\": {");
+        appendJsonEntries(builder, new TreeMap<>(counters), counter -> Long.toString(counter.sum()));
+        builder.append("},\n  \"gauges\": {");
+        appendJsonEntries(builder, new TreeMap<>(gauges), Metrics::jsonNumber);
+        builder.append("},\n  \"timers\": {");
+        appendJsonEntries(builder, new TreeMap<>(timers), timer -> "{\"count\": " + timer.getCount()
+                + ", \"total-ms\": " + jsonNumber(timer.getTotalMillis())
+                + ", \"max-ms\": " + jsonNumber(timer.getMaxMillis()) + "}");
+        builder.append("}\n}\n");
+        return builder.toString();
+    }
+
+    /*
+     * One metric per line: kind,name,value,count,max. The value of a timer is its total time in milliseconds;
+     * count and max (in milliseconds) are only set for timers. The start of the run is the tag "started".
+     * */
+    public String toCsv() {
+        StringBuilder builder = new StringBuilder("kind,name,value,count,max\n");
+        appendCsvLine(builder, "tag", "started", started.toString(), "", "");
+        new TreeMap<>(tags).forEach((name, value) -> appendCsvLine(builder, "tag", name, value, "", ""));
+        new TreeMap<>(counters).forEach((name, counter) ->
+                appendCsvLine(builder, "counter", name, Long.toString(counter.sum()), "", ""));
+        new TreeMap<>(gauges).forEach((name, value) ->
+                appendCsvLine(builder, "gauge", name, Double.toString(value), "", ""));
+        new TreeMap<>(timers).forEach((name, timer) ->
+                appendCsvLine(builder, "timer", name, Double.toString(timer.getTotalMillis()),
+                        Long.toString(timer.getCount()), Double.toString(timer.getMaxMillis())));
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private static <V> void appendJsonEntries(StringBuilder builder, Map<String, V> entries,
+                                              Function<V, String> format) {
+        String sep = "\n";
+        for (Map.Entry<String, V> entry : entries.entrySet()) {
+            builder.append(sep).append("    ").append(jsonString(entry.getKey())).append(": ")
+                    .append(format.apply(entry.getValue()));
+            sep = ",\n";
+        }
+        if (!entries.isEmpty()) {
+            builder.append("\n  ");
+        }
+    }
+
+    private static String jsonNumber(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static void appendCsvLine(StringBuilder builder, String... fields) {
+        for (int i = 0; i < fields.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            String field = fields[i];
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                    || field.indexOf('\r') >= 0) {
+                builder.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                builder.append(field);
+            }
+        }
+        builder.append('\n');
+    }
+}
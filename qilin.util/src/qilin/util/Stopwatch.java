@@ -18,6 +18,12 @@
 
 package qilin.util;
 
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Measures the elapsed time of a phase; each section between start and stop is also recorded into the timer of
+ * the same name of the metrics of the run (see Metrics).
+ * */
 public class Stopwatch {
     private final String name;
     private long elapsedTime;
@@ -45,8 +51,10 @@ public class Stopwatch {
 
     public void stop() {
         if (this.inCounting) {
-            this.elapsedTime += System.currentTimeMillis() - this.startTime;
+            long section = System.currentTimeMillis() - this.startTime;
+            this.elapsedTime += section;
             this.inCounting = false;
+            Metrics.v().timer(this.name).record(TimeUnit.MILLISECONDS.toNanos(section));
         }
     }
 
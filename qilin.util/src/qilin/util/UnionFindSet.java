@@ -18,76 +18,45 @@
 
 package qilin.util;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/*
+ * A union-find over a fixed collection of elements, safe to use from several threads.
+ * The elements are indexed once, and the sets are kept by a ConcurrentUnionFind over the indices.
+ * */
 public class UnionFindSet<E> {
-    private final Map<E, Entry> entries;
-    private int nrsets;
+    private final Map<E, Integer> indices;
+    private final Object[] elems;
+    private final ConcurrentUnionFind uf;
 
     public UnionFindSet(final Collection<E> elems) {
-        this.entries = new HashMap<>();
-        elems.forEach(elem -> this.entries.put(elem, new Entry(elem)));
-        this.nrsets = this.entries.size();
+        this.indices = new HashMap<>();
+        elems.forEach(elem -> this.indices.putIfAbsent(elem, this.indices.size()));
+        this.elems = new Object[this.indices.size()];
+        this.indices.forEach((elem, i) -> this.elems[i] = elem);
+        this.uf = new ConcurrentUnionFind(this.elems.length);
     }
 
     public boolean union(final E e1, final E e2) {
-        final Entry root1 = this.findRoot(this.entries.get(e1));
-        final Entry root2 = this.findRoot(this.entries.get(e2));
-        if (root1 == root2) {
-            return false;
-        }
-        if (root1.rank < root2.rank) {
-            root1.parent = root2;
-        } else if (root1.rank > root2.rank) {
-            root2.parent = root1;
-        } else {
-            root2.parent = root1;
-            ++root2.rank;
-        }
-        --this.nrsets;
-        return true;
+        return this.uf.union(this.indices.get(e1), this.indices.get(e2));
     }
 
     public boolean isConnected(final E e1, final E e2) {
-        final Entry root1 = this.findRoot(this.entries.get(e1));
-        final Entry root2 = this.findRoot(this.entries.get(e2));
-        return root1 == root2;
+        return this.uf.isConnected(this.indices.get(e1), this.indices.get(e2));
     }
 
+    @SuppressWarnings("unchecked")
     public E find(final E e) {
-        final Entry ent = this.findRoot(this.entries.get(e));
-        return ent.elem;
+        return (E) this.elems[this.uf.find(this.indices.get(e))];
     }
 
     public int numberOfSets() {
-        return this.nrsets;
+        return this.uf.numberOfSets();
     }
 
     public Collection<Set<E>> getDisjointSets() {
-        return this.entries.keySet().stream()
+        return this.indices.keySet().stream()
                 .collect(Collectors.groupingBy(this::find, Collectors.toSet())).values();
     }
-
-    private Entry findRoot(final Entry ent) {
-        if (ent.parent != ent) {
-            ent.parent = this.findRoot(ent.parent);
-        }
-        return ent.parent;
-    }
-
-    private class Entry {
-        private final E elem;
-        private Entry parent;
-        private int rank;
-
-        private Entry(final E elem) {
-            this.elem = elem;
-            this.parent = this;
-            this.rank = 0;
-        }
-    }
 }
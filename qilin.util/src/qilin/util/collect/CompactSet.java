@@ -0,0 +1,160 @@
+/* Qilin - a Java Pointer Analysis Framework
+ * Copyright (C) 2021-2030 Qilin developers
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3.0 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <https://www.gnu.org/licenses/lgpl-3.0.en.html>.
+ */
+
+package qilin.util.collect;
+
+import java.util.*;
+
+/*
+ * A set that keeps up to INLINE_LIMIT elements in a plain array, searched linearly, and turns into a HashSet once
+ * it grows beyond. An empty set holds no array at all.
+ * Small sets are the common case in a PAG (e.g., the successors of a node), where a HashSet costs a map, a
+ * table and one entry object per element.
+ * */
+public class CompactSet<E> extends AbstractSet<E> {
+    public static final int INLINE_LIMIT = 4;
+    private Object[] elements;
+    private int size;
+    private Set<E> large;
+
+    public CompactSet() {
+    }
+
+    public CompactSet(int initCapacity) {
+        if (initCapacity > INLINE_LIMIT) {
+            large = new HashSet<>(initCapacity);
+        }
+    }
+
+    @Override
+    public int size() {
+        return large != null ? large.size() : size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (large != null) {
+            return large.contains(o);
+        }
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean add(E e) {
+        if (large != null) {
+            return large.add(e);
+        }
+        if (indexOf(e) >= 0) {
+            return false;
+        }
+        if (size == INLINE_LIMIT) {
+            large = new HashSet<>(INLINE_LIMIT * 4);
+            for (int i = 0; i < size; ++i) {
+                large.add((E) elements[i]);
+            }
+            elements = null;
+            size = 0;
+            return large.add(e);
+        }
+        if (elements == null) {
+            elements = new Object[1];
+        } else if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.min(INLINE_LIMIT, size * 2));
+        }
+        elements[size++] = e;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (large != null) {
+            return large.remove(o);
+        }
+        int i = indexOf(o);
+        if (i < 0) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        large = null;
+        elements = null;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (large != null) {
+            return large.iterator();
+        }
+        return new Iterator<>() {
+            private int next = 0;
+            private boolean canRemove = false;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                canRemove = true;
+                return (E) elements[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                removeAt(--next);
+            }
+        };
+    }
+
+    /**
+     * Returns true if the elements are kept inline, i.e., the set has not outgrown INLINE_LIMIT.
+     */
+    public boolean isInline() {
+        return large == null;
+    }
+
+    private int indexOf(Object o) {
+        for (int i = 0; i < size; ++i) {
+            if (Objects.equals(elements[i], o)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int i) {
+        // keeps the order of the remaining elements, so that an iterator can continue after a removal.
+        System.arraycopy(elements, i + 1, elements, i, size - i - 1);
+        elements[--size] = null;
+    }
+}
@@ -82,7 +82,7 @@ public class UniqueQueue<T> implements Queue<T> {
 
     @Override
     public boolean contains(Object o) {
-        throw new UnsupportedOperationException();
+        return set.contains(o);
     }
 
     @Override
@@ -102,7 +102,11 @@ public class UniqueQueue<T> implements Queue<T> {
 
     @Override
     public boolean remove(Object o) {
-        throw new UnsupportedOperationException();
+        if (set.remove(o)) {
+            queue.remove(o);
+            return true;
+        }
+        return false;
     }
 
     @Override